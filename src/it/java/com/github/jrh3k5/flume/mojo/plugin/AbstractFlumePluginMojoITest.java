@@ -158,10 +158,31 @@ public abstract class AbstractFlumePluginMojoITest {
      *             If any errors occur during the build.
      */
     protected InvocationResult buildProject(String artifactId, LifecyclePhase goal) throws Exception {
+        return buildProject(getPom(artifactId), goal, null);
+    }
+
+    /**
+     * Build a project.
+     * 
+     * @param pom
+     *            A {@link File} representing the POM of the project to build.
+     * @param goal
+     *            The goal to invoke.
+     * @param mavenOpts
+     *            The JVM options with which Maven is to be run; may be {@code null} if Maven is to be run with its default options.
+     * @return An {@link InvocationResult} indicating the result of the build.
+     * @throws Exception
+     *             If any errors occur during the build.
+     * @since 1.2
+     */
+    protected InvocationResult buildProject(File pom, LifecyclePhase goal, String mavenOpts) throws Exception {
         final Properties buildProps = new Properties();
         buildProps.putAll(getBuildArguments());
-        final InvocationRequest request = build.createBasicInvocationRequest(getPom(artifactId), buildProps, Collections.singletonList(goal.id()), getLogFile());
+        final InvocationRequest request = build.createBasicInvocationRequest(pom, buildProps, Collections.singletonList(goal.id()), getLogFile());
         request.setShowErrors(true);
+        if (mavenOpts != null) {
+            request.setMavenOpts(mavenOpts);
+        }
         return build.executeMaven(request);
     }
 
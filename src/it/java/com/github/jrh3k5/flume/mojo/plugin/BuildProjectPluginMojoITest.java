@@ -65,6 +65,24 @@ public class BuildProjectPluginMojoITest extends AbstractFlumePluginMojoITest {
         testProjectPluginAssembly(projectName, projectName, dependencies);
     }
 
+    /**
+     * Test the building of a Flume plugin out of a project when a dependency is transitively excluded. The dependencies reached only through the excluded dependency should be excluded with
+     * it, while those also reached through another dependency (in this case, the Jackson libraries that are also dependencies of Avro IPC) should be retained.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBuildProjectPluginExcludeTransitive() throws Exception {
+        final String projectName = "test-project-exclude-transitive";
+        final Collection<String> dependencies = new ArrayList<String>(getExpectedDependencies());
+        assertThat(dependencies.remove("avro-1.7.3.jar")).isTrue();
+        assertThat(dependencies.remove("paranamer-2.3.jar")).isTrue();
+        assertThat(dependencies.remove("snappy-java-1.0.4.1.jar")).isTrue();
+        assertThat(dependencies).contains("jackson-core-asl-1.8.8.jar", "jackson-mapper-asl-1.8.8.jar");
+        testProjectPluginAssembly(projectName, projectName, dependencies);
+    }
+
     /**
      * Test the building of a Flume plugin out of a project.
      * 
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.shared.invoker.InvocationResult;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.plugin.io.ArchiveUtils;
+
+/**
+ * Integration tests for {@link BuildReactorPluginsMojo}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class BuildReactorPluginsMojoITest extends AbstractFlumePluginMojoITest {
+    /**
+     * Test the bundling of every module of a reactor into a single assembly of Flume plugins.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBuildReactorPlugins() throws Exception {
+        final String projectName = "test-reactor";
+        final InvocationResult result = buildProject(projectName, LifecyclePhase.PACKAGE);
+        assertThat(result.getExitCode()).isZero();
+
+        final File projectDirectory = getTestProjectDirectory(projectName);
+        final String version = getTestProjectVersion();
+        final File bundle = new File(projectDirectory, String.format("reactor-bundle/target/reactor-bundle-%s-flume-plugins.tar.gz", version));
+        assertThat(bundle).exists();
+        // Only the last project of the reactor builds the bundle
+        assertThat(new File(projectDirectory, String.format("reactor-source/target/reactor-source-%s-flume-plugins.tar.gz", version))).doesNotExist();
+
+        final File gunzipped = new File(getTestDirectory(), FileUtils.removeExtension(bundle.getName()));
+        final File untarredDirectory = new File(getTestDirectory(), "untarred");
+        final ArchiveUtils archiveUtils = getArchiveUtils();
+        archiveUtils.gunzipFile(bundle, gunzipped);
+        archiveUtils.untarFile(gunzipped, untarredDirectory);
+        // Modules packaged as POMs, such as the one building the bundle, are not plugins
+        assertThat(untarredDirectory.list()).containsOnly("reactor-sink", "reactor-source");
+
+        final List<String> sinkDependencies = new ArrayList<String>(getDependencies("flume-hdfs-sink"));
+        sinkDependencies.add("flume-hdfs-sink-1.4.0.jar");
+        verifyPlugin(new File(untarredDirectory, "reactor-sink"), "reactor-sink", sinkDependencies);
+
+        // A module depending upon another module of the reactor should be bundled with it
+        final List<String> sourceDependencies = new ArrayList<String>(sinkDependencies);
+        sourceDependencies.add(String.format("reactor-sink-%s.jar", version));
+        verifyPlugin(new File(untarredDirectory, "reactor-source"), "reactor-source", sourceDependencies);
+    }
+
+    /**
+     * Verify the contents of a plugin within the bundle.
+     * 
+     * @param pluginDirectory
+     *            A {@link File} representing the directory of the plugin.
+     * @param projectName
+     *            The name of the project out of which the plugin was built.
+     * @param dependencies
+     *            A {@link Collection} of filenames expected to be packaged as dependencies of the plugin.
+     * @throws Exception
+     *             If any errors occur during the verification.
+     */
+    private void verifyPlugin(File pluginDirectory, String projectName, Collection<String> dependencies) throws Exception {
+        final File libDirectory = new File(pluginDirectory, "lib");
+        assertThat(libDirectory.list()).containsOnly(String.format("%s-%s.jar", projectName, getTestProjectVersion()));
+
+        final File libExtDirectory = new File(pluginDirectory, "libext");
+        final List<String> libExtFiles = new ArrayList<String>(FileUtils.getFileNames(libExtDirectory, null, null, false));
+        assertThat(libExtFiles).containsOnly(dependencies.toArray());
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assume.assumeNoException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.shared.invoker.InvocationResult;
+import org.junit.Test;
+
+/**
+ * Integration tests of how the building of a plugin scales with the size and shape of its dependency graph. Each test builds a plugin out of a {@link SyntheticDependencyGraph} while Maven
+ * is recording with Java Flight Recorder, and compares the duration of the build and the peak use of the heap during it - as recorded by the {@code BuildPlugin} event of the plugin -
+ * against the baselines in {@code scalability.baselines}. A measurement may exceed its baseline by a factor of up to the value of the {@code scalability.tolerance} system property (3, by
+ * default) before the test fails. Every measurement is written to {@code target/scalability} so that the baselines can be updated from it.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ScalabilityITest extends AbstractFlumePluginMojoITest {
+    private static final String BUILD_PLUGIN_EVENT = "com.github.jrh3k5.flume.BuildPlugin";
+
+    /**
+     * Build a plugin out of 2,040 artifacts: 40 direct dependencies, each with 50 dependencies of their own.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWideGraph() throws Exception {
+        testScalability("wide", SyntheticDependencyGraph.wide(40, 50));
+    }
+
+    /**
+     * Build a plugin out of a chain of 400 artifacts, each of which depends on the next.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testDeepGraph() throws Exception {
+        testScalability("deep", SyntheticDependencyGraph.deep(400));
+    }
+
+    /**
+     * Build a plugin out of 1,000 artifacts in 20 layers of diamonds, so that the artifacts of the last layer are each reached through about half a million paths.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testDiamondGraph() throws Exception {
+        testScalability("diamond", SyntheticDependencyGraph.diamond(20, 50));
+    }
+
+    /**
+     * Build a plugin out of a synthetic dependency graph and compare its measurements against their baselines.
+     * 
+     * @param shape
+     *            The name of the shape of the graph, by which its baselines are recorded.
+     * @param graph
+     *            The {@link SyntheticDependencyGraph} out of which the plugin is to be built.
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    private void testScalability(String shape, SyntheticDependencyGraph graph) throws Exception {
+        final Class<?> recordingFileClass = getFlightRecorderClass("jdk.jfr.consumer.RecordingFile");
+        final Class<?> pathClass = getFlightRecorderClass("java.nio.file.Path");
+
+        graph.install(getLocalRepository());
+        final String projectName = "scalability-" + shape;
+        final File projectDirectory = getTestDirectory();
+        FileUtils.deleteDirectory(new File(projectDirectory, "target"));
+        final File recordingFile = new File(projectDirectory, "build.jfr").getAbsoluteFile();
+        FileUtils.deleteQuietly(recordingFile);
+
+        final InvocationResult result = buildProject(graph.writeProject(projectDirectory, projectName), LifecyclePhase.PACKAGE,
+                String.format("-XX:StartFlightRecording=dumponexit=true,filename=%s", recordingFile.getAbsolutePath()));
+        assertThat(result.getExitCode()).isZero();
+
+        // Every artifact in the graph should have been packaged exactly once
+        final File stagingDirectory = new File(projectDirectory, String.format("target/flume-plugins/%s-build-project-plugin-staging/%s", projectName, projectName));
+        assertThat(new File(stagingDirectory, "libext").list()).hasSize(graph.getArtifactCount());
+
+        // Read the measurements of the build from the recording
+        Long wallTime = null;
+        Long peakHeap = null;
+        final Object recordingPath = File.class.getMethod("toPath").invoke(recordingFile);
+        for (Object recordedEvent : (List<?>) recordingFileClass.getMethod("readAllEvents", pathClass).invoke(null, recordingPath)) {
+            final Class<?> recordedEventClass = getFlightRecorderClass("jdk.jfr.consumer.RecordedEvent");
+            final Object eventType = recordedEventClass.getMethod("getEventType").invoke(recordedEvent);
+            if (BUILD_PLUGIN_EVENT.equals(eventType.getClass().getMethod("getName").invoke(eventType))) {
+                final Object duration = recordedEventClass.getMethod("getDuration").invoke(recordedEvent);
+                wallTime = (Long) duration.getClass().getMethod("toMillis").invoke(duration);
+                peakHeap = (Long) recordedEventClass.getMethod("getLong", String.class).invoke(recordedEvent, "peakHeap");
+            }
+        }
+        assertThat(wallTime).as("No " + BUILD_PLUGIN_EVENT + " event was recorded").isNotNull();
+        recordMeasurements(shape, wallTime.longValue(), peakHeap.longValue());
+
+        final Properties baselines = new Properties();
+        final InputStream baselinesStream = getClass().getResourceAsStream("/scalability.baselines");
+        try {
+            baselines.load(baselinesStream);
+        } finally {
+            IOUtils.closeQuietly(baselinesStream);
+        }
+        final double tolerance = Double.parseDouble(System.getProperty("scalability.tolerance", "3"));
+        final long wallTimeBaseline = Long.parseLong(baselines.getProperty(shape + ".wallTime"));
+        final long peakHeapBaseline = Long.parseLong(baselines.getProperty(shape + ".peakHeap"));
+        assertThat(wallTime.longValue()).as(String.format("Wall time (ms) of %s graph against a baseline of %d ms", shape, wallTimeBaseline)).isLessThanOrEqualTo(
+                (long) (wallTimeBaseline * tolerance));
+        assertThat(peakHeap.longValue()).as(String.format("Peak heap (bytes) of %s graph against a baseline of %d bytes", shape, peakHeapBaseline)).isLessThanOrEqualTo(
+                (long) (peakHeapBaseline * tolerance));
+    }
+
+    /**
+     * Record the measurements of a build to {@code target/scalability}.
+     * 
+     * @param shape
+     *            The name of the shape of the graph that was built.
+     * @param wallTime
+     *            The duration, in milliseconds, of the build of the plugin.
+     * @param peakHeap
+     *            The peak use, in bytes, of the heap during the build of the plugin.
+     * @throws Exception
+     *             If any errors occur while recording the measurements.
+     */
+    private void recordMeasurements(String shape, long wallTime, long peakHeap) throws Exception {
+        final Properties measurements = new Properties();
+        measurements.setProperty(shape + ".wallTime", Long.toString(wallTime));
+        measurements.setProperty(shape + ".peakHeap", Long.toString(peakHeap));
+        final File measurementsFile = new File("target/scalability", shape + ".properties");
+        FileUtils.forceMkdir(measurementsFile.getParentFile());
+        final OutputStream measurementsStream = new FileOutputStream(measurementsFile);
+        try {
+            measurements.store(measurementsStream, "Measurements of the build of a plugin out of a " + shape + " graph");
+        } finally {
+            IOUtils.closeQuietly(measurementsStream);
+        }
+    }
+
+    /**
+     * Load a class of the Flight Recorder API, skipping the test if the running JVM does not support it.
+     * 
+     * @param className
+     *            The name of the class to be loaded.
+     * @return The loaded {@link Class}.
+     */
+    private Class<?> getFlightRecorderClass(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            assumeNoException(e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A generator of synthetic dependency graphs, used to test how the building of a plugin scales with the size and shape of its dependency graph. Every artifact of a graph is a small JAR
+ * whose POM declares its dependencies within the graph; the artifacts are installed directly into a local repository, so that they can be resolved without a remote repository.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class SyntheticDependencyGraph {
+    /**
+     * The group ID of every synthetic artifact.
+     */
+    public static final String GROUP_ID = "com.github.jrh3k5.flume.synthetic";
+    /**
+     * The version of every synthetic artifact.
+     */
+    public static final String VERSION = "1.0";
+    private static final int CONTENT_SIZE = 2048;
+    private final Map<String, List<String>> dependencies = new LinkedHashMap<String, List<String>>();
+    private final List<String> roots = new ArrayList<String>();
+
+    /**
+     * Create a wide, shallow graph: a number of root artifacts, each of which has a number of dependencies of its own.
+     * 
+     * @param rootCount
+     *            The number of root artifacts.
+     * @param leafCount
+     *            The number of dependencies of each root artifact.
+     * @return A {@link SyntheticDependencyGraph} of {@code rootCount * (leafCount + 1)} artifacts.
+     */
+    public static SyntheticDependencyGraph wide(int rootCount, int leafCount) {
+        final SyntheticDependencyGraph graph = new SyntheticDependencyGraph();
+        for (int root = 0; root < rootCount; root++) {
+            final List<String> leaves = new ArrayList<String>(leafCount);
+            for (int leaf = 0; leaf < leafCount; leaf++) {
+                leaves.add(graph.add(String.format("wide-%d-%d", root, leaf), Collections.<String> emptyList()));
+            }
+            graph.roots.add(graph.add(String.format("wide-%d", root), leaves));
+        }
+        return graph;
+    }
+
+    /**
+     * Create a deep graph: a single chain of artifacts, each of which depends on the next.
+     * 
+     * @param depth
+     *            The number of artifacts in the chain.
+     * @return A {@link SyntheticDependencyGraph} of {@code depth} artifacts.
+     */
+    public static SyntheticDependencyGraph deep(int depth) {
+        final SyntheticDependencyGraph graph = new SyntheticDependencyGraph();
+        String next = null;
+        for (int level = depth - 1; level >= 0; level--) {
+            next = graph.add(String.format("deep-%d", level), next == null ? Collections.<String> emptyList() : Collections.singletonList(next));
+        }
+        graph.roots.add(next);
+        return graph;
+    }
+
+    /**
+     * Create a graph of diamonds: layers of artifacts in which each artifact depends on two artifacts of the next layer, so that every artifact beneath the first layer is reached through
+     * many paths - a number that doubles with each layer.
+     * 
+     * @param layerCount
+     *            The number of layers.
+     * @param width
+     *            The number of artifacts in each layer.
+     * @return A {@link SyntheticDependencyGraph} of {@code layerCount * width} artifacts.
+     */
+    public static SyntheticDependencyGraph diamond(int layerCount, int width) {
+        final SyntheticDependencyGraph graph = new SyntheticDependencyGraph();
+        for (int layer = layerCount - 1; layer >= 0; layer--) {
+            for (int i = 0; i < width; i++) {
+                final List<String> children = new ArrayList<String>(2);
+                if (layer < layerCount - 1) {
+                    children.add(String.format("diamond-%d-%d", layer + 1, i));
+                    children.add(String.format("diamond-%d-%d", layer + 1, (i + 1) % width));
+                }
+                final String artifactId = graph.add(String.format("diamond-%d-%d", layer, i), children);
+                if (layer == 0) {
+                    graph.roots.add(artifactId);
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Create an empty graph.
+     */
+    private SyntheticDependencyGraph() {
+    }
+
+    /**
+     * Get the number of artifacts in the graph.
+     * 
+     * @return The number of artifacts in the graph.
+     */
+    public int getArtifactCount() {
+        return dependencies.size();
+    }
+
+    /**
+     * Get the root artifacts of the graph, upon which a project using the graph is to depend.
+     * 
+     * @return A {@link List} of the artifact IDs of the root artifacts of the graph.
+     */
+    public List<String> getRoots() {
+        return Collections.unmodifiableList(roots);
+    }
+
+    /**
+     * Install every artifact of this graph into a local repository. Artifacts that are already installed are not written again.
+     * 
+     * @param localRepository
+     *            A {@link File} representing the local repository into which the artifacts are to be installed.
+     * @throws IOException
+     *             If any errors occur while installing the artifacts.
+     */
+    public void install(File localRepository) throws IOException {
+        final File groupDirectory = new File(localRepository, GROUP_ID.replace('.', File.separatorChar));
+        for (Map.Entry<String, List<String>> artifact : dependencies.entrySet()) {
+            final File artifactDirectory = new File(new File(groupDirectory, artifact.getKey()), VERSION);
+            final String baseName = String.format("%s-%s", artifact.getKey(), VERSION);
+            final File pomFile = new File(artifactDirectory, baseName + ".pom");
+            if (pomFile.isFile()) {
+                continue;
+            }
+            writeJar(artifact.getKey(), new File(artifactDirectory, baseName + ".jar"));
+            // The POM is written last, so that an interrupted installation is completed by the next
+            FileUtils.writeStringToFile(pomFile, formatPom(artifact.getKey(), artifact.getValue()), "UTF-8");
+        }
+    }
+
+    /**
+     * Write the POM of a project that builds a plugin out of this graph.
+     * 
+     * @param projectDirectory
+     *            A {@link File} representing the directory of the project, which is to be a directory beneath the directory of the test class beneath {@code target/}, so that the
+     *            project inherits from the parent of the test projects.
+     * @param artifactId
+     *            The artifact ID of the project.
+     * @return A {@link File} representing the written POM.
+     * @throws IOException
+     *             If any errors occur while writing the POM.
+     */
+    public File writeProject(File projectDirectory, String artifactId) throws IOException {
+        final StringBuilder pom = new StringBuilder();
+        pom.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        pom.append("    <modelVersion>4.0.0</modelVersion>\n");
+        pom.append("    <parent>\n");
+        pom.append("        <groupId>com.github.jrh3k5</groupId>\n");
+        pom.append("        <artifactId>flume-plugin-maven-plugin-test-projects</artifactId>\n");
+        pom.append("        <version>1.0-SNAPSHOT</version>\n");
+        pom.append("        <relativePath>../../test-classes/flume-plugin-maven-plugin-test-projects/pom.xml</relativePath>\n");
+        pom.append("    </parent>\n");
+        pom.append("    <artifactId>").append(artifactId).append("</artifactId>\n");
+        pom.append("    <build>\n");
+        pom.append("        <plugins>\n");
+        pom.append("            <plugin>\n");
+        pom.append("                <groupId>com.github.jrh3k5</groupId>\n");
+        pom.append("                <artifactId>flume-plugin-maven-plugin</artifactId>\n");
+        pom.append("                <executions>\n");
+        pom.append("                    <execution>\n");
+        pom.append("                        <id>build-project-plugin</id>\n");
+        pom.append("                        <goals>\n");
+        pom.append("                            <goal>build-project-plugin</goal>\n");
+        pom.append("                        </goals>\n");
+        pom.append("                    </execution>\n");
+        pom.append("                </executions>\n");
+        pom.append("            </plugin>\n");
+        pom.append("        </plugins>\n");
+        pom.append("    </build>\n");
+        appendDependencies(pom, roots);
+        pom.append("</project>\n");
+
+        final File pomFile = new File(projectDirectory, "pom.xml");
+        FileUtils.writeStringToFile(pomFile, pom.toString(), "UTF-8");
+        return pomFile;
+    }
+
+    /**
+     * Add an artifact to the graph.
+     * 
+     * @param artifactId
+     *            The artifact ID of the artifact.
+     * @param children
+     *            A {@link List} of the artifact IDs of the dependencies of the artifact.
+     * @return The given artifact ID.
+     */
+    private String add(String artifactId, List<String> children) {
+        dependencies.put(artifactId, children);
+        return artifactId;
+    }
+
+    /**
+     * Format the POM of an artifact in the graph.
+     * 
+     * @param artifactId
+     *            The artifact ID of the artifact.
+     * @param children
+     *            A {@link List} of the artifact IDs of the dependencies of the artifact.
+     * @return The POM of the artifact.
+     */
+    private String formatPom(String artifactId, List<String> children) {
+        final StringBuilder pom = new StringBuilder();
+        pom.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        pom.append("    <modelVersion>4.0.0</modelVersion>\n");
+        pom.append("    <groupId>").append(GROUP_ID).append("</groupId>\n");
+        pom.append("    <artifactId>").append(artifactId).append("</artifactId>\n");
+        pom.append("    <version>").append(VERSION).append("</version>\n");
+        appendDependencies(pom, children);
+        pom.append("</project>\n");
+        return pom.toString();
+    }
+
+    /**
+     * Append a {@code <dependencies />} element to a POM.
+     * 
+     * @param pom
+     *            The {@link StringBuilder} containing the POM to which the element is to be appended.
+     * @param artifactIds
+     *            A {@link List} of the artifact IDs of the synthetic artifacts to be listed as dependencies.
+     */
+    private void appendDependencies(StringBuilder pom, List<String> artifactIds) {
+        if (artifactIds.isEmpty()) {
+            return;
+        }
+        pom.append("    <dependencies>\n");
+        for (String artifactId : artifactIds) {
+            pom.append("        <dependency>\n");
+            pom.append("            <groupId>").append(GROUP_ID).append("</groupId>\n");
+            pom.append("            <artifactId>").append(artifactId).append("</artifactId>\n");
+            pom.append("            <version>").append(VERSION).append("</version>\n");
+            pom.append("        </dependency>\n");
+        }
+        pom.append("    </dependencies>\n");
+    }
+
+    /**
+     * Write the JAR of an artifact in the graph, containing a single entry of content that is unique to the artifact.
+     * 
+     * @param artifactId
+     *            The artifact ID of the artifact.
+     * @param jarFile
+     *            A {@link File} representing the location to which the JAR is to be written.
+     * @throws IOException
+     *             If any errors occur while writing the JAR.
+     */
+    private void writeJar(String artifactId, File jarFile) throws IOException {
+        FileUtils.forceMkdir(jarFile.getParentFile());
+        final byte[] content = new byte[CONTENT_SIZE];
+        new Random(artifactId.hashCode()).nextBytes(content);
+        final JarOutputStream jarStream = new JarOutputStream(new FileOutputStream(jarFile), new Manifest());
+        try {
+            jarStream.putNextEntry(new ZipEntry(String.format("%s/%s.dat", GROUP_ID.replace('.', '/'), artifactId)));
+            jarStream.write(content);
+            jarStream.closeEntry();
+        } finally {
+            IOUtils.closeQuietly(jarStream);
+        }
+    }
+}
@@ -18,19 +18,40 @@
 package com.github.jrh3k5.flume.mojo.plugin;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipException;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
 import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactNotFoundException;
+import org.apache.maven.artifact.resolver.ArtifactResolutionException;
 import org.apache.maven.artifact.resolver.ArtifactResolver;
-import org.apache.maven.artifact.resolver.filter.AndArtifactFilter;
 import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
@@ -39,7 +60,21 @@ import org.apache.maven.shared.dependency.graph.DependencyGraphBuilder;
 import org.apache.maven.shared.dependency.graph.DependencyGraphBuilderException;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
 
+import com.github.jrh3k5.flume.mojo.plugin.analysis.DuplicateClassAnalyzer;
+import com.github.jrh3k5.flume.mojo.plugin.analysis.DuplicateClassReport;
+import com.github.jrh3k5.flume.mojo.plugin.analysis.GraphExporter;
+import com.github.jrh3k5.flume.mojo.plugin.analysis.PackagedGraph;
+import com.github.jrh3k5.flume.mojo.plugin.analysis.SizeAnalyzer;
+import com.github.jrh3k5.flume.mojo.plugin.analysis.SizeReport;
+import com.github.jrh3k5.flume.mojo.plugin.artifact.ResolutionLockfile;
+import com.github.jrh3k5.flume.mojo.plugin.cds.ClassListGenerator;
 import com.github.jrh3k5.flume.mojo.plugin.io.ArchiveUtils;
+import com.github.jrh3k5.flume.mojo.plugin.io.ChecksumManifest;
+import com.github.jrh3k5.flume.mojo.plugin.io.DirectorySynchronizer;
+import com.github.jrh3k5.flume.mojo.plugin.io.JarCompactor;
+import com.github.jrh3k5.flume.mojo.plugin.jfr.PackagingEvent;
+import com.github.jrh3k5.flume.mojo.plugin.jfr.PackagingEventType;
+import com.github.jrh3k5.flume.mojo.plugin.jfr.PeakHeapMeter;
 import com.github.jrh3k5.flume.mojo.plugin.plexus.MojoLogger;
 
 /**
@@ -48,8 +83,52 @@ import com.github.jrh3k5.flume.mojo.plugin.plexus.MojoLogger;
  * @author Joshua Hyde
  */
 public abstract class AbstractFlumePluginMojo extends AbstractMojo {
+    private static final String EXPLODED_FORMAT = "exploded";
+    private static final String EXPLODED_STATE_FILENAME = "exploded.state";
+    private static final String STAGING_STATE_FILENAME = "staging.state";
+    private static final String TAR_GZ_FORMAT = "tar.gz";
+    private static final String ZIP_FORMAT = "zip";
+    private static final String DUPLICATE_CLASS_WARN = "warn";
+    private static final String DUPLICATE_CLASS_FAIL = "fail";
+    private static final String DUPLICATE_CLASS_EXCLUDE = "exclude";
+    /**
+     * The number of duplicated classes of each group of JARs that are logged; the written report lists them all.
+     */
+    private static final int LOGGED_DUPLICATE_CLASSES = 5;
     private final ArtifactFilter providedArtifactFilter = new ScopeArtifactFilter(Artifact.SCOPE_RUNTIME);
 
+    /**
+     * Indicate whether or not a report of how much each library contributes to the size of the plugin should be produced. If enabled, the report - listing the uncompressed and estimated
+     * compressed size of each dependency, the path through the dependency graph that pulled it into the plugin, and how much an exclusion of it would remove - is logged and written alongside
+     * the assembly with a {@code .size.txt} extension. Producing the report requires an additional read of every library.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "false")
+    private boolean analyzeSize;
+
+    /**
+     * Indicate whether or not the JARs of the plugin should be checked for classes packaged in more than one of them. The JARs in the {@code lib/} and {@code libext/} directories of the
+     * plugin - along with those of any other plugins already in the directory into which it is staged, such as the other plugins of a {@code build-reactor-plugins} bundle or of the
+     * {@link #explodedDirectory exploded directory}, which share the class path of a Flume agent - are indexed in a single concurrent scan, and the classes of the plugin found in more than
+     * one JAR are handled according to the {@link #duplicateClassPolicy duplicate class policy} and written to a report alongside the assembly with a {@code .duplicate-classes.txt}
+     * extension.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "false")
+    private boolean analyzeDuplicateClasses;
+
+    /**
+     * How classes packaged in more than one JAR are handled when {@link #analyzeDuplicateClasses duplicate classes are analyzed}: {@code warn} logs them as warnings; {@code fail} logs them as
+     * errors and fails the build; and {@code exclude} leaves out of {@code libext/} each JAR whose every class is also in another JAR that is kept, and logs any duplicates that remain as
+     * warnings.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = DUPLICATE_CLASS_WARN)
+    private String duplicateClassPolicy;
+
     /**
      * An {@link ArtifactRepository} used to resolve an artifact into an actual file.
      */
@@ -57,11 +136,23 @@ public abstract class AbstractFlumePluginMojo extends AbstractMojo {
     private ArtifactRepository artifactRepository;
 
     /**
-     * An {@link ArtifactResolver} used to copy dependencies.
+     * An {@link ArtifactResolver} used to download dependencies that are not yet present in the local repository.
      */
     @Component
     private ArtifactResolver artifactResolver;
 
+    /**
+     * The format of the plugin assembly: either {@code tar.gz}, {@code zip}, or {@code exploded}. A {@code zip} assembly stores the libraries of the plugin - which are already compressed - as
+     * they are, compressing only its other files, and can be read one entry at a time without decompressing the entries before it. An {@code exploded} plugin is not archived at all: its
+     * {@code lib/} and {@code libext/} directories are written directly into the {@link #explodedDirectory exploded directory}, with each library linked to, rather than copied from, its source
+     * where the filesystem allows it. Nothing is attached to the project, and neither the size report nor the dependency graph is written, for an exploded plugin; it is intended for quick
+     * local iterations against a Flume installation.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = TAR_GZ_FORMAT)
+    private String archiveFormat;
+
     /**
      * Indicate whether or not the assembly should be attached to the project.
      */
@@ -74,18 +165,131 @@ public abstract class AbstractFlumePluginMojo extends AbstractMojo {
     @Parameter(required = true, defaultValue = "flume-plugin")
     private String classifierSuffix;
 
+    /**
+     * Indicate whether or not the JARs staged into {@code libext/} should be compacted. If enabled, each JAR is rewritten without the entries matching the
+     * {@link #compactionExcludes compaction excludes} - entries that are of no use at runtime - and, optionally, with its remaining entries recompressed at a
+     * {@link #compactionLevel higher level}. Each JAR is compacted once and cached by its contents in the {@link #compactionCacheDirectory compaction cache directory}.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "false")
+    private boolean compactLibraries;
+
+    /**
+     * The directory in which compacted JARs are cached. The cache is keyed by the contents of each JAR and the compaction configuration, so it can be moved outside of the build directory and
+     * shared by any number of projects.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "${project.build.directory}/flume-plugins/compaction-cache")
+    private File compactionCacheDirectory;
+
+    /**
+     * The Ant-style patterns (e.g., {@code META-INF/maven/**}) of the entries to be removed from each compacted JAR. If not set, the POMs embedded by Maven under {@code META-INF/maven/}, Java
+     * source files, and signature files are removed.
+     * 
+     * @since 1.2
+     */
+    @Parameter
+    private List<String> compactionExcludes;
+
+    /**
+     * The level, from 0 to 9, at which the entries of compacted JARs are recompressed; -1 recompresses them at the default level of the JVM.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "-1")
+    private int compactionLevel;
+
+    /**
+     * Indicate whether or not a list of the classes loaded from the plugin should be written into the root of the plugin as {@code plugin.classlist}. The list is recorded by a JVM, forked
+     * from the {@link #classListJavaExecutable class list Java executable}, that loads every class of the plugin; agents can use it to create a class data sharing archive that speeds up the
+     * loading of the plugin.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "false")
+    private boolean generateClassList;
+
+    /**
+     * The {@code java} executable of the JVM forked to record the {@link #generateClassList class list} of the plugin. This should be of the same version as the JVM that runs the agents; JVMs
+     * before Java 9 record only the classes of the JDK.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "${java.home}/bin/java")
+    private File classListJavaExecutable;
+
+    /**
+     * Indicate whether or not checksums should be generated for the plugin. If enabled, a manifest of each entry's path, size, and SHA-256 checksum is written into the root of the plugin as
+     * {@code plugin.manifest} and {@code .sha256} and {@code .sha512} files are created (and attached, if the assembly is attached) alongside the assembly. All checksums are computed as the bytes are
+     * copied and compressed, so no additional reads of the plugin contents are required. This is disabled by default, so that the contents and attached artifacts of existing
+     * builds are unchanged.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "false")
+    private boolean generateChecksums;
+
+    /**
+     * Indicate whether or not a {@code tar.gz} assembly should be written so that a single file can be read from it without decompressing everything before it. If enabled, each file is
+     * compressed, along with any directories before it, into a GZIP member of its own, and a {@code .index} file giving the offset and length of the member of each file is written (and
+     * attached, if the assembly is attached) alongside the assembly. The assembly remains an ordinary {@code tar.gz} file that any GZIP reader can read; it is slightly larger, as each member
+     * is compressed separately.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "false")
+    private boolean indexArchive;
+
     /**
      * A {@link DependencyGraphBuilder} used to assemble the dependency graph of the project consuming this plugin.
      */
     @Component(hint = "default")
     private DependencyGraphBuilder dependencyGraphBuilder;
 
+    /**
+     * Indicate whether or not the dependency graph of the plugin should be exported. If enabled, the graph - including the size of each packaged artifact and whether each artifact was
+     * packaged, rejected by its scope, rejected by an exclusion, or already packaged through another path - is written alongside the assembly as JSON (with a {@code .graph.json} extension) and
+     * in the DOT language (with a {@code .graph.dot} extension).
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "false")
+    private boolean exportDependencyGraph;
+
+    /**
+     * The directory into which a plugin is written when the {@link #archiveFormat archive format} is {@code exploded}; the plugin is written into a directory, named for the plugin, within it.
+     * This may be pointed at the {@code plugins.d} directory of a local Flume installation.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "${project.build.directory}/plugins.d")
+    private File explodedDirectory;
+
+    /**
+     * The ID of the execution of this mojo, used to isolate the staging directories of multiple executions building plugins of the same name.
+     * 
+     * @since 1.2
+     */
+    @Parameter(readonly = true, defaultValue = "${mojo.executionId}")
+    private String executionId;
+
     /**
      * The directory to which the final artifact should be written to.
      */
     @Parameter(required = true, defaultValue = "${project.build.directory}")
     private File outputDirectory;
 
+    /**
+     * The maximum size, in bytes, of the plugin assembly. If the assembly is larger than this, the build fails and a report of the size of each library in the plugin is logged. If not set,
+     * the size of the assembly is not limited.
+     * 
+     * @since 1.2
+     */
+    @Parameter
+    private Long maximumArchiveSize;
+
     /**
      * The location where the plugin assembly will be staged prior to completion.
      */
@@ -111,7 +315,30 @@ public abstract class AbstractFlumePluginMojo extends AbstractMojo {
     private List<ArtifactRepository> remoteArtifactRepositories;
 
     /**
-     * A {@link List} of {@link Exclusion} objects representing the artifacts to be excluded from assembly.
+     * The location of a lockfile recording the artifacts resolved for the plugin. If set, the artifacts packaged into the plugin - along with the size and SHA-1 checksum of each - are
+     * written to this file, keyed by a hash of the dependencies and dependency management of the project, its remote repositories, and the configured exclusions. A later build whose key
+     * matches looks up the recorded artifacts directly, without building the dependency graph of the project; if the key does not match, or the file of any recorded artifact no longer
+     * matches, the dependency graph is built and the lockfile rewritten. Only files modified since the lockfile was written are read to check their checksums. A lockfile is not used if the
+     * project declares a snapshot or a version range, as their resolution can change without changing the key, and is not written if any packaged artifact is a snapshot or was selected
+     * from a version range; nor is it used if the size of the plugin is to be analyzed or its dependency graph exported, as those need the full dependency graph.
+     * 
+     * @since 1.2
+     */
+    @Parameter
+    private File resolutionLockfile;
+
+    /**
+     * The number of artifacts that may be downloaded concurrently when dependencies of the plugin are not yet present in the local repository.
+     * 
+     * @since 1.2
+     */
+    @Parameter(required = true, defaultValue = "4")
+    private int resolutionThreads;
+
+    /**
+     * A {@link List} of {@link Exclusion} objects representing the artifacts to be excluded from assembly. An excluded artifact is left out of the plugin along with its dependencies; a
+     * {@link Exclusion#isTransitive() transitive} exclusion is applied during resolution, so that its dependencies are never read and any of them also reached through a path that is not
+     * excluded is still packaged.
      */
     @Parameter
     private List<Exclusion> exclusions = Collections.emptyList();
@@ -138,6 +365,32 @@ public abstract class AbstractFlumePluginMojo extends AbstractMojo {
         return String.format("%s:%s:%s:%s", mavenProject.getGroupId(), mavenProject.getArtifactId(), mavenProject.getVersion(), mavenProject.getPackaging());
     }
 
+    /**
+     * Build the plugin, recording the build as a {@link PackagingEventType#BUILD_PLUGIN} event.
+     * 
+     * @throws MojoExecutionException
+     *             If any errors occur during the build of the plugin.
+     * @throws MojoFailureException
+     *             If the plugin cannot be built as configured.
+     * @see #buildPlugin()
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final PackagingEvent buildEvent = PackagingEventType.BUILD_PLUGIN.begin();
+        // Only meter the heap for a recording, since metering samples the heap on a thread of its own
+        final PeakHeapMeter heapMeter = buildEvent == PackagingEvent.NONE ? null : PeakHeapMeter.start();
+        try {
+            buildPlugin();
+        } finally {
+            if (heapMeter != null) {
+                heapMeter.stop();
+            }
+        }
+        if (heapMeter != null) {
+            buildEvent.commit(getPluginName(), heapMeter.getPeakHeap());
+        }
+    }
+
     /**
      * Build a Flume plugin.
      * 
@@ -147,73 +400,796 @@ public abstract class AbstractFlumePluginMojo extends AbstractMojo {
      *            A {@link MavenProject} representing the project from which dependency information should be read.
      * @throws MojoExecutionException
      *             If any errors occur during the bundling of the plugin archive.
+     * @throws MojoFailureException
+     *             If the plugin archive exceeds the {@link #maximumArchiveSize maximum archive size}.
      */
-    protected void buildFlumePluginArchive(File pluginLibrary, MavenProject mavenProject) throws MojoExecutionException {
+    protected void buildFlumePluginArchive(File pluginLibrary, MavenProject mavenProject) throws MojoExecutionException, MojoFailureException {
+        final String lockKey = getResolutionLockKey(mavenProject, Artifact.SCOPE_RUNTIME);
+        final ResolutionLockfile lockfile = readResolutionLock(lockKey);
+        if (lockfile != null) {
+            buildFlumePluginArchive(pluginLibrary, PackagedGraph.flat(lockfile.getArtifacts()), lockfile.getArtifacts());
+            return;
+        }
+
+        final PackagedGraph graph = PackagedGraph.filter(resolveDependencies(mavenProject, null), providedArtifactFilter, getExclusionArtifactFilter());
+        final List<Artifact> resolvedArtifacts = resolveArtifacts(graph.getIncludedArtifacts());
+        writeResolutionLock(lockKey, null, graph, resolvedArtifacts);
+        buildFlumePluginArchive(pluginLibrary, graph, resolvedArtifacts);
+    }
+
+    /**
+     * Build a Flume plugin out of already-resolved dependencies.
+     * 
+     * @param pluginLibrary
+     *            A {@link File} representing the library that is to copied into the {@code lib/} directory of the plugin.
+     * @param dependencies
+     *            A {@link List} of {@link DependencyNode} objects representing the unfiltered dependencies that, along with all of their children, are to be copied into the {@code libext/}
+     *            directory of the plugin. Any artifact rejected by the given scope filter or the configured exclusions is left out of the plugin, along with everything beneath it.
+     * @param scopeFilter
+     *            An {@link ArtifactFilter} used to reject dependencies whose scope keeps them out of the plugin; may be {@code null} if the scopes of the given dependencies are not to be
+     *            considered.
+     * @throws MojoExecutionException
+     *             If any errors occur during the bundling of the plugin archive.
+     * @throws MojoFailureException
+     *             If the plugin archive exceeds the {@link #maximumArchiveSize maximum archive size}.
+     * @since 1.2
+     */
+    protected void buildFlumePluginArchive(File pluginLibrary, List<DependencyNode> dependencies, ArtifactFilter scopeFilter) throws MojoExecutionException, MojoFailureException {
+        final PackagedGraph graph = PackagedGraph.filter(dependencies, scopeFilter, getExclusionArtifactFilter());
+        buildFlumePluginArchive(pluginLibrary, graph, resolveArtifacts(graph.getIncludedArtifacts()));
+    }
+
+    /**
+     * Build a Flume plugin out of already-resolved artifacts.
+     * 
+     * @param pluginLibrary
+     *            A {@link File} representing the library that is to copied into the {@code lib/} directory of the plugin.
+     * @param graph
+     *            The {@link PackagedGraph} of the dependencies of the plugin.
+     * @param resolvedArtifacts
+     *            A {@link List} of the {@link Artifact} objects included by the given graph, resolved into files, that are to be copied into the {@code libext/} directory of the plugin.
+     * @throws MojoExecutionException
+     *             If any errors occur during the bundling of the plugin archive.
+     * @throws MojoFailureException
+     *             If the plugin archive exceeds the {@link #maximumArchiveSize maximum archive size}.
+     * @since 1.2
+     */
+    protected void buildFlumePluginArchive(File pluginLibrary, PackagedGraph graph, List<Artifact> resolvedArtifacts) throws MojoExecutionException, MojoFailureException {
+        validateArchiveFormat();
+
         final String pluginName = getPluginName();
-        // Create the directory into which the libraries will be copied
-        final File pluginStagingDirectory = new File(pluginsStagingDirectory, String.format("%s-staging", pluginName));
-        final File stagingDirectory = new File(pluginStagingDirectory, pluginName);
+        final File pluginStagingDirectory = getPluginStagingDirectory();
+        final ArchiveUtils archiveUtils = ArchiveUtils.getInstance(new MojoLogger(getLog(), getClass()));
+        if (isExploded()) {
+            // The state is kept in the staging directory so that nothing but the plugin is written into the exploded directory
+            final StagedPlugin explodedPlugin = stagePlugin(archiveUtils, pluginName, pluginLibrary, graph, resolvedArtifacts, new File(explodedDirectory, pluginName),
+                    getExplodedStateFile());
+            getLog().info(String.format("Wrote exploded Flume plugin to %s", explodedPlugin.getDirectory().getAbsolutePath()));
+            return;
+        }
+
+        final StagedPlugin stagedPlugin = stagePlugin(archiveUtils, pluginName, pluginLibrary, graph, resolvedArtifacts, new File(pluginStagingDirectory, pluginName), new File(
+                pluginStagingDirectory, STAGING_STATE_FILENAME));
+
+        String classifier = null;
+        // If the plugin name is the same as the artifact, then don't bother over-complicating the classifier
+        if (project.getArtifactId().equals(pluginName)) {
+            classifier = classifierSuffix;
+        } else {
+            classifier = String.format("%s-%s", pluginName, classifierSuffix);
+        }
+        // Archive only the plugin directory, so that the staging state is not included
+        final File archiveFile = writeArchive(archiveUtils, stagedPlugin.getDirectory(), pluginName + "/", pluginStagingDirectory, classifier);
+
+        final boolean overBudget = isOverBudget(archiveFile);
+        reportPlugin(stagedPlugin, archiveFile, archiveFile.getName(), overBudget);
+        if (overBudget) {
+            throw newOverBudgetFailure(archiveFile);
+        }
+
+        attachArchive(archiveFile, classifier);
+    }
+
+    /**
+     * Verify that the configured {@link #archiveFormat archive format} is supported.
+     * 
+     * @throws MojoExecutionException
+     *             If the configured archive format is not supported.
+     * @since 1.2
+     */
+    protected void validateArchiveFormat() throws MojoExecutionException {
+        if (!TAR_GZ_FORMAT.equals(archiveFormat) && !ZIP_FORMAT.equals(archiveFormat) && !EXPLODED_FORMAT.equals(archiveFormat)) {
+            throw new MojoExecutionException(String.format("Unsupported archive format %s; it must be either %s, %s, or %s.", archiveFormat, TAR_GZ_FORMAT, ZIP_FORMAT, EXPLODED_FORMAT));
+        }
+    }
+
+    /**
+     * Determine whether the plugin is to be written as an exploded directory rather than archived.
+     * 
+     * @return {@code true} if the {@link #archiveFormat archive format} is {@code exploded}; {@code false} if not.
+     * @since 1.2
+     */
+    protected boolean isExploded() {
+        return EXPLODED_FORMAT.equals(archiveFormat);
+    }
+
+    /**
+     * Stage a plugin into a directory, copying only the files that have changed since the plugin was last staged there.
+     * 
+     * @param archiveUtils
+     *            The {@link ArchiveUtils} used to copy the files of the plugin.
+     * @param pluginName
+     *            The name of the plugin.
+     * @param pluginLibrary
+     *            A {@link File} representing the library that is to copied into the {@code lib/} directory of the plugin.
+     * @param graph
+     *            The {@link PackagedGraph} of the dependencies of the plugin.
+     * @param resolvedArtifacts
+     *            A {@link List} of the {@link Artifact} objects included by the given graph, resolved into files, that are to be copied into the {@code libext/} directory of the plugin.
+     * @param stagingDirectory
+     *            A {@link File} representing the directory into which the plugin is to be staged.
+     * @param stateFile
+     *            A {@link File} representing the file in which the state of the staging directory is recorded between builds; this must not be within the staging directory.
+     * @return A {@link StagedPlugin} describing the staged plugin.
+     * @throws MojoExecutionException
+     *             If any errors occur during the staging of the plugin.
+     * @throws MojoFailureException
+     *             If classes are packaged in more than one JAR and the {@link #duplicateClassPolicy duplicate class policy} is {@code fail}.
+     * @since 1.2
+     */
+    protected StagedPlugin stagePlugin(ArchiveUtils archiveUtils, String pluginName, File pluginLibrary, PackagedGraph graph, List<Artifact> resolvedArtifacts, File stagingDirectory,
+            File stateFile) throws MojoExecutionException, MojoFailureException {
+        // Open the directory into which the libraries will be copied; files unchanged since the last build are not copied again
+        DirectorySynchronizer synchronizer;
         try {
-            FileUtils.forceMkdir(stagingDirectory);
+            synchronizer = DirectorySynchronizer.open(archiveUtils, stagingDirectory, stateFile, generateChecksums, isExploded());
         } catch (IOException e) {
-            throw new MojoExecutionException("Failed to create directory: " + stagingDirectory.getAbsolutePath(), e);
+            throw new MojoExecutionException("Failed to open staging directory: " + stagingDirectory.getAbsolutePath(), e);
         }
 
-        final File libDirectory = new File(stagingDirectory, "lib");
+        final ChecksumManifest checksumManifest = new ChecksumManifest();
+
         // Copy the primary library
         try {
-            FileUtils.copyFile(pluginLibrary, new File(libDirectory, pluginLibrary.getName()));
+            stageFile(synchronizer, pluginLibrary, "lib/" + pluginLibrary.getName(), checksumManifest);
         } catch (IOException e) {
-            throw new MojoExecutionException("Failed to copy primary artifact to staging lib directory: " + libDirectory.getAbsolutePath(), e);
+            throw new MojoExecutionException("Failed to copy primary artifact to staging lib directory: " + new File(stagingDirectory, "lib").getAbsolutePath(), e);
+        }
+
+        // Determine the file to be copied into the libext directory for each dependency of the plugin
+        final Map<String, Artifact> libExtArtifacts = new LinkedHashMap<String, Artifact>();
+        final Map<String, File> libExtFiles = new LinkedHashMap<String, File>();
+        final JarCompactor compactor = compactLibraries ? newJarCompactor() : null;
+        for (Artifact resolvedArtifact : resolvedArtifacts) {
+            final String filename = resolvedArtifact.getFile().getName();
+            // Because of the way that Maven represents dependency trees, the given plugin library may be among its dependencies - it belongs only in lib
+            if (filename.equals(pluginLibrary.getName())) {
+                continue;
+            }
+            libExtArtifacts.put("libext/" + filename, resolvedArtifact);
+            libExtFiles.put("libext/" + filename, compactor == null ? resolvedArtifact.getFile() : compactArtifact(compactor, resolvedArtifact));
+        }
+        if (compactor != null) {
+            getLog().info(String.format("Compacted %d librar(ies), reused %d compacted librar(ies) from %s, and saved %d bytes", compactor.getCompactedCount(), compactor.getCachedCount(),
+                    compactionCacheDirectory.getAbsolutePath(), compactor.getSavedBytes()));
+        }
+
+        if (analyzeDuplicateClasses) {
+            for (String excludedPath : analyzeDuplicateClasses(pluginName, pluginLibrary, libExtFiles, stagingDirectory)) {
+                getLog().info(String.format("Excluded %s from plugin %s, as every class within it is also in another JAR", formatIdentifier(libExtArtifacts.get(excludedPath)),
+                        pluginName));
+                libExtFiles.remove(excludedPath);
+            }
         }
 
         // Copy the dependencies of the plugin into the libext directory
         final File libExtDirectory = new File(stagingDirectory, "libext");
-        final AndArtifactFilter joinFilter = new AndArtifactFilter();
-        joinFilter.add(providedArtifactFilter);
-        joinFilter.add(new ExclusionArtifactFilter(exclusions));
-        for (DependencyNode resolvedDependency : resolveDependencies(mavenProject, joinFilter)) {
-            copyPluginDependency(resolvedDependency, libExtDirectory);
+        final Map<String, File> stagedArtifactFiles = new HashMap<String, File>();
+        for (Map.Entry<String, File> libExtFile : libExtFiles.entrySet()) {
+            final Artifact artifact = libExtArtifacts.get(libExtFile.getKey());
+            stagedArtifactFiles.put(artifact.getId(), libExtFile.getValue());
+            try {
+                stageFile(synchronizer, libExtFile.getValue(), libExtFile.getKey(), checksumManifest);
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Failed to copy artifact %s to %s.", formatIdentifier(artifact), libExtDirectory.getAbsolutePath()), e);
+            }
         }
 
-        // Because of the way that Maven represents dependency trees, the above logic may copy the given plugin library into libext - remove it if so
-        final File pluginLibraryLibExt = new File(libExtDirectory, pluginLibrary.getName());
-        if (pluginLibraryLibExt.exists()) {
+        // Remove anything left over from a previous build that is no longer part of the plugin
+        try {
+            for (String removed : synchronizer.removeStale()) {
+                getLog().debug(String.format("Removed stale file %s from %s", removed, stagingDirectory.getAbsolutePath()));
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to remove stale files from staging directory: " + stagingDirectory.getAbsolutePath(), e);
+        }
+        getLog().info(String.format("Staged %d changed file(s) (%d bytes) and kept %d unchanged file(s) in %s", synchronizer.getCopiedCount(), synchronizer.getCopiedBytes(),
+                synchronizer.getUnchangedCount(), stagingDirectory.getAbsolutePath()));
+        if (isExploded()) {
+            getLog().info(String.format("Linked %d of the %d changed file(s) to their sources", synchronizer.getLinkedCount(), synchronizer.getCopiedCount()));
+        }
+
+        // The class list and manifest are not placed by the synchronizer, so one left over from a build that generated it must be removed here
+        final File classListFile = new File(stagingDirectory, ClassListGenerator.FILENAME);
+        if (generateClassList) {
             try {
-                FileUtils.forceDelete(pluginLibraryLibExt);
+                final int classCount = new ClassListGenerator(classListJavaExecutable, new MojoLogger(getLog(), getClass())).generate(stagingDirectory, classListFile);
+                getLog().info(String.format("Recorded %d loaded class(es) in %s", classCount, classListFile.getAbsolutePath()));
+                // The class list is written before the manifest so that it, too, is verified when the plugin is
+                if (generateChecksums) {
+                    checksumManifest.add(ClassListGenerator.FILENAME, classListFile.length(), ChecksumManifest.computeSha256(classListFile));
+                }
             } catch (IOException e) {
-                throw new MojoExecutionException("Failed to delete file: " + pluginLibraryLibExt.getAbsolutePath(), e);
+                throw new MojoExecutionException("Failed to record class list: " + classListFile.getAbsolutePath(), e);
             }
+        } else {
+            FileUtils.deleteQuietly(classListFile);
         }
 
-        String classifier = null;
-        // If the plugin name is the same as the artifact, then don't bother over-complicating the classifier
-        if (project.getArtifactId().equals(pluginName)) {
-            classifier = classifierSuffix;
+        final File manifestFile = new File(stagingDirectory, ChecksumManifest.FILENAME);
+        if (generateChecksums) {
+            try {
+                checksumManifest.write(manifestFile);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to write checksum manifest: " + manifestFile.getAbsolutePath(), e);
+            }
         } else {
-            classifier = String.format("%s-%s", pluginName, classifierSuffix);
+            FileUtils.deleteQuietly(manifestFile);
         }
-        final ArchiveUtils archiveUtils = ArchiveUtils.getInstance(new MojoLogger(getLog(), getClass()));
-        // Create the TAR
-        final File tarFile = new File(pluginStagingDirectory, String.format("%s-%s-%s.tar", project.getArtifactId(), project.getVersion(), classifier));
+
         try {
-            archiveUtils.tarDirectory(pluginStagingDirectory, tarFile);
+            synchronizer.writeState();
         } catch (IOException e) {
-            throw new MojoExecutionException(String.format("Failed to TAR directory %s to file %s", stagingDirectory.getAbsolutePath(), tarFile.getAbsolutePath()), e);
+            throw new MojoExecutionException("Failed to record the state of staging directory: " + stagingDirectory.getAbsolutePath(), e);
+        }
+        return new StagedPlugin(pluginName, pluginLibrary, stagingDirectory, graph, stagedArtifactFiles);
+    }
+
+    /**
+     * Write a staged directory into an assembly of the configured {@link #archiveFormat archive format} in the output directory, along with its checksums, if they are to be generated.
+     * 
+     * @param archiveUtils
+     *            The {@link ArchiveUtils} used to write the assembly.
+     * @param directory
+     *            A {@link File} representing the directory to be archived.
+     * @param prefix
+     *            The path beneath which the contents of the directory are to be stored in the assembly.
+     * @param workDirectory
+     *            A {@link File} representing the directory in which any intermediate files are to be written.
+     * @param classifier
+     *            The classifier of the assembly.
+     * @return A {@link File} representing the written assembly.
+     * @throws MojoExecutionException
+     *             If any errors occur while writing the assembly.
+     * @since 1.2
+     */
+    protected File writeArchive(ArchiveUtils archiveUtils, File directory, String prefix, File workDirectory, String classifier) throws MojoExecutionException {
+        final File archiveFile = new File(outputDirectory, String.format("%s-%s-%s.%s", project.getArtifactId(), project.getVersion(), classifier, archiveFormat));
+        final MessageDigest sha256 = ChecksumManifest.newDigest("SHA-256");
+        final MessageDigest sha512 = ChecksumManifest.newDigest("SHA-512");
+        final MessageDigest[] digests = generateChecksums ? new MessageDigest[] { sha256, sha512 } : new MessageDigest[0];
+        if (ZIP_FORMAT.equals(archiveFormat)) {
+            try {
+                archiveUtils.zipDirectory(directory, prefix, archiveFile, digests);
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Failed to ZIP directory %s to file %s", directory.getAbsolutePath(), archiveFile.getAbsolutePath()), e);
+            }
+        } else {
+            final File tarFile = new File(workDirectory, String.format("%s-%s-%s.tar", project.getArtifactId(), project.getVersion(), classifier));
+            try {
+                archiveUtils.tarDirectory(directory, prefix, tarFile);
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Failed to TAR directory %s to file %s", directory.getAbsolutePath(), tarFile.getAbsolutePath()), e);
+            }
+
+            // GZIP the TAR file, computing the checksums of the compressed bytes as they are written
+            try {
+                if (indexArchive) {
+                    archiveUtils.blockGzipTarFile(tarFile, archiveFile, digests).write(getSidecarFile(archiveFile, "index"));
+                } else {
+                    archiveUtils.gzipFile(tarFile, archiveFile, digests);
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Failed to gzip TAR file %s to %s", tarFile.getAbsolutePath(), archiveFile.getAbsolutePath()), e);
+            }
+        }
+
+        if (generateChecksums) {
+            try {
+                ChecksumManifest.writeSidecar(archiveFile, sha256.digest(), getSidecarFile(archiveFile, "sha256"));
+                ChecksumManifest.writeSidecar(archiveFile, sha512.digest(), getSidecarFile(archiveFile, "sha512"));
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Failed to write checksums of %s to %s", archiveFile.getAbsolutePath(), outputDirectory.getAbsolutePath()), e);
+            }
         }
+        return archiveFile;
+    }
+
+    /**
+     * Determine whether an assembly exceeds the {@link #maximumArchiveSize maximum archive size}.
+     * 
+     * @param archiveFile
+     *            A {@link File} representing the assembly.
+     * @return {@code true} if a maximum archive size is configured and the assembly exceeds it; {@code false} if not.
+     * @since 1.2
+     */
+    protected boolean isOverBudget(File archiveFile) {
+        return maximumArchiveSize != null && archiveFile.length() > maximumArchiveSize.longValue();
+    }
 
-        // GZIP the TAR file
-        final File gzipFile = new File(outputDirectory, String.format("%s.gz", tarFile.getName()));
+    /**
+     * Create the failure of an assembly that exceeds the {@link #maximumArchiveSize maximum archive size}.
+     * 
+     * @param archiveFile
+     *            A {@link File} representing the assembly.
+     * @return A {@link MojoFailureException} describing the size of the assembly.
+     * @since 1.2
+     */
+    protected MojoFailureException newOverBudgetFailure(File archiveFile) {
+        return new MojoFailureException(String.format("Plugin archive %s is %s (%d bytes), which exceeds the maximum archive size of %s (%d bytes).", archiveFile.getName(),
+                SizeReport.formatSize(archiveFile.length()), archiveFile.length(), SizeReport.formatSize(maximumArchiveSize.longValue()), maximumArchiveSize));
+    }
+
+    /**
+     * Write the configured reports of a staged plugin - its size report and its exported dependency graph - alongside its assembly.
+     * 
+     * @param stagedPlugin
+     *            The {@link StagedPlugin} to be reported.
+     * @param archiveFile
+     *            A {@link File} representing the assembly containing the plugin.
+     * @param reportName
+     *            The name, within the output directory, to which the extension of each report is to be appended.
+     * @param overBudget
+     *            {@code true} if the assembly exceeds the {@link #maximumArchiveSize maximum archive size}, in which case the size report is written and logged as errors.
+     * @throws MojoExecutionException
+     *             If any errors occur while writing the reports.
+     * @since 1.2
+     */
+    protected void reportPlugin(StagedPlugin stagedPlugin, File archiveFile, String reportName, boolean overBudget) throws MojoExecutionException {
+        // Report where the size of the plugin comes from, if asked to or if the plugin is too large
+        if (analyzeSize || overBudget) {
+            final File sizeReportFile = new File(outputDirectory, reportName + ".size.txt");
+            try {
+                final SizeReport sizeReport = new SizeAnalyzer().analyze(stagedPlugin.getPluginLibrary(), stagedPlugin.getGraph(), stagedPlugin.getStagedArtifactFiles());
+                for (String line : sizeReport.format(archiveFile.length())) {
+                    if (overBudget) {
+                        getLog().error(line);
+                    } else {
+                        getLog().info(line);
+                    }
+                }
+                sizeReport.write(archiveFile.length(), sizeReportFile);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to write size report: " + sizeReportFile.getAbsolutePath(), e);
+            }
+        }
+
+        if (exportDependencyGraph) {
+            final GraphExporter exporter = new GraphExporter(stagedPlugin.getPluginName(), stagedPlugin.getPluginLibrary(), stagedPlugin.getGraph(), stagedPlugin.getStagedArtifactFiles());
+            final File jsonFile = new File(outputDirectory, reportName + ".graph.json");
+            final File dotFile = new File(outputDirectory, reportName + ".graph.dot");
+            try {
+                exporter.writeJson(jsonFile);
+                exporter.writeDot(dotFile);
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Failed to export dependency graph to %s", outputDirectory.getAbsolutePath()), e);
+            }
+        }
+    }
+
+    /**
+     * Attach an assembly, and its checksums, to the project, if configured to do so.
+     * 
+     * @param archiveFile
+     *            A {@link File} representing the assembly.
+     * @param classifier
+     *            The classifier of the assembly.
+     * @since 1.2
+     */
+    protected void attachArchive(File archiveFile, String classifier) {
+        if (attach) {
+            projectHelper.attachArtifact(project, archiveFormat, classifier, archiveFile);
+            if (generateChecksums) {
+                projectHelper.attachArtifact(project, archiveFormat + ".sha256", classifier, getSidecarFile(archiveFile, "sha256"));
+                projectHelper.attachArtifact(project, archiveFormat + ".sha512", classifier, getSidecarFile(archiveFile, "sha512"));
+            }
+            if (indexArchive && TAR_GZ_FORMAT.equals(archiveFormat)) {
+                projectHelper.attachArtifact(project, archiveFormat + ".index", classifier, getSidecarFile(archiveFile, "index"));
+            }
+        }
+    }
+
+    /**
+     * Get the location of a checksum or index written alongside an assembly.
+     * 
+     * @param archiveFile
+     *            A {@link File} representing the assembly.
+     * @param extension
+     *            The extension of the checksum or index (e.g., {@code sha256}).
+     * @return A {@link File} representing the location of the checksum or index.
+     */
+    private File getSidecarFile(File archiveFile, String extension) {
+        return new File(outputDirectory, archiveFile.getName() + "." + extension);
+    }
+
+    /**
+     * Compute the key of the resolution of a project's dependencies, by which a {@link #resolutionLockfile resolution lockfile} is matched to a build.
+     * 
+     * @param mavenProject
+     *            The {@link MavenProject} whose dependencies are to be resolved.
+     * @param inputs
+     *            Any other inputs, particular to the mojo, that determine which artifacts are packaged.
+     * @return {@code null} if no resolution lockfile is to be used; otherwise, the key of the resolution.
+     * @since 1.2
+     */
+    protected String getResolutionLockKey(MavenProject mavenProject, String... inputs) {
+        if (resolutionLockfile == null) {
+            return null;
+        }
+        if (analyzeSize || exportDependencyGraph) {
+            getLog().debug("Not using the resolution lockfile, as the size analysis and dependency graph export require the full dependency graph.");
+            return null;
+        }
+
+        final List<Dependency> declaredDependencies = new ArrayList<Dependency>();
+        @SuppressWarnings("unchecked")
+        final List<Dependency> dependencies = mavenProject.getDependencies();
+        declaredDependencies.addAll(dependencies);
+        final DependencyManagement dependencyManagement = mavenProject.getDependencyManagement();
+        if (dependencyManagement != null) {
+            @SuppressWarnings("unchecked")
+            final List<Dependency> managedDependencies = dependencyManagement.getDependencies();
+            declaredDependencies.addAll(managedDependencies);
+        }
+        // What a snapshot or a version range resolves to can change without any change to the project
+        for (Dependency dependency : declaredDependencies) {
+            if (PackagedGraph.isVersionRange(dependency.getVersion()) || ArtifactUtils.isSnapshot(dependency.getVersion())) {
+                getLog().info(String.format("Not using the resolution lockfile, as the version %s of %s may resolve differently in a later build.", dependency.getVersion(),
+                        dependency.getManagementKey()));
+                return null;
+            }
+        }
+
+        final List<String> keyInputs = new ArrayList<String>();
+        keyInputs.add("dependencies");
+        for (Dependency dependency : dependencies) {
+            keyInputs.add(formatKeyInput(dependency));
+        }
+        keyInputs.add("dependencyManagement");
+        for (Dependency dependency : declaredDependencies.subList(dependencies.size(), declaredDependencies.size())) {
+            keyInputs.add(formatKeyInput(dependency));
+        }
+        keyInputs.add("repositories");
+        for (ArtifactRepository repository : remoteArtifactRepositories) {
+            keyInputs.add(String.format("%s:%s", repository.getId(), repository.getUrl()));
+        }
+        keyInputs.add("exclusions");
+        for (Exclusion exclusion : exclusions) {
+            keyInputs.add(String.format("%s:%s:%s:%b", exclusion.getGroupId(), exclusion.getArtifactId(), exclusion.getClassifier(), exclusion.isTransitive()));
+        }
+        keyInputs.add("inputs");
+        for (String input : inputs) {
+            keyInputs.add(input);
+        }
+        return ResolutionLockfile.computeKey(keyInputs);
+    }
+
+    /**
+     * Read the {@link #resolutionLockfile resolution lockfile} and resolve the artifacts recorded in it.
+     * 
+     * @param key
+     *            The key of the resolution of the current build, as computed by {@link #getResolutionLockKey(MavenProject, String...)}; may be {@code null}.
+     * @return {@code null} if the given key is {@code null}, there is no lockfile, the lockfile does not match the given key, or the file of any recorded artifact does not match its
+     *         recorded size or checksum; otherwise, a {@link ResolutionLockfile} of the recorded artifacts, resolved into files.
+     * @throws MojoExecutionException
+     *             If any of the recorded artifacts cannot be resolved or read.
+     * @since 1.2
+     */
+    protected ResolutionLockfile readResolutionLock(String key) throws MojoExecutionException {
+        if (key == null || !resolutionLockfile.isFile()) {
+            return null;
+        }
+
+        ResolutionLockfile recordedLock;
+        final InputStream lockIn;
+        try {
+            lockIn = new FileInputStream(resolutionLockfile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to open resolution lockfile: " + resolutionLockfile.getAbsolutePath(), e);
+        }
         try {
-            archiveUtils.gzipFile(tarFile, gzipFile);
+            recordedLock = ResolutionLockfile.read(lockIn);
         } catch (IOException e) {
-            throw new MojoExecutionException(String.format("Failed to gzip TAR file %s to %s", tarFile.getAbsolutePath(), gzipFile.getAbsolutePath()), e);
+            getLog().warn(String.format("Ignoring unreadable resolution lockfile %s: %s", resolutionLockfile.getAbsolutePath(), e.getMessage()));
+            return null;
+        } finally {
+            IOUtils.closeQuietly(lockIn);
+        }
+        if (!key.equals(recordedLock.getKey())) {
+            getLog().info(String.format("Resolution lockfile %s is stale; resolving dependencies.", resolutionLockfile.getAbsolutePath()));
+            return null;
         }
 
-        // Attach the artifact, if configured to do so
-        if (attach) {
-            projectHelper.attachArtifact(project, "tar.gz", classifier, gzipFile);
+        // Look up the recorded files directly, downloading any not yet present locally, and verify that they are the files that were recorded; a file left untouched since the lockfile was
+        // written is only checked by its size, so that reusing the lockfile does not read every library
+        final long writtenAt = resolutionLockfile.lastModified();
+        final List<Artifact> lockedArtifacts = new ArrayList<Artifact>(recordedLock.getArtifacts());
+        if (recordedLock.getLibrary() != null) {
+            lockedArtifacts.add(recordedLock.getLibrary());
         }
+        final List<Artifact> resolvedArtifacts = resolveArtifacts(lockedArtifacts);
+        final ResolutionLockfile resolvedLock;
+        try {
+            resolvedLock = recordedLock.resolve(resolvedArtifacts.subList(0, recordedLock.getArtifacts().size()), recordedLock.getLibrary() == null ? null : resolvedArtifacts
+                    .get(resolvedArtifacts.size() - 1), writtenAt);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read the artifacts recorded in resolution lockfile: " + resolutionLockfile.getAbsolutePath(), e);
+        }
+        if (resolvedLock == null) {
+            getLog().warn(String.format("The files of the artifacts recorded in resolution lockfile %s do not match; resolving dependencies.", resolutionLockfile.getAbsolutePath()));
+            return null;
+        }
+        getLog().info(String.format("Using %d artifact(s) recorded in resolution lockfile %s", resolvedArtifacts.size(), resolutionLockfile.getAbsolutePath()));
+        return resolvedLock;
+    }
+
+    /**
+     * Write the {@link #resolutionLockfile resolution lockfile}, unless any of the given artifacts is a snapshot, whose contents - and dependencies - may change without changing the key of
+     * the resolution, or was selected from a version range, which may select another version without changing the key.
+     * 
+     * @param key
+     *            The key of the resolution, as computed by {@link #getResolutionLockKey(MavenProject, String...)}; if {@code null}, no lockfile is written.
+     * @param library
+     *            The resolved {@link Artifact} of the primary library of the plugin, if it was resolved as part of the resolution; may be {@code null}.
+     * @param graph
+     *            The {@link PackagedGraph} from which the given artifacts were resolved.
+     * @param resolvedArtifacts
+     *            A {@link List} of the resolved {@link Artifact} objects to be packaged into the {@code libext/} directory of the plugin.
+     * @throws MojoExecutionException
+     *             If any errors occur while writing the lockfile.
+     * @since 1.2
+     */
+    protected void writeResolutionLock(String key, Artifact library, PackagedGraph graph, List<Artifact> resolvedArtifacts) throws MojoExecutionException {
+        if (key == null) {
+            return;
+        }
+        if (!graph.getRangedArtifacts().isEmpty()) {
+            getLog().info(String.format("Not writing resolution lockfile %s, as the version of %s was selected from a version range.", resolutionLockfile.getAbsolutePath(),
+                    formatIdentifier(graph.getRangedArtifacts().get(0))));
+            FileUtils.deleteQuietly(resolutionLockfile);
+            return;
+        }
+        final List<Artifact> lockedArtifacts = new ArrayList<Artifact>(resolvedArtifacts);
+        if (library != null) {
+            lockedArtifacts.add(library);
+        }
+        for (Artifact lockedArtifact : lockedArtifacts) {
+            if (lockedArtifact.isSnapshot()) {
+                getLog().info(String.format("Not writing resolution lockfile %s, as snapshot %s may change.", resolutionLockfile.getAbsolutePath(), formatIdentifier(lockedArtifact)));
+                FileUtils.deleteQuietly(resolutionLockfile);
+                return;
+            }
+        }
+
+        final ResolutionLockfile lockfile = new ResolutionLockfile(key);
+        try {
+            for (Artifact resolvedArtifact : resolvedArtifacts) {
+                lockfile.addArtifact(resolvedArtifact);
+            }
+            if (library != null) {
+                lockfile.setLibrary(library);
+            }
+            FileUtils.forceMkdir(resolutionLockfile.getAbsoluteFile().getParentFile());
+            lockfile.write(resolutionLockfile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write resolution lockfile: " + resolutionLockfile.getAbsolutePath(), e);
+        }
+        getLog().info(String.format("Recorded %d artifact(s) in resolution lockfile %s", lockedArtifacts.size(), resolutionLockfile.getAbsolutePath()));
+    }
+
+    /**
+     * Format a dependency as an input to the key of a resolution.
+     * 
+     * @param dependency
+     *            The {@link Dependency} to be formatted.
+     * @return A string describing every part of the given dependency that affects its resolution.
+     */
+    private String formatKeyInput(Dependency dependency) {
+        final StringBuilder keyInput = new StringBuilder(dependency.getManagementKey());
+        keyInput.append(':').append(dependency.getVersion()).append(':').append(dependency.getScope()).append(':').append(dependency.isOptional());
+        @SuppressWarnings("unchecked")
+        final List<org.apache.maven.model.Exclusion> dependencyExclusions = dependency.getExclusions();
+        for (org.apache.maven.model.Exclusion exclusion : dependencyExclusions) {
+            keyInput.append(':').append(exclusion.getGroupId()).append('/').append(exclusion.getArtifactId());
+        }
+        return keyInput.toString();
+    }
+
+    /**
+     * Get the directory into which plugins are written when the {@link #archiveFormat archive format} is {@code exploded}.
+     * 
+     * @return A {@link File} representing the directory into which exploded plugins are written.
+     * @since 1.2
+     */
+    protected File getExplodedDirectory() {
+        return explodedDirectory;
+    }
+
+    /**
+     * Compact the file of a dependency of the plugin.
+     * 
+     * @param compactor
+     *            The {@link JarCompactor} used to compact the file.
+     * @param artifact
+     *            The resolved {@link Artifact} whose file is to be compacted.
+     * @return A {@link File} representing the compacted file of the artifact; the file of the artifact itself if it is not a JAR.
+     * @throws MojoExecutionException
+     *             If any errors occur during the compaction.
+     */
+    private File compactArtifact(JarCompactor compactor, Artifact artifact) throws MojoExecutionException {
+        final File artifactFile = artifact.getFile();
+        if (!artifactFile.getName().endsWith(".jar")) {
+            return artifactFile;
+        }
+
+        try {
+            return compactor.compact(artifactFile);
+        } catch (ZipException e) {
+            getLog().warn(String.format("Artifact %s could not be read as a JAR, so it will be packaged without compaction: %s", formatIdentifier(artifact), e.getMessage()));
+            return artifactFile;
+        } catch (IOException e) {
+            throw new MojoExecutionException(String.format("Failed to compact artifact %s into %s.", formatIdentifier(artifact), compactionCacheDirectory.getAbsolutePath()), e);
+        }
+    }
+
+    /**
+     * Find the classes of a plugin that are packaged in more than one JAR, handle them according to the {@link #duplicateClassPolicy duplicate class policy}, and write them to a report.
+     * 
+     * @param pluginName
+     *            The name of the plugin.
+     * @param pluginLibrary
+     *            A {@link File} representing the library that is to be copied into the {@code lib/} directory of the plugin.
+     * @param libExtFiles
+     *            A {@link Map} of the paths, relative to the root of the plugin, to the {@link File} objects representing the files that are to be copied into the {@code libext/} directory of
+     *            the plugin.
+     * @param stagingDirectory
+     *            A {@link File} representing the directory into which the plugin is to be staged; the other plugins in its parent directory are analyzed alongside it.
+     * @return A {@link List} of the paths, among those of the given {@code libext/} files, that are to be excluded from the plugin.
+     * @throws MojoExecutionException
+     *             If the configured policy is not supported or if any errors occur while reading the JARs or writing the report.
+     * @throws MojoFailureException
+     *             If any classes are packaged in more than one JAR and the configured policy is {@code fail}.
+     */
+    private List<String> analyzeDuplicateClasses(String pluginName, File pluginLibrary, Map<String, File> libExtFiles, File stagingDirectory) throws MojoExecutionException,
+            MojoFailureException {
+        if (!DUPLICATE_CLASS_WARN.equals(duplicateClassPolicy) && !DUPLICATE_CLASS_FAIL.equals(duplicateClassPolicy) && !DUPLICATE_CLASS_EXCLUDE.equals(duplicateClassPolicy)) {
+            throw new MojoExecutionException(String.format("Unsupported duplicate class policy %s; it must be either %s, %s, or %s.", duplicateClassPolicy, DUPLICATE_CLASS_WARN,
+                    DUPLICATE_CLASS_FAIL, DUPLICATE_CLASS_EXCLUDE));
+        }
+
+        // Name each JAR as it is laid out in a plugins.d directory, so that the JARs of the plugin can be told apart from those of its siblings
+        final String pluginPrefix = pluginName + "/";
+        final Map<String, File> jarFiles = new LinkedHashMap<String, File>();
+        if (pluginLibrary.getName().endsWith(".jar")) {
+            jarFiles.put(pluginPrefix + "lib/" + pluginLibrary.getName(), pluginLibrary);
+        }
+        for (Map.Entry<String, File> libExtFile : libExtFiles.entrySet()) {
+            if (libExtFile.getKey().endsWith(".jar")) {
+                jarFiles.put(pluginPrefix + libExtFile.getKey(), libExtFile.getValue());
+            }
+        }
+        final List<String> pluginJars = new ArrayList<String>(jarFiles.keySet());
+        final File[] siblingDirectories = stagingDirectory.getAbsoluteFile().getParentFile().listFiles();
+        if (siblingDirectories != null) {
+            Arrays.sort(siblingDirectories);
+            for (File siblingDirectory : siblingDirectories) {
+                if (!siblingDirectory.isDirectory() || siblingDirectory.getName().equals(stagingDirectory.getName())) {
+                    continue;
+                }
+                for (String libraryDirectoryName : new String[] { "lib", "libext" }) {
+                    final File[] libraries = new File(siblingDirectory, libraryDirectoryName).listFiles();
+                    if (libraries == null) {
+                        continue;
+                    }
+                    Arrays.sort(libraries);
+                    for (File library : libraries) {
+                        if (library.getName().endsWith(".jar")) {
+                            jarFiles.put(String.format("%s/%s/%s", siblingDirectory.getName(), libraryDirectoryName, library.getName()), library);
+                        }
+                    }
+                }
+            }
+        }
+
+        DuplicateClassReport report;
+        try {
+            report = new DuplicateClassAnalyzer(Runtime.getRuntime().availableProcessors()).analyze(jarFiles).involving(pluginJars);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to index the classes of plugin " + pluginName, e);
+        }
+
+        final List<String> excludedPaths = new ArrayList<String>();
+        if (DUPLICATE_CLASS_EXCLUDE.equals(duplicateClassPolicy)) {
+            final List<String> candidates = new ArrayList<String>();
+            for (String pluginJar : pluginJars) {
+                if (pluginJar.startsWith(pluginPrefix + "libext/")) {
+                    candidates.add(pluginJar);
+                }
+            }
+            final List<String> redundantJars = report.findRedundantJars(candidates);
+            for (String redundantJar : redundantJars) {
+                excludedPaths.add(redundantJar.substring(pluginPrefix.length()));
+            }
+            report = report.without(redundantJars);
+        }
+
+        final File reportFile = new File(outputDirectory, pluginName + ".duplicate-classes.txt");
+        if (report.getDuplicates().isEmpty()) {
+            FileUtils.deleteQuietly(reportFile);
+            return excludedPaths;
+        }
+        try {
+            FileUtils.forceMkdir(outputDirectory);
+            report.write(reportFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write duplicate class report: " + reportFile.getAbsolutePath(), e);
+        }
+
+        final boolean fail = DUPLICATE_CLASS_FAIL.equals(duplicateClassPolicy);
+        for (String line : report.format(LOGGED_DUPLICATE_CLASSES)) {
+            if (fail) {
+                getLog().error(line);
+            } else {
+                getLog().warn(line);
+            }
+        }
+        if (fail) {
+            throw new MojoFailureException(String.format("Plugin %s packages %d class(es) in more than one JAR; see %s for the full list.", pluginName, report.getDuplicates().size(),
+                    reportFile.getAbsolutePath()));
+        }
+        getLog().warn("See the full list of duplicated classes in " + reportFile.getAbsolutePath());
+        return excludedPaths;
+    }
+
+    /**
+     * Create the compactor of the JARs staged into {@code libext/}.
+     * 
+     * @return A {@link JarCompactor} configured by this mojo.
+     * @throws MojoExecutionException
+     *             If the configured compaction level is not valid.
+     */
+    private JarCompactor newJarCompactor() throws MojoExecutionException {
+        final List<String> excludes = compactionExcludes == null || compactionExcludes.isEmpty() ? JarCompactor.DEFAULT_EXCLUDES : compactionExcludes;
+        try {
+            return new JarCompactor(compactionCacheDirectory, excludes, compactionLevel);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(String.format("Unsupported compaction level %d; it must be between -1 and 9.", compactionLevel), e);
+        }
+    }
+
+    /**
+     * Get the file in which the state of the exploded plugin is recorded between builds.
+     * 
+     * @return A {@link File} representing the staging state of the exploded plugin; deleting it causes the next build to write every file of the exploded plugin again.
+     * @since 1.2
+     */
+    protected File getExplodedStateFile() {
+        return new File(getPluginStagingDirectory(), EXPLODED_STATE_FILENAME);
+    }
+
+    /**
+     * Get the directory in which this execution stages the plugin. Each execution is given its own directory so that executions - including those of concurrently-built projects - building
+     * plugins of the same name do not overwrite each other's files.
+     * 
+     * @return A {@link File} representing the directory in which this execution stages the plugin.
+     * @since 1.2
+     */
+    protected File getPluginStagingDirectory() {
+        final String pluginName = getPluginName();
+        if (executionId == null) {
+            return new File(pluginsStagingDirectory, String.format("%s-staging", pluginName));
+        }
+        return new File(pluginsStagingDirectory, String.format("%s-%s-staging", pluginName, executionId));
     }
 
     /**
@@ -225,6 +1201,26 @@ public abstract class AbstractFlumePluginMojo extends AbstractMojo {
         return artifactRepository;
     }
 
+    /**
+     * Get a filter that excludes the artifacts configured to be excluded from assembly.
+     * 
+     * @return An {@link ArtifactFilter} that excludes the configured {@link Exclusion} objects.
+     * @since 1.2
+     */
+    protected ArtifactFilter getExclusionArtifactFilter() {
+        return new ExclusionArtifactFilter(exclusions);
+    }
+
+    /**
+     * Get a filter that rejects the dependencies whose scope keeps them out of a plugin built out of a project.
+     * 
+     * @return An {@link ArtifactFilter} that accepts only the dependencies needed at runtime.
+     * @since 1.2
+     */
+    protected ArtifactFilter getProvidedArtifactFilter() {
+        return providedArtifactFilter;
+    }
+
     /**
      * Get the Maven project.
      * 
@@ -243,6 +1239,17 @@ public abstract class AbstractFlumePluginMojo extends AbstractMojo {
         return remoteArtifactRepositories;
     }
 
+    /**
+     * Build the plugin.
+     * 
+     * @throws MojoExecutionException
+     *             If any errors occur during the build of the plugin.
+     * @throws MojoFailureException
+     *             If the plugin cannot be built as configured.
+     * @since 1.2
+     */
+    protected abstract void buildPlugin() throws MojoExecutionException, MojoFailureException;
+
     /**
      * Get the name of the plugin to be assembled.
      * 
@@ -251,7 +1258,8 @@ public abstract class AbstractFlumePluginMojo extends AbstractMojo {
     protected abstract String getPluginName();
 
     /**
-     * Resolve dependencies of a project matching the given filter.
+     * Resolve dependencies of a project matching the given filter. Any {@link Exclusion#isTransitive() transitive} exclusions are applied during resolution, so the dependencies of the
+     * excluded artifacts are never read.
      * 
      * @param mavenProject
      *            The {@link MavenProject} whose dependency tree is to be read.
@@ -262,33 +1270,255 @@ public abstract class AbstractFlumePluginMojo extends AbstractMojo {
      *             If any errors occur while trying to resolve the dependencies.
      */
     protected List<DependencyNode> resolveDependencies(MavenProject mavenProject, ArtifactFilter artifactFilter) throws MojoExecutionException {
+        final PackagingEvent event = PackagingEventType.RESOLVE_GRAPH.begin();
         try {
-            return dependencyGraphBuilder.buildDependencyGraph(project, artifactFilter).getChildren();
+            final List<DependencyNode> dependencies = dependencyGraphBuilder.buildDependencyGraph(applyTransitiveExclusions(mavenProject), artifactFilter).getChildren();
+            event.commit(formatIdentifier(mavenProject), dependencies.size());
+            return dependencies;
         } catch (DependencyGraphBuilderException e) {
-            throw new MojoExecutionException(String.format("Failed to build dependency graph for project %s", formatIdentifier(project)), e);
+            throw new MojoExecutionException(String.format("Failed to build dependency graph for project %s", formatIdentifier(mavenProject)), e);
         }
     }
 
     /**
-     * Copy the given plugin dependency - and all of its children - to the {@code libext/} directory.
+     * Apply the configured {@link Exclusion#isTransitive() transitive} exclusions to a project as Maven exclusions on each of its dependencies, so that Maven prunes the excluded artifacts
+     * from the dependency graph while resolving it. As with an exclusion declared in a POM, an artifact beneath an excluded artifact that is also reached through a path that is not excluded
+     * is still resolved through that path.
      * 
-     * @param dependencyNode
-     *            The {@link DependencyNode} whose artifact and children are to be copied.
-     * @param libExtDirectory
-     *            A {@link File} representing the directory to which the libraries are to be copied.
+     * @param mavenProject
+     *            The {@link MavenProject} to which the exclusions are to be applied.
+     * @return The given project, if there are no transitive exclusions to be applied (or the project cannot be safely copied); otherwise, a copy of the given project with the exclusions
+     *         applied.
      * @throws MojoExecutionException
-     *             If any errors occur during the copying.
+     *             If the project cannot be copied.
+     * @since 1.2
      */
-    private void copyPluginDependency(DependencyNode dependencyNode, File libExtDirectory) throws MojoExecutionException {
-        final Artifact resolvedArtifact = artifactRepository.find(dependencyNode.getArtifact());
+    protected MavenProject applyTransitiveExclusions(MavenProject mavenProject) throws MojoExecutionException {
+        final List<org.apache.maven.model.Exclusion> modelExclusions = new ArrayList<org.apache.maven.model.Exclusion>();
+        for (Exclusion exclusion : exclusions) {
+            final org.apache.maven.model.Exclusion modelExclusion = exclusion.toModelExclusion();
+            if (modelExclusion != null) {
+                modelExclusions.add(modelExclusion);
+            }
+        }
+        if (modelExclusions.isEmpty()) {
+            return mavenProject;
+        }
+
+        // The copy shares the project's session, but not its model, so the project itself is left untouched
+        final MavenProject prunedProject;
         try {
-            FileUtils.copyFile(resolvedArtifact.getFile(), new File(libExtDirectory, resolvedArtifact.getFile().getName()));
-        } catch (IOException e) {
-            throw new MojoExecutionException(String.format("Failed to copy artifact %s to %s.", formatIdentifier(resolvedArtifact), libExtDirectory.getAbsolutePath()), e);
+            prunedProject = (MavenProject) mavenProject.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new MojoExecutionException(String.format("Failed to copy project %s to apply transitive exclusions", formatIdentifier(mavenProject)), e);
+        }
+        if (prunedProject.getModel() == mavenProject.getModel()) {
+            getLog().warn(String.format("This version of Maven does not copy the model of project %s, so transitive exclusions will be applied after resolution.", formatIdentifier(mavenProject)));
+            return mavenProject;
+        }
+        @SuppressWarnings("unchecked")
+        final List<Dependency> dependencies = prunedProject.getDependencies();
+        for (Dependency dependency : dependencies) {
+            for (org.apache.maven.model.Exclusion modelExclusion : modelExclusions) {
+                dependency.addExclusion(modelExclusion.clone());
+            }
+        }
+        // Any dependency artifacts copied from the project carry its own exclusions; they are recreated from the pruned model by whatever resolves the copy
+        prunedProject.setDependencyArtifacts(null);
+        return prunedProject;
+    }
+
+    /**
+     * Resolve the given artifacts into files in the local repository. Any artifacts not already present in the local repository are downloaded, concurrently, before this method returns.
+     * 
+     * @param artifacts
+     *            A {@link Collection} of {@link Artifact} objects representing the artifacts to be resolved.
+     * @return A {@link List} of {@link Artifact} objects, in the same order as the given artifacts, whose files are present in the local repository.
+     * @throws MojoExecutionException
+     *             If any of the given artifacts cannot be resolved.
+     * @since 1.2
+     */
+    protected List<Artifact> resolveArtifacts(Collection<Artifact> artifacts) throws MojoExecutionException {
+        final List<Artifact> resolvedArtifacts = new ArrayList<Artifact>(artifacts.size());
+        final List<Artifact> missingArtifacts = new ArrayList<Artifact>();
+        for (Artifact artifact : artifacts) {
+            final Artifact localArtifact = artifactRepository.find(artifact);
+            resolvedArtifacts.add(localArtifact);
+            if (localArtifact.getFile() == null || !localArtifact.getFile().isFile()) {
+                missingArtifacts.add(localArtifact);
+            }
+        }
+
+        if (!missingArtifacts.isEmpty()) {
+            downloadArtifacts(missingArtifacts);
+        }
+        return resolvedArtifacts;
+    }
+
+    /**
+     * Download the given artifacts from the remote repositories into the local repository, using up to {@link #resolutionThreads} threads.
+     * 
+     * @param artifacts
+     *            A {@link List} of {@link Artifact} objects representing the artifacts to be downloaded.
+     * @throws MojoExecutionException
+     *             If any of the given artifacts cannot be downloaded.
+     */
+    private void downloadArtifacts(List<Artifact> artifacts) throws MojoExecutionException {
+        final int threadCount = Math.max(1, Math.min(resolutionThreads, artifacts.size()));
+        getLog().info(String.format("Downloading %d artifact(s) using %d thread(s).", artifacts.size(), threadCount));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>(artifacts.size());
+        try {
+            for (final Artifact artifact : artifacts) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws ArtifactResolutionException, ArtifactNotFoundException {
+                        final PackagingEvent event = PackagingEventType.RESOLVE_ARTIFACT.begin();
+                        downloadArtifact(artifact);
+                        event.commit(artifact.getId(), artifact.getFile() == null ? 0 : artifact.getFile().length());
+                        return null;
+                    }
+                }));
+            }
+
+            final List<String> failedArtifacts = new ArrayList<String>();
+            Throwable failure = null;
+            for (int i = 0; i < artifacts.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    failedArtifacts.add(formatIdentifier(artifacts.get(i)));
+                    failure = e.getCause();
+                }
+            }
+
+            if (!failedArtifacts.isEmpty()) {
+                throw new MojoExecutionException(String.format("Failed to resolve %d artifact(s): %s", failedArtifacts.size(), failedArtifacts), failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while resolving artifacts.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Download an artifact from the remote repositories into the local repository.
+     * 
+     * @param artifact
+     *            The {@link Artifact} to be downloaded; its file is set to its location in the local repository.
+     * @throws ArtifactResolutionException
+     *             If the artifact cannot be resolved.
+     * @throws ArtifactNotFoundException
+     *             If the artifact cannot be found in any of the remote repositories.
+     */
+    // The ArtifactResolutionRequest alternative cannot be used: the API against which this plugin is compiled names its setter of the remote repositories differently than the Maven 3
+    // runtime does, so the deprecated method is the only one that links against every supported version of Maven
+    @SuppressWarnings("deprecation")
+    private void downloadArtifact(Artifact artifact) throws ArtifactResolutionException, ArtifactNotFoundException {
+        artifactResolver.resolve(artifact, remoteArtifactRepositories, artifactRepository);
+    }
+
+    /**
+     * Synchronize a file into the staging directory, recording its checksum.
+     * 
+     * @param synchronizer
+     *            The {@link DirectorySynchronizer} used to copy the file if it has changed since the last build.
+     * @param source
+     *            A {@link File} representing the file to be copied.
+     * @param entryPath
+     *            The path of the file relative to the root of the plugin.
+     * @param checksumManifest
+     *            The {@link ChecksumManifest} to which the copied file is to be recorded.
+     * @throws IOException
+     *             If any errors occur during the copying.
+     */
+    private void stageFile(DirectorySynchronizer synchronizer, File source, String entryPath, ChecksumManifest checksumManifest) throws IOException {
+        final DirectorySynchronizer.Entry entry = synchronizer.sync(source, entryPath);
+        if (generateChecksums) {
+            checksumManifest.add(entryPath, entry.getSize(), entry.getSha256());
         }
-        // Recursively copy all other libraries
-        for (DependencyNode child : dependencyNode.getChildren()) {
-            copyPluginDependency(child, libExtDirectory);
+    }
+
+    /**
+     * A plugin that has been staged into a directory, ready to be archived.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    protected static class StagedPlugin {
+        private final String pluginName;
+        private final File pluginLibrary;
+        private final File directory;
+        private final PackagedGraph graph;
+        private final Map<String, File> stagedArtifactFiles;
+
+        /**
+         * Create a staged plugin.
+         * 
+         * @param pluginName
+         *            The name of the plugin.
+         * @param pluginLibrary
+         *            A {@link File} representing the library staged into the {@code lib/} directory of the plugin.
+         * @param directory
+         *            A {@link File} representing the directory into which the plugin was staged.
+         * @param graph
+         *            The {@link PackagedGraph} of the dependencies of the plugin.
+         * @param stagedArtifactFiles
+         *            A {@link Map} of the IDs of the artifacts staged into the {@code libext/} directory of the plugin to the files from which they were staged.
+         */
+        StagedPlugin(String pluginName, File pluginLibrary, File directory, PackagedGraph graph, Map<String, File> stagedArtifactFiles) {
+            this.pluginName = pluginName;
+            this.pluginLibrary = pluginLibrary;
+            this.directory = directory;
+            this.graph = graph;
+            this.stagedArtifactFiles = stagedArtifactFiles;
+        }
+
+        /**
+         * Get the directory into which the plugin was staged.
+         * 
+         * @return A {@link File} representing the directory into which the plugin was staged.
+         */
+        public File getDirectory() {
+            return directory;
+        }
+
+        /**
+         * Get the dependency graph of the plugin.
+         * 
+         * @return The {@link PackagedGraph} of the dependencies of the plugin.
+         */
+        public PackagedGraph getGraph() {
+            return graph;
+        }
+
+        /**
+         * Get the primary library of the plugin.
+         * 
+         * @return A {@link File} representing the library staged into the {@code lib/} directory of the plugin.
+         */
+        public File getPluginLibrary() {
+            return pluginLibrary;
+        }
+
+        /**
+         * Get the name of the plugin.
+         * 
+         * @return The name of the plugin.
+         */
+        public String getPluginName() {
+            return pluginName;
+        }
+
+        /**
+         * Get the files staged into the {@code libext/} directory of the plugin.
+         * 
+         * @return A {@link Map} of the IDs of the staged artifacts to the files from which they were staged.
+         */
+        public Map<String, File> getStagedArtifactFiles() {
+            return stagedArtifactFiles;
         }
     }
 }
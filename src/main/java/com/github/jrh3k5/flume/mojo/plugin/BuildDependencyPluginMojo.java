@@ -18,9 +18,13 @@
 package com.github.jrh3k5.flume.mojo.plugin;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Component;
@@ -28,11 +32,15 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.project.MavenProjectBuilder;
-import org.apache.maven.project.ProjectBuildingException;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.tree.DependencyTreeBuilder;
+import org.apache.maven.shared.dependency.tree.DependencyTreeBuilderException;
 
+import com.github.jrh3k5.flume.mojo.plugin.analysis.PackagedGraph;
 import com.github.jrh3k5.flume.mojo.plugin.artifact.FlumePluginDependencyArtifactFilter;
+import com.github.jrh3k5.flume.mojo.plugin.artifact.MediatedDependencyFinder;
+import com.github.jrh3k5.flume.mojo.plugin.artifact.OmittedDependencyDetector;
+import com.github.jrh3k5.flume.mojo.plugin.artifact.ResolutionLockfile;
 
 /**
  * A mojo to build a dependency into a Flume plugin.
@@ -40,7 +48,7 @@ import com.github.jrh3k5.flume.mojo.plugin.artifact.FlumePluginDependencyArtifac
  * @author Joshua Hyde
  */
 
-@Mojo(name = "build-dependency-plugin", defaultPhase = LifecyclePhase.PACKAGE)
+@Mojo(name = "build-dependency-plugin", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
 public class BuildDependencyPluginMojo extends AbstractFlumePluginMojo {
     /**
      * Defines the dependency that's to be resolved and bundled as a Flume plugin. An example configuration would be:
@@ -52,7 +60,8 @@ public class BuildDependencyPluginMojo extends AbstractFlumePluginMojo {
      *  &lt;/dependency&gt;
      * </pre>
      * 
-     * This will attempt to look up a dependency in your project by the given information, resolve its transitive dependencies, and assemble them into a {@code .tar.gz}.
+     * This will attempt to look up a dependency in your project by the given information and assemble it and its transitive dependencies, as resolved within your project's dependency
+     * graph, into a {@code .tar.gz}.
      */
     @Parameter(required = true)
     private FlumePluginDependency dependency;
@@ -64,30 +73,110 @@ public class BuildDependencyPluginMojo extends AbstractFlumePluginMojo {
     private String pluginName;
 
     /**
-     * A {@link MavenProjectBuilder} used to resolve an {@link Artifact} into a {@link MavenProject} for dependency resolution.
+     * A {@link DependencyTreeBuilder} used to assemble the unmediated dependency tree of the project consuming this plugin.
      */
     @Component(hint = "default")
-    private MavenProjectBuilder projectBuilder;
+    private DependencyTreeBuilder dependencyTreeBuilder;
 
     @Override
-    public void execute() throws MojoExecutionException, MojoFailureException {
+    protected void buildPlugin() throws MojoExecutionException, MojoFailureException {
+        final String lockKey = getResolutionLockKey(getProject(), dependency.getFormattedIdentifier());
+        final ResolutionLockfile lockfile = readResolutionLock(lockKey);
+        if (lockfile != null && lockfile.getLibrary() != null) {
+            buildFlumePluginArchive(lockfile.getLibrary().getFile(), PackagedGraph.flat(lockfile.getArtifacts()), lockfile.getArtifacts());
+            return;
+        }
+
         // Find the plugin in the project dependencies
-        final List<DependencyNode> projectChildren = resolveDependencies(getProject(), new FlumePluginDependencyArtifactFilter(dependency));
+        final ArtifactFilter dependencyFilter = new FlumePluginDependencyArtifactFilter(dependency);
+        final ArtifactFilter exclusionFilter = getExclusionArtifactFilter();
+        final List<DependencyNode> projectDependencies = resolveDependencies(getProject(), null);
+        final List<DependencyNode> projectChildren = new ArrayList<DependencyNode>();
+        for (DependencyNode projectDependency : projectDependencies) {
+            if (dependencyFilter.include(projectDependency.getArtifact()) && exclusionFilter.include(projectDependency.getArtifact())) {
+                projectChildren.add(projectDependency);
+            }
+        }
+
         if (projectChildren.isEmpty()) {
             throw new MojoFailureException(String.format("No dependency found matching %s in dependency list.", dependency.getFormattedIdentifier()));
         } else if (projectChildren.size() > 1) {
             throw new MojoFailureException(String.format("More than one dependency matching %s found in project dependencies: %s", dependency.getFormattedIdentifier(), projectChildren));
         }
 
-        // Resolve the dependencies of the project we've located
-        final Artifact projectChildArtifact = projectChildren.get(0).getArtifact();
-        final File projectChildFile = getArtifactRepository().find(projectChildArtifact).getFile();
+        // The transitive dependencies of the located dependency have already been resolved as its subtree in the project's graph; their scopes within this project are inherited from the
+        // located dependency, so they are not filtered by scope
+        final DependencyNode projectChild = projectChildren.get(0);
+        final Artifact projectChildArtifact = resolveArtifacts(Collections.singletonList(projectChild.getArtifact())).get(0);
+        final PackagedGraph graph = PackagedGraph.filter(getPackagedDependencies(projectChild, projectDependencies, exclusionFilter), null, exclusionFilter);
+        final List<Artifact> resolvedArtifacts = resolveArtifacts(graph.getIncludedArtifacts());
+        writeResolutionLock(lockKey, projectChildArtifact, graph, resolvedArtifacts);
+        buildFlumePluginArchive(projectChildArtifact.getFile(), graph, resolvedArtifacts);
+    }
 
+    /**
+     * Get the dependencies of the located dependency that are to be packaged. Maven's conflict mediation keeps an artifact reached through more than one path only beneath the nearest
+     * path, so artifacts needed by the located dependency may have been placed elsewhere in the project's graph; those are packaged alongside the subtree of the located dependency. As
+     * finding them takes a second resolution of the whole project, it is only done if the POMs within the subtree declare a dependency that is absent from it.
+     * 
+     * @param projectChild
+     *            The {@link DependencyNode} of the located dependency.
+     * @param projectDependencies
+     *            A {@link List} of {@link DependencyNode} objects representing the resolved dependencies of the project.
+     * @param exclusionFilter
+     *            An {@link ArtifactFilter} rejecting the artifacts configured to be excluded.
+     * @return A {@link List} of {@link DependencyNode} objects representing the dependencies to be packaged.
+     * @throws MojoExecutionException
+     *             If the unmediated dependency tree of the project cannot be built.
+     */
+    private List<DependencyNode> getPackagedDependencies(DependencyNode projectChild, List<DependencyNode> projectDependencies, ArtifactFilter exclusionFilter)
+            throws MojoExecutionException {
+        final OmittedDependencyDetector detector = new OmittedDependencyDetector(new File(getArtifactRepository().getBasedir()), exclusionFilter);
+        if (!detector.hasOmissions(projectChild, getDeclaredExclusions(projectChild.getArtifact()))) {
+            return projectChild.getChildren();
+        }
+
+        // The tree is built with the transitive exclusions applied, as the resolved graph was, so that nothing pruned from the graph is looked for
+        final MavenProject prunedProject = applyTransitiveExclusions(getProject());
+        org.apache.maven.shared.dependency.tree.DependencyNode unmediatedTree;
         try {
-            buildFlumePluginArchive(projectChildFile, projectBuilder.buildFromRepository(projectChildArtifact, getRemoteArtifactRepositories(), getArtifactRepository()));
-        } catch (ProjectBuildingException e) {
-            throw new MojoExecutionException(String.format("Failed to resolve project for artifact %s", formatIdentifier(projectChildArtifact)), e);
+            unmediatedTree = dependencyTreeBuilder.buildDependencyTree(prunedProject, getArtifactRepository(), null);
+        } catch (DependencyTreeBuilderException e) {
+            throw new MojoExecutionException("Failed to build dependency tree for project: " + getProject(), e);
+        }
+
+        final MediatedDependencyFinder.Result mediated = new MediatedDependencyFinder(projectDependencies, exclusionFilter).find(projectChild, unmediatedTree);
+        for (DependencyNode node : mediated.getMediated()) {
+            getLog().info(String.format("Packaging %s, which %s depends upon but was resolved elsewhere in the project's dependency graph.", node.getArtifact(), projectChild.getArtifact()));
+        }
+        for (Artifact artifact : mediated.getMissing()) {
+            getLog().warn(String.format("%s depends upon %s, but it is not present in the project's resolved dependency graph and will not be packaged.", projectChild.getArtifact(), artifact));
+        }
+
+        if (mediated.getMediated().isEmpty()) {
+            return projectChild.getChildren();
+        }
+        final List<DependencyNode> packaged = new ArrayList<DependencyNode>(projectChild.getChildren());
+        packaged.addAll(mediated.getMediated());
+        return packaged;
+    }
+
+    /**
+     * Get the exclusions with which the project declares one of its dependencies.
+     * 
+     * @param artifact
+     *            The {@link Artifact} of the dependency.
+     * @return A {@link List} of {@link org.apache.maven.model.Exclusion} objects representing the exclusions of the dependency; this is empty if the project does not declare it.
+     */
+    private List<org.apache.maven.model.Exclusion> getDeclaredExclusions(Artifact artifact) {
+        @SuppressWarnings("unchecked")
+        final List<Dependency> declaredDependencies = getProject().getDependencies();
+        for (Dependency declaredDependency : declaredDependencies) {
+            if (artifact.getGroupId().equals(declaredDependency.getGroupId()) && artifact.getArtifactId().equals(declaredDependency.getArtifactId())) {
+                return declaredDependency.getExclusions();
+            }
         }
+        return Collections.emptyList();
     }
 
     @Override
@@ -31,7 +31,7 @@ import org.apache.maven.plugins.annotations.Parameter;
  * @author Joshua Hyde
  */
 
-@Mojo(name = "build-project-plugin", defaultPhase = LifecyclePhase.PACKAGE)
+@Mojo(name = "build-project-plugin", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
 public class BuildProjectPluginMojo extends AbstractFlumePluginMojo {
     /**
      * The name of the plugin.
@@ -46,7 +46,7 @@ public class BuildProjectPluginMojo extends AbstractFlumePluginMojo {
     private File pluginLibrary;
 
     @Override
-    public void execute() throws MojoExecutionException, MojoFailureException {
+    protected void buildPlugin() throws MojoExecutionException, MojoFailureException {
         buildFlumePluginArchive(pluginLibrary, getProject());
     }
 
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import com.github.jrh3k5.flume.mojo.plugin.analysis.PackagedGraph;
+import com.github.jrh3k5.flume.mojo.plugin.io.ArchiveUtils;
+import com.github.jrh3k5.flume.mojo.plugin.plexus.MojoLogger;
+
+/**
+ * A mojo that is used to build the modules of the current reactor into a single bundle of Flume plugins. The bundle is laid out as a Flume {@code plugins.d} directory - a directory of
+ * {@code lib/} and {@code libext/} directories for each module, named for the module - and is compressed in a single pass. The bundle is built only by the last project of the reactor,
+ * once every module has been packaged; in every other project, this mojo does nothing. In a parallel build, the last project of the reactor is not necessarily built last, so it must
+ * depend, directly or through other modules of the reactor, upon every module that it bundles; otherwise, the build fails. If the archive format is {@code exploded}, the plugin of each
+ * module is instead written into the exploded directory, without a bundle, and any other plugins in that directory are left in place.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+@Mojo(name = "build-reactor-plugins", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
+public class BuildReactorPluginsMojo extends AbstractFlumePluginMojo {
+    private static final String STATE_FILE_SUFFIX = ".state";
+
+    /**
+     * The classifier of the bundle.
+     */
+    @Parameter(required = true, defaultValue = "flume-plugins")
+    private String bundleClassifier;
+
+    /**
+     * The artifact IDs of the modules to be bundled. If not set, every module of the reactor that does not have a packaging of {@code pom} is bundled.
+     */
+    @Parameter
+    private List<String> modules;
+
+    /**
+     * The projects of the current reactor, in the order in which they are built.
+     */
+    @Parameter(required = true, readonly = true, defaultValue = "${reactorProjects}")
+    private List<MavenProject> reactorProjects;
+
+    /**
+     * Whether the projects of the current reactor are being built in parallel.
+     */
+    @Parameter(readonly = true, defaultValue = "${session.parallel}")
+    private boolean parallel;
+
+    /**
+     * Build the bundle, if the current project is the last project of the reactor.
+     * 
+     * @throws MojoExecutionException
+     *             If any errors occur during the build of the bundle.
+     * @throws MojoFailureException
+     *             If the bundle cannot be built as configured.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final MavenProject lastProject = reactorProjects.get(reactorProjects.size() - 1);
+        if (!lastProject.getId().equals(getProject().getId())) {
+            getLog().info(String.format("Skipping the bundle of Flume plugins, which is built by the last project of the reactor, %s.", formatIdentifier(lastProject)));
+            return;
+        }
+        super.execute();
+    }
+
+    @Override
+    protected void buildPlugin() throws MojoExecutionException, MojoFailureException {
+        validateArchiveFormat();
+
+        final List<MavenProject> pluginProjects = getPluginProjects();
+        if (pluginProjects.isEmpty()) {
+            getLog().info("No modules were found to be bundled as Flume plugins.");
+            return;
+        }
+
+        // Keep the state of each staged plugin outside of the plugins directory, so that it is not archived with the plugins
+        final File bundleStagingDirectory = getPluginStagingDirectory();
+        // An exploded bundle is written directly into the exploded directory, which may hold plugins other than those of this reactor
+        final boolean exploded = isExploded();
+        final File pluginsDirectory = exploded ? getExplodedDirectory() : new File(bundleStagingDirectory, "plugins.d");
+        final ArchiveUtils archiveUtils = ArchiveUtils.getInstance(new MojoLogger(getLog(), getClass()));
+        final List<StagedPlugin> stagedPlugins = new ArrayList<StagedPlugin>(pluginProjects.size());
+        final Set<String> pluginNames = new HashSet<String>();
+        for (MavenProject pluginProject : pluginProjects) {
+            final String pluginName = pluginProject.getArtifactId();
+            if (!pluginNames.add(pluginName)) {
+                throw new MojoExecutionException(String.format("More than one module of the reactor has an artifact ID of %s, so they cannot be bundled as separate plugins.", pluginName));
+            }
+            final PackagedGraph graph = PackagedGraph.filter(resolveDependencies(pluginProject, null), getProvidedArtifactFilter(), getExclusionArtifactFilter());
+            stagedPlugins.add(stagePlugin(archiveUtils, pluginName, pluginProject.getArtifact().getFile(), graph, resolveArtifacts(graph.getIncludedArtifacts()), new File(
+                    pluginsDirectory, pluginName), new File(bundleStagingDirectory, pluginName + STATE_FILE_SUFFIX)));
+        }
+        if (exploded) {
+            getLog().info(String.format("Wrote %d exploded Flume plugin(s) to %s", stagedPlugins.size(), pluginsDirectory.getAbsolutePath()));
+            return;
+        }
+        removeStalePlugins(pluginsDirectory, pluginNames);
+
+        final File archiveFile = writeArchive(archiveUtils, pluginsDirectory, "", bundleStagingDirectory, bundleClassifier);
+        getLog().info(String.format("Bundled %d Flume plugin(s) into %s", stagedPlugins.size(), archiveFile.getAbsolutePath()));
+
+        final boolean overBudget = isOverBudget(archiveFile);
+        for (StagedPlugin stagedPlugin : stagedPlugins) {
+            reportPlugin(stagedPlugin, archiveFile, String.format("%s.%s", archiveFile.getName(), stagedPlugin.getPluginName()), overBudget);
+        }
+        if (overBudget) {
+            throw newOverBudgetFailure(archiveFile);
+        }
+
+        attachArchive(archiveFile, bundleClassifier);
+    }
+
+    @Override
+    protected String getPluginName() {
+        return bundleClassifier;
+    }
+
+    /**
+     * Get the projects of the reactor that are to be bundled.
+     * 
+     * @return A {@link List} of {@link MavenProject} objects representing the projects to be bundled, in the order in which they were built.
+     * @throws MojoExecutionException
+     *             If a configured module is not in the reactor or if a module to be bundled has not been packaged.
+     * @throws MojoFailureException
+     *             If the reactor is built in parallel and the current project does not depend upon a module to be bundled.
+     */
+    private List<MavenProject> getPluginProjects() throws MojoExecutionException, MojoFailureException {
+        // In a parallel build, only the modules upon which the current project depends are certain to have been built before it
+        final Set<String> upstreamProjects = parallel ? getUpstreamProjects() : null;
+        final boolean allModules = modules == null || modules.isEmpty();
+        final List<String> missingModules = allModules ? new ArrayList<String>() : new ArrayList<String>(modules);
+        final List<MavenProject> pluginProjects = new ArrayList<MavenProject>();
+        for (MavenProject reactorProject : reactorProjects) {
+            if (allModules ? "pom".equals(reactorProject.getPackaging()) : !missingModules.remove(reactorProject.getArtifactId())) {
+                continue;
+            }
+            if (upstreamProjects != null && reactorProject != getProject() && !upstreamProjects.contains(getProjectKey(reactorProject.getGroupId(), reactorProject.getArtifactId()))) {
+                throw new MojoFailureException(String.format(
+                        "Module %s may not have been packaged when the bundle is built by %s, as the reactor is built in parallel; add a dependency upon it to %s.",
+                        formatIdentifier(reactorProject), formatIdentifier(getProject()), formatIdentifier(getProject())));
+            }
+            final File artifactFile = reactorProject.getArtifact().getFile();
+            if (artifactFile == null || !artifactFile.isFile()) {
+                throw new MojoExecutionException(String.format("Module %s has not been packaged, so it cannot be bundled; the bundle must be built after every module within it.",
+                        formatIdentifier(reactorProject)));
+            }
+            pluginProjects.add(reactorProject);
+        }
+        if (!missingModules.isEmpty()) {
+            throw new MojoExecutionException(String.format("The following modules to be bundled are not in the reactor: %s", missingModules));
+        }
+        return pluginProjects;
+    }
+
+    /**
+     * Get the key by which a project of the reactor is identified.
+     * 
+     * @param groupId
+     *            The group ID of the project.
+     * @param artifactId
+     *            The artifact ID of the project.
+     * @return The key of the project.
+     */
+    private static String getProjectKey(String groupId, String artifactId) {
+        return groupId + ":" + artifactId;
+    }
+
+    /**
+     * Get the projects of the reactor upon which the current project depends, directly or through other projects of the reactor; a parallel build finishes these before it starts the
+     * current project.
+     * 
+     * @return A {@link Set} of the {@link #getProjectKey(String, String) keys} of the upstream projects.
+     */
+    private Set<String> getUpstreamProjects() {
+        final Map<String, MavenProject> projectsByKey = new HashMap<String, MavenProject>();
+        for (MavenProject reactorProject : reactorProjects) {
+            projectsByKey.put(getProjectKey(reactorProject.getGroupId(), reactorProject.getArtifactId()), reactorProject);
+        }
+
+        final Set<String> upstreamProjects = new HashSet<String>();
+        final LinkedList<MavenProject> pending = new LinkedList<MavenProject>();
+        pending.add(getProject());
+        while (!pending.isEmpty()) {
+            @SuppressWarnings("unchecked")
+            final List<Dependency> dependencies = pending.removeFirst().getDependencies();
+            for (Dependency dependency : dependencies) {
+                final String key = getProjectKey(dependency.getGroupId(), dependency.getArtifactId());
+                final MavenProject upstreamProject = projectsByKey.get(key);
+                if (upstreamProject != null && upstreamProjects.add(key)) {
+                    pending.add(upstreamProject);
+                }
+            }
+        }
+        return upstreamProjects;
+    }
+
+    /**
+     * Remove the plugins of modules that are no longer bundled from the staging directory.
+     * 
+     * @param pluginsDirectory
+     *            A {@link File} representing the directory into which the plugins are staged.
+     * @param pluginNames
+     *            A {@link Set} of the names of the plugins that are bundled.
+     * @throws MojoExecutionException
+     *             If any errors occur while removing a plugin.
+     */
+    private void removeStalePlugins(File pluginsDirectory, Set<String> pluginNames) throws MojoExecutionException {
+        final File[] stagedDirectories = pluginsDirectory.listFiles();
+        if (stagedDirectories == null) {
+            return;
+        }
+        for (File stagedDirectory : stagedDirectories) {
+            if (pluginNames.contains(stagedDirectory.getName())) {
+                continue;
+            }
+            try {
+                FileUtils.forceDelete(stagedDirectory);
+                FileUtils.deleteQuietly(new File(pluginsDirectory.getParentFile(), stagedDirectory.getName() + STATE_FILE_SUFFIX));
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to remove stale plugin from staging directory: " + stagedDirectory.getAbsolutePath(), e);
+            }
+            getLog().debug(String.format("Removed stale plugin %s from %s", stagedDirectory.getName(), pluginsDirectory.getAbsolutePath()));
+        }
+    }
+}
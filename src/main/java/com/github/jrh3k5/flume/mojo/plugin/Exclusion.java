@@ -13,6 +13,7 @@ public class Exclusion {
     private String groupId;
     private String artifactId;
     private String classifier;
+    private boolean transitive;
 
     /**
      * Get the artifact ID of the artifact to be excluded.
@@ -42,6 +43,18 @@ public class Exclusion {
         return groupId;
     }
 
+    /**
+     * Determine whether or not this exclusion is applied while the dependency graph is resolved.
+     * 
+     * @return {@code true} if the dependencies of the excluded artifact are pruned during resolution, as with an {@code <exclusion />} in a POM, so that any of them also reached through a
+     *         path that is not excluded is still packaged; {@code false} if the excluded artifact and everything beneath it is removed from the graph after resolution.
+     * @since 1.2
+     * @see #toModelExclusion()
+     */
+    public boolean isTransitive() {
+        return transitive;
+    }
+
     /**
      * Set the artifact ID of the artifact to be excluded.
      * 
@@ -63,6 +76,18 @@ public class Exclusion {
         this.classifier = classifier;
     }
 
+    /**
+     * Set whether or not this exclusion is applied while the dependency graph is resolved.
+     * 
+     * @param transitive
+     *            {@code true} if the dependencies of the excluded artifact are to be pruned during resolution.
+     * @since 1.2
+     * @see #isTransitive()
+     */
+    public void setTransitive(boolean transitive) {
+        this.transitive = transitive;
+    }
+
     /**
      * Set the group ID of the artifact to be excluded.
      * 
@@ -84,6 +109,24 @@ public class Exclusion {
         return safeCompare(getGroupId(), artifact.getGroupId()) && safeCompare(getArtifactId(), artifact.getArtifactId()) && safeCompare(getClassifier(), artifact.getClassifier());
     }
 
+    /**
+     * Convert this exclusion into an exclusion that Maven applies while resolving the dependencies of a project.
+     * 
+     * @return {@code null} if this exclusion is not {@link #isTransitive() transitive}, or if it cannot be expressed as a Maven exclusion because it matches on a classifier or lacks a group
+     *         or artifact ID; otherwise, an {@link org.apache.maven.model.Exclusion} matching the same artifacts as this exclusion.
+     * @since 1.2
+     */
+    public org.apache.maven.model.Exclusion toModelExclusion() {
+        if (!transitive || StringUtils.isNotEmpty(classifier) || StringUtils.isEmpty(groupId) || StringUtils.isEmpty(artifactId)) {
+            return null;
+        }
+
+        final org.apache.maven.model.Exclusion modelExclusion = new org.apache.maven.model.Exclusion();
+        modelExclusion.setGroupId(groupId);
+        modelExclusion.setArtifactId(artifactId);
+        return modelExclusion;
+    }
+
     /**
      * Safely compare two strings in a {@code null}-tolerant fashion.
      * 
@@ -1,7 +1,6 @@
 package com.github.jrh3k5.flume.mojo.plugin;
 
 import java.util.Collection;
-import java.util.Collections;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
@@ -13,7 +12,7 @@ import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
  */
 
 public class ExclusionArtifactFilter implements ArtifactFilter {
-    private final Collection<Exclusion> exclusions;
+    private final Exclusion[] exclusions;
 
     /**
      * Create a filter.
@@ -22,7 +21,8 @@ public class ExclusionArtifactFilter implements ArtifactFilter {
      *            A {@link Collection} of {@link Exclusion} objects representing the artifacts to be excluded.
      */
     public ExclusionArtifactFilter(Collection<Exclusion> exclusions) {
-        this.exclusions = Collections.unmodifiableCollection(exclusions);
+        // Held as an array so that filtering, which is done for every node of every dependency graph, allocates no iterators
+        this.exclusions = exclusions.toArray(new Exclusion[exclusions.size()]);
     }
 
     @Override
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import com.github.jrh3k5.flume.mojo.plugin.io.ArchiveVerifier;
+
+/**
+ * A mojo that is used to verify the integrity of the Flume plugin assemblies built by the current project.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+@Mojo(name = "verify-plugin", defaultPhase = LifecyclePhase.VERIFY, threadSafe = true)
+public class VerifyPluginMojo extends AbstractMojo {
+    /**
+     * The assemblies to be verified. If not set, every {@code .tar.gz} and {@code .zip} artifact attached to the project with a classifier ending in the {@link #classifierSuffix classifier suffix} is
+     * verified.
+     */
+    @Parameter
+    private List<File> archives;
+
+    /**
+     * The suffix of the classifier of the attached assemblies to be verified.
+     */
+    @Parameter(required = true, defaultValue = "flume-plugin")
+    private String classifierSuffix;
+
+    /**
+     * Whether an assembly containing a plugin without a {@code plugin.manifest} - one built without {@code generateChecksums} - is to fail verification. The libraries of such a plugin can
+     * only be checked to be intact, not compared against those packaged into it, so by default a warning is logged for it instead.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean failOnMissingManifest;
+
+    /**
+     * A representation of the project executing this plugin.
+     */
+    @Parameter(required = true, readonly = true, defaultValue = "${project}")
+    private MavenProject project;
+
+    /**
+     * The number of threads used to verify the libraries within an assembly while it is read.
+     */
+    @Parameter(required = true, defaultValue = "4")
+    private int verificationThreads;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final List<File> toVerify = getArchives();
+        if (toVerify.isEmpty()) {
+            getLog().info("No Flume plugin assemblies were found to be verified.");
+            return;
+        }
+
+        final ArchiveVerifier verifier = new ArchiveVerifier(verificationThreads);
+        int failedCount = 0;
+        for (File archive : toVerify) {
+            final long startTime = System.currentTimeMillis();
+            final List<String> warnings = new ArrayList<String>();
+            List<String> problems;
+            try {
+                problems = verifier.verify(archive, warnings);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to verify plugin assembly: " + archive.getAbsolutePath(), e);
+            }
+            if (failOnMissingManifest) {
+                problems.addAll(warnings);
+            } else {
+                for (String warning : warnings) {
+                    getLog().warn(String.format("%s: %s Set generateChecksums to true when building it to have it compared.", archive.getName(), warning));
+                }
+            }
+            if (problems.isEmpty()) {
+                getLog().info(String.format("Verified %s in %d ms", archive.getName(), System.currentTimeMillis() - startTime));
+            } else {
+                failedCount++;
+                for (String problem : problems) {
+                    getLog().error(String.format("%s: %s", archive.getName(), problem));
+                }
+            }
+        }
+        if (failedCount > 0) {
+            throw new MojoFailureException(String.format("%d of %d plugin assemblies failed verification.", failedCount, toVerify.size()));
+        }
+    }
+
+    /**
+     * Get the assemblies to be verified.
+     * 
+     * @return A {@link List} of {@link File} objects representing the assemblies to be verified.
+     */
+    private List<File> getArchives() {
+        if (archives != null && !archives.isEmpty()) {
+            return archives;
+        }
+        final List<File> attached = new ArrayList<File>();
+        for (Artifact artifact : project.getAttachedArtifacts()) {
+            final boolean assembly = "tar.gz".equals(artifact.getType()) || "zip".equals(artifact.getType());
+            if (assembly && artifact.getClassifier() != null && artifact.getClassifier().endsWith(classifierSuffix) && artifact.getFile() != null) {
+                attached.add(artifact.getFile());
+            }
+        }
+        return attached;
+    }
+}
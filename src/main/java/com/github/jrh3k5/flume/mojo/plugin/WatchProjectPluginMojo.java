@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.FileFilterUtils;
+import org.apache.commons.io.monitor.FileAlterationListenerAdaptor;
+import org.apache.commons.io.monitor.FileAlterationObserver;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.github.jrh3k5.flume.mojo.plugin.io.ArchiveUtils;
+import com.github.jrh3k5.flume.mojo.plugin.io.DirectorySynchronizer;
+import com.github.jrh3k5.flume.mojo.plugin.plexus.MojoLogger;
+
+/**
+ * A mojo that writes the current project as an exploded Flume plugin and then watches the compiled classes and the primary library of the project, re-staging the primary library of the
+ * plugin whenever either changes. Only the {@code lib/} entry of the plugin is rewritten; the dependencies already staged in {@code libext/} are left as they are, so a change to the
+ * dependencies of the project requires the goal to be run again. A burst of changes, such as a recompilation, is coalesced into a single re-staging once the watched files have been quiet for
+ * the {@link #quietPeriod quiet period}. The mojo runs until it is interrupted.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+@Mojo(name = "watch-project-plugin", threadSafe = true)
+public class WatchProjectPluginMojo extends AbstractFlumePluginMojo {
+    /**
+     * The name of the plugin.
+     */
+    @Parameter(required = true, defaultValue = "${project.artifactId}")
+    private String pluginName;
+
+    /**
+     * The location of the final artifact that is to be treated as the "primary" library (e.g., the JAR produced by a project) of the plugin. It must exist when the goal is started.
+     */
+    @Parameter(required = true, defaultValue = "${project.build.directory}/${project.build.finalName}.${project.packaging}")
+    private File pluginLibrary;
+
+    /**
+     * The directory of compiled classes that is watched; when it changes, its contents are archived into the {@code lib/} entry of the plugin in place of the primary library.
+     */
+    @Parameter(required = true, defaultValue = "${project.build.outputDirectory}")
+    private File classesDirectory;
+
+    /**
+     * The number of milliseconds between checks of the watched files for changes.
+     */
+    @Parameter(required = true, defaultValue = "100")
+    private long pollInterval;
+
+    /**
+     * The number of milliseconds for which the watched files must be unchanged before the plugin is re-staged.
+     */
+    @Parameter(required = true, defaultValue = "200")
+    private long quietPeriod;
+
+    @Override
+    protected void buildPlugin() throws MojoExecutionException, MojoFailureException {
+        if (!pluginLibrary.isFile()) {
+            throw new MojoExecutionException(String.format("Primary library %s does not exist; the project must be packaged before it can be watched.", pluginLibrary.getAbsolutePath()));
+        }
+
+        buildFlumePluginArchive(pluginLibrary, getProject());
+        watch(ArchiveUtils.getInstance(new MojoLogger(getLog(), getClass())), new File(getExplodedDirectory(), String.format("%s/lib/%s", pluginName, pluginLibrary.getName())));
+    }
+
+    @Override
+    protected String getPluginName() {
+        return pluginName;
+    }
+
+    /**
+     * The watched plugin is always written as an exploded directory.
+     */
+    @Override
+    protected boolean isExploded() {
+        return true;
+    }
+
+    /**
+     * Watch the compiled classes and the primary library until the current thread is interrupted, re-staging the primary library of the plugin after each burst of changes.
+     * 
+     * @param archiveUtils
+     *            The {@link ArchiveUtils} used to re-stage the primary library.
+     * @param stagedLibrary
+     *            A {@link File} representing the primary library within the {@code lib/} directory of the exploded plugin.
+     * @throws MojoExecutionException
+     *             If the watched files cannot be observed.
+     */
+    void watch(ArchiveUtils archiveUtils, File stagedLibrary) throws MojoExecutionException {
+        final ChangeListener classesListener = new ChangeListener();
+        final FileAlterationObserver classesObserver = new FileAlterationObserver(classesDirectory);
+        classesObserver.addListener(classesListener);
+        final ChangeListener libraryListener = new ChangeListener();
+        final FileAlterationObserver libraryObserver = new FileAlterationObserver(pluginLibrary.getParentFile(), FileFilterUtils.nameFileFilter(pluginLibrary.getName()));
+        libraryObserver.addListener(libraryListener);
+        try {
+            classesObserver.initialize();
+            libraryObserver.initialize();
+        } catch (Exception e) {
+            throw new MojoExecutionException(String.format("Failed to watch %s and %s for changes.", classesDirectory.getAbsolutePath(), pluginLibrary.getAbsolutePath()), e);
+        }
+
+        getLog().info(String.format("Watching %s and %s for changes; interrupt the build to stop.", classesDirectory.getAbsolutePath(), pluginLibrary.getAbsolutePath()));
+        try {
+            while (true) {
+                Thread.sleep(pollInterval);
+                classesObserver.checkAndNotify();
+                libraryObserver.checkAndNotify();
+
+                final long lastChange = Math.max(classesListener.lastChange, libraryListener.lastChange);
+                if (lastChange == 0 || System.currentTimeMillis() - lastChange < quietPeriod) {
+                    continue;
+                }
+                // The primary library is usually rebuilt out of the classes, so it is preferred if it changed after them
+                restage(archiveUtils, stagedLibrary, libraryListener.lastChange >= classesListener.lastChange);
+                classesListener.lastChange = 0;
+                libraryListener.lastChange = 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            getLog().info("Stopped watching for changes.");
+        } finally {
+            try {
+                classesObserver.destroy();
+                libraryObserver.destroy();
+            } catch (Exception e) {
+                getLog().debug("Failed to stop watching for changes.", e);
+            }
+        }
+    }
+
+    /**
+     * Re-stage the primary library of the plugin. The library is written beside the staged library and then renamed over it, so that Flume never sees a partially-written library and so that
+     * a staged library that is a link to the primary library is replaced rather than written through.
+     * 
+     * @param archiveUtils
+     *            The {@link ArchiveUtils} used to write the library.
+     * @param stagedLibrary
+     *            A {@link File} representing the primary library within the {@code lib/} directory of the exploded plugin.
+     * @param fromLibrary
+     *            {@code true} if the primary library should be staged; {@code false} if the compiled classes should be archived in its place.
+     */
+    private void restage(ArchiveUtils archiveUtils, File stagedLibrary, boolean fromLibrary) {
+        final File source = fromLibrary ? pluginLibrary : classesDirectory;
+        // A clean of the project removes the watched files, which leaves nothing to stage
+        if (fromLibrary ? !pluginLibrary.isFile() : !classesDirectory.isDirectory()) {
+            getLog().debug(String.format("Not re-staging the plugin, as %s no longer exists.", source.getAbsolutePath()));
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        final File tempFile = new File(stagedLibrary.getParentFile(), String.format(".%s.tmp", stagedLibrary.getName()));
+        FileUtils.deleteQuietly(tempFile);
+        try {
+            if (fromLibrary) {
+                archiveUtils.linkFile(pluginLibrary, tempFile);
+            } else {
+                archiveUtils.jarDirectory(classesDirectory, tempFile);
+            }
+            if (!tempFile.renameTo(stagedLibrary)) {
+                FileUtils.forceDelete(stagedLibrary);
+                if (!tempFile.renameTo(stagedLibrary)) {
+                    throw new IOException(String.format("Failed to move %s to %s.", tempFile.getAbsolutePath(), stagedLibrary.getAbsolutePath()));
+                }
+            }
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(tempFile);
+            getLog().error(String.format("Failed to re-stage %s from %s.", stagedLibrary.getAbsolutePath(), source.getAbsolutePath()), e);
+            return;
+        }
+        // The staged library no longer matches the recorded staging state, so the next build should copy it again; the rest of the state is kept, as it is the record of which files
+        // staging placed, and so may remove
+        try {
+            DirectorySynchronizer.markUntrusted(getExplodedStateFile(), "lib/" + stagedLibrary.getName());
+        } catch (IOException e) {
+            getLog().warn(String.format("Failed to record the re-staging of %s; the next build may not stage it afresh.", stagedLibrary.getAbsolutePath()), e);
+        }
+        getLog().info(String.format("Re-staged %s from %s in %d ms", stagedLibrary.getAbsolutePath(), source.getAbsolutePath(), System.currentTimeMillis() - start));
+    }
+
+    /**
+     * A listener that records when it was last notified of a change to a file.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    private static class ChangeListener extends FileAlterationListenerAdaptor {
+        private long lastChange;
+
+        @Override
+        public void onFileCreate(File file) {
+            lastChange = System.currentTimeMillis();
+        }
+
+        @Override
+        public void onFileChange(File file) {
+            lastChange = System.currentTimeMillis();
+        }
+
+        @Override
+        public void onFileDelete(File file) {
+            lastChange = System.currentTimeMillis();
+        }
+    }
+}
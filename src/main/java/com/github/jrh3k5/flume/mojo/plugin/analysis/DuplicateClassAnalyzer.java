@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds the classes that are packaged in more than one JAR. The JARs are scanned concurrently, each reading only the central directory of the JAR, so no class is decompressed. Multi-release
+ * variants of classes (under {@code META-INF/versions/}) and module descriptors are not considered, as they are never loaded by name from a Flume class path.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class DuplicateClassAnalyzer {
+    private final int threads;
+
+    /**
+     * Create an analyzer.
+     * 
+     * @param threads
+     *            The maximum number of JARs to be scanned concurrently.
+     */
+    public DuplicateClassAnalyzer(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Index the classes of the given JARs.
+     * 
+     * @param jarFiles
+     *            A {@link Map} of the names of the JARs, as they are to be reported (e.g., {@code my-plugin/libext/library.jar}), to the {@link File} objects representing them.
+     * @return A {@link DuplicateClassReport} describing the classes found in more than one of the given JARs.
+     * @throws IOException
+     *             If any of the given JARs cannot be read.
+     */
+    public DuplicateClassReport analyze(Map<String, File> jarFiles) throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, jarFiles.size())));
+        try {
+            final Map<String, Future<List<String>>> scans = new LinkedHashMap<String, Future<List<String>>>();
+            for (final Map.Entry<String, File> jarFile : jarFiles.entrySet()) {
+                scans.put(jarFile.getKey(), executor.submit(new Callable<List<String>>() {
+                    public List<String> call() throws IOException {
+                        return listClasses(jarFile.getValue());
+                    }
+                }));
+            }
+
+            final Map<String, List<String>> jarClasses = new LinkedHashMap<String, List<String>>();
+            for (Map.Entry<String, Future<List<String>>> scan : scans.entrySet()) {
+                try {
+                    jarClasses.put(scan.getKey(), scan.getValue().get());
+                } catch (ExecutionException e) {
+                    throw new IOException(String.format("Failed to read the classes of %s.", jarFiles.get(scan.getKey())), e.getCause());
+                }
+            }
+            return new DuplicateClassReport(jarClasses, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the classes of " + jarFiles.keySet());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * List the classes within a JAR.
+     * 
+     * @param jarFile
+     *            A {@link File} representing the JAR.
+     * @return A {@link List} of the binary names (e.g., {@code com.example.Outer$Inner}) of the classes within the given JAR.
+     * @throws IOException
+     *             If any errors occur while reading the JAR.
+     */
+    private static List<String> listClasses(File jarFile) throws IOException {
+        final List<String> classNames = new ArrayList<String>();
+        final ZipFile zipFile = new ZipFile(jarFile);
+        try {
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                final String entryName = entries.nextElement().getName();
+                if (!entryName.endsWith(".class") || entryName.startsWith("META-INF/") || entryName.endsWith("module-info.class")) {
+                    continue;
+                }
+                classNames.add(entryName.substring(0, entryName.length() - 6).replace('/', '.'));
+            }
+        } finally {
+            zipFile.close();
+        }
+        return classNames;
+    }
+}
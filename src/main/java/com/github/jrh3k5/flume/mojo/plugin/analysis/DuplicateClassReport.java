@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.analysis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A report of the classes that are packaged in more than one JAR, as produced by {@link DuplicateClassAnalyzer}. Only one copy of each such class is ever loaded - whichever is first on the
+ * class path - so the others waste space and may shadow, or be shadowed by, a different version of the class depending upon the order in which the JARs are listed.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class DuplicateClassReport {
+    private final Map<String, List<String>> jarClasses;
+    private final Set<String> subjects;
+    private final Map<String, List<String>> classJars = new HashMap<String, List<String>>();
+    private final SortedMap<String, List<String>> duplicates = new TreeMap<String, List<String>>();
+
+    /**
+     * Create a report.
+     * 
+     * @param jarClasses
+     *            A {@link Map} of the names of the analyzed JARs to the binary names of the classes within them.
+     * @param subjects
+     *            A {@link Set} of the names of the JARs whose duplicates are to be reported; {@code null} to report the duplicates of every JAR.
+     */
+    DuplicateClassReport(Map<String, List<String>> jarClasses, Set<String> subjects) {
+        this.jarClasses = Collections.unmodifiableMap(new LinkedHashMap<String, List<String>>(jarClasses));
+        this.subjects = subjects == null ? null : Collections.unmodifiableSet(new HashSet<String>(subjects));
+        for (Map.Entry<String, List<String>> jar : this.jarClasses.entrySet()) {
+            for (String className : jar.getValue()) {
+                List<String> jars = classJars.get(className);
+                if (jars == null) {
+                    jars = new ArrayList<String>(1);
+                    classJars.put(className, jars);
+                }
+                jars.add(jar.getKey());
+            }
+        }
+        for (Map.Entry<String, List<String>> classJar : classJars.entrySet()) {
+            if (classJar.getValue().size() > 1 && (this.subjects == null || !Collections.disjoint(this.subjects, classJar.getValue()))) {
+                duplicates.put(classJar.getKey(), classJar.getValue());
+            }
+        }
+    }
+
+    /**
+     * Get the classes that are packaged in more than one JAR.
+     * 
+     * @return A {@link SortedMap} of the binary names of the duplicated classes to the names of the JARs containing them, in the order in which the JARs were analyzed.
+     */
+    public SortedMap<String, List<String>> getDuplicates() {
+        return Collections.unmodifiableSortedMap(duplicates);
+    }
+
+    /**
+     * Find the JARs, among the given candidates, that are redundant: every class within them is also within another JAR that is kept. The smallest JARs are considered first, so that of
+     * a JAR and another JAR that contains all of its classes and more, the former is found to be redundant; of two JARs with the same classes, the one analyzed later is found to be
+     * redundant. A JAR without any classes is never redundant, as it may be packaged for its resources.
+     * 
+     * @param candidates
+     *            A {@link Collection} of the names of the JARs that may be found redundant; JARs that are not among them are always kept.
+     * @return A {@link List} of the names of the redundant JARs.
+     */
+    public List<String> findRedundantJars(Collection<String> candidates) {
+        final List<String> ordered = new ArrayList<String>(candidates);
+        Collections.reverse(ordered);
+        Collections.sort(ordered, new Comparator<String>() {
+            public int compare(String o1, String o2) {
+                return getClassCount(o1) - getClassCount(o2);
+            }
+        });
+
+        final Set<String> redundant = new HashSet<String>();
+        final List<String> redundantJars = new ArrayList<String>();
+        for (String candidate : ordered) {
+            final List<String> classNames = jarClasses.get(candidate);
+            if (classNames == null || classNames.isEmpty() || !isProvidedElsewhere(candidate, classNames, redundant)) {
+                continue;
+            }
+            redundant.add(candidate);
+            redundantJars.add(candidate);
+        }
+        return redundantJars;
+    }
+
+    /**
+     * Create a report of the duplicates that remain once some JARs are removed.
+     * 
+     * @param jars
+     *            A {@link Collection} of the names of the JARs to be removed.
+     * @return A {@link DuplicateClassReport} of the JARs in this report other than the given JARs.
+     */
+    public DuplicateClassReport without(Collection<String> jars) {
+        final Map<String, List<String>> remaining = new LinkedHashMap<String, List<String>>(jarClasses);
+        remaining.keySet().removeAll(jars);
+        return new DuplicateClassReport(remaining, subjects);
+    }
+
+    /**
+     * Create a report of only the duplicates that involve some of the JARs, such as the JARs of one plugin among those of its sibling plugins.
+     * 
+     * @param jars
+     *            A {@link Collection} of the names of the JARs whose duplicates are to be reported.
+     * @return A {@link DuplicateClassReport} of the classes within at least one of the given JARs and within at least one other JAR.
+     */
+    public DuplicateClassReport involving(Collection<String> jars) {
+        return new DuplicateClassReport(jarClasses, new HashSet<String>(jars));
+    }
+
+    /**
+     * Format this report for display. Duplicated classes are grouped by the JARs containing them, largest group first.
+     * 
+     * @param maximumClasses
+     *            The maximum number of classes to be listed for each group.
+     * @return A {@link List} of lines of the formatted report; empty if there are no duplicated classes.
+     */
+    public List<String> format(int maximumClasses) {
+        if (duplicates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final Map<List<String>, List<String>> groups = new LinkedHashMap<List<String>, List<String>>();
+        for (Map.Entry<String, List<String>> duplicate : duplicates.entrySet()) {
+            List<String> group = groups.get(duplicate.getValue());
+            if (group == null) {
+                group = new ArrayList<String>();
+                groups.put(duplicate.getValue(), group);
+            }
+            group.add(duplicate.getKey());
+        }
+        final List<Map.Entry<List<String>, List<String>>> sorted = new ArrayList<Map.Entry<List<String>, List<String>>>(groups.entrySet());
+        Collections.sort(sorted, new Comparator<Map.Entry<List<String>, List<String>>>() {
+            public int compare(Map.Entry<List<String>, List<String>> o1, Map.Entry<List<String>, List<String>> o2) {
+                return o2.getValue().size() - o1.getValue().size();
+            }
+        });
+
+        final List<String> lines = new ArrayList<String>();
+        lines.add(String.format("Found %d class(es) packaged in more than one JAR", duplicates.size()));
+        for (Map.Entry<List<String>, List<String>> group : sorted) {
+            lines.add(String.format("  %d class(es) in each of %s", group.getValue().size(), group.getKey()));
+            final int listed = Math.min(maximumClasses, group.getValue().size());
+            for (String className : group.getValue().subList(0, listed)) {
+                lines.add("    " + className);
+            }
+            if (listed < group.getValue().size()) {
+                lines.add(String.format("    ... and %d more", group.getValue().size() - listed));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Write this report, listing every duplicated class, to a file.
+     * 
+     * @param toFile
+     *            A {@link File} representing the location to which the report is to be written.
+     * @throws IOException
+     *             If any errors occur while writing the report.
+     * @see #format(int)
+     */
+    public void write(File toFile) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(toFile), "UTF-8");
+        try {
+            for (String line : format(Integer.MAX_VALUE)) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Get the number of classes within a JAR.
+     * 
+     * @param jar
+     *            The name of the JAR.
+     * @return The number of classes within the given JAR; 0 if it was not analyzed.
+     */
+    private int getClassCount(String jar) {
+        final List<String> classNames = jarClasses.get(jar);
+        return classNames == null ? 0 : classNames.size();
+    }
+
+    /**
+     * Determine whether all of the classes of a JAR are also within another JAR that is kept.
+     * 
+     * @param jar
+     *            The name of the JAR.
+     * @param classNames
+     *            The classes within the JAR.
+     * @param redundant
+     *            A {@link Set} of the names of the JARs already found to be redundant, which are not kept.
+     * @return {@code true} if every given class is within a JAR other than the given JAR that is not redundant; {@code false} if not.
+     */
+    private boolean isProvidedElsewhere(String jar, List<String> classNames, Set<String> redundant) {
+        for (String className : classNames) {
+            boolean provided = false;
+            for (String providingJar : classJars.get(className)) {
+                if (!providingJar.equals(jar) && !redundant.contains(providingJar)) {
+                    provided = true;
+                    break;
+                }
+            }
+            if (!provided) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.analysis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * Exports a {@link PackagedGraph} in machine-readable formats. The JSON export is of the form:
+ * 
+ * <pre>
+ * {
+ *   "plugin": "my-plugin",
+ *   "library": { "path": "lib/my-plugin-1.0.jar", "size": 1234 },
+ *   "dependencies": [
+ *     {
+ *       "id": "group:artifact:jar:1.0", "groupId": "group", "artifactId": "artifact", "version": "1.0", "type": "jar", "classifier": null, "scope": "compile",
+ *       "decision": "included", "path": "libext/artifact-1.0.jar", "size": 5678,
+ *       "children": [ ... ]
+ *     }
+ *   ]
+ * }
+ * </pre>
+ * 
+ * The {@code decision} of each dependency is the lowercase name of its {@link PackagedGraph.Decision}; {@code path} and {@code size} are {@code null} for a dependency that was not
+ * packaged.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class GraphExporter {
+    private static final String CHARSET = "UTF-8";
+    private final String pluginName;
+    private final File pluginLibrary;
+    private final PackagedGraph graph;
+    private final Map<String, File> artifactFiles;
+
+    /**
+     * Create an exporter.
+     * 
+     * @param pluginName
+     *            The name of the plugin.
+     * @param pluginLibrary
+     *            A {@link File} representing the library copied into the {@code lib/} directory of the plugin.
+     * @param graph
+     *            The {@link PackagedGraph} of the plugin's dependencies.
+     * @param artifactFiles
+     *            A {@link Map} of artifact IDs (as returned by {@link Artifact#getId()}) to the {@link File} objects representing the files that were packaged for them.
+     */
+    public GraphExporter(String pluginName, File pluginLibrary, PackagedGraph graph, Map<String, File> artifactFiles) {
+        this.pluginName = pluginName;
+        this.pluginLibrary = pluginLibrary;
+        this.graph = graph;
+        this.artifactFiles = artifactFiles;
+    }
+
+    /**
+     * Write the graph in the DOT language, for rendering by Graphviz. Packaged artifacts are drawn as solid boxes labeled with their sizes; artifacts rejected by scope or by an exclusion are
+     * drawn dashed, and an artifact already packaged through another path is drawn as a dotted edge to its packaged node.
+     * 
+     * @param toFile
+     *            A {@link File} representing the location to which the graph is to be written.
+     * @throws IOException
+     *             If any errors occur while writing the graph.
+     */
+    public void writeDot(File toFile) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(toFile), CHARSET);
+        try {
+            final String libraryKey = "lib/" + pluginLibrary.getName();
+            writer.write(String.format("digraph %s {%n", quote(pluginName)));
+            writer.write(String.format("  node [shape=box];%n"));
+            writer.write(String.format("  %s [label=%s, style=bold];%n", quote(libraryKey), quote(libraryKey + "\n" + SizeReport.formatSize(pluginLibrary.length()))));
+            final Set<String> declared = new HashSet<String>();
+            writeDot(writer, libraryKey, graph.getRoots(), declared);
+            writer.write(String.format("}%n"));
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Write the given nodes, their edges from their parent, and their children in the DOT language.
+     * 
+     * @param writer
+     *            The {@link Writer} to which the graph is to be written.
+     * @param parentKey
+     *            The DOT identifier of the parent of the given nodes.
+     * @param nodes
+     *            A {@link List} of {@link PackagedGraph.Node} objects to be written.
+     * @param declared
+     *            A {@link Set} of the DOT identifiers of the nodes that have already been declared.
+     * @throws IOException
+     *             If any errors occur while writing the graph.
+     */
+    private void writeDot(Writer writer, String parentKey, List<PackagedGraph.Node> nodes, Set<String> declared) throws IOException {
+        for (PackagedGraph.Node node : nodes) {
+            final Artifact artifact = node.getArtifact();
+            switch (node.getDecision()) {
+            case DUPLICATE:
+                writer.write(String.format("  %s -> %s [style=dotted, label=\"duplicate\"];%n", quote(parentKey), quote(artifact.getId())));
+                break;
+            case INCLUDED:
+                final File file = artifactFiles.get(artifact.getId());
+                final String size = file == null ? "not packaged" : SizeReport.formatSize(file.length());
+                writer.write(String.format("  %s [label=%s];%n", quote(artifact.getId()), quote(String.format("%s:%s\n%s\n%s", artifact.getArtifactId(), artifact.getVersion(),
+                        artifact.getScope(), size))));
+                writer.write(String.format("  %s -> %s;%n", quote(parentKey), quote(artifact.getId())));
+                writeDot(writer, artifact.getId(), node.getChildren(), declared);
+                break;
+            default:
+                // The same artifact may be rejected in one place and included in another, so rejected artifacts are drawn as their own nodes
+                final String decision = node.getDecision().name().toLowerCase(Locale.ENGLISH);
+                final String key = String.format("%s (%s)", artifact.getId(), decision);
+                if (declared.add(key)) {
+                    writer.write(String.format("  %s [label=%s, style=dashed, color=gray];%n", quote(key), quote(String.format("%s:%s\n%s\n%s", artifact.getArtifactId(),
+                            artifact.getVersion(), artifact.getScope(), decision))));
+                }
+                writer.write(String.format("  %s -> %s [style=dashed, color=gray];%n", quote(parentKey), quote(key)));
+                break;
+            }
+        }
+    }
+
+    /**
+     * Write the graph as JSON.
+     * 
+     * @param toFile
+     *            A {@link File} representing the location to which the graph is to be written.
+     * @throws IOException
+     *             If any errors occur while writing the graph.
+     */
+    public void writeJson(File toFile) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(toFile), CHARSET);
+        try {
+            writer.write(String.format("{%n  \"plugin\": %s,%n", quote(pluginName)));
+            writer.write(String.format("  \"library\": { \"path\": %s, \"size\": %d },%n", quote("lib/" + pluginLibrary.getName()), pluginLibrary.length()));
+            writer.write("  \"dependencies\": ");
+            writeJson(writer, graph.getRoots(), "  ");
+            writer.write(String.format("%n}%n"));
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Write the given nodes, and their children, as a JSON array.
+     * 
+     * @param writer
+     *            The {@link Writer} to which the nodes are to be written.
+     * @param nodes
+     *            A {@link List} of {@link PackagedGraph.Node} objects to be written.
+     * @param indent
+     *            The indentation of the line on which the array begins.
+     * @throws IOException
+     *             If any errors occur while writing the nodes.
+     */
+    private void writeJson(Writer writer, List<PackagedGraph.Node> nodes, String indent) throws IOException {
+        if (nodes.isEmpty()) {
+            writer.write("[]");
+            return;
+        }
+
+        writer.write("[");
+        final String nodeIndent = indent + "  ";
+        for (int i = 0; i < nodes.size(); i++) {
+            final PackagedGraph.Node node = nodes.get(i);
+            final Artifact artifact = node.getArtifact();
+            final File file = PackagedGraph.Decision.INCLUDED.equals(node.getDecision()) ? artifactFiles.get(artifact.getId()) : null;
+            writer.write(String.format("%n%s{%n", nodeIndent));
+            writer.write(String.format("%s  \"id\": %s, \"groupId\": %s, \"artifactId\": %s, \"version\": %s, \"type\": %s, \"classifier\": %s, \"scope\": %s,%n", nodeIndent,
+                    quote(artifact.getId()), quote(artifact.getGroupId()), quote(artifact.getArtifactId()), quote(artifact.getVersion()), quote(artifact.getType()),
+                    quote(artifact.getClassifier()), quote(artifact.getScope())));
+            writer.write(String.format("%s  \"decision\": %s, \"path\": %s, \"size\": %s,%n", nodeIndent, quote(node.getDecision().name().toLowerCase(Locale.ENGLISH)),
+                    file == null ? "null" : quote("libext/" + file.getName()), file == null ? "null" : Long.toString(file.length())));
+            writer.write(String.format("%s  \"children\": ", nodeIndent));
+            writeJson(writer, node.getChildren(), nodeIndent + "  ");
+            writer.write(String.format("%n%s}", nodeIndent));
+            if (i < nodes.size() - 1) {
+                writer.write(",");
+            }
+        }
+        writer.write(String.format("%n%s]", indent));
+    }
+
+    /**
+     * Quote a string for use in either JSON or the DOT language, both of which share the same escaping of quotes, backslashes, and newlines.
+     * 
+     * @param value
+     *            The value to be quoted; may be {@code null}.
+     * @return The given value, quoted and escaped; {@code null}, unquoted, if the given value is {@code null}.
+     */
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+
+        final StringBuilder builder = new StringBuilder(value.length() + 2);
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    builder.append(String.format("\\u%04x", (int) c));
+                } else {
+                    builder.append(c);
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * The dependency graph of a plugin, annotated with the decision made about whether each artifact in it is packaged into the plugin. As with a graph built by a
+ * {@link org.apache.maven.shared.dependency.graph.DependencyGraphBuilder} given a filter, an artifact rejected by a filter is not packaged and neither is anything beneath it; unlike such a graph,
+ * the rejected artifact remains in this graph, along with the reason it was rejected.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+public class PackagedGraph {
+    private final List<Node> roots;
+    private final Map<String, Artifact> includedArtifacts;
+    private final List<Artifact> rangedArtifacts;
+
+    /**
+     * Filter a dependency graph into the graph of what is to be packaged.
+     * 
+     * @param dependencies
+     *            A {@link List} of {@link DependencyNode} objects representing the unfiltered dependencies of the plugin.
+     * @param scopeFilter
+     *            An {@link ArtifactFilter} that rejects artifacts whose scope keeps them out of the plugin; may be {@code null} if scope is not to be considered.
+     * @param exclusionFilter
+     *            An {@link ArtifactFilter} that rejects artifacts configured to be excluded from the plugin.
+     * @return A {@link PackagedGraph} of the given dependencies.
+     */
+    public static PackagedGraph filter(List<DependencyNode> dependencies, ArtifactFilter scopeFilter, ArtifactFilter exclusionFilter) {
+        final Map<String, Artifact> includedArtifacts = new LinkedHashMap<String, Artifact>();
+        final List<Artifact> rangedArtifacts = new ArrayList<Artifact>();
+        final List<Node> roots = new ArrayList<Node>(dependencies.size());
+        for (DependencyNode dependency : dependencies) {
+            roots.add(filter(dependency, scopeFilter, exclusionFilter, includedArtifacts, rangedArtifacts));
+        }
+        return new PackagedGraph(roots, includedArtifacts, rangedArtifacts);
+    }
+
+    /**
+     * Create the graph of artifacts whose places in the dependency graph are not known, such as those read from a resolution lockfile: every artifact is included as a direct dependency of
+     * the plugin.
+     * 
+     * @param artifacts
+     *            A {@link Collection} of {@link Artifact} objects representing the artifacts to be packaged.
+     * @return A {@link PackagedGraph} of the given artifacts.
+     */
+    public static PackagedGraph flat(Collection<Artifact> artifacts) {
+        final Map<String, Artifact> includedArtifacts = new LinkedHashMap<String, Artifact>();
+        final List<Node> roots = new ArrayList<Node>(artifacts.size());
+        for (Artifact artifact : artifacts) {
+            includedArtifacts.put(artifact.getId(), artifact);
+            roots.add(new Node(artifact, Decision.INCLUDED, Collections.<Node> emptyList()));
+        }
+        return new PackagedGraph(roots, includedArtifacts, Collections.<Artifact> emptyList());
+    }
+
+    /**
+     * Filter a node of a dependency graph and, if it is included, its children.
+     * 
+     * @param dependency
+     *            The {@link DependencyNode} to be filtered.
+     * @param scopeFilter
+     *            An {@link ArtifactFilter} that rejects artifacts by scope; may be {@code null}.
+     * @param exclusionFilter
+     *            An {@link ArtifactFilter} that rejects excluded artifacts.
+     * @param includedArtifacts
+     *            A {@link Map} of artifact IDs to the {@link Artifact} objects already included in the plugin, to which the given node's artifact is added if it is included.
+     * @param rangedArtifacts
+     *            A {@link List} to which the given node's artifact is added if it is included and its version was selected from a version range.
+     * @return A {@link Node} representing the given dependency.
+     */
+    private static Node filter(DependencyNode dependency, ArtifactFilter scopeFilter, ArtifactFilter exclusionFilter, Map<String, Artifact> includedArtifacts,
+            List<Artifact> rangedArtifacts) {
+        final Artifact artifact = dependency.getArtifact();
+        if (scopeFilter != null && !scopeFilter.include(artifact)) {
+            return new Node(artifact, Decision.SCOPE, Collections.<Node> emptyList());
+        }
+        if (!exclusionFilter.include(artifact)) {
+            return new Node(artifact, Decision.EXCLUDED, Collections.<Node> emptyList());
+        }
+        // The ID is built anew by every call to getId()
+        final String artifactId = artifact.getId();
+        if (includedArtifacts.containsKey(artifactId)) {
+            return new Node(artifact, Decision.DUPLICATE, Collections.<Node> emptyList());
+        }
+
+        includedArtifacts.put(artifactId, artifact);
+        if (isVersionRange(dependency.getVersionConstraint())) {
+            rangedArtifacts.add(artifact);
+        }
+        final List<Node> children = new ArrayList<Node>(dependency.getChildren().size());
+        for (DependencyNode child : dependency.getChildren()) {
+            children.add(filter(child, scopeFilter, exclusionFilter, includedArtifacts, rangedArtifacts));
+        }
+        return new Node(artifact, Decision.INCLUDED, children);
+    }
+
+    /**
+     * Determine whether a version is a version range, such as {@code [1.0,2.0)}, rather than a single version.
+     * 
+     * @param version
+     *            The version to be checked; may be {@code null}.
+     * @return {@code true} if the given version is a version range; {@code false} if not.
+     */
+    public static boolean isVersionRange(String version) {
+        return version != null && version.length() > 0 && (version.charAt(0) == '[' || version.charAt(0) == '(');
+    }
+
+    /**
+     * Create a graph.
+     * 
+     * @param roots
+     *            A {@link List} of {@link Node} objects representing the direct dependencies of the plugin.
+     * @param includedArtifacts
+     *            A {@link Map} of artifact IDs to the {@link Artifact} objects included in the plugin.
+     * @param rangedArtifacts
+     *            A {@link List} of the included {@link Artifact} objects whose versions were selected from version ranges.
+     */
+    private PackagedGraph(List<Node> roots, Map<String, Artifact> includedArtifacts, List<Artifact> rangedArtifacts) {
+        this.roots = Collections.unmodifiableList(roots);
+        this.includedArtifacts = includedArtifacts;
+        this.rangedArtifacts = Collections.unmodifiableList(rangedArtifacts);
+    }
+
+    /**
+     * Get the artifacts to be packaged.
+     * 
+     * @return A {@link Collection} of every {@link Artifact} included in the plugin, each once, in the order in which they are first reached in the graph.
+     */
+    public Collection<Artifact> getIncludedArtifacts() {
+        return Collections.unmodifiableCollection(includedArtifacts.values());
+    }
+
+    /**
+     * Get the packaged artifacts whose versions were selected from version ranges, and so may differ in a later build whose dependencies are otherwise unchanged.
+     * 
+     * @return A {@link List} of the included {@link Artifact} objects whose versions were selected from version ranges, in the order in which they are first reached in the graph.
+     */
+    public List<Artifact> getRangedArtifacts() {
+        return rangedArtifacts;
+    }
+
+    /**
+     * Get the roots of the graph.
+     * 
+     * @return A {@link List} of {@link Node} objects representing the direct dependencies of the plugin.
+     */
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    /**
+     * The decision made about whether an artifact is packaged into the plugin.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    public static enum Decision {
+        /**
+         * The artifact, and its children, are packaged.
+         */
+        INCLUDED,
+        /**
+         * The artifact was already included through another path in the graph; its children are not visited again.
+         */
+        DUPLICATE,
+        /**
+         * The artifact, and its children, were rejected by a configured exclusion.
+         */
+        EXCLUDED,
+        /**
+         * The artifact, and its children, were rejected because of their scope (e.g., {@code provided} or {@code test}).
+         */
+        SCOPE
+    }
+
+    /**
+     * A node in a {@link PackagedGraph}.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    public static class Node {
+        private final Artifact artifact;
+        private final Decision decision;
+        private final List<Node> children;
+
+        /**
+         * Create a node.
+         * 
+         * @param artifact
+         *            The {@link Artifact} represented by the node.
+         * @param decision
+         *            The {@link Decision} made about the artifact.
+         * @param children
+         *            A {@link List} of {@link Node} objects representing the children of the node; empty unless the artifact was included.
+         */
+        private Node(Artifact artifact, Decision decision, List<Node> children) {
+            this.artifact = artifact;
+            this.decision = decision;
+            this.children = Collections.unmodifiableList(children);
+        }
+
+        /**
+         * Get the artifact represented by this node.
+         * 
+         * @return The {@link Artifact} represented by this node.
+         */
+        public Artifact getArtifact() {
+            return artifact;
+        }
+
+        /**
+         * Get the children of this node.
+         * 
+         * @return A {@link List} of {@link Node} objects representing the children of this node; this is empty unless the artifact was {@link Decision#INCLUDED included}.
+         */
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        /**
+         * Get the decision made about the artifact.
+         * 
+         * @return The {@link Decision} made about whether the artifact is packaged.
+         */
+        public Decision getDecision() {
+            return decision;
+        }
+    }
+}
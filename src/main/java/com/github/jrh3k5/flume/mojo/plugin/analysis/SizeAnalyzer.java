@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.analysis;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * Analyzes how much each library contributes to the size of a plugin archive. The compressed size of each library is estimated by deflating it at the same level used to compress the archive;
+ * because the archive is compressed as a single stream, this is an estimate of the library's share of the archive rather than an exact figure.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class SizeAnalyzer {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final byte[] readBuffer = new byte[BUFFER_SIZE];
+    private final byte[] deflateBuffer = new byte[BUFFER_SIZE];
+
+    /**
+     * Analyze the contents of a plugin.
+     * 
+     * @param pluginLibrary
+     *            A {@link File} representing the library copied into the {@code lib/} directory of the plugin.
+     * @param graph
+     *            A {@link PackagedGraph} representing the dependencies of the plugin.
+     * @param artifactFiles
+     *            A {@link Map} of artifact IDs (as returned by {@link Artifact#getId()}) to the {@link File} objects representing the files that were packaged for them; an artifact in the graph
+     *            that was not packaged should be absent from this map.
+     * @return A {@link SizeReport} describing the contents of the plugin.
+     * @throws IOException
+     *             If any errors occur while reading the libraries.
+     */
+    public SizeReport analyze(File pluginLibrary, PackagedGraph graph, Map<String, File> artifactFiles) throws IOException {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            final SizeReport.Entry libraryEntry = new SizeReport.Entry("lib/" + pluginLibrary.getName(), Collections.<String> emptyList(), pluginLibrary.length(), estimateCompressedSize(
+                    pluginLibrary, deflater));
+            final List<SizeReport.Entry> entries = new ArrayList<SizeReport.Entry>();
+            for (PackagedGraph.Node dependency : graph.getRoots()) {
+                analyze(dependency, new ArrayList<String>(), artifactFiles, deflater, entries);
+            }
+            return new SizeReport(libraryEntry, entries);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Analyze a node of the dependency graph and all of its children. Only artifacts {@link PackagedGraph.Decision#INCLUDED included} in the plugin are analyzed, so an artifact reached
+     * through more than one path is attributed only to the first.
+     * 
+     * @param node
+     *            The {@link PackagedGraph.Node} to be analyzed.
+     * @param parentPath
+     *            A {@link List} of the identifiers of the artifacts through which the given node was reached.
+     * @param artifactFiles
+     *            A {@link Map} of artifact IDs to the packaged {@link File} objects representing them.
+     * @param deflater
+     *            The {@link Deflater} used to estimate compressed sizes.
+     * @param entries
+     *            A {@link List} to which the {@link SizeReport.Entry} objects for the given node and its children are added.
+     * @return The {@link SizeReport.Entry} for the given node; {@code null} if its artifact is not included in the plugin.
+     * @throws IOException
+     *             If any errors occur while reading the libraries.
+     */
+    private SizeReport.Entry analyze(PackagedGraph.Node node, List<String> parentPath, Map<String, File> artifactFiles, Deflater deflater, List<SizeReport.Entry> entries) throws IOException {
+        if (!PackagedGraph.Decision.INCLUDED.equals(node.getDecision())) {
+            return null;
+        }
+        final Artifact artifact = node.getArtifact();
+
+        final File file = artifactFiles.get(artifact.getId());
+        final SizeReport.Entry entry = file == null ? new SizeReport.Entry(artifact.getId(), parentPath, 0, 0) : new SizeReport.Entry(artifact.getId(), parentPath, file.length(),
+                estimateCompressedSize(file, deflater));
+        entries.add(entry);
+
+        final List<String> path = new ArrayList<String>(parentPath);
+        path.add(artifact.getId());
+        for (PackagedGraph.Node child : node.getChildren()) {
+            final SizeReport.Entry childEntry = analyze(child, path, artifactFiles, deflater, entries);
+            if (childEntry != null) {
+                entry.addToSubtree(childEntry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Estimate the compressed size of a file.
+     * 
+     * @param file
+     *            The {@link File} whose compressed size is to be estimated.
+     * @param deflater
+     *            The {@link Deflater} used to compress the file.
+     * @return The number of bytes to which the given file deflates.
+     * @throws IOException
+     *             If any errors occur while reading the file.
+     */
+    private long estimateCompressedSize(File file, Deflater deflater) throws IOException {
+        deflater.reset();
+        long compressed = 0;
+        final InputStream in = new FileInputStream(file);
+        try {
+            int read;
+            while ((read = in.read(readBuffer)) >= 0) {
+                deflater.setInput(readBuffer, 0, read);
+                while (!deflater.needsInput()) {
+                    compressed += deflater.deflate(deflateBuffer);
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+
+        deflater.finish();
+        while (!deflater.finished()) {
+            compressed += deflater.deflate(deflateBuffer);
+        }
+        return compressed;
+    }
+}
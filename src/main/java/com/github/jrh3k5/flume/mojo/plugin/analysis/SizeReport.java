@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.analysis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A report of how much each library contributes to the size of a plugin archive.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class SizeReport {
+    private static final String[] UNITS = { "B", "KiB", "MiB", "GiB" };
+    private final Entry pluginLibrary;
+    private final List<Entry> dependencies;
+
+    /**
+     * Create a report.
+     * 
+     * @param pluginLibrary
+     *            An {@link Entry} describing the library in the {@code lib/} directory of the plugin.
+     * @param dependencies
+     *            A {@link List} of {@link Entry} objects describing each dependency of the plugin.
+     */
+    SizeReport(Entry pluginLibrary, List<Entry> dependencies) {
+        this.pluginLibrary = pluginLibrary;
+        this.dependencies = Collections.unmodifiableList(new ArrayList<Entry>(dependencies));
+    }
+
+    /**
+     * Format a number of bytes for display.
+     * 
+     * @param bytes
+     *            The number of bytes to be formatted.
+     * @return A human-readable representation of the given number of bytes (e.g., {@code 1.5 MiB}).
+     */
+    public static String formatSize(long bytes) {
+        double size = bytes;
+        int unit = 0;
+        while (size >= 1024 && unit < UNITS.length - 1) {
+            size /= 1024;
+            unit++;
+        }
+        return unit == 0 ? String.format("%d %s", bytes, UNITS[0]) : String.format("%.1f %s", size, UNITS[unit]);
+    }
+
+    /**
+     * Get the dependencies described by this report.
+     * 
+     * @return A {@link List} of {@link Entry} objects describing each dependency of the plugin, in the order in which they appear in the dependency graph.
+     */
+    public List<Entry> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Get the library in the {@code lib/} directory of the plugin.
+     * 
+     * @return An {@link Entry} describing the library.
+     */
+    public Entry getPluginLibrary() {
+        return pluginLibrary;
+    }
+
+    /**
+     * Get the estimated compressed size of the plugin.
+     * 
+     * @return The sum of the estimated compressed sizes of all libraries in the plugin.
+     */
+    public long getTotalCompressedSize() {
+        long total = pluginLibrary.getCompressedSize();
+        for (Entry dependency : dependencies) {
+            total += dependency.getCompressedSize();
+        }
+        return total;
+    }
+
+    /**
+     * Get the uncompressed size of the plugin.
+     * 
+     * @return The sum of the sizes of all libraries in the plugin.
+     */
+    public long getTotalSize() {
+        long total = pluginLibrary.getSize();
+        for (Entry dependency : dependencies) {
+            total += dependency.getSize();
+        }
+        return total;
+    }
+
+    /**
+     * Format this report for display, listing the dependencies from largest to smallest estimated compressed size.
+     * 
+     * @param archiveSize
+     *            The actual size, in bytes, of the plugin archive.
+     * @return A {@link List} of lines of the formatted report.
+     */
+    public List<String> format(long archiveSize) {
+        final List<String> lines = new ArrayList<String>();
+        lines.add(String.format("Plugin archive is %s: %s uncompressed, ~%s compressed across %d dependencies and %s", formatSize(archiveSize), formatSize(getTotalSize()),
+                formatSize(getTotalCompressedSize()), dependencies.size(), pluginLibrary.getName()));
+        lines.add(String.format("  %12s %12s  %s", "compressed", "uncompressed", "library"));
+        lines.add(String.format("  %12s %12s  %s", "~" + formatSize(pluginLibrary.getCompressedSize()), formatSize(pluginLibrary.getSize()), pluginLibrary.getName()));
+
+        final List<Entry> sorted = new ArrayList<Entry>(dependencies);
+        Collections.sort(sorted, new Comparator<Entry>() {
+            public int compare(Entry o1, Entry o2) {
+                return o1.getCompressedSize() < o2.getCompressedSize() ? 1 : o1.getCompressedSize() > o2.getCompressedSize() ? -1 : 0;
+            }
+        });
+        for (Entry dependency : sorted) {
+            lines.add(String.format("  %12s %12s  %s", "~" + formatSize(dependency.getCompressedSize()), formatSize(dependency.getSize()), dependency.getName()));
+            lines.add(String.format("  %12s %12s    via %s", "", "", dependency.getPath().isEmpty() ? "(direct dependency)" : join(dependency.getPath())));
+            if (dependency.getSubtreeCount() > 1) {
+                lines.add(String.format("  %12s %12s    an exclusion would remove %d artifacts, ~%s compressed", "", "", dependency.getSubtreeCount(),
+                        formatSize(dependency.getSubtreeCompressedSize())));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Write this report to a file.
+     * 
+     * @param archiveSize
+     *            The actual size, in bytes, of the plugin archive.
+     * @param toFile
+     *            A {@link File} representing the location to which the report is to be written.
+     * @throws IOException
+     *             If any errors occur while writing the report.
+     * @see #format(long)
+     */
+    public void write(long archiveSize, File toFile) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(toFile), "UTF-8");
+        try {
+            for (String line : format(archiveSize)) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Join the elements of a dependency path for display.
+     * 
+     * @param path
+     *            The {@link List} of artifact identifiers to be joined.
+     * @return The given identifiers, separated by {@code  > }.
+     */
+    private static String join(List<String> path) {
+        final StringBuilder builder = new StringBuilder();
+        for (String element : path) {
+            if (builder.length() > 0) {
+                builder.append(" > ");
+            }
+            builder.append(element);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The contribution of a single library to a plugin archive.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    public static class Entry {
+        private final String name;
+        private final List<String> path;
+        private final long size;
+        private final long compressedSize;
+        private long subtreeSize;
+        private long subtreeCompressedSize;
+        private int subtreeCount = 1;
+
+        /**
+         * Create an entry.
+         * 
+         * @param name
+         *            The name of the library.
+         * @param path
+         *            A {@link List} of the identifiers of the artifacts through which the library was pulled into the plugin, nearest to the project first.
+         * @param size
+         *            The uncompressed size, in bytes, of the library.
+         * @param compressedSize
+         *            The estimated compressed size, in bytes, of the library.
+         */
+        Entry(String name, List<String> path, long size, long compressedSize) {
+            this.name = name;
+            this.path = Collections.unmodifiableList(new ArrayList<String>(path));
+            this.size = size;
+            this.compressedSize = compressedSize;
+            this.subtreeSize = size;
+            this.subtreeCompressedSize = compressedSize;
+        }
+
+        /**
+         * Get the estimated compressed size of the library.
+         * 
+         * @return The estimated compressed size, in bytes, of the library.
+         */
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        /**
+         * Get the name of the library.
+         * 
+         * @return The name of the library; for a dependency, this is its artifact ID.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the path through which the library was pulled into the plugin.
+         * 
+         * @return A {@link List} of the identifiers of the artifacts through which the library was pulled into the plugin, nearest to the project first; empty for a direct dependency.
+         */
+        public List<String> getPath() {
+            return path;
+        }
+
+        /**
+         * Get the uncompressed size of the library.
+         * 
+         * @return The uncompressed size, in bytes, of the library.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Get the estimated compressed size of the library and all of the libraries pulled in through it. This is the size that an exclusion of the library would remove from the plugin.
+         * 
+         * @return The estimated compressed size, in bytes, of the library's subtree.
+         */
+        public long getSubtreeCompressedSize() {
+            return subtreeCompressedSize;
+        }
+
+        /**
+         * Get the number of libraries in the subtree of the library.
+         * 
+         * @return The number of libraries, including this one, that an exclusion of the library would remove from the plugin.
+         */
+        public int getSubtreeCount() {
+            return subtreeCount;
+        }
+
+        /**
+         * Get the uncompressed size of the library and all of the libraries pulled in through it.
+         * 
+         * @return The uncompressed size, in bytes, of the library's subtree.
+         */
+        public long getSubtreeSize() {
+            return subtreeSize;
+        }
+
+        /**
+         * Add a library pulled in through this library to its subtree.
+         * 
+         * @param child
+         *            The {@link Entry} of the child library, whose own subtree is to be added.
+         */
+        void addToSubtree(Entry child) {
+            subtreeSize += child.getSubtreeSize();
+            subtreeCompressedSize += child.getSubtreeCompressedSize();
+            subtreeCount += child.getSubtreeCount();
+        }
+    }
+}
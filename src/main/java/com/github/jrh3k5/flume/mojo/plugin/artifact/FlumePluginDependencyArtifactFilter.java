@@ -43,9 +43,8 @@ public class FlumePluginDependencyArtifactFilter implements ArtifactFilter {
 
     @Override
     public boolean include(Artifact artifact) {
-        boolean matches = dependency.getGroupId().matches(artifact.getGroupId());
-        matches &= dependency.getArtifactId().matches(artifact.getArtifactId());
-        return matches;
+        // Coordinates are compared exactly; String.matches() would compile each artifact's coordinates as a pattern on every call
+        return dependency.getGroupId().equals(artifact.getGroupId()) && dependency.getArtifactId().equals(artifact.getArtifactId());
     }
 
 }
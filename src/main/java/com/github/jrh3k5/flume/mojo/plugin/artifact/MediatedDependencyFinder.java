@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.artifact;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * Finds the transitive dependencies of one of a project's dependencies that Maven's conflict mediation moved elsewhere in the project's dependency graph. When an artifact is reached
+ * through more than one path, the resolved graph keeps it - along with its own dependencies - only beneath the nearest path, so the subtree of a dependency can be missing artifacts that
+ * the dependency needs. Those artifacts are found by walking the unmediated dependency tree built by a {@link org.apache.maven.shared.dependency.tree.DependencyTreeBuilder}, in which
+ * they remain as nodes omitted for conflict or duplication, and are then located in the resolved graph.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class MediatedDependencyFinder {
+    private final Map<String, DependencyNode> resolvedNodes = new HashMap<String, DependencyNode>();
+    private final ArtifactFilter exclusionFilter;
+
+    /**
+     * Create a finder.
+     * 
+     * @param dependencies
+     *            A {@link List} of {@link DependencyNode} objects representing the resolved dependencies of the project.
+     * @param exclusionFilter
+     *            An {@link ArtifactFilter} rejecting the artifacts configured to be excluded; nothing beneath a rejected artifact is looked for.
+     */
+    public MediatedDependencyFinder(List<DependencyNode> dependencies, ArtifactFilter exclusionFilter) {
+        this.exclusionFilter = exclusionFilter;
+        for (DependencyNode dependency : dependencies) {
+            indexResolved(dependency);
+        }
+    }
+
+    /**
+     * Get the key by which an artifact is mediated: its coordinates other than its version.
+     * 
+     * @param artifact
+     *            The {@link Artifact} whose key is to be built.
+     * @return The dependency conflict ID of the given artifact.
+     */
+    private static String getKey(Artifact artifact) {
+        return artifact.getDependencyConflictId();
+    }
+
+    /**
+     * Find the mediated dependencies of a project's dependency.
+     * 
+     * @param dependency
+     *            The resolved {@link DependencyNode} of the dependency.
+     * @param unmediatedTree
+     *            The root of the unmediated dependency tree of the project, as built by a {@link org.apache.maven.shared.dependency.tree.DependencyTreeBuilder}.
+     * @return A {@link Result} describing the dependencies of the given dependency that are not within its resolved subtree.
+     */
+    public Result find(DependencyNode dependency, org.apache.maven.shared.dependency.tree.DependencyNode unmediatedTree) {
+        final Set<String> packaged = new HashSet<String>();
+        addKeys(dependency, packaged);
+
+        final Map<String, org.apache.maven.shared.dependency.tree.DependencyNode> includedNodes = new HashMap<String, org.apache.maven.shared.dependency.tree.DependencyNode>();
+        indexIncluded(unmediatedTree, includedNodes);
+
+        final List<DependencyNode> mediated = new ArrayList<DependencyNode>();
+        final List<Artifact> missing = new ArrayList<Artifact>();
+        final LinkedList<org.apache.maven.shared.dependency.tree.DependencyNode> pending = new LinkedList<org.apache.maven.shared.dependency.tree.DependencyNode>();
+        final org.apache.maven.shared.dependency.tree.DependencyNode unmediatedDependency = includedNodes.get(getKey(dependency.getArtifact()));
+        if (unmediatedDependency != null) {
+            pending.add(unmediatedDependency);
+        }
+        while (!pending.isEmpty()) {
+            scan(pending.removeFirst(), packaged, includedNodes, pending, mediated, missing);
+        }
+        return new Result(mediated, missing);
+    }
+
+    /**
+     * Scan the children of a node of the unmediated tree for artifacts omitted from it that are not packaged.
+     * 
+     * @param node
+     *            The node of the unmediated tree whose children are to be scanned.
+     * @param packaged
+     *            A {@link Set} of the keys of the artifacts already packaged, to which the keys of any newly-found artifacts are added.
+     * @param includedNodes
+     *            A {@link Map} of keys to the nodes of the unmediated tree in which the artifacts were included.
+     * @param pending
+     *            A {@link List} of nodes of the unmediated tree to be scanned, to which the included node of any newly-found artifact is added, so that its own dependencies are scanned.
+     * @param mediated
+     *            A {@link List} to which the resolved nodes of the newly-found artifacts are added.
+     * @param missing
+     *            A {@link List} to which the artifacts not found in the resolved graph are added.
+     */
+    private void scan(org.apache.maven.shared.dependency.tree.DependencyNode node, Set<String> packaged, Map<String, org.apache.maven.shared.dependency.tree.DependencyNode> includedNodes,
+            List<org.apache.maven.shared.dependency.tree.DependencyNode> pending, List<DependencyNode> mediated, List<Artifact> missing) {
+        for (org.apache.maven.shared.dependency.tree.DependencyNode child : node.getChildren()) {
+            final Artifact artifact = child.getArtifact();
+            if (!exclusionFilter.include(artifact)) {
+                continue;
+            }
+            final int state = child.getState();
+            if (state == org.apache.maven.shared.dependency.tree.DependencyNode.INCLUDED) {
+                scan(child, packaged, includedNodes, pending, mediated, missing);
+            } else if (state == org.apache.maven.shared.dependency.tree.DependencyNode.OMITTED_FOR_CONFLICT
+                    || state == org.apache.maven.shared.dependency.tree.DependencyNode.OMITTED_FOR_DUPLICATE) {
+                final String key = getKey(artifact);
+                if (!packaged.add(key)) {
+                    continue;
+                }
+                final DependencyNode resolved = resolvedNodes.get(key);
+                if (resolved == null) {
+                    missing.add(artifact);
+                    continue;
+                }
+                mediated.add(resolved);
+                addKeys(resolved, packaged);
+                final org.apache.maven.shared.dependency.tree.DependencyNode included = includedNodes.get(key);
+                if (included != null) {
+                    pending.add(included);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the keys of the artifacts of a resolved node and everything beneath it to a set.
+     * 
+     * @param node
+     *            The {@link DependencyNode} whose keys are to be added.
+     * @param keys
+     *            The {@link Set} to which the keys are to be added.
+     */
+    private void addKeys(DependencyNode node, Set<String> keys) {
+        keys.add(getKey(node.getArtifact()));
+        for (DependencyNode child : node.getChildren()) {
+            addKeys(child, keys);
+        }
+    }
+
+    /**
+     * Index the nodes of the resolved graph by key. As the resolved graph holds each artifact once, the first node found for a key is kept.
+     * 
+     * @param node
+     *            The {@link DependencyNode} to be indexed, along with everything beneath it.
+     */
+    private void indexResolved(DependencyNode node) {
+        final String key = getKey(node.getArtifact());
+        if (!resolvedNodes.containsKey(key)) {
+            resolvedNodes.put(key, node);
+        }
+        for (DependencyNode child : node.getChildren()) {
+            indexResolved(child);
+        }
+    }
+
+    /**
+     * Index the nodes of the unmediated tree in which their artifacts were included.
+     * 
+     * @param node
+     *            The node whose children are to be indexed, along with everything beneath them.
+     * @param includedNodes
+     *            The {@link Map} into which the nodes are to be indexed.
+     */
+    private void indexIncluded(org.apache.maven.shared.dependency.tree.DependencyNode node, Map<String, org.apache.maven.shared.dependency.tree.DependencyNode> includedNodes) {
+        for (org.apache.maven.shared.dependency.tree.DependencyNode child : node.getChildren()) {
+            if (child.getState() == org.apache.maven.shared.dependency.tree.DependencyNode.INCLUDED) {
+                final String key = getKey(child.getArtifact());
+                if (!includedNodes.containsKey(key)) {
+                    includedNodes.put(key, child);
+                }
+                indexIncluded(child, includedNodes);
+            }
+        }
+    }
+
+    /**
+     * The mediated dependencies found by a {@link MediatedDependencyFinder}.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    public static class Result {
+        private final List<DependencyNode> mediated;
+        private final List<Artifact> missing;
+
+        /**
+         * Create a result.
+         * 
+         * @param mediated
+         *            A {@link List} of {@link DependencyNode} objects representing the mediated dependencies found elsewhere in the resolved graph.
+         * @param missing
+         *            A {@link List} of {@link Artifact} objects representing the mediated dependencies not found in the resolved graph.
+         */
+        private Result(List<DependencyNode> mediated, List<Artifact> missing) {
+            this.mediated = Collections.unmodifiableList(mediated);
+            this.missing = Collections.unmodifiableList(missing);
+        }
+
+        /**
+         * Get the mediated dependencies found elsewhere in the resolved graph.
+         * 
+         * @return A {@link List} of {@link DependencyNode} objects representing the resolved nodes, along with their own dependencies, of the dependencies that are needed by the
+         *         dependency but are not within its subtree.
+         */
+        public List<DependencyNode> getMediated() {
+            return mediated;
+        }
+
+        /**
+         * Get the mediated dependencies that could not be found in the resolved graph.
+         * 
+         * @return A {@link List} of {@link Artifact} objects representing the dependencies that are needed by the dependency but are missing from the resolved graph.
+         */
+        public List<Artifact> getMissing() {
+            return missing;
+        }
+    }
+}
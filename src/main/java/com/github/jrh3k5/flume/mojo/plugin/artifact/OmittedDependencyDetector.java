@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.artifact;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Profile;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Detects whether Maven's conflict mediation may have moved any of the transitive dependencies of one of a project's dependencies elsewhere in the project's dependency graph. The
+ * resolved graph keeps no trace of the nodes it omits, so the dependencies declared by the POM of each artifact within the subtree of the dependency - read from the local repository,
+ * where resolution left them - are compared against the artifacts within the subtree. Only if a declared dependency is absent from the subtree does the unmediated dependency tree, whose
+ * building is a second resolution of the whole project, need to be consulted by a {@link MediatedDependencyFinder}.
+ * <p>
+ * The comparison errs towards finding omissions: a POM that cannot be read, or whose dependencies cannot be determined without fully building its model, is treated as declaring a
+ * dependency that is absent.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class OmittedDependencyDetector {
+    /**
+     * The most ancestors of a POM that are read before its dependencies are treated as undeterminable, guarding against a cycle of parents.
+     */
+    private static final int MAXIMUM_PARENT_DEPTH = 32;
+    private final File localRepository;
+    private final ArtifactFilter exclusionFilter;
+    private final Map<File, Model> models = new HashMap<File, Model>();
+
+    /**
+     * Create a detector.
+     * 
+     * @param localRepository
+     *            A {@link File} representing the base directory of the local repository from which POMs are to be read.
+     * @param exclusionFilter
+     *            An {@link ArtifactFilter} rejecting the artifacts configured to be excluded; nothing beneath a rejected artifact is compared, and a rejected artifact is not expected to
+     *            be within the subtree.
+     */
+    public OmittedDependencyDetector(File localRepository, ArtifactFilter exclusionFilter) {
+        this.localRepository = localRepository;
+        this.exclusionFilter = exclusionFilter;
+    }
+
+    /**
+     * Get the key by which declared dependencies are compared against the artifacts of the subtree: their group and artifact IDs.
+     * 
+     * @param groupId
+     *            The group ID of the artifact.
+     * @param artifactId
+     *            The artifact ID of the artifact.
+     * @return The key of the artifact.
+     */
+    private static String getKey(String groupId, String artifactId) {
+        return groupId + ":" + artifactId;
+    }
+
+    /**
+     * Determine whether a dependency is inherited by the dependents of the artifact declaring it.
+     * 
+     * @param dependency
+     *            The declared {@link Dependency}.
+     * @return {@code true} if the dependency is neither optional nor of a scope that is not transitive; {@code false} if not.
+     */
+    private static boolean isTransitive(Dependency dependency) {
+        final String scope = dependency.getScope();
+        return !dependency.isOptional() && (scope == null || Artifact.SCOPE_COMPILE.equals(scope) || Artifact.SCOPE_RUNTIME.equals(scope));
+    }
+
+    /**
+     * Determine whether an exclusion matches an identifier, honoring wildcards.
+     * 
+     * @param pattern
+     *            The group or artifact ID of the exclusion.
+     * @param identifier
+     *            The group or artifact ID of the dependency.
+     * @return {@code true} if the exclusion matches the identifier; {@code false} if not.
+     */
+    private static boolean matches(String pattern, String identifier) {
+        return "*".equals(pattern) || identifier.equals(pattern);
+    }
+
+    /**
+     * Determine whether there are dependencies of a project's dependency that are absent from its resolved subtree.
+     * 
+     * @param dependency
+     *            The resolved {@link DependencyNode} of the dependency.
+     * @param exclusions
+     *            A {@link List} of the {@link Exclusion} objects with which the project declares the dependency.
+     * @return {@code true} if an artifact within the subtree of the given dependency declares a transitive dependency that is not excluded and is not within the subtree, or if the
+     *         dependencies of an artifact within the subtree cannot be determined; {@code false} if every declared dependency is within the subtree.
+     */
+    public boolean hasOmissions(DependencyNode dependency, List<Exclusion> exclusions) {
+        final Set<String> packaged = new HashSet<String>();
+        addKeys(dependency, packaged);
+
+        final LinkedList<DependencyNode> pendingNodes = new LinkedList<DependencyNode>();
+        final LinkedList<List<Exclusion>> pendingExclusions = new LinkedList<List<Exclusion>>();
+        pendingNodes.add(dependency);
+        pendingExclusions.add(exclusions);
+        while (!pendingNodes.isEmpty()) {
+            final DependencyNode node = pendingNodes.removeFirst();
+            final List<Exclusion> nodeExclusions = pendingExclusions.removeFirst();
+            final Artifact artifact = node.getArtifact();
+            if (!exclusionFilter.include(artifact)) {
+                continue;
+            }
+
+            final List<Dependency> declared = readDependencies(artifact);
+            if (declared == null) {
+                return true;
+            }
+            final Map<String, Dependency> declaredByKey = new HashMap<String, Dependency>();
+            for (Dependency declaredDependency : declared) {
+                if (!isTransitive(declaredDependency)) {
+                    continue;
+                }
+                final String groupId = interpolate(declaredDependency.getGroupId(), artifact);
+                final String artifactId = interpolate(declaredDependency.getArtifactId(), artifact);
+                if (groupId == null || artifactId == null) {
+                    return true;
+                }
+                final String key = getKey(groupId, artifactId);
+                declaredByKey.put(key, declaredDependency);
+                if (!packaged.contains(key) && !isExcluded(groupId, artifactId, declaredDependency, nodeExclusions)) {
+                    return true;
+                }
+            }
+
+            for (DependencyNode child : node.getChildren()) {
+                final Dependency declaredChild = declaredByKey.get(getKey(child.getArtifact().getGroupId(), child.getArtifact().getArtifactId()));
+                List<Exclusion> childExclusions = nodeExclusions;
+                if (declaredChild != null && !declaredChild.getExclusions().isEmpty()) {
+                    childExclusions = new ArrayList<Exclusion>(nodeExclusions);
+                    childExclusions.addAll(declaredChild.getExclusions());
+                }
+                pendingNodes.add(child);
+                pendingExclusions.add(childExclusions);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add the keys of the artifacts of a resolved node and everything beneath it to a set.
+     * 
+     * @param node
+     *            The {@link DependencyNode} whose keys are to be added.
+     * @param keys
+     *            The {@link Set} to which the keys are to be added.
+     */
+    private void addKeys(DependencyNode node, Set<String> keys) {
+        keys.add(getKey(node.getArtifact().getGroupId(), node.getArtifact().getArtifactId()));
+        for (DependencyNode child : node.getChildren()) {
+            addKeys(child, keys);
+        }
+    }
+
+    /**
+     * Resolve the expressions of a group or artifact ID of a declared dependency that refer to the declaring artifact.
+     * 
+     * @param identifier
+     *            The group or artifact ID to be resolved.
+     * @param declaringArtifact
+     *            The {@link Artifact} whose POM declares the dependency.
+     * @return The resolved identifier; {@code null} if it holds an expression that cannot be resolved without building the model of the POM.
+     */
+    private String interpolate(String identifier, Artifact declaringArtifact) {
+        if (identifier == null) {
+            return null;
+        } else if ("${project.groupId}".equals(identifier) || "${pom.groupId}".equals(identifier)) {
+            return declaringArtifact.getGroupId();
+        } else if ("${project.artifactId}".equals(identifier) || "${pom.artifactId}".equals(identifier)) {
+            return declaringArtifact.getArtifactId();
+        }
+        return identifier.contains("${") ? null : identifier;
+    }
+
+    /**
+     * Determine whether a declared dependency is excluded, either by the configured exclusions or by the exclusions of the path through which it was reached.
+     * 
+     * @param groupId
+     *            The resolved group ID of the dependency.
+     * @param artifactId
+     *            The resolved artifact ID of the dependency.
+     * @param dependency
+     *            The declared {@link Dependency}.
+     * @param exclusions
+     *            A {@link List} of the {@link Exclusion} objects of the path through which the declaring artifact was reached.
+     * @return {@code true} if the dependency is excluded; {@code false} if not.
+     */
+    private boolean isExcluded(String groupId, String artifactId, Dependency dependency, List<Exclusion> exclusions) {
+        for (Exclusion exclusion : exclusions) {
+            if (matches(exclusion.getGroupId(), groupId) && matches(exclusion.getArtifactId(), artifactId)) {
+                return true;
+            }
+        }
+        final Artifact artifact = new DefaultArtifact(groupId, artifactId, VersionRange.createFromVersion("0"), dependency.getScope(), dependency.getType(), dependency.getClassifier(),
+                new DefaultArtifactHandler(dependency.getType()));
+        return !exclusionFilter.include(artifact);
+    }
+
+    /**
+     * Read the dependencies declared by the POM of an artifact and by the POMs of its ancestors.
+     * 
+     * @param artifact
+     *            The {@link Artifact} whose declared dependencies are to be read.
+     * @return A {@link List} of the declared {@link Dependency} objects; {@code null} if they cannot be determined.
+     */
+    private List<Dependency> readDependencies(Artifact artifact) {
+        final List<Dependency> dependencies = new ArrayList<Dependency>();
+        Model model = readModel(artifact.getGroupId(), artifact.getArtifactId(), artifact.getBaseVersion());
+        for (int depth = 0; model != null; depth++) {
+            for (Profile profile : model.getProfiles()) {
+                // Whether a profile is active depends upon the environment of the build that would have read it
+                if (!profile.getDependencies().isEmpty()) {
+                    return null;
+                }
+            }
+            dependencies.addAll(model.getDependencies());
+
+            final Parent parent = model.getParent();
+            if (parent == null) {
+                return dependencies;
+            } else if (depth == MAXIMUM_PARENT_DEPTH) {
+                return null;
+            }
+            model = readModel(parent.getGroupId(), parent.getArtifactId(), parent.getVersion());
+        }
+        return null;
+    }
+
+    /**
+     * Read a POM from the local repository.
+     * 
+     * @param groupId
+     *            The group ID of the POM.
+     * @param artifactId
+     *            The artifact ID of the POM.
+     * @param version
+     *            The version of the POM.
+     * @return The read {@link Model}; {@code null} if the POM is not in the local repository or cannot be read.
+     */
+    private Model readModel(String groupId, String artifactId, String version) {
+        if (groupId == null || artifactId == null || version == null) {
+            return null;
+        }
+        final File pomFile = new File(localRepository, String.format("%s/%s/%s/%s-%s.pom", groupId.replace('.', '/'), artifactId, version, artifactId, version));
+        if (models.containsKey(pomFile)) {
+            return models.get(pomFile);
+        }
+
+        Model model = null;
+        if (pomFile.isFile()) {
+            InputStream inputStream = null;
+            try {
+                inputStream = new FileInputStream(pomFile);
+                model = new MavenXpp3Reader().read(inputStream, false);
+            } catch (IOException e) {
+                model = null;
+            } catch (XmlPullParserException e) {
+                model = null;
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
+        }
+        models.put(pomFile, model);
+        return model;
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.artifact;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+
+import com.github.jrh3k5.flume.mojo.plugin.io.ChecksumManifest;
+
+/**
+ * A record of the artifacts resolved for a plugin, so that a later build whose resolution inputs are unchanged can look up the files of those artifacts directly rather than building the
+ * dependency graph again. The lockfile is keyed by a hash of the inputs to the resolution; a lockfile whose key does not match the inputs of the current build is stale. Each artifact is
+ * recorded with the size and SHA-1 checksum of its file, so that a file that has changed since the lockfile was written is detected. When the recorded artifacts are
+ * {@link #resolve(List, Artifact, long) resolved}, the size of every file is checked, but only a file modified since the lockfile was written - such as one downloaded into a fresh local
+ * repository - is read to check its checksum. Each line of the written lockfile is of the form:
+ * 
+ * <pre>
+ * key\t&lt;key&gt;
+ * library\t&lt;size&gt;\t&lt;sha-1&gt;\t&lt;groupId&gt;\t&lt;artifactId&gt;\t&lt;version&gt;\t&lt;type&gt;\t&lt;classifier&gt;\t&lt;extension&gt;
+ * artifact\t&lt;size&gt;\t&lt;sha-1&gt;\t&lt;groupId&gt;\t&lt;artifactId&gt;\t&lt;version&gt;\t&lt;type&gt;\t&lt;classifier&gt;\t&lt;extension&gt;
+ * </pre>
+ * 
+ * A {@code library} line, recording the primary library of the plugin, is only written if the library was itself resolved. An artifact without a classifier is recorded with a classifier of
+ * {@code -}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ResolutionLockfile {
+    private static final String CHARSET = "UTF-8";
+    private static final String KEY_LINE = "key";
+    private static final String LIBRARY_LINE = "library";
+    private static final String ARTIFACT_LINE = "artifact";
+    private static final String NO_CLASSIFIER = "-";
+    private final String key;
+    private final List<Entry> artifacts = new ArrayList<Entry>();
+    private Entry library;
+
+    /**
+     * Compute the key of a resolution.
+     * 
+     * @param inputs
+     *            A {@link Collection} of strings describing every input to the resolution, in a stable order.
+     * @return A hexadecimal SHA-256 hash of the given inputs.
+     */
+    public static String computeKey(Collection<String> inputs) {
+        final MessageDigest digest = ChecksumManifest.newDigest("SHA-256");
+        for (String input : inputs) {
+            try {
+                digest.update(input.getBytes(CHARSET));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException("Unsupported charset: " + CHARSET, e);
+            }
+            // Separate the inputs so that moving characters from one input to the next changes the key
+            digest.update((byte) '\n');
+        }
+        return ChecksumManifest.toHex(digest.digest());
+    }
+
+    /**
+     * Read a lockfile.
+     * 
+     * @param inputStream
+     *            An {@link InputStream} containing the lockfile to be read; this is not closed by this method.
+     * @return A {@link ResolutionLockfile} representing the read lockfile.
+     * @throws IOException
+     *             If any errors occur while reading the lockfile or if the lockfile is malformed.
+     */
+    public static ResolutionLockfile read(InputStream inputStream) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, CHARSET));
+        final String keyLine = reader.readLine();
+        if (keyLine == null || !keyLine.startsWith(KEY_LINE + "\t")) {
+            throw new IOException("Lockfile does not begin with a key: " + keyLine);
+        }
+        final ResolutionLockfile lockfile = new ResolutionLockfile(keyLine.substring(KEY_LINE.length() + 1));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.length() == 0) {
+                continue;
+            }
+            final String[] fields = line.split("\t", 9);
+            if (fields.length != 9) {
+                throw new IOException("Malformed lockfile line: " + line);
+            }
+            final long size;
+            try {
+                size = Long.parseLong(fields[1]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed lockfile line: " + line);
+            }
+            final String extension = fields[8];
+            // The extension of a type (e.g., test-jar) is not necessarily the type itself
+            final DefaultArtifactHandler artifactHandler = new DefaultArtifactHandler(fields[6]) {
+                @Override
+                public String getExtension() {
+                    return extension;
+                }
+            };
+            final Artifact artifact = new DefaultArtifact(fields[3], fields[4], fields[5], Artifact.SCOPE_RUNTIME, fields[6], NO_CLASSIFIER.equals(fields[7]) ? null : fields[7],
+                    artifactHandler);
+            if (LIBRARY_LINE.equals(fields[0])) {
+                lockfile.library = new Entry(artifact, size, fields[2]);
+            } else if (ARTIFACT_LINE.equals(fields[0])) {
+                lockfile.artifacts.add(new Entry(artifact, size, fields[2]));
+            } else {
+                throw new IOException("Unrecognized lockfile line: " + line);
+            }
+        }
+        return lockfile;
+    }
+
+    /**
+     * Compute the SHA-1 checksum of the file of an artifact.
+     * 
+     * @param artifact
+     *            The resolved {@link Artifact} whose file is to be checksummed.
+     * @return The SHA-1 checksum of the file of the given artifact, as a hexadecimal string.
+     * @throws IOException
+     *             If any errors occur while reading the file.
+     */
+    private static String sha1(Artifact artifact) throws IOException {
+        final MessageDigest digest = ChecksumManifest.newDigest("SHA-1");
+        final InputStream fileIn = new FileInputStream(artifact.getFile());
+        try {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = fileIn.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            IOUtils.closeQuietly(fileIn);
+        }
+        return ChecksumManifest.toHex(digest.digest());
+    }
+
+    /**
+     * Create an empty lockfile.
+     * 
+     * @param key
+     *            The key of the resolution recorded by the lockfile.
+     */
+    public ResolutionLockfile(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Record a resolved artifact.
+     * 
+     * @param artifact
+     *            The resolved {@link Artifact} to be recorded; its file is read to compute its checksum.
+     * @throws IOException
+     *             If any errors occur while reading the file of the artifact.
+     */
+    public void addArtifact(Artifact artifact) throws IOException {
+        artifacts.add(new Entry(artifact, artifact.getFile().length(), sha1(artifact)));
+    }
+
+    /**
+     * Get the recorded artifacts.
+     * 
+     * @return A {@link List} of the recorded {@link Artifact} objects, in the order in which they were recorded. The artifacts of a read lockfile are not resolved.
+     */
+    public List<Artifact> getArtifacts() {
+        final List<Artifact> recorded = new ArrayList<Artifact>(artifacts.size());
+        for (Entry entry : artifacts) {
+            recorded.add(entry.artifact);
+        }
+        return Collections.unmodifiableList(recorded);
+    }
+
+    /**
+     * Get the key of the resolution recorded by this lockfile.
+     * 
+     * @return The key of the resolution recorded by this lockfile.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the recorded primary library of the plugin.
+     * 
+     * @return {@code null} if no library was recorded; otherwise, the recorded {@link Artifact}. The library of a read lockfile is not resolved.
+     */
+    public Artifact getLibrary() {
+        return library == null ? null : library.artifact;
+    }
+
+    /**
+     * Determine whether this lockfile records the same resolution, with the same checksums, as another.
+     * 
+     * @param other
+     *            The {@link ResolutionLockfile} to be compared to this lockfile.
+     * @return {@code true} if both lockfiles have the same key and record the same library and artifacts, in the same order and with the same checksums; {@code false} if not.
+     */
+    public boolean matches(ResolutionLockfile other) {
+        if (!key.equals(other.key) || artifacts.size() != other.artifacts.size()) {
+            return false;
+        }
+        if (library == null ? other.library != null : !library.matches(other.library)) {
+            return false;
+        }
+        for (int i = 0; i < artifacts.size(); i++) {
+            if (!artifacts.get(i).matches(other.artifacts.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolve the recorded artifacts into files, verifying that each file is the one that was recorded.
+     * 
+     * @param resolvedArtifacts
+     *            A {@link List} of the resolved {@link Artifact} objects, in the order in which they were {@link #getArtifacts() recorded}.
+     * @param resolvedLibrary
+     *            The resolved {@link Artifact} of the {@link #getLibrary() recorded library}; {@code null} if no library was recorded.
+     * @param writtenAt
+     *            The time, in milliseconds since the epoch, at which this lockfile was written; a file modified no later than this is trusted to be unchanged if its size matches.
+     * @return {@code null} if any of the given artifacts is not the recorded artifact or its file does not match the recorded size or checksum; otherwise, a {@link ResolutionLockfile}
+     *         recording the given artifacts.
+     * @throws IOException
+     *             If any errors occur while reading the file of an artifact.
+     */
+    public ResolutionLockfile resolve(List<Artifact> resolvedArtifacts, Artifact resolvedLibrary, long writtenAt) throws IOException {
+        if (resolvedArtifacts.size() != artifacts.size() || (library == null) != (resolvedLibrary == null)) {
+            return null;
+        }
+        final ResolutionLockfile resolved = new ResolutionLockfile(key);
+        for (int i = 0; i < artifacts.size(); i++) {
+            final Entry entry = artifacts.get(i).resolve(resolvedArtifacts.get(i), writtenAt);
+            if (entry == null) {
+                return null;
+            }
+            resolved.artifacts.add(entry);
+        }
+        if (library != null) {
+            resolved.library = library.resolve(resolvedLibrary, writtenAt);
+            if (resolved.library == null) {
+                return null;
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Record the resolved primary library of the plugin.
+     * 
+     * @param library
+     *            The resolved {@link Artifact} of the library; its file is read to compute its checksum.
+     * @throws IOException
+     *             If any errors occur while reading the file of the library.
+     */
+    public void setLibrary(Artifact library) throws IOException {
+        this.library = new Entry(library, library.getFile().length(), sha1(library));
+    }
+
+    /**
+     * Write this lockfile to a file.
+     * 
+     * @param toFile
+     *            A {@link File} representing the location to which the lockfile is to be written.
+     * @throws IOException
+     *             If any errors occur while writing the lockfile.
+     */
+    public void write(File toFile) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(toFile), CHARSET);
+        try {
+            writer.write(KEY_LINE);
+            writer.write('\t');
+            writer.write(key);
+            writer.write('\n');
+            if (library != null) {
+                library.write(LIBRARY_LINE, writer);
+            }
+            for (Entry entry : artifacts) {
+                entry.write(ARTIFACT_LINE, writer);
+            }
+            writer.close();
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * An artifact recorded in a lockfile.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    private static class Entry {
+        private final Artifact artifact;
+        private final long size;
+        private final String sha1;
+
+        /**
+         * Create an entry.
+         * 
+         * @param artifact
+         *            The recorded {@link Artifact}.
+         * @param size
+         *            The size, in bytes, of the file of the artifact.
+         * @param sha1
+         *            The SHA-1 checksum of the file of the artifact, as a hexadecimal string.
+         */
+        private Entry(Artifact artifact, long size, String sha1) {
+            this.artifact = artifact;
+            this.size = size;
+            this.sha1 = sha1;
+        }
+
+        /**
+         * Determine whether this entry records the same artifact, with the same size and checksum, as another.
+         * 
+         * @param other
+         *            The {@link Entry} to be compared to this entry.
+         * @return {@code true} if both entries record the same artifact, size, and checksum; {@code false} if not.
+         */
+        private boolean matches(Entry other) {
+            return other != null && artifact.getId().equals(other.artifact.getId()) && size == other.size && sha1.equals(other.sha1);
+        }
+
+        /**
+         * Verify that a resolved artifact is the one recorded by this entry.
+         * 
+         * @param resolvedArtifact
+         *            The resolved {@link Artifact} to be verified.
+         * @param writtenAt
+         *            The time, in milliseconds since the epoch, at which the lockfile was written; the file of the given artifact is only read if it was modified after this time.
+         * @return {@code null} if the given artifact is not the recorded artifact or its file does not match; otherwise, an {@link Entry} recording the given artifact.
+         * @throws IOException
+         *             If any errors occur while reading the file of the artifact.
+         */
+        private Entry resolve(Artifact resolvedArtifact, long writtenAt) throws IOException {
+            final File file = resolvedArtifact.getFile();
+            if (!artifact.getId().equals(resolvedArtifact.getId()) || file == null || file.length() != size) {
+                return null;
+            }
+            if (file.lastModified() > writtenAt && !sha1.equals(sha1(resolvedArtifact))) {
+                return null;
+            }
+            return new Entry(resolvedArtifact, size, sha1);
+        }
+
+        /**
+         * Write this entry as a line of a lockfile.
+         * 
+         * @param lineType
+         *            The type of the line to be written.
+         * @param writer
+         *            The {@link Writer} to which the line is to be written.
+         * @throws IOException
+         *             If any errors occur while writing the line.
+         */
+        private void write(String lineType, Writer writer) throws IOException {
+            final String classifier = artifact.getClassifier();
+            final String[] fields = { lineType, Long.toString(size), sha1, artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion(), artifact.getType(),
+                    classifier == null || classifier.length() == 0 ? NO_CLASSIFIER : classifier, artifact.getArtifactHandler().getExtension() };
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    writer.write('\t');
+                }
+                writer.write(fields[i]);
+            }
+            writer.write('\n');
+        }
+    }
+}
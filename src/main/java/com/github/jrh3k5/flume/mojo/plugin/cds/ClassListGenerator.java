@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.cds;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Generates the list of classes loaded from a plugin, for use by agents in creating a class data sharing (CDS) archive. The classes of the plugin are loaded by {@link ClassListLoader} in a
+ * forked JVM, with the {@code lib/} and {@code libext/} JARs of the plugin on its class path, and that JVM records every class it loads through {@code -XX:DumpLoadedClassList}. The list
+ * includes the classes of the JDK that the plugin needs, so an agent can create an archive of both with:
+ * 
+ * <pre>
+ * java -Xshare:dump -XX:SharedClassListFile=plugin.classlist -XX:SharedArchiveFile=plugin.jsa -cp &lt;agent class path&gt;
+ * </pre>
+ * 
+ * An archive created on the build machine would be tied to the class path and JVM build of the build machine, and rejected by agents, so only the list is generated. JVMs before Java 9 record
+ * only the classes of the JDK in the list.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ClassListGenerator {
+    /**
+     * The name of the class list as written into the root of a plugin.
+     */
+    public static final String FILENAME = "plugin.classlist";
+    private static final String CHARSET = "UTF-8";
+    private static final String LOADER_CLASS_PREFIX = ClassListLoader.class.getName().replace('.', '/');
+    private final File javaExecutable;
+    private final Logger logger;
+
+    /**
+     * Create a generator.
+     * 
+     * @param javaExecutable
+     *            A {@link File} representing the {@code java} executable of the JVM to be forked; it should be of the same version as the JVM that runs the agents.
+     * @param logger
+     *            A {@link Logger} to which the output of the forked JVM is to be written.
+     */
+    public ClassListGenerator(File javaExecutable, Logger logger) {
+        this.javaExecutable = javaExecutable;
+        this.logger = logger;
+    }
+
+    /**
+     * Generate the class list of a plugin.
+     * 
+     * @param pluginDirectory
+     *            A {@link File} representing the directory of the plugin, containing its {@code lib/} and {@code libext/} directories.
+     * @param classListFile
+     *            A {@link File} representing the location to which the class list is to be written.
+     * @return The number of classes in the written list.
+     * @throws IOException
+     *             If the JVM cannot be forked, if it fails, or if the class list cannot be written.
+     */
+    public int generate(File pluginDirectory, File classListFile) throws IOException {
+        final File dumpedFile = File.createTempFile("flume-plugin", ".classlist");
+        try {
+            final List<String> command = new ArrayList<String>();
+            command.add(javaExecutable.getAbsolutePath());
+            command.add("-XX:DumpLoadedClassList=" + dumpedFile.getAbsolutePath());
+            command.add("-cp");
+            command.add(buildClassPath(pluginDirectory));
+            command.add(ClassListLoader.class.getName());
+            command.add(pluginDirectory.getAbsolutePath());
+            logger.debug("Forking JVM to record class list: " + command);
+
+            final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            final BufferedReader outputReader = new BufferedReader(new InputStreamReader(process.getInputStream(), CHARSET));
+            final StringBuilder output = new StringBuilder();
+            try {
+                String line;
+                while ((line = outputReader.readLine()) != null) {
+                    logger.debug(line);
+                    output.append(line).append('\n');
+                }
+            } finally {
+                IOUtils.closeQuietly(outputReader);
+            }
+
+            final int exitCode;
+            try {
+                exitCode = process.waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroy();
+                throw new IOException("Interrupted while recording the class list of " + pluginDirectory);
+            }
+            if (exitCode != 0) {
+                throw new IOException(String.format("Forked JVM exited with code %d while recording the class list of %s:%n%s", exitCode, pluginDirectory, output));
+            }
+            return writeClassList(dumpedFile, classListFile);
+        } finally {
+            FileUtils.deleteQuietly(dumpedFile);
+        }
+    }
+
+    /**
+     * Build the class path of the forked JVM.
+     * 
+     * @param pluginDirectory
+     *            A {@link File} representing the directory of the plugin.
+     * @return The JARs of the {@code lib/} and then the {@code libext/} directories of the plugin, followed by the location of {@link ClassListLoader}, separated by the path separator.
+     * @throws IOException
+     *             If the location of {@link ClassListLoader} cannot be determined.
+     */
+    private String buildClassPath(File pluginDirectory) throws IOException {
+        final StringBuilder classPath = new StringBuilder();
+        for (String libraryDirectoryName : new String[] { "lib", "libext" }) {
+            final File[] libraries = new File(pluginDirectory, libraryDirectoryName).listFiles();
+            if (libraries == null) {
+                continue;
+            }
+            Arrays.sort(libraries);
+            for (File library : libraries) {
+                if (library.getName().endsWith(".jar")) {
+                    classPath.append(library.getAbsolutePath()).append(File.pathSeparatorChar);
+                }
+            }
+        }
+        try {
+            classPath.append(new File(ClassListLoader.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath());
+        } catch (URISyntaxException e) {
+            throw new IOException("Failed to locate " + ClassListLoader.class.getName(), e);
+        }
+        return classPath.toString();
+    }
+
+    /**
+     * Write the class list recorded by the forked JVM, without the classes used to record it.
+     * 
+     * @param dumpedFile
+     *            A {@link File} representing the class list recorded by the forked JVM.
+     * @param classListFile
+     *            A {@link File} representing the location to which the class list is to be written.
+     * @return The number of classes in the written list.
+     * @throws IOException
+     *             If any errors occur while reading or writing the class list.
+     */
+    private int writeClassList(File dumpedFile, File classListFile) throws IOException {
+        int classCount = 0;
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(dumpedFile), CHARSET));
+        try {
+            final Writer writer = new OutputStreamWriter(new FileOutputStream(classListFile), CHARSET);
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(LOADER_CLASS_PREFIX)) {
+                        continue;
+                    }
+                    if (line.length() > 0 && line.charAt(0) != '#' && line.charAt(0) != '@') {
+                        classCount++;
+                    }
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            } finally {
+                IOUtils.closeQuietly(writer);
+            }
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+        return classCount;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.cds;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The entry point of the JVM forked by {@link ClassListGenerator}. It loads, without initializing, every class in the JARs of the {@code lib/} and {@code libext/} directories of the plugin
+ * directory given as its only argument, so that the forked JVM records them in its class list. The JARs must be on the class path of the JVM. Classes that cannot be loaded - such as those
+ * that depend upon libraries provided by Flume itself - are skipped.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public final class ClassListLoader {
+    /**
+     * Load the classes of a plugin.
+     * 
+     * @param args
+     *            The path of the plugin directory.
+     * @throws IOException
+     *             If any of the JARs of the plugin cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: ClassListLoader <plugin directory>");
+        }
+
+        final ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+        int loaded = 0;
+        int skipped = 0;
+        for (String libraryDirectoryName : new String[] { "lib", "libext" }) {
+            final File[] libraries = new File(args[0], libraryDirectoryName).listFiles();
+            if (libraries == null) {
+                continue;
+            }
+            Arrays.sort(libraries);
+            for (File library : libraries) {
+                if (!library.getName().endsWith(".jar")) {
+                    continue;
+                }
+                final ZipFile zipFile = new ZipFile(library);
+                try {
+                    final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                    while (entries.hasMoreElements()) {
+                        final String entryName = entries.nextElement().getName();
+                        // Multi-release variants and module descriptors cannot be loaded by name
+                        if (!entryName.endsWith(".class") || entryName.startsWith("META-INF/") || entryName.endsWith("module-info.class")) {
+                            continue;
+                        }
+                        try {
+                            Class.forName(entryName.substring(0, entryName.length() - 6).replace('/', '.'), false, classLoader);
+                            loaded++;
+                        } catch (ClassNotFoundException e) {
+                            skipped++;
+                        } catch (LinkageError e) {
+                            skipped++;
+                        }
+                    }
+                } finally {
+                    zipFile.close();
+                }
+            }
+        }
+        System.out.println(String.format("Loaded %d class(es); skipped %d class(es) that could not be loaded.", loaded, skipped));
+    }
+
+    /**
+     * This class is only run as an entry point.
+     */
+    private ClassListLoader() {
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A GZIP output stream that adapts its compression level to the data written to it. Before each region of the data is compressed, a sample from the middle of it is compressed at the
+ * fastest level: regions that barely compress - such as the contents of JARs, which are already compressed - are stored or compressed at the fastest level, and all other regions are
+ * compressed at the best level. The level changes within a single GZIP member, so the output can be read by any GZIP reader. Its {@link Deflater} objects and output buffer are taken from
+ * an {@link ArchiveBufferPool} and returned to it when the stream is closed, which is why it writes the GZIP header and trailer itself rather than extending
+ * {@link java.util.zip.GZIPOutputStream}, which always creates a {@link Deflater} of its own.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+class AdaptiveGzipOutputStream extends DeflaterOutputStream {
+    /**
+     * The size of the regions whose compression level is chosen separately.
+     */
+    static final int REGION_SIZE = 64 * 1024;
+    /**
+     * The number of bytes of each region that are compressed to choose its compression level. Writes smaller than this are compressed at the level of the region before them.
+     */
+    static final int SAMPLE_SIZE = 4 * 1024;
+    /**
+     * The ratio of compressed to uncompressed bytes of a sample at or above which its region is stored.
+     */
+    private static final double STORE_RATIO = 0.97;
+    /**
+     * The ratio of compressed to uncompressed bytes of a sample at or above which its region is compressed at the fastest level.
+     */
+    private static final double FAST_RATIO = 0.8;
+    /**
+     * The GZIP header: the magic number, the DEFLATE compression method, and no flags, modification time, extra flags, or operating system - as {@link java.util.zip.GZIPOutputStream}
+     * writes it.
+     */
+    private static final byte[] HEADER = { (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+    private final ArchiveBufferPool pool;
+    private final Deflater sampler;
+    private final byte[] sampleBuffer = new byte[SAMPLE_SIZE];
+    private final CRC32 crc = new CRC32();
+    private int level = Deflater.BEST_COMPRESSION;
+    private boolean released;
+
+    /**
+     * Create a stream.
+     * 
+     * @param out
+     *            The {@link OutputStream} to which the GZIP'ed bytes are to be written.
+     * @param pool
+     *            The {@link ArchiveBufferPool} from which the {@link Deflater} objects and output buffer of the stream are to be taken.
+     * @throws IOException
+     *             If any errors occur while writing the GZIP header.
+     */
+    AdaptiveGzipOutputStream(OutputStream out, ArchiveBufferPool pool) throws IOException {
+        // The buffer allocated by the superclass is replaced by a pooled one
+        super(out, pool.acquireDeflater(Deflater.BEST_COMPRESSION), 1);
+        this.pool = pool;
+        this.buf = pool.acquireArray();
+        this.sampler = pool.acquireDeflater(Deflater.BEST_SPEED);
+        out.write(HEADER);
+    }
+
+    @Override
+    public synchronized void write(byte[] buf, int off, int len) throws IOException {
+        if (released) {
+            throw new IOException("Stream closed");
+        }
+
+        final int end = off + len;
+        int offset = off;
+        while (offset < end) {
+            final int regionLength = Math.min(REGION_SIZE, end - offset);
+            if (regionLength >= SAMPLE_SIZE) {
+                final int regionLevel = chooseLevel(buf, offset, regionLength);
+                if (regionLevel != level) {
+                    // A new level is applied by the next deflation, which would otherwise compress the start of the region at the old level
+                    def.setLevel(regionLevel);
+                    deflate();
+                    level = regionLevel;
+                }
+            }
+            super.write(buf, offset, regionLength);
+            crc.update(buf, offset, regionLength);
+            offset += regionLength;
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (released) {
+            throw new IOException("Stream closed");
+        }
+
+        if (!def.finished()) {
+            super.finish();
+            writeInt((int) crc.getValue());
+            writeInt((int) def.getBytesRead());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (released) {
+            return;
+        }
+        boolean closed = false;
+        try {
+            super.close();
+            closed = true;
+        } finally {
+            if (!closed) {
+                // The superclass leaves the underlying stream open if the trailer cannot be written
+                IOUtils.closeQuietly(out);
+            }
+            released = true;
+            pool.release(def);
+            pool.release(sampler);
+            pool.release(buf);
+        }
+    }
+
+    /**
+     * Choose the compression level of a region.
+     * 
+     * @param buf
+     *            The buffer containing the region.
+     * @param off
+     *            The offset of the region within the buffer.
+     * @param len
+     *            The length of the region, which must be at least {@link #SAMPLE_SIZE}.
+     * @return {@link Deflater#NO_COMPRESSION}, {@link Deflater#BEST_SPEED}, or {@link Deflater#BEST_COMPRESSION}.
+     */
+    int chooseLevel(byte[] buf, int off, int len) {
+        sampler.reset();
+        sampler.setInput(buf, off + (len - SAMPLE_SIZE) / 2, SAMPLE_SIZE);
+        sampler.finish();
+        int compressed = 0;
+        while (!sampler.finished()) {
+            compressed += sampler.deflate(sampleBuffer);
+        }
+        final double ratio = (double) compressed / SAMPLE_SIZE;
+        if (ratio >= STORE_RATIO) {
+            return Deflater.NO_COMPRESSION;
+        } else if (ratio >= FAST_RATIO) {
+            return Deflater.BEST_SPEED;
+        }
+        return Deflater.BEST_COMPRESSION;
+    }
+
+    /**
+     * Write a little-endian integer, as the GZIP trailer stores its fields.
+     * 
+     * @param value
+     *            The integer to be written.
+     * @throws IOException
+     *             If any errors occur while writing.
+     */
+    private void writeInt(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >> 8) & 0xFF);
+        out.write((value >> 16) & 0xFF);
+        out.write((value >> 24) & 0xFF);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A bounded pool of the buffers, {@link Deflater} objects, and {@link Inflater} objects used to move bytes through files and compression streams. Each of these is expensive to create - a
+ * buffer is large, and a {@link Deflater} or {@link Inflater} allocates native memory that is only freed when it is ended or finalized - so they are returned to the pool once used, rather
+ * than left to the garbage collector. The pool holds at most a fixed number of each; anything returned to a full pool is discarded (and, if it holds native memory, ended). All methods of
+ * this class are safe for concurrent use, but an object taken from the pool must be used by only one thread until it is returned, and not at all afterwards.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+final class ArchiveBufferPool {
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> directBuffers;
+    private final BlockingQueue<byte[]> arrays;
+    private final BlockingQueue<Deflater> deflaters;
+    private final BlockingQueue<Inflater> inflaters;
+    private final AtomicInteger createdCount = new AtomicInteger();
+
+    /**
+     * Create a pool.
+     * 
+     * @param capacity
+     *            The maximum number of each kind of object held by the pool.
+     * @param bufferSize
+     *            The size, in bytes, of each buffer handed out by the pool.
+     */
+    ArchiveBufferPool(int capacity, int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.directBuffers = new ArrayBlockingQueue<ByteBuffer>(capacity);
+        this.arrays = new ArrayBlockingQueue<byte[]>(capacity);
+        this.deflaters = new ArrayBlockingQueue<Deflater>(capacity);
+        this.inflaters = new ArrayBlockingQueue<Inflater>(capacity);
+    }
+
+    /**
+     * Get the size of the buffers handed out by this pool.
+     * 
+     * @return The size, in bytes, of each buffer.
+     */
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Get the number of objects this pool has had to create because none were pooled.
+     * 
+     * @return The number of buffers, {@link Deflater} objects, and {@link Inflater} objects created by this pool.
+     */
+    int getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Take a direct buffer, for moving bytes between channels without copying them onto the heap.
+     * 
+     * @return A cleared direct {@link ByteBuffer} of {@link #getBufferSize()} bytes.
+     */
+    ByteBuffer acquireDirectBuffer() {
+        final ByteBuffer buffer = directBuffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        createdCount.incrementAndGet();
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Return a direct buffer to the pool.
+     * 
+     * @param buffer
+     *            A {@link ByteBuffer} taken from {@link #acquireDirectBuffer()}.
+     */
+    void release(ByteBuffer buffer) {
+        buffer.clear();
+        directBuffers.offer(buffer);
+    }
+
+    /**
+     * Take a heap buffer, for streams - such as those that compress - that can only work upon arrays.
+     * 
+     * @return A byte array of {@link #getBufferSize()} bytes; its contents are undefined.
+     */
+    byte[] acquireArray() {
+        final byte[] array = arrays.poll();
+        if (array != null) {
+            return array;
+        }
+        createdCount.incrementAndGet();
+        return new byte[bufferSize];
+    }
+
+    /**
+     * Return a heap buffer to the pool.
+     * 
+     * @param array
+     *            A byte array taken from {@link #acquireArray()}.
+     */
+    void release(byte[] array) {
+        arrays.offer(array);
+    }
+
+    /**
+     * Take a {@link Deflater} that writes raw DEFLATE data, without the ZLIB header and checksum, as GZIP requires.
+     * 
+     * @param level
+     *            The compression level at which the {@link Deflater} is to start.
+     * @return A {@link Deflater} ready to compress a new stream.
+     */
+    Deflater acquireDeflater(int level) {
+        final Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            createdCount.incrementAndGet();
+            return new Deflater(level, true);
+        }
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    /**
+     * Return a {@link Deflater} to the pool, resetting it for its next use, or end it if the pool is full.
+     * 
+     * @param deflater
+     *            A {@link Deflater} taken from {@link #acquireDeflater(int)}.
+     */
+    void release(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Take an {@link Inflater} that reads raw DEFLATE data, without the ZLIB header and checksum, as GZIP requires.
+     * 
+     * @return An {@link Inflater} ready to decompress a new stream.
+     */
+    Inflater acquireInflater() {
+        final Inflater inflater = inflaters.poll();
+        if (inflater != null) {
+            return inflater;
+        }
+        createdCount.incrementAndGet();
+        return new Inflater(true);
+    }
+
+    /**
+     * Return an {@link Inflater} to the pool, resetting it for its next use, or end it if the pool is full.
+     * 
+     * @param inflater
+     *            An {@link Inflater} taken from {@link #acquireInflater()}.
+     */
+    void release(Inflater inflater) {
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+}
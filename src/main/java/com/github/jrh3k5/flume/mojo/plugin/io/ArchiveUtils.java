@@ -17,19 +17,41 @@
  */
 package com.github.jrh3k5.flume.mojo.plugin.io;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.codehaus.plexus.archiver.ArchiveEntry;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.jar.JarArchiver;
 import org.codehaus.plexus.archiver.tar.TarArchiver;
+import org.codehaus.plexus.archiver.tar.TarOutputStream;
 import org.codehaus.plexus.archiver.tar.TarUnArchiver;
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
+import org.codehaus.plexus.archiver.zip.ZipOutputStream;
+import org.codehaus.plexus.archiver.zip.ZipUnArchiver;
 import org.codehaus.plexus.logging.Logger;
 import org.codehaus.plexus.util.FileUtils;
 
+import com.github.jrh3k5.flume.mojo.plugin.jfr.PackagingEvent;
+import com.github.jrh3k5.flume.mojo.plugin.jfr.PackagingEventType;
+
 /**
  * Utilities for managing archives.
  * 
@@ -37,6 +59,25 @@ import org.codehaus.plexus.util.FileUtils;
  */
 
 public class ArchiveUtils {
+    /**
+     * The size of the buffers used to move bytes between files and through the
+     * compression streams.
+     */
+    static final int BUFFER_SIZE = 256 * 1024;
+    /**
+     * The buffers, {@link java.util.zip.Deflater} and
+     * {@link java.util.zip.Inflater} objects shared by all instances of this
+     * class, so that each archive operation reuses those of the operations
+     * before it rather than allocating its own; it holds enough of each for
+     * every processor to run an operation at once.
+     */
+    static final ArchiveBufferPool BUFFER_POOL = new ArchiveBufferPool(Math.max(2, Runtime.getRuntime().availableProcessors()), BUFFER_SIZE);
+    /**
+     * {@code File.toPath()} and {@code Files.createLink(Path, Path)}, which
+     * are looked up reflectively because the plugin is built for JVMs that
+     * predate them; {@code null} if the running JVM does not provide them.
+     */
+    private static final Method[] LINK_METHODS = findLinkMethods();
     private final Logger logger;
 
     /**
@@ -51,6 +92,25 @@ public class ArchiveUtils {
         return new ArchiveUtils(logger);
     }
 
+    /**
+     * Look up the methods used to create hard links.
+     * 
+     * @return {@code null} if the running JVM cannot create hard links;
+     *         otherwise, {@code File.toPath()} followed by
+     *         {@code Files.createLink(Path, Path)}.
+     */
+    private static Method[] findLinkMethods() {
+        try {
+            final Class<?> pathClass = Class.forName("java.nio.file.Path");
+            final Class<?> filesClass = Class.forName("java.nio.file.Files");
+            return new Method[] { File.class.getMethod("toPath"), filesClass.getMethod("createLink", pathClass, pathClass) };
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     /**
      * Construct an instance of the archive utilities.
      * 
@@ -65,6 +125,121 @@ public class ArchiveUtils {
         this.logger = plexusLogger;
     }
 
+    /**
+     * Copy a file, optionally computing digests of its contents as the bytes
+     * are copied so that no second read of the file is required.
+     * 
+     * @param fromFile
+     *            A {@link File} representing the file to be copied.
+     * @param toFile
+     *            A {@link File} representing the location to which the file
+     *            is to be copied; its parent directories are created if
+     *            necessary.
+     * @param digests
+     *            Any {@link MessageDigest} objects that are to be updated with
+     *            the contents of the copied file.
+     * @return The number of bytes copied.
+     * @throws IllegalArgumentException
+     *             If the given source file is not a file or does not exist, or
+     *             if the given destination file exists but is not a file.
+     * @throws IOException
+     *             If any errors occur during the copy.
+     * @since 1.2
+     */
+    public long copyFile(File fromFile, File toFile, MessageDigest... digests) throws IOException {
+        if (!fromFile.isFile()) {
+            throw new IllegalArgumentException("Source file " + fromFile + " must be an existent file.");
+        }
+
+        if (toFile.exists() && !toFile.isFile()) {
+            throw new IllegalArgumentException("Destination file " + toFile + " exists, but is not a file and, as such, cannot be written to.");
+        }
+
+        FileUtils.forceMkdir(toFile.getParentFile());
+
+        final PackagingEvent event = PackagingEventType.COPY_FILE.begin();
+        FileInputStream fileIn = null;
+        FileOutputStream fileOut = null;
+        long copied = 0;
+        try {
+            fileIn = new FileInputStream(fromFile);
+            fileOut = new FileOutputStream(toFile);
+            final FileChannel inChannel = fileIn.getChannel();
+            final FileChannel outChannel = fileOut.getChannel();
+            if (digests.length == 0) {
+                // Nothing needs to see the bytes, so let the OS move them
+                final long size = inChannel.size();
+                while (copied < size) {
+                    final long transferred = inChannel.transferTo(copied, size - copied, outChannel);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    copied += transferred;
+                }
+            } else {
+                copied = copyAndDigest(inChannel, outChannel, digests);
+            }
+        } finally {
+            IOUtils.closeQuietly(fileOut);
+            IOUtils.closeQuietly(fileIn);
+        }
+        toFile.setLastModified(fromFile.lastModified());
+        event.commit(toFile.getPath(), copied);
+        return copied;
+    }
+
+    /**
+     * Place a file as a hard link to its source, so that none of its bytes
+     * are copied. Where the JVM or the filesystem cannot link the two - such
+     * as when they are on different filesystems - the file is copied instead.
+     * 
+     * @param fromFile
+     *            A {@link File} representing the file to be linked to.
+     * @param toFile
+     *            A {@link File} representing the location at which the link
+     *            is to be created; it must not exist, as writing through an
+     *            existing link would change the file it is linked to. Its
+     *            parent directories are created if necessary.
+     * @param digests
+     *            Any {@link MessageDigest} objects that are to be updated with
+     *            the contents of the file.
+     * @return {@code true} if the file was linked; {@code false} if it was
+     *         copied.
+     * @throws IllegalArgumentException
+     *             If the given source file is not a file or does not exist, or
+     *             if the given destination file exists.
+     * @throws IOException
+     *             If any errors occur while copying or reading the file.
+     * @since 1.2
+     */
+    public boolean linkFile(File fromFile, File toFile, MessageDigest... digests) throws IOException {
+        if (!fromFile.isFile()) {
+            throw new IllegalArgumentException("Source file " + fromFile + " must be an existent file.");
+        }
+
+        if (toFile.exists()) {
+            throw new IllegalArgumentException("Destination file " + toFile + " already exists and, as it may be a link, cannot be written to.");
+        }
+
+        FileUtils.forceMkdir(toFile.getParentFile());
+
+        if (LINK_METHODS != null) {
+            try {
+                LINK_METHODS[1].invoke(null, LINK_METHODS[0].invoke(toFile), LINK_METHODS[0].invoke(fromFile));
+                if (digests.length > 0) {
+                    digestFile(toFile, digests);
+                }
+                return true;
+            } catch (IllegalAccessException e) {
+                logger.debug("Could not link " + toFile + " to " + fromFile + "; copying it instead.", e);
+            } catch (InvocationTargetException e) {
+                logger.debug("Could not link " + toFile + " to " + fromFile + "; copying it instead: " + e.getCause());
+            }
+        }
+        copyFile(fromFile, toFile, digests);
+        return false;
+    }
+
     /**
      * Un-GZIP a file.
      * 
@@ -75,7 +250,7 @@ public class ArchiveUtils {
      *            file should be placed.
      * @throws IOException
      *             If any errors occur during the unzipping.
-     * @see #gzipFile(File, File)
+     * @see #gzipFile(File, File, MessageDigest...)
      */
     public void gunzipFile(File toUnzip, File toFile) throws IOException {
         if (!toUnzip.isFile()) {
@@ -86,26 +261,34 @@ public class ArchiveUtils {
             throw new IllegalArgumentException("Destination file " + toFile + " exists, but is not a file and, as such, cannot be written to.");
         }
 
-        GZIPInputStream zipIn = null;
+        InputStream zipIn = null;
         FileOutputStream fileOut = null;
+        final byte[] buffer = BUFFER_POOL.acquireArray();
         try {
-            zipIn = new GZIPInputStream(new FileInputStream(toUnzip));
+            zipIn = new PooledGzipInputStream(new FileInputStream(toUnzip), BUFFER_POOL);
             fileOut = new FileOutputStream(toFile);
-            IOUtils.copy(zipIn, fileOut);
+            IOUtils.copyLarge(zipIn, fileOut, buffer);
         } finally {
             IOUtils.closeQuietly(fileOut);
             IOUtils.closeQuietly(zipIn);
+            BUFFER_POOL.release(buffer);
         }
     }
 
     /**
-     * GZIP a file.
+     * GZIP a file. The compression level is adapted to the contents of the
+     * file as it is compressed: regions that barely compress, such as the
+     * contents of JARs, are stored or compressed at the fastest level, while
+     * all other regions are compressed at the best level.
      * 
      * @param toZip
      *            A {@link File} representing the file to be GZIP'ed.
      * @param toFile
      *            A {@link File} representing the location at which the GZIP
      *            file is to be created.
+     * @param digests
+     *            Any {@link MessageDigest} objects that are to be updated with
+     *            the compressed bytes as they are written to the GZIP file.
      * @throws IllegalArgumentException
      *             If the given source file is not a file or does not exist, or
      *             if the given destination file exists but is not a file.
@@ -113,7 +296,7 @@ public class ArchiveUtils {
      *             If any errors occur during the GZIP'ing.
      * @see #gunzipFile(File, File)
      */
-    public void gzipFile(File toZip, File toFile) throws IOException {
+    public void gzipFile(File toZip, File toFile, MessageDigest... digests) throws IOException {
         if (!toZip.isFile()) {
             throw new IllegalArgumentException("Source file " + toZip + " must be an existent file.");
         }
@@ -122,15 +305,234 @@ public class ArchiveUtils {
             throw new IllegalArgumentException("Destination file " + toFile + " exists, but is not a file and, as such, cannot be written to.");
         }
 
-        GZIPOutputStream zipOut = null;
+        AdaptiveGzipOutputStream zipOut = null;
         FileInputStream tarIn = null;
+        final byte[] buffer = BUFFER_POOL.acquireArray();
         try {
             tarIn = new FileInputStream(toZip);
-            zipOut = new GZIPOutputStream(new FileOutputStream(toFile));
-            IOUtils.copy(tarIn, zipOut);
+            OutputStream fileOut = new FileOutputStream(toFile);
+            for (MessageDigest digest : digests) {
+                fileOut = new DigestOutputStream(fileOut, digest);
+            }
+            zipOut = new AdaptiveGzipOutputStream(fileOut, BUFFER_POOL);
+            int read;
+            while ((read = tarIn.read(buffer)) >= 0) {
+                final PackagingEvent event = PackagingEventType.GZIP_BLOCK.begin();
+                zipOut.write(buffer, 0, read);
+                event.commit(toFile.getPath(), read);
+            }
+            // Closing writes the GZIP trailer, so a failure to close must fail the GZIP'ing
+            zipOut.close();
         } finally {
             IOUtils.closeQuietly(zipOut);
             IOUtils.closeQuietly(tarIn);
+            BUFFER_POOL.release(buffer);
+        }
+    }
+
+    /**
+     * GZIP a TAR file as a series of independently-compressed GZIP members,
+     * one for each file in the TAR file, and index those members. Directories
+     * and links are compressed into the member of the file after them. Any
+     * GZIP reader - including {@code tar xzf} - reads the members in turn as a
+     * single stream, so the result is an ordinary {@code .tar.gz} file, but a
+     * single file can also be read from it by seeking to its member and
+     * decompressing that member alone. Each member is compressed as by
+     * {@link #gzipFile(File, File, MessageDigest...)}; because each member
+     * starts with an empty dictionary, the result is slightly larger than a
+     * GZIP'ing of the TAR file as a whole.
+     * 
+     * @param tarFile
+     *            A {@link File} representing the TAR file to be GZIP'ed.
+     * @param toFile
+     *            A {@link File} representing the location at which the GZIP
+     *            file is to be created.
+     * @param digests
+     *            Any {@link MessageDigest} objects that are to be updated with
+     *            the compressed bytes as they are written to the GZIP file.
+     * @return A {@link GzipBlockIndex} of the files in the GZIP file.
+     * @throws IllegalArgumentException
+     *             If the given source file is not a file or does not exist, or
+     *             if the given destination file exists but is not a file.
+     * @throws IOException
+     *             If any errors occur during the GZIP'ing, including if the
+     *             given source file is not a valid TAR file.
+     * @see #extractEntry(File, GzipBlockIndex.Entry, File)
+     * @since 1.2
+     */
+    public GzipBlockIndex blockGzipTarFile(File tarFile, File toFile, MessageDigest... digests) throws IOException {
+        if (!tarFile.isFile()) {
+            throw new IllegalArgumentException("Source file " + tarFile + " must be an existent file.");
+        }
+
+        if (toFile.exists() && !toFile.isFile()) {
+            throw new IllegalArgumentException("Destination file " + toFile + " exists, but is not a file and, as such, cannot be written to.");
+        }
+
+        final GzipBlockIndex index = new GzipBlockIndex();
+        InputStream tarIn = null;
+        CountingOutputStream countingOut = null;
+        AdaptiveGzipOutputStream memberOut = null;
+        final byte[] buffer = BUFFER_POOL.acquireArray();
+        try {
+            tarIn = new BufferedInputStream(new FileInputStream(tarFile), BUFFER_SIZE);
+            OutputStream fileOut = new FileOutputStream(toFile);
+            for (MessageDigest digest : digests) {
+                fileOut = new DigestOutputStream(fileOut, digest);
+            }
+            countingOut = new CountingOutputStream(fileOut);
+
+            final byte[] header = new byte[TarBlocks.BLOCK_SIZE];
+            long memberOffset = 0;
+            String nextName = null;
+            while (TarBlocks.readBlock(tarIn, header)) {
+                if (memberOut == null) {
+                    memberOffset = countingOut.getByteCount();
+                    memberOut = new AdaptiveGzipOutputStream(new CloseShieldOutputStream(countingOut), BUFFER_POOL);
+                }
+                memberOut.write(header);
+
+                if (TarBlocks.isEndOfArchive(header)) {
+                    // The end-of-archive blocks, and any padding after them, go into the last member
+                    IOUtils.copyLarge(tarIn, memberOut, buffer);
+                    break;
+                }
+
+                final long size = TarBlocks.getSize(header);
+                final long paddedSize = TarBlocks.getPaddedSize(size);
+                if (TarBlocks.isMetadata(header)) {
+                    // A long name or extended header belongs in the same member as the entry it describes
+                    if (paddedSize > buffer.length) {
+                        throw new IOException(String.format("TAR metadata of %d bytes in %s is too large.", size, tarFile));
+                    }
+                    if (IOUtils.read(tarIn, buffer, 0, (int) paddedSize) != paddedSize) {
+                        throw new IOException("Truncated TAR file: " + tarFile);
+                    }
+                    memberOut.write(buffer, 0, (int) paddedSize);
+                    final String name = TarBlocks.getNextName(header, buffer, (int) size);
+                    if (name != null) {
+                        nextName = name;
+                    }
+                    continue;
+                }
+
+                long remaining = paddedSize;
+                while (remaining > 0) {
+                    final int read = tarIn.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new IOException("Truncated TAR file: " + tarFile);
+                    }
+                    final PackagingEvent event = PackagingEventType.GZIP_BLOCK.begin();
+                    memberOut.write(buffer, 0, read);
+                    event.commit(toFile.getPath(), read);
+                    remaining -= read;
+                }
+                // Directories and links are too small to be worth a member of their own
+                if (TarBlocks.isFile(header)) {
+                    memberOut.close();
+                    memberOut = null;
+                    index.add(nextName == null ? TarBlocks.getName(header) : nextName, memberOffset, countingOut.getByteCount() - memberOffset, size);
+                }
+                nextName = null;
+            }
+
+            if (memberOut != null) {
+                memberOut.close();
+                memberOut = null;
+            }
+            countingOut.close();
+        } finally {
+            IOUtils.closeQuietly(memberOut);
+            IOUtils.closeQuietly(countingOut);
+            IOUtils.closeQuietly(tarIn);
+            BUFFER_POOL.release(buffer);
+        }
+        return index;
+    }
+
+    /**
+     * Extract a single file from a GZIP file written by
+     * {@link #blockGzipTarFile(File, File, MessageDigest...)}, decompressing
+     * only the GZIP member that holds it.
+     * 
+     * @param archiveFile
+     *            A {@link File} representing the block-GZIP'ed TAR file.
+     * @param entry
+     *            The {@link GzipBlockIndex.Entry} of the file to be extracted,
+     *            as read from the index of the given archive.
+     * @param toFile
+     *            A {@link File} representing the location to which the file is
+     *            to be extracted.
+     * @throws IllegalArgumentException
+     *             If the given archive is not a file or does not exist, or if
+     *             the given destination file exists but is not a file.
+     * @throws IOException
+     *             If any errors occur during the extraction, including if the
+     *             member at the offset of the given entry does not hold the
+     *             file of that entry.
+     * @since 1.2
+     */
+    public void extractEntry(File archiveFile, GzipBlockIndex.Entry entry, File toFile) throws IOException {
+        if (!archiveFile.isFile()) {
+            throw new IllegalArgumentException("Archive file " + archiveFile + " must be an existent file.");
+        }
+
+        if (toFile.exists() && !toFile.isFile()) {
+            throw new IllegalArgumentException("Destination file " + toFile + " exists, but is not a file and, as such, cannot be written to.");
+        }
+
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(archiveFile, "r");
+        InputStream memberIn = null;
+        final byte[] buffer = BUFFER_POOL.acquireArray();
+        try {
+            randomAccessFile.seek(entry.getOffset());
+            memberIn = new PooledGzipInputStream(new BoundedInputStream(Channels.newInputStream(randomAccessFile.getChannel()), entry.getLength()), BUFFER_POOL);
+            final byte[] header = new byte[TarBlocks.BLOCK_SIZE];
+            String nextName = null;
+            while (TarBlocks.readBlock(memberIn, header)) {
+                final long size = TarBlocks.getSize(header);
+                if (TarBlocks.isMetadata(header)) {
+                    final long paddedSize = TarBlocks.getPaddedSize(size);
+                    if (paddedSize > buffer.length || IOUtils.read(memberIn, buffer, 0, (int) paddedSize) != paddedSize) {
+                        throw new IOException(String.format("Malformed TAR metadata at offset %d of %s.", entry.getOffset(), archiveFile));
+                    }
+                    final String name = TarBlocks.getNextName(header, buffer, (int) size);
+                    if (name != null) {
+                        nextName = name;
+                    }
+                    continue;
+                }
+
+                if (!TarBlocks.isFile(header)) {
+                    if (IOUtils.skip(memberIn, TarBlocks.getPaddedSize(size)) != TarBlocks.getPaddedSize(size)) {
+                        throw new IOException(String.format("Truncated TAR entry at offset %d of %s.", entry.getOffset(), archiveFile));
+                    }
+                    nextName = null;
+                    continue;
+                }
+
+                final String name = nextName == null ? TarBlocks.getName(header) : nextName;
+                if (!name.equals(entry.getPath()) || size != entry.getSize()) {
+                    throw new IOException(String.format("Expected %s at offset %d of %s, but found %s; the index does not match the archive.", entry.getPath(), entry.getOffset(),
+                            archiveFile, name));
+                }
+
+                FileUtils.forceMkdir(toFile.getAbsoluteFile().getParentFile());
+                final OutputStream fileOut = new FileOutputStream(toFile);
+                try {
+                    if (IOUtils.copyLarge(memberIn, fileOut, 0, size, buffer) != size) {
+                        throw new IOException(String.format("Truncated entry %s at offset %d of %s.", entry.getPath(), entry.getOffset(), archiveFile));
+                    }
+                } finally {
+                    IOUtils.closeQuietly(fileOut);
+                }
+                return;
+            }
+            throw new IOException(String.format("No TAR entry found at offset %d of %s.", entry.getOffset(), archiveFile));
+        } finally {
+            IOUtils.closeQuietly(memberIn);
+            randomAccessFile.close();
+            BUFFER_POOL.release(buffer);
         }
     }
 
@@ -151,6 +553,31 @@ public class ArchiveUtils {
      * @see #untarFile(File, File)
      */
     public void tarDirectory(File directory, File toFile) throws IOException {
+        tarDirectory(directory, "", toFile);
+    }
+
+    /**
+     * Store the contents of a directory in a TAR file beneath the given path
+     * within the TAR file.
+     * 
+     * @param directory
+     *            A {@link File} representing the directory to be archived into
+     *            a TAR file.
+     * @param prefix
+     *            The path (e.g., {@code my-plugin/}) beneath which the contents
+     *            of the directory are to be stored in the TAR file; an empty
+     *            string stores them at the root of the TAR file.
+     * @param toFile
+     *            A {@link File} representing the location at which the TAR file
+     *            is to be created.
+     * @throws IllegalArgumentException
+     *             If the given source directory is not an existent directory or
+     *             the given output file cannot be written to.
+     * @throws IOException
+     *             If any errors occur during the TAR'ing.
+     * @since 1.2
+     */
+    public void tarDirectory(File directory, String prefix, File toFile) throws IOException {
         if (!directory.isDirectory()) {
             throw new IllegalArgumentException("Source directory " + directory + " must be an existent directory.");
         }
@@ -159,7 +586,105 @@ public class ArchiveUtils {
             throw new IllegalArgumentException("Destination file " + toFile + " exists, but is not a file and, as such, cannot be overwritten.");
         }
 
-        final TarArchiver archiver = new TarArchiver();
+        final TarArchiver archiver = new TarArchiver() {
+            @Override
+            protected void tarFile(ArchiveEntry entry, TarOutputStream tOut, String vPath) throws ArchiverException, IOException {
+                final PackagingEvent event = PackagingEventType.TAR_ENTRY.begin();
+                super.tarFile(entry, tOut, vPath);
+                event.commit(vPath, entry.getResource().getSize());
+            }
+        };
+        archiver.enableLogging(logger);
+        archiver.setDestFile(toFile);
+        archiver.addDirectory(directory, prefix);
+        archiver.createArchive();
+    }
+
+    /**
+     * Store the contents of a directory in a ZIP file beneath the given path
+     * within the ZIP file. Files that are themselves ZIP files (such as JAR
+     * files) are already compressed, so they are stored as they are; only
+     * other files are compressed. Because every entry is listed in the
+     * central directory of the ZIP file, a single entry can be extracted
+     * without reading the rest of the file.
+     * 
+     * @param directory
+     *            A {@link File} representing the directory to be archived into
+     *            a ZIP file.
+     * @param prefix
+     *            The path (e.g., {@code my-plugin/}) beneath which the contents
+     *            of the directory are to be stored in the ZIP file; an empty
+     *            string stores them at the root of the ZIP file.
+     * @param toFile
+     *            A {@link File} representing the location at which the ZIP file
+     *            is to be created.
+     * @param digests
+     *            Any {@link MessageDigest} objects that are to be updated with
+     *            the bytes of the ZIP file. The ZIP file is written out of
+     *            order, so these are computed by reading it once it has been
+     *            written.
+     * @throws IllegalArgumentException
+     *             If the given source directory is not an existent directory or
+     *             the given output file cannot be written to.
+     * @throws IOException
+     *             If any errors occur during the ZIP'ing.
+     * @since 1.2
+     */
+    public void zipDirectory(File directory, String prefix, File toFile, MessageDigest... digests) throws IOException {
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException("Source directory " + directory + " must be an existent directory.");
+        }
+
+        if (toFile.exists() && !toFile.isFile()) {
+            throw new IllegalArgumentException("Destination file " + toFile + " exists, but is not a file and, as such, cannot be overwritten.");
+        }
+
+        final ZipArchiver archiver = new ZipArchiver() {
+            @Override
+            protected void zipFile(ArchiveEntry entry, ZipOutputStream zOut, String vPath) throws IOException, ArchiverException {
+                final PackagingEvent event = PackagingEventType.ZIP_ENTRY.begin();
+                super.zipFile(entry, zOut, vPath);
+                event.commit(vPath, entry.getResource().getSize());
+            }
+        };
+        archiver.enableLogging(logger);
+        archiver.setRecompressAddedZips(false);
+        archiver.setDestFile(toFile);
+        archiver.addDirectory(directory, prefix);
+        archiver.createArchive();
+
+        if (digests.length > 0) {
+            digestFile(toFile, digests);
+        }
+    }
+
+    /**
+     * Store the contents of a directory, such as a directory of compiled
+     * classes, at the root of a JAR file with a default manifest.
+     * 
+     * @param directory
+     *            A {@link File} representing the directory to be archived into
+     *            a JAR file.
+     * @param toFile
+     *            A {@link File} representing the location at which the JAR file
+     *            is to be created.
+     * @throws IllegalArgumentException
+     *             If the given source directory is not an existent directory or
+     *             the given output file cannot be written to.
+     * @throws IOException
+     *             If any errors occur during the JAR'ing.
+     * @since 1.2
+     */
+    public void jarDirectory(File directory, File toFile) throws IOException {
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException("Source directory " + directory + " must be an existent directory.");
+        }
+
+        if (toFile.exists() && !toFile.isFile()) {
+            throw new IllegalArgumentException("Destination file " + toFile + " exists, but is not a file and, as such, cannot be overwritten.");
+        }
+
+        final JarArchiver archiver = new JarArchiver();
         archiver.enableLogging(logger);
         archiver.setDestFile(toFile);
         archiver.addDirectory(directory);
@@ -194,4 +719,101 @@ public class ArchiveUtils {
         unarchiver.setDestDirectory(toDirectory);
         unarchiver.extract();
     }
+
+    /**
+     * Extract the contents of a ZIP file.
+     * 
+     * @param zipFile
+     *            A {@link File} representing the ZIP file whose contents are to
+     *            be extracted.
+     * @param toDirectory
+     *            A {@link File} representing the directory to which the
+     *            contents of the ZIP file to be extracted.
+     * @throws IllegalArgumentException
+     *             If the given ZIP file is not a file or does not exist.
+     * @throws IOException
+     *             If any errors occur during the extraction.
+     * @see #zipDirectory(File, String, File, MessageDigest...)
+     * @since 1.2
+     */
+    public void unzipFile(File zipFile, File toDirectory) throws IOException {
+        if (!zipFile.isFile()) {
+            throw new IllegalArgumentException("ZIP file " + zipFile + " must be an existent file.");
+        }
+
+        FileUtils.forceMkdir(toDirectory);
+
+        final ZipUnArchiver unarchiver = new ZipUnArchiver(zipFile);
+        unarchiver.enableLogging(logger);
+        unarchiver.setDestDirectory(toDirectory);
+        unarchiver.extract();
+    }
+
+    /**
+     * Read a file through a pooled direct buffer, updating the given digests with
+     * each block of bytes.
+     * 
+     * @param file
+     *            A {@link File} representing the file to be read.
+     * @param digests
+     *            The {@link MessageDigest} objects to be updated.
+     * @throws IOException
+     *             If any errors occur while reading the file.
+     */
+    private void digestFile(File file, MessageDigest... digests) throws IOException {
+        final FileInputStream fileIn = new FileInputStream(file);
+        final ByteBuffer buffer = BUFFER_POOL.acquireDirectBuffer();
+        try {
+            final FileChannel inChannel = fileIn.getChannel();
+            while (inChannel.read(buffer) >= 0) {
+                buffer.flip();
+                for (MessageDigest digest : digests) {
+                    buffer.mark();
+                    digest.update(buffer);
+                    buffer.reset();
+                }
+                buffer.clear();
+            }
+        } finally {
+            IOUtils.closeQuietly(fileIn);
+            BUFFER_POOL.release(buffer);
+        }
+    }
+
+    /**
+     * Copy the contents of one channel to another through a pooled direct
+     * buffer, updating the given digests with each block of bytes as it
+     * passes through.
+     * 
+     * @param inChannel
+     *            The {@link FileChannel} from which bytes are to be read.
+     * @param outChannel
+     *            The {@link FileChannel} to which bytes are to be written.
+     * @param digests
+     *            The {@link MessageDigest} objects to be updated.
+     * @return The number of bytes copied.
+     * @throws IOException
+     *             If any errors occur during the copy.
+     */
+    private long copyAndDigest(FileChannel inChannel, FileChannel outChannel, MessageDigest... digests) throws IOException {
+        final ByteBuffer buffer = BUFFER_POOL.acquireDirectBuffer();
+        try {
+            long copied = 0;
+            while (inChannel.read(buffer) >= 0) {
+                buffer.flip();
+                for (MessageDigest digest : digests) {
+                    buffer.mark();
+                    digest.update(buffer);
+                    buffer.reset();
+                }
+                while (buffer.hasRemaining()) {
+                    copied += outChannel.write(buffer);
+                }
+                buffer.clear();
+            }
+            return copied;
+        } finally {
+            BUFFER_POOL.release(buffer);
+        }
+    }
 }
@@ -0,0 +1,724 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+
+import com.github.jrh3k5.flume.mojo.plugin.cds.ClassListGenerator;
+
+/**
+ * A verifier of the integrity of a plugin assembly. The assembly is read once, as a stream. For a {@code .tar.gz} assembly, the GZIP stream is read through to its end so that the CRC of
+ * every member is checked and the checksum of every TAR header is checked as the header is read; for a {@code .zip} assembly, the CRC of every entry is checked as it is read, and the
+ * number of entries read is compared against the central directory. Each library is handed to a pool of threads that checks its checksum and - for JAR files - that its ZIP central
+ * directory is intact, while the rest of the assembly continues to be read. An assembly may hold more than one plugin, each in a top-level directory of its own, as a bundle of the plugins
+ * of a reactor does. Once the assembly has been read, the libraries and class list of each plugin are compared against the {@link ChecksumManifest manifest} within that plugin (if there
+ * is one), and the assembly itself is compared against the {@code .sha256} file alongside it (if there is one).
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ArchiveVerifier {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /**
+     * The most bytes of libraries that will be held in memory while awaiting verification; once reached, reading of the assembly waits for libraries to be verified.
+     */
+    private static final int MAXIMUM_BUFFERED_BYTES = 64 * 1024 * 1024;
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int CEN_SIGNATURE = 0x02014b50;
+    private static final int CEN_SIZE = 46;
+    private static final int LOC_SIGNATURE = 0x04034b50;
+    private static final int LOC_SIZE = 30;
+    private final int threads;
+
+    /**
+     * Create a verifier.
+     * 
+     * @param threads
+     *            The number of threads used to verify the libraries within an assembly.
+     * @throws IllegalArgumentException
+     *             If the given number of threads is less than 1.
+     */
+    public ArchiveVerifier(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Check the integrity of the ZIP structure of a file: that its central directory can be found and is within the file, and that each entry in the central directory refers to a local
+     * header, and data, that precede the central directory.
+     * 
+     * @param data
+     *            The contents of the file to be checked.
+     * @return {@code null} if the ZIP structure of the file is intact; otherwise, a description of the problem with it.
+     */
+    static String checkZip(byte[] data) {
+        int eocd = -1;
+        // The end of central directory record is followed only by a comment of up to 65535 bytes
+        for (int i = data.length - EOCD_SIZE; i >= Math.max(0, data.length - EOCD_SIZE - 0xFFFF); i--) {
+            if (readInt(data, i) == EOCD_SIGNATURE) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            return "no ZIP central directory was found; the file may be truncated";
+        }
+
+        final int entryCount = readShort(data, eocd + 10);
+        final long directorySize = readUnsignedInt(data, eocd + 12);
+        final long directoryOffset = readUnsignedInt(data, eocd + 16);
+        if (entryCount == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+            // A ZIP64 file, whose central directory is located by a record that is not checked here
+            return null;
+        }
+        if (directoryOffset + directorySize > eocd) {
+            return "the ZIP central directory extends beyond the end of the file";
+        }
+
+        int position = (int) directoryOffset;
+        for (int i = 0; i < entryCount; i++) {
+            if (position + CEN_SIZE > eocd || readInt(data, position) != CEN_SIGNATURE) {
+                return String.format("entry %d of %d of the ZIP central directory is corrupt", i + 1, entryCount);
+            }
+            final long compressedSize = readUnsignedInt(data, position + 20);
+            final int nameLength = readShort(data, position + 28);
+            final int extraLength = readShort(data, position + 30);
+            final int commentLength = readShort(data, position + 32);
+            final long localOffset = readUnsignedInt(data, position + 42);
+            if (position + CEN_SIZE + nameLength > eocd) {
+                return String.format("entry %d of %d of the ZIP central directory is corrupt", i + 1, entryCount);
+            }
+            final String name = new String(data, position + CEN_SIZE, nameLength, UTF_8);
+            if (localOffset + LOC_SIZE > directoryOffset || readInt(data, (int) localOffset) != LOC_SIGNATURE) {
+                return String.format("the ZIP entry %s has no local header", name);
+            }
+            if (compressedSize != 0xFFFFFFFFL
+                    && localOffset + LOC_SIZE + readShort(data, (int) localOffset + 26) + readShort(data, (int) localOffset + 28) + compressedSize > directoryOffset) {
+                return String.format("the data of the ZIP entry %s extends into the central directory", name);
+            }
+            position += CEN_SIZE + nameLength + extraLength + commentLength;
+        }
+        if (position != directoryOffset + directorySize) {
+            return String.format("the ZIP central directory is %d bytes, but %d bytes were expected", position - directoryOffset, directorySize);
+        }
+        return null;
+    }
+
+    /**
+     * Read a little-endian, two-byte unsigned value.
+     * 
+     * @param data
+     *            The data from which the value is to be read.
+     * @param offset
+     *            The offset of the value.
+     * @return The read value.
+     */
+    private static int readShort(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+    }
+
+    /**
+     * Read a little-endian, four-byte value.
+     * 
+     * @param data
+     *            The data from which the value is to be read.
+     * @param offset
+     *            The offset of the value.
+     * @return The read value.
+     */
+    private static int readInt(byte[] data, int offset) {
+        return readShort(data, offset) | readShort(data, offset + 2) << 16;
+    }
+
+    /**
+     * Read a little-endian, four-byte unsigned value.
+     * 
+     * @param data
+     *            The data from which the value is to be read.
+     * @param offset
+     *            The offset of the value.
+     * @return The read value.
+     */
+    private static long readUnsignedInt(byte[] data, int offset) {
+        return readInt(data, offset) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Determine whether a path, relative to the root of the plugin, is that of a library.
+     * 
+     * @param path
+     *            The path to be checked.
+     * @return {@code true} if the path is of a file directly within {@code lib/} or {@code libext/}; {@code false} if not.
+     */
+    private static boolean isLibraryPath(String path) {
+        for (String directory : new String[] { "lib/", "libext/" }) {
+            if (path.startsWith(directory) && path.length() > directory.length() && path.indexOf('/', directory.length()) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Describe the kind of a file verified against the manifest of a plugin.
+     * 
+     * @param path
+     *            The path of the file, relative to the root of the plugin.
+     * @return {@code "library"} if the file is a library; {@code "file"} if it is any other file recorded in the manifest, such as the class list of the plugin.
+     */
+    private static String describe(String path) {
+        return isLibraryPath(path) ? "library" : "file";
+    }
+
+    /**
+     * Read the data of an entry of an archive.
+     * 
+     * @param inputStream
+     *            The {@link InputStream} from which the data is to be read.
+     * @param size
+     *            The size of the data; {@code -1} if the data is to be read to the end of the stream.
+     * @return The read data.
+     * @throws IOException
+     *             If any errors occur while reading the data or if the stream ends before all of it has been read.
+     */
+    private static byte[] readData(InputStream inputStream, long size) throws IOException {
+        if (size < 0) {
+            return IOUtils.toByteArray(inputStream);
+        }
+        final byte[] data = new byte[(int) size];
+        IOUtils.readFully(inputStream, data);
+        return data;
+    }
+
+    /**
+     * Skip over data within an archive.
+     * 
+     * @param inputStream
+     *            The {@link InputStream} within which data is to be skipped.
+     * @param size
+     *            The number of bytes to be skipped.
+     * @throws IOException
+     *             If any errors occur while skipping the data or if the stream ends before all of it has been skipped.
+     */
+    private static void skipData(InputStream inputStream, long size) throws IOException {
+        if (size > 0) {
+            IOUtils.skipFully(inputStream, size);
+        }
+    }
+
+    /**
+     * Compare the verified libraries - and class list - of a plugin against the manifest within it.
+     * 
+     * @param pluginName
+     *            The name of the top-level directory of the plugin within the assembly.
+     * @param manifest
+     *            The {@link ChecksumManifest} read from the plugin.
+     * @param verified
+     *            A {@link Map} of the paths, relative to the root of the plugin, of the libraries read from the plugin to their {@link VerifiedEntry verified contents}.
+     * @param problems
+     *            A {@link List} to which descriptions of any differences are to be added.
+     */
+    private static void compare(String pluginName, ChecksumManifest manifest, Map<String, VerifiedEntry> verified, List<String> problems) {
+        final String manifestName = pluginName + "/" + ChecksumManifest.FILENAME;
+        for (ChecksumManifest.Entry expected : manifest.getEntries()) {
+            final VerifiedEntry actual = verified.get(expected.getPath());
+            final String name = pluginName + "/" + expected.getPath();
+            if (actual == null) {
+                problems.add(String.format("The %s %s is listed in %s but is missing from the assembly.", describe(expected.getPath()), name, manifestName));
+            } else if (actual.getSize() != expected.getSize()) {
+                problems.add(String.format("The %s %s is %d bytes, but %s records %d bytes.", describe(expected.getPath()), name, actual.getSize(), manifestName, expected.getSize()));
+            } else if (!actual.getSha256().equals(expected.getSha256())) {
+                problems.add(String.format("The SHA-256 checksum of the %s %s does not match the checksum recorded in %s.", describe(expected.getPath()), name, manifestName));
+            }
+        }
+        for (String path : verified.keySet()) {
+            if (manifest.getEntry(path) == null) {
+                problems.add(String.format("The %s %s/%s is not listed in %s.", describe(path), pluginName, path, manifestName));
+            }
+        }
+    }
+
+    /**
+     * Verify a plugin assembly.
+     * 
+     * @param archive
+     *            A {@link File} representing the {@code .tar.gz} or {@code .zip} assembly to be verified.
+     * @return A {@link List} of descriptions of the problems found with the assembly; this is empty if the assembly is intact.
+     * @throws IOException
+     *             If the verification is interrupted or fails for a reason other than a problem with the assembly.
+     * @see #verify(File, List)
+     */
+    public List<String> verify(File archive) throws IOException {
+        return verify(archive, new ArrayList<String>());
+    }
+
+    /**
+     * Verify a plugin assembly, noting the checks that could not be made.
+     * 
+     * @param archive
+     *            A {@link File} representing the {@code .tar.gz} or {@code .zip} assembly to be verified.
+     * @param warnings
+     *            A {@link List} to which descriptions of the checks that could not be made - such as the comparison of the libraries of a plugin without a {@link ChecksumManifest
+     *            manifest} against what was packaged into it - are to be added.
+     * @return A {@link List} of descriptions of the problems found with the assembly; this is empty if the assembly is intact.
+     * @throws IOException
+     *             If the verification is interrupted or fails for a reason other than a problem with the assembly.
+     */
+    public List<String> verify(File archive, List<String> warnings) throws IOException {
+        final MessageDigest archiveDigest = ChecksumManifest.newDigest("SHA-256");
+        final Verification verification = new Verification();
+        boolean readCompletely = false;
+        InputStream digestStream = null;
+        try {
+            digestStream = new DigestInputStream(new FileInputStream(archive), archiveDigest);
+            final boolean ended;
+            if (archive.getName().endsWith(".zip")) {
+                ended = readZip(digestStream, verification, readZipEntryCount(archive));
+            } else {
+                ended = readTar(digestStream, verification);
+            }
+            // Read through to the end of the file, so that all of it is digested
+            final byte[] buffer = new byte[ArchiveUtils.BUFFER_SIZE];
+            while (digestStream.read(buffer) >= 0) {
+                // Discard anything beyond the end of the archive
+            }
+            // Only an assembly whose every entry was read can be compared against what it should contain
+            readCompletely = ended;
+        } catch (IOException e) {
+            verification.problems.add(String.format("The assembly could not be read; it may be truncated or corrupt: %s", e.getMessage()));
+        } finally {
+            IOUtils.closeQuietly(digestStream);
+            verification.executor.shutdown();
+        }
+
+        final List<String> problems = verification.problems;
+        for (PluginVerification plugin : verification.plugins.values()) {
+            final Map<String, VerifiedEntry> verified = new LinkedHashMap<String, VerifiedEntry>();
+            for (Map.Entry<String, Future<VerifiedEntry>> library : plugin.libraries.entrySet()) {
+                try {
+                    verified.put(library.getKey(), library.getValue().get());
+                } catch (InterruptedException e) {
+                    verification.executor.shutdownNow();
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while verifying " + archive.getAbsolutePath());
+                } catch (ExecutionException e) {
+                    throw new IOException(String.format("Failed to verify %s/%s in %s", plugin.name, library.getKey(), archive.getAbsolutePath()), e.getCause());
+                }
+            }
+
+            boolean hasLibrary = false;
+            for (VerifiedEntry entry : verified.values()) {
+                hasLibrary |= entry.getPath().startsWith("lib/");
+                if (entry.getProblem() != null) {
+                    problems.add(String.format("The library %s/%s is corrupt: %s", plugin.name, entry.getPath(), entry.getProblem()));
+                }
+            }
+            if (readCompletely && !hasLibrary) {
+                problems.add(String.format("The plugin %s contains no library in lib/.", plugin.name));
+            }
+            if (readCompletely && plugin.manifest != null) {
+                compare(plugin.name, plugin.manifest, verified, problems);
+            } else if (readCompletely) {
+                warnings.add(String.format("The plugin %s contains no %s, so its libraries were not compared against those packaged into it.", plugin.name, ChecksumManifest.FILENAME));
+            }
+        }
+        if (readCompletely && verification.plugins.isEmpty()) {
+            problems.add("The assembly contains no plugin.");
+        }
+        if (readCompletely) {
+            final File sidecar = new File(archive.getPath() + ".sha256");
+            if (sidecar.isFile()) {
+                final String expected = FileUtils.readFileToString(sidecar, "UTF-8").trim().split("\\s+")[0];
+                final String actual = ChecksumManifest.toHex(archiveDigest.digest());
+                if (!actual.equalsIgnoreCase(expected)) {
+                    problems.add(String.format("The SHA-256 checksum of the assembly is %s, but %s records %s.", actual, sidecar.getName(), expected));
+                }
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Read the entries of a {@code .tar.gz} assembly.
+     * 
+     * @param inputStream
+     *            The {@link InputStream} from which the assembly is to be read.
+     * @param verification
+     *            The {@link Verification} to which each entry of the assembly is to be handed.
+     * @return {@code true} if the end of the TAR file was reached; {@code false} if reading stopped before then.
+     * @throws IOException
+     *             If any errors occur while reading the assembly.
+     */
+    private boolean readTar(InputStream inputStream, Verification verification) throws IOException {
+        final InputStream tarStream = new GZIPInputStream(inputStream, ArchiveUtils.BUFFER_SIZE);
+        final byte[] header = new byte[TarBlocks.BLOCK_SIZE];
+        boolean ended = false;
+        long offset = 0;
+        String nextName = null;
+        while (true) {
+            if (!TarBlocks.readBlock(tarStream, header)) {
+                verification.problems.add("The TAR file ends without an end-of-archive marker; the assembly may be truncated.");
+                break;
+            }
+            if (TarBlocks.isEndOfArchive(header)) {
+                ended = true;
+                break;
+            }
+            if (!TarBlocks.isChecksumValid(header)) {
+                verification.problems.add(String.format("The TAR header at offset %d is corrupt.", offset));
+                break;
+            }
+            final long size;
+            try {
+                size = TarBlocks.getSize(header);
+            } catch (IOException e) {
+                verification.problems.add(String.format("The TAR header at offset %d has a malformed size.", offset));
+                break;
+            }
+            final long paddedSize = TarBlocks.getPaddedSize(size);
+            offset += TarBlocks.BLOCK_SIZE + paddedSize;
+
+            if (TarBlocks.isMetadata(header)) {
+                // A GNU long name or POSIX extended header, which may carry the name of the entry that follows
+                final byte[] data = readData(tarStream, size);
+                final String name = TarBlocks.getNextName(header, data, data.length);
+                if (name != null) {
+                    nextName = name;
+                }
+                skipData(tarStream, paddedSize - size);
+                continue;
+            }
+
+            final String name = nextName == null ? TarBlocks.getName(header) : nextName;
+            nextName = null;
+            if (TarBlocks.isDirectory(header) || name.endsWith("/")) {
+                skipData(tarStream, size);
+            } else if (!TarBlocks.isFile(header)) {
+                verification.problems.add(String.format("The entry %s is not a regular file.", name));
+                skipData(tarStream, size);
+            } else {
+                // Whatever of the entry is not read for verification is skipped along with its padding
+                final BoundedInputStream entryStream = new BoundedInputStream(tarStream, size);
+                entryStream.setPropagateClose(false);
+                verification.addFile(name, size, entryStream);
+                IOUtils.skip(entryStream, size);
+            }
+            skipData(tarStream, paddedSize - size);
+        }
+        // Read through to the end of the GZIP stream, so that the CRC of its last member is checked
+        final byte[] buffer = new byte[ArchiveUtils.BUFFER_SIZE];
+        while (tarStream.read(buffer) >= 0) {
+            // Discard the end of the TAR file
+        }
+        return ended;
+    }
+
+    /**
+     * Read the entries of a {@code .zip} assembly. The CRC of each entry is checked as it is read.
+     * 
+     * @param inputStream
+     *            The {@link InputStream} from which the assembly is to be read.
+     * @param verification
+     *            The {@link Verification} to which each entry of the assembly is to be handed.
+     * @param expectedEntryCount
+     *            The number of entries listed by the central directory of the assembly; {@code -1} if no central directory was found.
+     * @return {@code true} if every entry listed by the central directory was read; {@code false} if not.
+     * @throws IOException
+     *             If any errors occur while reading the assembly.
+     */
+    private boolean readZip(InputStream inputStream, Verification verification, int expectedEntryCount) throws IOException {
+        final ZipInputStream zipStream = new ZipInputStream(inputStream);
+        int entryCount = 0;
+        ZipEntry entry;
+        while ((entry = zipStream.getNextEntry()) != null) {
+            entryCount++;
+            if (!entry.isDirectory()) {
+                verification.addFile(entry.getName(), entry.getSize(), zipStream);
+            }
+            // Read the rest of the entry, if any of it was skipped, so that its CRC is checked
+            IOUtils.skip(zipStream, Long.MAX_VALUE);
+        }
+        // The entries of a ZIP file simply stop where the file does, so a truncated file is only found by its missing central directory
+        if (expectedEntryCount < 0) {
+            verification.problems.add("No ZIP central directory was found; the assembly may be truncated.");
+            return false;
+        } else if (entryCount != expectedEntryCount) {
+            verification.problems.add(String.format("The ZIP central directory lists %d entries, but %d were read; the assembly may be truncated.", expectedEntryCount, entryCount));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Read the number of entries listed by the central directory of a ZIP file, reading only the end of the file.
+     * 
+     * @param zipFile
+     *            A {@link File} representing the ZIP file whose entries are to be counted.
+     * @return The number of entries listed by the central directory of the given file; {@code -1} if no central directory was found.
+     * @throws IOException
+     *             If any errors occur while reading the file.
+     */
+    private static int readZipEntryCount(File zipFile) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(zipFile, "r");
+        try {
+            final byte[] tail = new byte[(int) Math.min(file.length(), EOCD_SIZE + 0xFFFF)];
+            file.seek(file.length() - tail.length);
+            file.readFully(tail);
+            for (int i = tail.length - EOCD_SIZE; i >= 0; i--) {
+                if (readInt(tail, i) == EOCD_SIGNATURE) {
+                    return readShort(tail, i + 10);
+                }
+            }
+            return -1;
+        } finally {
+            IOUtils.closeQuietly(file);
+        }
+    }
+
+    /**
+     * The state of the verification of a single assembly.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    private class Verification {
+        private final List<String> problems = new ArrayList<String>();
+        private final Map<String, PluginVerification> plugins = new LinkedHashMap<String, PluginVerification>();
+        private final Semaphore bufferedBytes = new Semaphore(MAXIMUM_BUFFERED_BYTES);
+        private final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        /**
+         * Verify a file read from the assembly. Its data is read from the given stream - unless it is not to be verified, in which case it is left to the caller to skip it - and, if it is
+         * a library or the class list of the plugin, handed off to be verified while the rest of the assembly is read.
+         * 
+         * @param name
+         *            The name of the file within the assembly.
+         * @param size
+         *            The size of the file; {@code -1} if it is not known.
+         * @param inputStream
+         *            The {@link InputStream} from which the data of the file is to be read.
+         * @throws IOException
+         *             If any errors occur while reading the file.
+         */
+        private void addFile(String name, long size, InputStream inputStream) throws IOException {
+            final int separator = name.indexOf('/');
+            if (separator <= 0) {
+                problems.add(String.format("The entry %s is not within a plugin directory.", name));
+                return;
+            }
+            final String pluginName = name.substring(0, separator);
+            PluginVerification plugin = plugins.get(pluginName);
+            if (plugin == null) {
+                plugin = new PluginVerification(pluginName);
+                plugins.put(pluginName, plugin);
+            }
+            final Map<String, Future<VerifiedEntry>> libraries = plugin.libraries;
+            final String path = name.substring(separator + 1);
+            if (path.equals(ChecksumManifest.FILENAME)) {
+                try {
+                    plugin.manifest = ChecksumManifest.read(new ByteArrayInputStream(readData(inputStream, size)));
+                } catch (IOException e) {
+                    problems.add(String.format("The manifest %s is malformed: %s", name, e.getMessage()));
+                }
+            } else if (!isLibraryPath(path) && !path.equals(ClassListGenerator.FILENAME)) {
+                problems.add(String.format("The entry %s is neither in lib/ nor libext/.", name));
+            } else if (libraries.containsKey(path)) {
+                problems.add(String.format("The entry %s appears more than once.", name));
+            } else if (size > Integer.MAX_VALUE - TarBlocks.BLOCK_SIZE) {
+                problems.add(String.format("The entry %s is too large to be verified.", name));
+            } else {
+                // Hand the library, or class list, off to be verified while the rest of the assembly is read; as much as may be held is reserved for a library of unknown size, and
+                // whatever of it the library does not need is released once it has been read
+                final int reserved = (int) Math.min(size < 0 ? MAXIMUM_BUFFERED_BYTES : size, MAXIMUM_BUFFERED_BYTES);
+                bufferedBytes.acquireUninterruptibly(reserved);
+                final byte[] data;
+                try {
+                    data = readData(inputStream, size);
+                } catch (IOException e) {
+                    bufferedBytes.release(reserved);
+                    throw e;
+                }
+                final int permits = Math.min(data.length, reserved);
+                bufferedBytes.release(reserved - permits);
+                libraries.put(path, executor.submit(new LibraryVerification(path, data, bufferedBytes, permits)));
+            }
+        }
+    }
+
+    /**
+     * The state of the verification of a single plugin within an assembly.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    private static class PluginVerification {
+        private final String name;
+        private final Map<String, Future<VerifiedEntry>> libraries = new LinkedHashMap<String, Future<VerifiedEntry>>();
+        private ChecksumManifest manifest;
+
+        /**
+         * Create a verification.
+         * 
+         * @param name
+         *            The name of the top-level directory of the plugin within the assembly.
+         */
+        private PluginVerification(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * A task that verifies a library read from an assembly.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    private static class LibraryVerification implements Callable<VerifiedEntry> {
+        private final String path;
+        private final byte[] data;
+        private final Semaphore bufferedBytes;
+        private final int permits;
+
+        /**
+         * Create a verification.
+         * 
+         * @param path
+         *            The path of the library, relative to the root of the plugin.
+         * @param data
+         *            The contents of the library.
+         * @param bufferedBytes
+         *            The {@link Semaphore} limiting the bytes held in memory, to which the given permits are released once the library is verified.
+         * @param permits
+         *            The number of permits held for the contents of the library.
+         */
+        private LibraryVerification(String path, byte[] data, Semaphore bufferedBytes, int permits) {
+            this.path = path;
+            this.data = data;
+            this.bufferedBytes = bufferedBytes;
+            this.permits = permits;
+        }
+
+        public VerifiedEntry call() {
+            try {
+                final String sha256 = ChecksumManifest.toHex(ChecksumManifest.newDigest("SHA-256").digest(data));
+                final String problem = path.endsWith(".jar") ? checkZip(data) : null;
+                return new VerifiedEntry(path, data.length, sha256, problem);
+            } finally {
+                bufferedBytes.release(permits);
+            }
+        }
+    }
+
+    /**
+     * A library read from an assembly and verified.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    private static class VerifiedEntry {
+        private final String path;
+        private final long size;
+        private final String sha256;
+        private final String problem;
+
+        /**
+         * Create an entry.
+         * 
+         * @param path
+         *            The path of the library, relative to the root of the plugin.
+         * @param size
+         *            The size, in bytes, of the library.
+         * @param sha256
+         *            The SHA-256 checksum of the library, as a hexadecimal string.
+         * @param problem
+         *            A description of the problem with the structure of the library; {@code null} if there is none.
+         */
+        private VerifiedEntry(String path, long size, String sha256, String problem) {
+            this.path = path;
+            this.size = size;
+            this.sha256 = sha256;
+            this.problem = problem;
+        }
+
+        /**
+         * Get the path of the library.
+         * 
+         * @return The path of the library, relative to the root of the plugin.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Get the size of the library.
+         * 
+         * @return The size, in bytes, of the library.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Get the checksum of the library.
+         * 
+         * @return The SHA-256 checksum of the library, as a hexadecimal string.
+         */
+        public String getSha256() {
+            return sha256;
+        }
+
+        /**
+         * Get the problem with the structure of the library.
+         * 
+         * @return A description of the problem with the structure of the library; {@code null} if there is none.
+         */
+        public String getProblem() {
+            return problem;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A manifest of the entries contained within a plugin, recording the path, size, and SHA-256 checksum of each entry. Each line of the written manifest is of the form:
+ * 
+ * <pre>
+ * &lt;sha-256&gt;\t&lt;size&gt;\t&lt;path&gt;
+ * </pre>
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ChecksumManifest {
+    /**
+     * The name of the manifest file as written into the root of a plugin.
+     */
+    public static final String FILENAME = "plugin.manifest";
+    private static final String CHARSET = "UTF-8";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+    /**
+     * Create a {@link MessageDigest} for the given algorithm.
+     * 
+     * @param algorithm
+     *            The name of the algorithm (e.g., {@code SHA-256}) for which a digest is to be created.
+     * @return A {@link MessageDigest} for the given algorithm.
+     * @throws IllegalStateException
+     *             If the JVM does not support the given algorithm.
+     */
+    public static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unsupported digest algorithm: " + algorithm, e);
+        }
+    }
+
+    /**
+     * Read a manifest.
+     * 
+     * @param inputStream
+     *            An {@link InputStream} containing the manifest to be read; this is not closed by this method.
+     * @return A {@link ChecksumManifest} representing the read manifest.
+     * @throws IOException
+     *             If any errors occur while reading the manifest or if the manifest is malformed.
+     */
+    public static ChecksumManifest read(InputStream inputStream) throws IOException {
+        final ChecksumManifest manifest = new ChecksumManifest();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, CHARSET));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.length() == 0) {
+                continue;
+            }
+            final String[] fields = line.split("\t", 3);
+            if (fields.length != 3) {
+                throw new IOException("Malformed manifest line: " + line);
+            }
+            try {
+                manifest.add(fields[2], Long.parseLong(fields[1]), fields[0]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed size in manifest line: " + line, e);
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Format bytes as a lowercase hexadecimal string.
+     * 
+     * @param bytes
+     *            The bytes to be formatted.
+     * @return A hexadecimal representation of the given bytes.
+     */
+    public static String toHex(byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Compute the SHA-256 checksum of a file.
+     * 
+     * @param file
+     *            The {@link File} whose checksum is to be computed.
+     * @return The SHA-256 checksum of the file, as a hexadecimal string.
+     * @throws IOException
+     *             If any errors occur while reading the file.
+     */
+    public static String computeSha256(File file) throws IOException {
+        final MessageDigest digest = newDigest("SHA-256");
+        final byte[] buffer = ArchiveUtils.BUFFER_POOL.acquireArray();
+        final InputStream input = new FileInputStream(file);
+        try {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            IOUtils.closeQuietly(input);
+            ArchiveUtils.BUFFER_POOL.release(buffer);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Write a checksum sidecar file in the format used by {@code sha256sum} and its siblings.
+     * 
+     * @param checksummed
+     *            A {@link File} representing the file whose checksum has been computed.
+     * @param digest
+     *            The computed digest of the given file.
+     * @param toFile
+     *            A {@link File} representing the location to which the sidecar file is to be written.
+     * @throws IOException
+     *             If any errors occur while writing the file.
+     */
+    public static void writeSidecar(File checksummed, byte[] digest, File toFile) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(toFile), CHARSET);
+        try {
+            writer.write(toHex(digest));
+            writer.write("  ");
+            writer.write(checksummed.getName());
+            writer.write('\n');
+            // Closed here, rather than only quietly, so that a failure to flush the sidecar fails the build
+            writer.close();
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Add an entry to the manifest, replacing any entry already recorded at the same path.
+     * 
+     * @param path
+     *            The path of the entry, relative to the root of the plugin.
+     * @param size
+     *            The size, in bytes, of the entry.
+     * @param sha256
+     *            The SHA-256 checksum of the entry, as a hexadecimal string.
+     */
+    public void add(String path, long size, String sha256) {
+        entries.put(path, new Entry(path, size, sha256));
+    }
+
+    /**
+     * Get an entry in the manifest.
+     * 
+     * @param path
+     *            The path of the entry to be retrieved.
+     * @return {@code null} if there is no such entry; otherwise, an {@link Entry} representing the given path.
+     */
+    public Entry getEntry(String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * Get the entries in this manifest.
+     * 
+     * @return A {@link Collection} of {@link Entry} objects representing the entries in this manifest, in the order in which they were added.
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(new ArrayList<Entry>(entries.values()));
+    }
+
+    /**
+     * Remove an entry from the manifest.
+     * 
+     * @param path
+     *            The path of the entry to be removed.
+     * @return {@code true} if an entry was removed; {@code false} if there was no entry for the given path.
+     */
+    public boolean remove(String path) {
+        return entries.remove(path) != null;
+    }
+
+    /**
+     * Write this manifest to a file.
+     * 
+     * @param toFile
+     *            A {@link File} representing the location to which the manifest is to be written.
+     * @throws IOException
+     *             If any errors occur while writing the manifest.
+     */
+    public void write(File toFile) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(toFile), CHARSET);
+        try {
+            for (Entry entry : entries.values()) {
+                writer.write(entry.getSha256());
+                writer.write('\t');
+                writer.write(Long.toString(entry.getSize()));
+                writer.write('\t');
+                writer.write(entry.getPath());
+                writer.write('\n');
+            }
+            writer.close();
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * An entry in a {@link ChecksumManifest}.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    public static class Entry {
+        private final String path;
+        private final long size;
+        private final String sha256;
+
+        /**
+         * Create an entry.
+         * 
+         * @param path
+         *            The path of the entry, relative to the root of the plugin.
+         * @param size
+         *            The size, in bytes, of the entry.
+         * @param sha256
+         *            The SHA-256 checksum of the entry, as a hexadecimal string.
+         */
+        private Entry(String path, long size, String sha256) {
+            this.path = path;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        /**
+         * Get the path of the entry.
+         * 
+         * @return The path of the entry, relative to the root of the plugin.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Get the size of the entry.
+         * 
+         * @return The size, in bytes, of the entry.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Get the checksum of the entry.
+         * 
+         * @return The SHA-256 checksum of the entry, as a hexadecimal string.
+         */
+        public String getSha256() {
+            return sha256;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Keeps a directory in sync with a set of source files across builds. The synchronizer records, in a state file kept outside of the synchronized directory, the source, size, modification time,
+ * and SHA-256 checksum of every file it copies; on the next build, a file whose source is unchanged is not copied again. A source of the same size and modification time is assumed to be
+ * unchanged, as {@code make} and {@code rsync} assume by default, and where checksums are computed the recorded checksum is reused for it, so that an unchanged source is never read. Once
+ * all of the wanted files have been {@link #sync(File, String) synchronized}, {@link #removeStale()} deletes any files that were placed in the directory by a previous synchronization but
+ * were not wanted by this one; files placed in the directory by anything else are left untouched. A synchronizer may instead place files as hard links to their sources, so that none of
+ * their bytes are copied. Each line of the state file is of the form:
+ * 
+ * <pre>
+ * &lt;sha-256 or -&gt;\t&lt;size&gt;\t&lt;modification time&gt;\t&lt;path&gt;\t&lt;source&gt;
+ * </pre>
+ * 
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class DirectorySynchronizer {
+    private static final String CHARSET = "UTF-8";
+    private static final String NO_CHECKSUM = "-";
+    /**
+     * The size recorded for a file whose state is not to be trusted; no source can match it.
+     */
+    private static final long UNTRUSTED_SIZE = -1;
+    private final ArchiveUtils archiveUtils;
+    private final File directory;
+    private final File stateFile;
+    private final boolean computeChecksums;
+    private final boolean linkFiles;
+    private final Map<String, Entry> previousEntries;
+    private final Map<String, Entry> currentEntries = new LinkedHashMap<String, Entry>();
+    private int copiedCount;
+    private long copiedBytes;
+    private int unchangedCount;
+    private int linkedCount;
+
+    /**
+     * Open a directory for synchronization. The state of the previous synchronization, if any, is read and then replaced by one in which no file is trusted, so that a build that fails part of
+     * the way through synchronization causes the next build to copy every file again rather than trust a directory that may be only partially updated, while still knowing which files it may
+     * remove.
+     * 
+     * @param archiveUtils
+     *            The {@link ArchiveUtils} used to copy files into the directory.
+     * @param directory
+     *            A {@link File} representing the directory to be synchronized; it is created if it does not exist.
+     * @param stateFile
+     *            A {@link File} representing the location of the synchronization state; this should not be within the synchronized directory.
+     * @param computeChecksums
+     *            {@code true} if the SHA-256 checksum of each file should be computed as it is copied; {@code false} if not.
+     * @return A {@link DirectorySynchronizer} for the given directory.
+     * @throws IOException
+     *             If any errors occur while creating the directory or reading the synchronization state.
+     */
+    public static DirectorySynchronizer open(ArchiveUtils archiveUtils, File directory, File stateFile, boolean computeChecksums) throws IOException {
+        return open(archiveUtils, directory, stateFile, computeChecksums, false);
+    }
+
+    /**
+     * Open a directory for synchronization.
+     * 
+     * @param archiveUtils
+     *            The {@link ArchiveUtils} used to copy or link files into the directory.
+     * @param directory
+     *            A {@link File} representing the directory to be synchronized; it is created if it does not exist.
+     * @param stateFile
+     *            A {@link File} representing the location of the synchronization state; this should not be within the synchronized directory.
+     * @param computeChecksums
+     *            {@code true} if the SHA-256 checksum of each file should be computed as it is placed; {@code false} if not.
+     * @param linkFiles
+     *            {@code true} if each file should be placed as a hard link to its source, falling back to a copy where it cannot be linked; {@code false} if each file should be copied.
+     * @return A {@link DirectorySynchronizer} for the given directory.
+     * @throws IOException
+     *             If any errors occur while creating the directory or reading the synchronization state.
+     * @see #open(ArchiveUtils, File, File, boolean)
+     */
+    public static DirectorySynchronizer open(ArchiveUtils archiveUtils, File directory, File stateFile, boolean computeChecksums, boolean linkFiles) throws IOException {
+        FileUtils.forceMkdir(directory);
+        final Map<String, Entry> previousEntries = stateFile.isFile() ? readState(stateFile) : new HashMap<String, Entry>();
+        final List<Entry> untrustedEntries = new ArrayList<Entry>(previousEntries.size());
+        for (Entry previous : previousEntries.values()) {
+            untrustedEntries.add(new Entry(previous.getPath(), previous.getSource(), UNTRUSTED_SIZE, previous.getModified(), null));
+        }
+        writeState(stateFile, untrustedEntries, false);
+        return new DirectorySynchronizer(archiveUtils, directory, stateFile, computeChecksums, linkFiles, previousEntries);
+    }
+
+    /**
+     * Mark a file placed in a directory by a previous synchronization as untrusted, as {@link #open(ArchiveUtils, File, File, boolean, boolean) opening} the directory marks every file, so
+     * that the next synchronization copies it again. This is for a file that has been replaced by something other than a synchronizer; the file remains recorded as placed by a
+     * synchronization, so it is still removed once it is no longer wanted.
+     * 
+     * @param stateFile
+     *            A {@link File} representing the synchronization state; nothing is done if it does not exist.
+     * @param path
+     *            The {@code /}-separated path, relative to the synchronized directory, of the file to be marked; nothing is done if it is not recorded in the state.
+     * @throws IOException
+     *             If any errors occur while reading or rewriting the synchronization state.
+     */
+    public static void markUntrusted(File stateFile, String path) throws IOException {
+        if (!stateFile.isFile()) {
+            return;
+        }
+        final Map<String, Entry> entries = readState(stateFile);
+        final Entry entry = entries.get(path);
+        if (entry == null) {
+            return;
+        }
+        entries.put(path, new Entry(path, entry.getSource(), UNTRUSTED_SIZE, entry.getModified(), null));
+        writeState(stateFile, entries.values(), false);
+    }
+
+    /**
+     * Read the state of a previous synchronization.
+     * 
+     * @param stateFile
+     *            A {@link File} representing the state to be read.
+     * @return A {@link Map} of paths to the {@link Entry} objects recorded for them; if the state file is malformed, an empty map is returned so that every file is copied again.
+     * @throws IOException
+     *             If any errors occur while reading the state.
+     */
+    private static Map<String, Entry> readState(File stateFile) throws IOException {
+        final Map<String, Entry> entries = new HashMap<String, Entry>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(stateFile), CHARSET));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split("\t", 5);
+                if (fields.length != 5) {
+                    return new HashMap<String, Entry>();
+                }
+                final String sha256 = NO_CHECKSUM.equals(fields[0]) ? null : fields[0];
+                try {
+                    entries.put(fields[3], new Entry(fields[3], fields[4], Long.parseLong(fields[1]), Long.parseLong(fields[2]), sha256));
+                } catch (NumberFormatException e) {
+                    return new HashMap<String, Entry>();
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+        return entries;
+    }
+
+    /**
+     * Create a synchronizer.
+     * 
+     * @param archiveUtils
+     *            The {@link ArchiveUtils} used to copy files into the directory.
+     * @param directory
+     *            A {@link File} representing the directory to be synchronized.
+     * @param stateFile
+     *            A {@link File} representing the location of the synchronization state.
+     * @param computeChecksums
+     *            {@code true} if the SHA-256 checksum of each file should be computed as it is copied; {@code false} if not.
+     * @param linkFiles
+     *            {@code true} if each file should be placed as a hard link to its source; {@code false} if each file should be copied.
+     * @param previousEntries
+     *            A {@link Map} of paths to the {@link Entry} objects recorded by the previous synchronization.
+     * @see #open(ArchiveUtils, File, File, boolean, boolean)
+     */
+    private DirectorySynchronizer(ArchiveUtils archiveUtils, File directory, File stateFile, boolean computeChecksums, boolean linkFiles, Map<String, Entry> previousEntries) {
+        this.archiveUtils = archiveUtils;
+        this.directory = directory;
+        this.stateFile = stateFile;
+        this.computeChecksums = computeChecksums;
+        this.linkFiles = linkFiles;
+        this.previousEntries = previousEntries;
+    }
+
+    /**
+     * Synchronize a file into the directory. If the given source has the same size and modification time as when it was last copied to the given path - and, where checksums are computed,
+     * a checksum was recorded for it - and the copy is still present, it is not copied again. Only copied files have their checksums computed; a file placed by a synchronization that did
+     * not complete is always copied again.
+     * 
+     * @param source
+     *            A {@link File} representing the file to be synchronized into the directory.
+     * @param path
+     *            The {@code /}-separated path, relative to the synchronized directory, at which the file is to be placed.
+     * @return An {@link Entry} describing the synchronized file.
+     * @throws IOException
+     *             If any errors occur while copying the file.
+     */
+    public Entry sync(File source, String path) throws IOException {
+        final File target = new File(directory, path);
+        final String sourcePath = source.getAbsolutePath();
+        final long sourceSize = source.length();
+        final long sourceModified = source.lastModified();
+
+        final Entry previous = previousEntries.get(path);
+        // A path synchronized twice within one build always takes the contents of the latest source
+        if (previous != null && !currentEntries.containsKey(path) && previous.getSource().equals(sourcePath) && previous.getSize() == sourceSize && previous.getModified() == sourceModified
+                && (!computeChecksums || previous.getSha256() != null) && target.isFile() && target.length() == sourceSize) {
+            // The recorded checksum is reused rather than recomputed, so an unchanged file is never read
+            currentEntries.put(path, previous);
+            unchangedCount++;
+            return previous;
+        }
+
+        String sha256 = null;
+        long size;
+        if (linkFiles) {
+            // Replace, rather than write through, any file already at the path, as it may be a link to a file elsewhere
+            if (target.exists()) {
+                FileUtils.forceDelete(target);
+            }
+            final MessageDigest digest = computeChecksums ? ChecksumManifest.newDigest("SHA-256") : null;
+            final boolean linked = computeChecksums ? archiveUtils.linkFile(source, target, digest) : archiveUtils.linkFile(source, target);
+            if (linked) {
+                linkedCount++;
+            }
+            size = sourceSize;
+            sha256 = computeChecksums ? ChecksumManifest.toHex(digest.digest()) : null;
+        } else if (computeChecksums) {
+            final MessageDigest digest = ChecksumManifest.newDigest("SHA-256");
+            size = archiveUtils.copyFile(source, target, digest);
+            sha256 = ChecksumManifest.toHex(digest.digest());
+        } else {
+            size = archiveUtils.copyFile(source, target);
+        }
+        copiedCount++;
+        copiedBytes += size;
+
+        final Entry entry = new Entry(path, sourcePath, size, sourceModified, sha256);
+        // Record a newly-placed file as soon as it is placed, so that it can be removed even if this synchronization does not complete
+        if (!previousEntries.containsKey(path) && !currentEntries.containsKey(path)) {
+            writeState(stateFile, Collections.singletonList(new Entry(path, sourcePath, UNTRUSTED_SIZE, sourceModified, null)), true);
+        }
+        currentEntries.put(path, entry);
+        return entry;
+    }
+
+    /**
+     * Delete every file placed in the directory by a previous synchronization that has not been {@link #sync(File, String) synchronized} since this synchronizer was opened. Files that were not
+     * placed by a synchronization are left untouched.
+     * 
+     * @return A {@link List} of the {@code /}-separated paths of the deleted files.
+     * @throws IOException
+     *             If any of the files cannot be deleted.
+     */
+    public List<String> removeStale() throws IOException {
+        final List<String> removed = new ArrayList<String>();
+        for (String path : previousEntries.keySet()) {
+            if (currentEntries.containsKey(path)) {
+                continue;
+            }
+            final File file = new File(directory, path);
+            if (file.isFile()) {
+                FileUtils.forceDelete(file);
+                removed.add(path);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Write the state of this synchronization so that the next build can skip unchanged files. This should only be called once the directory holds every wanted file.
+     * 
+     * @throws IOException
+     *             If any errors occur while writing the state.
+     */
+    public void writeState() throws IOException {
+        writeState(stateFile, currentEntries.values(), false);
+    }
+
+    /**
+     * Write entries to a state file.
+     * 
+     * @param stateFile
+     *            A {@link File} representing the state file to be written.
+     * @param entries
+     *            A {@link Collection} of the {@link Entry} objects to be written.
+     * @param append
+     *            {@code true} if the entries are to be appended to the state file; {@code false} if they are to replace its contents.
+     * @throws IOException
+     *             If any errors occur while writing the state.
+     */
+    private static void writeState(File stateFile, Collection<Entry> entries, boolean append) throws IOException {
+        FileUtils.forceMkdir(stateFile.getAbsoluteFile().getParentFile());
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(stateFile, append), CHARSET);
+        try {
+            for (Entry entry : entries) {
+                writer.write(entry.getSha256() == null ? NO_CHECKSUM : entry.getSha256());
+                writer.write('\t');
+                writer.write(Long.toString(entry.getSize()));
+                writer.write('\t');
+                writer.write(Long.toString(entry.getModified()));
+                writer.write('\t');
+                writer.write(entry.getPath());
+                writer.write('\t');
+                writer.write(entry.getSource());
+                writer.write('\n');
+            }
+            writer.close();
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Get the number of bytes copied by this synchronizer.
+     * 
+     * @return The number of bytes copied into the directory.
+     */
+    public long getCopiedBytes() {
+        return copiedBytes;
+    }
+
+    /**
+     * Get the number of files copied by this synchronizer.
+     * 
+     * @return The number of files copied into the directory because they were new or had changed.
+     */
+    public int getCopiedCount() {
+        return copiedCount;
+    }
+
+    /**
+     * Get the number of files placed as hard links to their sources.
+     * 
+     * @return The number of the {@link #getCopiedCount() copied} files that were linked rather than copied.
+     */
+    public int getLinkedCount() {
+        return linkedCount;
+    }
+
+    /**
+     * Get the number of files that did not need to be copied.
+     * 
+     * @return The number of files whose sources were unchanged since they were last copied.
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * A file synchronized by a {@link DirectorySynchronizer}.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    public static class Entry {
+        private final String path;
+        private final String source;
+        private final long size;
+        private final long modified;
+        private final String sha256;
+
+        /**
+         * Create an entry.
+         * 
+         * @param path
+         *            The path of the file, relative to the synchronized directory.
+         * @param source
+         *            The absolute path of the file from which the file was copied.
+         * @param size
+         *            The size, in bytes, of the file.
+         * @param modified
+         *            The modification time of the source file at the time it was copied.
+         * @param sha256
+         *            The SHA-256 checksum of the file, as a hexadecimal string; {@code null} if it was not computed.
+         */
+        private Entry(String path, String source, long size, long modified, String sha256) {
+            this.path = path;
+            this.source = source;
+            this.size = size;
+            this.modified = modified;
+            this.sha256 = sha256;
+        }
+
+        /**
+         * Get the path of the file.
+         * 
+         * @return The {@code /}-separated path of the file, relative to the synchronized directory.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Get the source of the file.
+         * 
+         * @return The absolute path of the file from which the file was copied.
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Get the size of the file.
+         * 
+         * @return The size, in bytes, of the file.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Get the modification time of the source of the file.
+         * 
+         * @return The modification time, in milliseconds since the epoch, of the source file at the time it was copied.
+         */
+        public long getModified() {
+            return modified;
+        }
+
+        /**
+         * Get the checksum of the file.
+         * 
+         * @return The SHA-256 checksum of the file, as a hexadecimal string; {@code null} if it was not computed.
+         */
+        public String getSha256() {
+            return sha256;
+        }
+    }
+}
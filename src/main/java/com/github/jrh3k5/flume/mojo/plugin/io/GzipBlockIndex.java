@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * An index of the entries of a block-GZIP'ed TAR file, as written by {@link ArchiveUtils#blockGzipTarFile(File, File, java.security.MessageDigest...)}. Each file in such an archive is
+ * compressed, along with its TAR header, into a GZIP member of its own, so it can be read by seeking to the offset of its member and decompressing only that member. The index is a text
+ * file with one line for each file, in the form of {@code <offset>\t<length>\t<size>\t<path>}, giving the offset and length of the compressed member and the uncompressed size and path
+ * of the file within the archive.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class GzipBlockIndex {
+    private static final String CHARSET = "UTF-8";
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+    /**
+     * Read an index.
+     * 
+     * @param inputStream
+     *            The {@link InputStream} from which the index is to be read; it is not closed by this method.
+     * @return A {@link GzipBlockIndex} representing the read index.
+     * @throws IOException
+     *             If any errors occur while reading the index or if the index is malformed.
+     */
+    public static GzipBlockIndex read(InputStream inputStream) throws IOException {
+        final GzipBlockIndex index = new GzipBlockIndex();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, CHARSET));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.length() == 0) {
+                continue;
+            }
+            final String[] fields = line.split("\t", 4);
+            if (fields.length != 4) {
+                throw new IOException("Malformed index line: " + line);
+            }
+            try {
+                index.add(fields[3], Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed offset, length, or size in index line: " + line, e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Add an entry to the index, replacing any entry already recorded at the same path.
+     * 
+     * @param path
+     *            The path of the file within the archive.
+     * @param offset
+     *            The offset, in bytes, of the GZIP member holding the file within the archive.
+     * @param length
+     *            The length, in bytes, of the GZIP member holding the file.
+     * @param size
+     *            The uncompressed size, in bytes, of the file.
+     */
+    public void add(String path, long offset, long length, long size) {
+        entries.put(path, new Entry(path, offset, length, size));
+    }
+
+    /**
+     * Get an entry in the index.
+     * 
+     * @param path
+     *            The path, within the archive, of the entry to be retrieved.
+     * @return {@code null} if there is no such entry; otherwise, an {@link Entry} representing the given path.
+     */
+    public Entry getEntry(String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * Get the entries in this index.
+     * 
+     * @return A {@link Collection} of {@link Entry} objects representing the entries in this index, in the order in which they were added.
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(new ArrayList<Entry>(entries.values()));
+    }
+
+    /**
+     * Write this index to a file.
+     * 
+     * @param toFile
+     *            A {@link File} representing the location to which the index is to be written.
+     * @throws IOException
+     *             If any errors occur while writing the index.
+     */
+    public void write(File toFile) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(toFile), CHARSET);
+        try {
+            for (Entry entry : entries.values()) {
+                writer.write(Long.toString(entry.getOffset()));
+                writer.write('\t');
+                writer.write(Long.toString(entry.getLength()));
+                writer.write('\t');
+                writer.write(Long.toString(entry.getSize()));
+                writer.write('\t');
+                writer.write(entry.getPath());
+                writer.write('\n');
+            }
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * An entry in a {@link GzipBlockIndex}.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    public static class Entry {
+        private final String path;
+        private final long offset;
+        private final long length;
+        private final long size;
+
+        /**
+         * Create an entry.
+         * 
+         * @param path
+         *            The path of the file within the archive.
+         * @param offset
+         *            The offset, in bytes, of the GZIP member holding the file within the archive.
+         * @param length
+         *            The length, in bytes, of the GZIP member holding the file.
+         * @param size
+         *            The uncompressed size, in bytes, of the file.
+         */
+        private Entry(String path, long offset, long length, long size) {
+            this.path = path;
+            this.offset = offset;
+            this.length = length;
+            this.size = size;
+        }
+
+        /**
+         * Get the path of the file.
+         * 
+         * @return The path of the file within the archive.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Get the offset of the GZIP member holding the file.
+         * 
+         * @return The offset, in bytes, of the member within the archive.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Get the length of the GZIP member holding the file.
+         * 
+         * @return The length, in bytes, of the compressed member.
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Get the size of the file.
+         * 
+         * @return The uncompressed size, in bytes, of the file.
+         */
+        public long getSize() {
+            return size;
+        }
+    }
+}
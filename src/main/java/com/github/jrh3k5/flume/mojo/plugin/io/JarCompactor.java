@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Rewrites JAR files without the entries that are of no use at runtime - such as the POMs that Maven embeds under {@code META-INF/maven/}, source files, and signatures - optionally
+ * recompressing the remaining entries at a higher level. Compacted JARs are cached by the SHA-256 checksum of their contents and of the compaction configuration, so a JAR is only compacted
+ * once, no matter how many builds or projects package it; entries in the cache are never modified once written, so a cache may be shared by concurrent builds. Removing the
+ * signature files of a signed JAR leaves its classes unsigned; nothing in a Flume {@code libext/} directory is verified, so this changes nothing at runtime. Instances of this class are not
+ * thread-safe.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class JarCompactor {
+    /**
+     * The patterns of the entries removed from a JAR if no patterns are configured: the POMs and properties embedded by Maven, Java source files, and signature files.
+     */
+    public static final List<String> DEFAULT_EXCLUDES = Collections.unmodifiableList(Arrays.asList("META-INF/maven/**", "**/*.java", "META-INF/*.SF", "META-INF/*.RSA", "META-INF/*.DSA",
+            "META-INF/*.EC"));
+    private static final String CHARSET = "UTF-8";
+    private final File cacheDirectory;
+    private final List<String> excludes;
+    private final int level;
+    private final byte[] configurationKey;
+    private int compactedCount;
+    private int cachedCount;
+    private long savedBytes;
+
+    /**
+     * Create a compactor.
+     * 
+     * @param cacheDirectory
+     *            A {@link File} representing the directory in which compacted JARs are cached; it is created if it does not exist.
+     * @param excludes
+     *            A {@link List} of Ant-style patterns (e.g., {@code META-INF/maven/**}) matching the paths of the entries to be removed from each JAR.
+     * @param level
+     *            The level, from 0 to 9, at which the remaining entries are to be compressed; -1 compresses them at the default level of the JVM. Entries that are stored without compression
+     *            are left uncompressed.
+     * @throws IllegalArgumentException
+     *             If the given level is not a valid compression level.
+     */
+    public JarCompactor(File cacheDirectory, List<String> excludes, int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+
+        this.cacheDirectory = cacheDirectory;
+        this.excludes = new ArrayList<String>(excludes);
+        this.level = level;
+
+        final MessageDigest digest = ChecksumManifest.newDigest("SHA-256");
+        try {
+            digest.update(Integer.toString(level).getBytes(CHARSET));
+            for (String exclude : this.excludes) {
+                digest.update((byte) '\n');
+                digest.update(exclude.getBytes(CHARSET));
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("Unsupported charset: " + CHARSET, e);
+        }
+        this.configurationKey = digest.digest();
+    }
+
+    /**
+     * Compact a JAR file, or look up its compacted copy in the cache. If no entries are removed from the JAR and recompression would not make it any smaller, the cached copy is
+     * identical to the given JAR.
+     * 
+     * @param jarFile
+     *            A {@link File} representing the JAR file to be compacted; it is not modified.
+     * @return A {@link File} representing the compacted copy of the JAR within the cache.
+     * @throws IOException
+     *             If any errors occur while reading the given JAR, including if it is not a valid JAR, or while writing its compacted copy.
+     */
+    public File compact(File jarFile) throws IOException {
+        final File cachedFile = new File(cacheDirectory, computeKey(jarFile) + ".jar");
+        if (cachedFile.isFile()) {
+            cachedCount++;
+            savedBytes += jarFile.length() - cachedFile.length();
+            return cachedFile;
+        }
+
+        FileUtils.forceMkdir(cacheDirectory);
+        // Write the copy under a name unique to this build, so that a concurrent build never reads a partially-written copy
+        final File tempFile = File.createTempFile(cachedFile.getName(), ".tmp", cacheDirectory);
+        try {
+            final boolean removedEntries = rewrite(jarFile, tempFile);
+            if (!removedEntries && tempFile.length() >= jarFile.length()) {
+                FileUtils.copyFile(jarFile, tempFile);
+            }
+            if (!tempFile.renameTo(cachedFile) && !cachedFile.isFile()) {
+                throw new IOException(String.format("Failed to move %s to %s.", tempFile.getAbsolutePath(), cachedFile.getAbsolutePath()));
+            }
+        } finally {
+            FileUtils.deleteQuietly(tempFile);
+        }
+        compactedCount++;
+        savedBytes += jarFile.length() - cachedFile.length();
+        return cachedFile;
+    }
+
+    /**
+     * Get the number of JARs that were compacted, rather than found in the cache, by this compactor.
+     * 
+     * @return The number of JARs compacted.
+     */
+    public int getCompactedCount() {
+        return compactedCount;
+    }
+
+    /**
+     * Get the number of JARs whose compacted copies were found in the cache by this compactor.
+     * 
+     * @return The number of JARs found in the cache.
+     */
+    public int getCachedCount() {
+        return cachedCount;
+    }
+
+    /**
+     * Get the number of bytes by which the JARs given to this compactor were reduced.
+     * 
+     * @return The total size of the given JARs less the total size of their compacted copies.
+     */
+    public long getSavedBytes() {
+        return savedBytes;
+    }
+
+    /**
+     * Determine whether an entry is to be removed from a JAR.
+     * 
+     * @param entryName
+     *            The name of the entry.
+     * @return {@code true} if the entry matches any of the configured patterns; {@code false} if not.
+     */
+    boolean isExcluded(String entryName) {
+        for (String exclude : excludes) {
+            if (SelectorUtils.matchPath(exclude, entryName, "/", true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compute the key under which the compacted copy of a JAR is cached.
+     * 
+     * @param jarFile
+     *            A {@link File} representing the JAR.
+     * @return A hexadecimal SHA-256 checksum of the compaction configuration and the contents of the given JAR.
+     * @throws IOException
+     *             If any errors occur while reading the JAR.
+     */
+    private String computeKey(File jarFile) throws IOException {
+        final MessageDigest digest = ChecksumManifest.newDigest("SHA-256");
+        digest.update(configurationKey);
+        final InputStream jarIn = new FileInputStream(jarFile);
+        try {
+            final byte[] buffer = new byte[ArchiveUtils.BUFFER_SIZE];
+            int read;
+            while ((read = jarIn.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            IOUtils.closeQuietly(jarIn);
+        }
+        return ChecksumManifest.toHex(digest.digest());
+    }
+
+    /**
+     * Rewrite a JAR without its excluded entries. Entries are written in their original order, so that the manifest remains first.
+     * 
+     * @param jarFile
+     *            A {@link File} representing the JAR to be rewritten.
+     * @param toFile
+     *            A {@link File} representing the location to which the rewritten JAR is to be written.
+     * @return {@code true} if any entries were removed; {@code false} if not.
+     * @throws IOException
+     *             If any errors occur while reading or writing the JAR.
+     */
+    private boolean rewrite(File jarFile, File toFile) throws IOException {
+        boolean removedEntries = false;
+        final ZipFile zipFile = new ZipFile(jarFile);
+        try {
+            final ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(toFile));
+            try {
+                zipOut.setLevel(level);
+                final byte[] buffer = new byte[ArchiveUtils.BUFFER_SIZE];
+                final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    final ZipEntry entry = entries.nextElement();
+                    if (isExcluded(entry.getName())) {
+                        removedEntries = true;
+                        continue;
+                    }
+
+                    final ZipEntry compacted = new ZipEntry(entry.getName());
+                    compacted.setTime(entry.getTime());
+                    compacted.setComment(entry.getComment());
+                    compacted.setExtra(entry.getExtra());
+                    if (entry.getMethod() == ZipEntry.STORED) {
+                        // A stored entry must be described up front, and its original description is still correct
+                        compacted.setMethod(ZipEntry.STORED);
+                        compacted.setSize(entry.getSize());
+                        compacted.setCompressedSize(entry.getSize());
+                        compacted.setCrc(entry.getCrc());
+                    }
+                    zipOut.putNextEntry(compacted);
+                    final InputStream entryIn = zipFile.getInputStream(entry);
+                    try {
+                        int read;
+                        while ((read = entryIn.read(buffer)) != -1) {
+                            zipOut.write(buffer, 0, read);
+                        }
+                    } finally {
+                        IOUtils.closeQuietly(entryIn);
+                    }
+                    zipOut.closeEntry();
+                }
+                zipOut.close();
+            } finally {
+                IOUtils.closeQuietly(zipOut);
+            }
+        } finally {
+            zipFile.close();
+        }
+        return removedEntries;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A GZIP input stream whose {@link java.util.zip.Inflater} and input buffer are taken from an {@link ArchiveBufferPool} and returned to it when the stream is closed; it otherwise reads
+ * GZIP data as {@link java.util.zip.GZIPInputStream} does - which always creates an {@link java.util.zip.Inflater} of its own - including reading a series of GZIP members as a single
+ * stream.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+class PooledGzipInputStream extends InflaterInputStream {
+    private static final int MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private final ArchiveBufferPool pool;
+    private final CRC32 crc = new CRC32();
+    private boolean endOfStream;
+    private boolean released;
+
+    /**
+     * Create a stream.
+     * 
+     * @param in
+     *            The {@link InputStream} from which the GZIP'ed bytes are to be read.
+     * @param pool
+     *            The {@link ArchiveBufferPool} from which the {@link java.util.zip.Inflater} and input buffer of the stream are to be taken.
+     * @throws IOException
+     *             If the GZIP header cannot be read or is malformed.
+     */
+    PooledGzipInputStream(InputStream in, ArchiveBufferPool pool) throws IOException {
+        // The buffer allocated by the superclass is replaced by a pooled one
+        super(in, pool.acquireInflater(), 1);
+        this.pool = pool;
+        this.buf = pool.acquireArray();
+        try {
+            readHeader(in);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (released) {
+            throw new IOException("Stream closed");
+        }
+        if (endOfStream) {
+            return -1;
+        }
+
+        final int read = super.read(b, off, len);
+        if (read == -1) {
+            if (readTrailer()) {
+                endOfStream = true;
+                return -1;
+            }
+            return read(b, off, len);
+        }
+        crc.update(b, off, read);
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (released) {
+            return;
+        }
+        try {
+            super.close();
+        } finally {
+            released = true;
+            pool.release(inf);
+            pool.release(buf);
+        }
+    }
+
+    /**
+     * Read the trailer of a GZIP member and, if another member follows it, the header of that member.
+     * 
+     * @return {@code true} if the stream has ended; {@code false} if another member follows.
+     * @throws IOException
+     *             If the trailer is malformed or does not match the data of the member.
+     */
+    private boolean readTrailer() throws IOException {
+        // The inflater may have been given bytes beyond the end of the member, which are read before the rest of the stream
+        final int remaining = inf.getRemaining();
+        InputStream trailerIn = in;
+        if (remaining > 0) {
+            trailerIn = new SequenceInputStream(new ByteArrayInputStream(buf, len - remaining, remaining), new FilterInputStream(in) {
+                @Override
+                public void close() throws IOException {
+                }
+            });
+        }
+        if (readUInt(trailerIn) != crc.getValue() || readUInt(trailerIn) != (inf.getBytesWritten() & 0xFFFFFFFFL)) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+
+        if (in.available() > 0 || remaining > 26) {
+            int consumed = 8;
+            try {
+                consumed += readHeader(trailerIn);
+            } catch (IOException e) {
+                // Anything after the last member that is not another member is ignored
+                return true;
+            }
+            inf.reset();
+            if (remaining > consumed) {
+                inf.setInput(buf, len - remaining + consumed, remaining - consumed);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Read the header of a GZIP member.
+     * 
+     * @param headerIn
+     *            The {@link InputStream} from which the header is to be read.
+     * @return The number of bytes in the header.
+     * @throws IOException
+     *             If the header is malformed.
+     */
+    private int readHeader(InputStream headerIn) throws IOException {
+        final CheckedInputStream checkedIn = new CheckedInputStream(headerIn, crc);
+        crc.reset();
+        if (readUShort(checkedIn) != MAGIC) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (readUByte(checkedIn) != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        final int flags = readUByte(checkedIn);
+        // The modification time, extra flags, and operating system are of no use
+        skipBytes(checkedIn, 6);
+        int length = 10;
+        if ((flags & FEXTRA) == FEXTRA) {
+            final int extraLength = readUShort(checkedIn);
+            skipBytes(checkedIn, extraLength);
+            length += extraLength + 2;
+        }
+        if ((flags & FNAME) == FNAME) {
+            do {
+                length++;
+            } while (readUByte(checkedIn) != 0);
+        }
+        if ((flags & FCOMMENT) == FCOMMENT) {
+            do {
+                length++;
+            } while (readUByte(checkedIn) != 0);
+        }
+        if ((flags & FHCRC) == FHCRC) {
+            final int headerCrc = (int) crc.getValue() & 0xFFFF;
+            if (readUShort(checkedIn) != headerCrc) {
+                throw new ZipException("Corrupt GZIP header");
+            }
+            length += 2;
+        }
+        crc.reset();
+        return length;
+    }
+
+    /**
+     * Read a little-endian unsigned integer.
+     * 
+     * @param source
+     *            The {@link InputStream} from which the integer is to be read.
+     * @return The integer.
+     * @throws IOException
+     *             If the stream ends before the integer.
+     */
+    private static long readUInt(InputStream source) throws IOException {
+        final long low = readUShort(source);
+        return ((long) readUShort(source) << 16) | low;
+    }
+
+    /**
+     * Read a little-endian unsigned short.
+     * 
+     * @param source
+     *            The {@link InputStream} from which the short is to be read.
+     * @return The short.
+     * @throws IOException
+     *             If the stream ends before the short.
+     */
+    private static int readUShort(InputStream source) throws IOException {
+        final int low = readUByte(source);
+        return (readUByte(source) << 8) | low;
+    }
+
+    /**
+     * Read an unsigned byte.
+     * 
+     * @param source
+     *            The {@link InputStream} from which the byte is to be read.
+     * @return The byte.
+     * @throws IOException
+     *             If the stream has ended.
+     */
+    private static int readUByte(InputStream source) throws IOException {
+        final int b = source.read();
+        if (b == -1) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    /**
+     * Skip bytes that must be present.
+     * 
+     * @param source
+     *            The {@link InputStream} whose bytes are to be skipped.
+     * @param count
+     *            The number of bytes to be skipped.
+     * @throws IOException
+     *             If the stream ends before the given number of bytes.
+     */
+    private static void skipBytes(InputStream source, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readUByte(source);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Reads the headers of TAR files, so that a file written by {@link ArchiveUtils} can be split at the boundaries of its entries and an assembly can be checked by
+ * {@link ArchiveVerifier}. Only the fields needed to find those boundaries and to name and check the entries are read: the name, size, type, and checksum of each entry, along with
+ * the GNU long names and the POSIX extended headers that precede an entry whose name does not fit into its header.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+final class TarBlocks {
+    /**
+     * The size of each block of a TAR file.
+     */
+    static final int BLOCK_SIZE = 512;
+    private static final String CHARSET = "UTF-8";
+
+    /**
+     * Read a block of a TAR file.
+     * 
+     * @param in
+     *            The {@link InputStream} from which the block is to be read.
+     * @param block
+     *            A byte array of {@link #BLOCK_SIZE} bytes into which the block is to be read.
+     * @return {@code true} if a block was read; {@code false} if the stream ended before the block.
+     * @throws IOException
+     *             If any errors occur while reading, or if the stream ends in the middle of the block.
+     */
+    static boolean readBlock(InputStream in, byte[] block) throws IOException {
+        final int read = IOUtils.read(in, block, 0, BLOCK_SIZE);
+        if (read == 0) {
+            return false;
+        }
+        if (read != BLOCK_SIZE) {
+            throw new IOException(String.format("Truncated TAR block: expected %d bytes, but read %d.", BLOCK_SIZE, read));
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether a header marks the end of a TAR file.
+     * 
+     * @param header
+     *            The header.
+     * @return {@code true} if the header is entirely zero, as the blocks that end a TAR file are; {@code false} if not.
+     */
+    static boolean isEndOfArchive(byte[] header) {
+        for (byte b : header) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether a header describes the data of the entry after it, rather than an entry of its own.
+     * 
+     * @param header
+     *            The header.
+     * @return {@code true} if the header is a GNU long name or long link name, or a POSIX extended header; {@code false} if not.
+     */
+    static boolean isMetadata(byte[] header) {
+        final byte type = header[156];
+        return type == 'L' || type == 'K' || type == 'x' || type == 'g';
+    }
+
+    /**
+     * Determine whether the checksum recorded in a header matches its contents.
+     * 
+     * @param header
+     *            The header.
+     * @return {@code true} if the checksum matches; {@code false} if not.
+     */
+    static boolean isChecksumValid(byte[] header) {
+        final long recorded = readNumber(header, 148, 8);
+        long unsigned = 0;
+        long signed = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            // The checksum field itself is summed as if it were spaces
+            final byte value = i >= 148 && i < 156 ? (byte) ' ' : header[i];
+            unsigned += value & 0xFF;
+            signed += value;
+        }
+        // Some historic archivers summed signed bytes
+        return recorded == unsigned || recorded == signed;
+    }
+
+    /**
+     * Determine whether a header describes a directory.
+     * 
+     * @param header
+     *            The header.
+     * @return {@code true} if the header describes a directory; {@code false} if not.
+     */
+    static boolean isDirectory(byte[] header) {
+        return header[156] == '5';
+    }
+
+    /**
+     * Determine whether a header describes a regular file.
+     * 
+     * @param header
+     *            The header.
+     * @return {@code true} if the header describes a regular file; {@code false} if it describes a directory, a link, or any other kind of entry.
+     */
+    static boolean isFile(byte[] header) {
+        final byte type = header[156];
+        return type == '0' || type == 0 || type == '7';
+    }
+
+    /**
+     * Get the size of the data following a header.
+     * 
+     * @param header
+     *            The header.
+     * @return The size, in bytes, of the data, not including its padding.
+     * @throws IOException
+     *             If the size cannot be parsed.
+     */
+    static long getSize(byte[] header) throws IOException {
+        final long size = readNumber(header, 124, 12);
+        if (size < 0) {
+            throw new IOException("Malformed size in TAR header: " + new String(header, 124, 12, CHARSET));
+        }
+        return size;
+    }
+
+    /**
+     * Get the size of the data following a header, including its padding.
+     * 
+     * @param size
+     *            The size of the data.
+     * @return The size of the data, rounded up to a multiple of {@link #BLOCK_SIZE}.
+     */
+    static long getPaddedSize(long size) {
+        return (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+    }
+
+    /**
+     * Get the name stored in a header, joined to its prefix if the header is a POSIX header.
+     * 
+     * @param header
+     *            The header.
+     * @return The name stored in the header.
+     */
+    static String getName(byte[] header) {
+        final String name = readString(header, 0, 100);
+        if (readString(header, 257, 5).equals("ustar")) {
+            final String prefix = readString(header, 345, 155);
+            if (prefix.length() > 0) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Get the name of the next entry from the data of a metadata header.
+     * 
+     * @param header
+     *            The metadata header.
+     * @param data
+     *            The data following the header.
+     * @param size
+     *            The size of the data, not including its padding.
+     * @return {@code null} if the header does not name the next entry; otherwise, the name of the next entry.
+     * @throws IOException
+     *             If an extended header is malformed.
+     */
+    static String getNextName(byte[] header, byte[] data, int size) throws IOException {
+        if (header[156] == 'L') {
+            return readString(data, 0, size);
+        }
+        if (header[156] != 'x') {
+            return null;
+        }
+
+        // Each record of an extended header is "<length> <key>=<value>\n", its length including itself
+        int offset = 0;
+        while (offset < size) {
+            int space = offset;
+            while (space < size && data[space] != ' ') {
+                space++;
+            }
+            final int length;
+            try {
+                length = Integer.parseInt(new String(data, offset, space - offset, CHARSET));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed record in TAR extended header.", e);
+            }
+            if (length <= space - offset || offset + length > size) {
+                throw new IOException("Malformed record length in TAR extended header: " + length);
+            }
+            final String record = new String(data, space + 1, offset + length - space - 2, CHARSET);
+            if (record.startsWith("path=")) {
+                return record.substring(5);
+            }
+            offset += length;
+        }
+        return null;
+    }
+
+    /**
+     * Read a numeric field of a header, which is either octal text or, if its first byte has its high bit set, a big-endian binary number.
+     * 
+     * @param header
+     *            The header.
+     * @param offset
+     *            The offset of the field.
+     * @param length
+     *            The length of the field.
+     * @return The value of the field, or {@code -1} if the field is malformed.
+     */
+    private static long readNumber(byte[] header, int offset, int length) {
+        long value = 0;
+        if ((header[offset] & 0x80) != 0) {
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = value << 8 | (header[i] & 0xFF);
+            }
+            return value;
+        }
+        int position = offset;
+        final int end = offset + length;
+        while (position < end && header[position] == ' ') {
+            position++;
+        }
+        for (; position < end && header[position] != 0 && header[position] != ' '; position++) {
+            if (header[position] < '0' || header[position] > '7') {
+                return -1;
+            }
+            value = value << 3 | (header[position] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Read a NUL-terminated string.
+     * 
+     * @param bytes
+     *            The bytes from which the string is to be read.
+     * @param offset
+     *            The offset of the string.
+     * @param length
+     *            The maximum length of the string.
+     * @return The string, up to its first NUL.
+     */
+    private static String readString(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) {
+            end++;
+        }
+        try {
+            return new String(bytes, offset, end - offset, CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("Unsupported charset: " + CHARSET, e);
+        }
+    }
+
+    /**
+     * This class is a utility class and cannot be instantiated.
+     */
+    private TarBlocks() {
+    }
+}
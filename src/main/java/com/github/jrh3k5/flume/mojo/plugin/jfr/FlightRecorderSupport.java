@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.jfr;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records {@link PackagingEventType packaging events} with Java Flight Recorder. The plugin is built for JVMs that predate the Flight Recorder API, so the API is used reflectively: event types
+ * are defined at runtime through {@code jdk.jfr.EventFactory}, and a {@code jdk.jfr.FlightRecorderListener} tracks whether any recording is running. Until one is, beginning an event costs a
+ * single read of a volatile field, and no event types are registered.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+final class FlightRecorderSupport {
+    private static final String RECORDING_STATE_RUNNING = "RUNNING";
+    private static final String[] CATEGORY = { "Flume Plugin", "Packaging" };
+    private static final FlightRecorderSupport INSTANCE = create();
+    private final Set<Long> runningRecordings = new HashSet<Long>();
+    private final AtomicReferenceArray<RegisteredType> registeredTypes = new AtomicReferenceArray<RegisteredType>(PackagingEventType.values().length);
+    private volatile boolean recording;
+    private volatile boolean failed;
+
+    private final Class<?> annotationElementClass;
+    private final Constructor<?> annotationElementConstructor;
+    private final Constructor<?> valueDescriptorConstructor;
+    private final Method eventFactoryCreate;
+    private final Method eventFactoryGetEventType;
+    private final Method eventFactoryNewEvent;
+    private final Method eventTypeIsEnabled;
+    private final Method eventBegin;
+    private final Method eventSet;
+    private final Method eventCommit;
+    private final Method flightRecorderGetRecordings;
+    private final Method recordingGetId;
+    private final Method recordingGetState;
+
+    /**
+     * Begin an event.
+     * 
+     * @param type
+     *            The {@link PackagingEventType} of the event to be begun.
+     * @return A {@link PackagingEvent} recording the event; {@link PackagingEvent#NONE} if events of the given type are not being recorded.
+     */
+    static PackagingEvent begin(PackagingEventType type) {
+        final FlightRecorderSupport support = INSTANCE;
+        if (support == null || !support.recording) {
+            return PackagingEvent.NONE;
+        }
+        return support.beginRecorded(type);
+    }
+
+    /**
+     * Look up the Flight Recorder API and start listening for recordings.
+     * 
+     * @return A {@link FlightRecorderSupport}; {@code null} if the running JVM does not support Java Flight Recorder.
+     */
+    private static FlightRecorderSupport create() {
+        try {
+            final FlightRecorderSupport support = new FlightRecorderSupport();
+            support.listen();
+            return support;
+        } catch (Exception e) {
+            // Most likely, the running JVM predates Java Flight Recorder
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Look up the reflective members of the Flight Recorder API.
+     * 
+     * @throws ClassNotFoundException
+     *             If the running JVM does not support Java Flight Recorder.
+     * @throws NoSuchMethodException
+     *             If the Flight Recorder API of the running JVM does not match what is expected.
+     */
+    private FlightRecorderSupport() throws ClassNotFoundException, NoSuchMethodException {
+        annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+        annotationElementConstructor = annotationElementClass.getConstructor(Class.class, Object.class);
+        valueDescriptorConstructor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+        final Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+        eventFactoryCreate = eventFactoryClass.getMethod("create", List.class, List.class);
+        eventFactoryGetEventType = eventFactoryClass.getMethod("getEventType");
+        eventFactoryNewEvent = eventFactoryClass.getMethod("newEvent");
+        eventTypeIsEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+        final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+        eventBegin = eventClass.getMethod("begin");
+        eventSet = eventClass.getMethod("set", int.class, Object.class);
+        eventCommit = eventClass.getMethod("commit");
+        flightRecorderGetRecordings = Class.forName("jdk.jfr.FlightRecorder").getMethod("getRecordings");
+        final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        recordingGetId = recordingClass.getMethod("getId");
+        recordingGetState = recordingClass.getMethod("getState");
+    }
+
+    /**
+     * Register a listener that tracks whether any recording is running.
+     * 
+     * @throws Exception
+     *             If the listener cannot be registered.
+     */
+    private void listen() throws Exception {
+        final Class<?> flightRecorderClass = Class.forName("jdk.jfr.FlightRecorder");
+        final Class<?> listenerClass = Class.forName("jdk.jfr.FlightRecorderListener");
+        final Object listener = Proxy.newProxyInstance(listenerClass.getClassLoader(), new Class<?>[] { listenerClass }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                try {
+                    if ("recorderInitialized".equals(method.getName())) {
+                        recorderInitialized(args[0]);
+                        return null;
+                    } else if ("recordingStateChanged".equals(method.getName())) {
+                        recordingStateChanged(args[0]);
+                        return null;
+                    }
+                } catch (Exception e) {
+                    // The recorder is not to be disturbed by a failure to track its recordings
+                    fail();
+                    return null;
+                }
+
+                if ("equals".equals(method.getName())) {
+                    return Boolean.valueOf(proxy == args[0]);
+                } else if ("hashCode".equals(method.getName())) {
+                    return Integer.valueOf(System.identityHashCode(proxy));
+                } else if ("toString".equals(method.getName())) {
+                    return FlightRecorderSupport.class.getName() + "$Listener";
+                }
+                return null;
+            }
+        });
+        // If the recorder is already initialized (e.g., because the JVM was started with a recording), the listener is told so before this returns
+        flightRecorderClass.getMethod("addListener", listenerClass).invoke(null, listener);
+    }
+
+    /**
+     * Note every recording already running when the recorder is initialized.
+     * 
+     * @param flightRecorder
+     *            The {@code jdk.jfr.FlightRecorder} that was initialized.
+     * @throws Exception
+     *             If the recordings cannot be read.
+     */
+    private void recorderInitialized(Object flightRecorder) throws Exception {
+        for (Object jfrRecording : (List<?>) flightRecorderGetRecordings.invoke(flightRecorder)) {
+            recordingStateChanged(jfrRecording);
+        }
+    }
+
+    /**
+     * Note a change in the state of a recording.
+     * 
+     * @param jfrRecording
+     *            The {@code jdk.jfr.Recording} whose state changed.
+     * @throws Exception
+     *             If the state of the recording cannot be read.
+     */
+    private void recordingStateChanged(Object jfrRecording) throws Exception {
+        final Long id = (Long) recordingGetId.invoke(jfrRecording);
+        final boolean running = RECORDING_STATE_RUNNING.equals(((Enum<?>) recordingGetState.invoke(jfrRecording)).name());
+        synchronized (runningRecordings) {
+            if (running) {
+                runningRecordings.add(id);
+            } else {
+                runningRecordings.remove(id);
+            }
+            recording = !failed && !runningRecordings.isEmpty();
+        }
+    }
+
+    /**
+     * Begin an event while a recording is running.
+     * 
+     * @param type
+     *            The {@link PackagingEventType} of the event to be begun.
+     * @return A {@link PackagingEvent} recording the event; {@link PackagingEvent#NONE} if the running recordings do not record events of the given type.
+     */
+    private PackagingEvent beginRecorded(PackagingEventType type) {
+        try {
+            final RegisteredType registeredType = getRegisteredType(type);
+            if (!((Boolean) eventTypeIsEnabled.invoke(registeredType.eventType)).booleanValue()) {
+                return PackagingEvent.NONE;
+            }
+            final Object event = eventFactoryNewEvent.invoke(registeredType.eventFactory);
+            eventBegin.invoke(event);
+            return new RecordedEvent(event);
+        } catch (Exception e) {
+            fail();
+            return PackagingEvent.NONE;
+        }
+    }
+
+    /**
+     * Get the registration of an event type, registering it with the recorder if it has not yet been.
+     * 
+     * @param type
+     *            The {@link PackagingEventType} whose registration is to be retrieved.
+     * @return The {@link RegisteredType} of the given event type.
+     * @throws Exception
+     *             If the event type cannot be registered.
+     */
+    private RegisteredType getRegisteredType(PackagingEventType type) throws Exception {
+        final RegisteredType registeredType = registeredTypes.get(type.ordinal());
+        if (registeredType != null) {
+            return registeredType;
+        }
+
+        synchronized (registeredTypes) {
+            if (registeredTypes.get(type.ordinal()) == null) {
+                final List<Object> annotations = Arrays.asList(annotation("jdk.jfr.Name", type.getName()), annotation("jdk.jfr.Label", type.getLabel()),
+                        annotation("jdk.jfr.Description", type.getDescription()), annotation("jdk.jfr.Category", CATEGORY));
+                final List<Object> subjectAnnotations = Arrays.asList(annotation("jdk.jfr.Label", type.getSubjectLabel()));
+                final List<Object> amountAnnotations = new ArrayList<Object>();
+                amountAnnotations.add(annotation("jdk.jfr.Label", type.getAmountLabel()));
+                if (type.isAmountInBytes()) {
+                    amountAnnotations.add(annotation("jdk.jfr.DataAmount", "BYTES"));
+                }
+                // The order of the fields must match the indices to which commit() sets them
+                final List<Object> fields = Arrays.asList(valueDescriptorConstructor.newInstance(String.class, type.getSubjectName(), subjectAnnotations),
+                        valueDescriptorConstructor.newInstance(long.class, type.getAmountName(), amountAnnotations));
+                final Object eventFactory = eventFactoryCreate.invoke(null, annotations, fields);
+                registeredTypes.set(type.ordinal(), new RegisteredType(eventFactory, eventFactoryGetEventType.invoke(eventFactory)));
+            }
+            return registeredTypes.get(type.ordinal());
+        }
+    }
+
+    /**
+     * Create an annotation of an event type or field.
+     * 
+     * @param annotationClassName
+     *            The name of the annotation class.
+     * @param value
+     *            The value of the annotation.
+     * @return A {@code jdk.jfr.AnnotationElement} representing the annotation.
+     * @throws Exception
+     *             If the annotation cannot be created.
+     */
+    private Object annotation(String annotationClassName, Object value) throws Exception {
+        return annotationElementConstructor.newInstance(Class.forName(annotationClassName, true, annotationElementClass.getClassLoader()), value);
+    }
+
+    /**
+     * Stop recording events after a failure to use the Flight Recorder API, so that a JVM whose API does not behave as expected only fails once.
+     */
+    private void fail() {
+        synchronized (runningRecordings) {
+            failed = true;
+            recording = false;
+        }
+    }
+
+    /**
+     * An event type registered with the recorder.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    private static class RegisteredType {
+        private final Object eventFactory;
+        private final Object eventType;
+
+        /**
+         * Create a registration.
+         * 
+         * @param eventFactory
+         *            The {@code jdk.jfr.EventFactory} used to create events of the type.
+         * @param eventType
+         *            The {@code jdk.jfr.EventType} of the type.
+         */
+        private RegisteredType(Object eventFactory, Object eventType) {
+            this.eventFactory = eventFactory;
+            this.eventType = eventType;
+        }
+    }
+
+    /**
+     * A {@link PackagingEvent} backed by a {@code jdk.jfr.Event}.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+    private class RecordedEvent extends PackagingEvent {
+        private final Object event;
+
+        /**
+         * Create an event.
+         * 
+         * @param event
+         *            The begun {@code jdk.jfr.Event} to be committed.
+         */
+        private RecordedEvent(Object event) {
+            this.event = event;
+        }
+
+        @Override
+        public void commit(String subject, long amount) {
+            try {
+                eventSet.invoke(event, Integer.valueOf(0), subject);
+                eventSet.invoke(event, Integer.valueOf(1), Long.valueOf(amount));
+                eventCommit.invoke(event);
+            } catch (Exception e) {
+                fail();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.jfr;
+
+/**
+ * A timed event of a phase of packaging a plugin, begun by {@link PackagingEventType#begin()}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public abstract class PackagingEvent {
+    /**
+     * An event that records nothing, returned when no recording is in progress.
+     */
+    public static final PackagingEvent NONE = new PackagingEvent() {
+        @Override
+        public void commit(String subject, long amount) {
+            // Nothing is recording
+        }
+    };
+
+    /**
+     * Create an event.
+     */
+    PackagingEvent() {
+    }
+
+    /**
+     * End the timing of this event and record it. Recording an event never fails; if the event cannot be recorded, it is discarded.
+     * 
+     * @param subject
+     *            The subject of the event (e.g., the path of the file written).
+     * @param amount
+     *            The amount of the event (e.g., the number of bytes written).
+     */
+    public abstract void commit(String subject, long amount);
+}
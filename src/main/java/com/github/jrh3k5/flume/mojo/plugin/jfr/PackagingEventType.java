@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.jfr;
+
+/**
+ * The phases of packaging a plugin that are recorded as Java Flight Recorder events. Each event records the duration of the phase, a subject (e.g., the path of the file being written), and an
+ * amount (e.g., the number of bytes written). Events are only recorded when the plugin is run on a JVM that supports Java Flight Recorder and a recording is in progress; otherwise,
+ * {@link #begin()} returns an event that does nothing.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public enum PackagingEventType {
+    /**
+     * The build of a plugin, from the resolution of its dependencies to the compression of its assembly; the amount is the peak use of the heap during the build, as measured by a
+     * {@link PeakHeapMeter}.
+     */
+    BUILD_PLUGIN("BuildPlugin", "Build Plugin", "Build of a plugin, from the resolution of its dependencies to the compression of its assembly", "plugin", "Plugin", "peakHeap", "Peak Heap",
+            true),
+    /**
+     * The build of the dependency graph of a project; the amount is the number of direct dependencies of the project.
+     */
+    RESOLVE_GRAPH("ResolveGraph", "Resolve Dependency Graph", "Build of the dependency graph of a project", "project", "Project", "directDependencies", "Direct Dependencies", false),
+    /**
+     * The download of an artifact missing from the local repository; the amount is the size of the downloaded artifact.
+     */
+    RESOLVE_ARTIFACT("ResolveArtifact", "Resolve Artifact", "Download of an artifact missing from the local repository", "artifact", "Artifact", "bytes", "Bytes", true),
+    /**
+     * The copy of a file into the staging directory; the amount is the number of bytes copied.
+     */
+    COPY_FILE("CopyFile", "Copy File", "Copy of a file into the staging directory", "path", "Path", "bytes", "Bytes", true),
+    /**
+     * The write of a single entry into a TAR file; the amount is the size of the entry.
+     */
+    TAR_ENTRY("TarEntry", "Write TAR Entry", "Write of a single entry into a TAR file", "path", "Path", "bytes", "Bytes", true),
+    /**
+     * The write of a single entry into a ZIP file; the amount is the uncompressed size of the entry.
+     */
+    ZIP_ENTRY("ZipEntry", "Write ZIP Entry", "Write of a single entry into a ZIP file", "path", "Path", "bytes", "Bytes", true),
+    /**
+     * The compression of a block of a file into a GZIP file; the amount is the number of uncompressed bytes in the block.
+     */
+    GZIP_BLOCK("GzipBlock", "Compress GZIP Block", "Compression of a block of a file into a GZIP file", "file", "File", "bytes", "Uncompressed Bytes", true);
+
+    /**
+     * The prefix of the name of every event type.
+     */
+    static final String NAME_PREFIX = "com.github.jrh3k5.flume.";
+    private final String name;
+    private final String label;
+    private final String description;
+    private final String subjectName;
+    private final String subjectLabel;
+    private final String amountName;
+    private final String amountLabel;
+    private final boolean amountInBytes;
+
+    /**
+     * Create an event type.
+     * 
+     * @param name
+     *            The simple name of the event type, to which {@link #NAME_PREFIX} is prepended.
+     * @param label
+     *            The human-readable label of the event type.
+     * @param description
+     *            A description of the event type.
+     * @param subjectName
+     *            The name of the field holding the subject of the event.
+     * @param subjectLabel
+     *            The human-readable label of the field holding the subject of the event.
+     * @param amountName
+     *            The name of the field holding the amount of the event.
+     * @param amountLabel
+     *            The human-readable label of the field holding the amount of the event.
+     * @param amountInBytes
+     *            {@code true} if the amount of the event is a number of bytes.
+     */
+    private PackagingEventType(String name, String label, String description, String subjectName, String subjectLabel, String amountName, String amountLabel, boolean amountInBytes) {
+        this.name = NAME_PREFIX + name;
+        this.label = label;
+        this.description = description;
+        this.subjectName = subjectName;
+        this.subjectLabel = subjectLabel;
+        this.amountName = amountName;
+        this.amountLabel = amountLabel;
+        this.amountInBytes = amountInBytes;
+    }
+
+    /**
+     * Begin timing an event of this type.
+     * 
+     * @return A {@link PackagingEvent} that is to be {@link PackagingEvent#commit(String, long) committed} once the phase it times completes; this is {@link PackagingEvent#NONE} if no recording
+     *         of events of this type is in progress.
+     */
+    public PackagingEvent begin() {
+        return FlightRecorderSupport.begin(this);
+    }
+
+    /**
+     * Get the name of this event type.
+     * 
+     * @return The fully-qualified name of this event type, as it appears in a recording.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the label of this event type.
+     * 
+     * @return The human-readable label of this event type.
+     */
+    String getLabel() {
+        return label;
+    }
+
+    /**
+     * Get the description of this event type.
+     * 
+     * @return A description of this event type.
+     */
+    String getDescription() {
+        return description;
+    }
+
+    /**
+     * Get the name of the field holding the subject of the event.
+     * 
+     * @return The name of the subject field.
+     */
+    String getSubjectName() {
+        return subjectName;
+    }
+
+    /**
+     * Get the label of the field holding the subject of the event.
+     * 
+     * @return The human-readable label of the subject field.
+     */
+    String getSubjectLabel() {
+        return subjectLabel;
+    }
+
+    /**
+     * Get the name of the field holding the amount of the event.
+     * 
+     * @return The name of the amount field.
+     */
+    String getAmountName() {
+        return amountName;
+    }
+
+    /**
+     * Get the label of the field holding the amount of the event.
+     * 
+     * @return The human-readable label of the amount field.
+     */
+    String getAmountLabel() {
+        return amountLabel;
+    }
+
+    /**
+     * Determine whether or not the amount of the event is a number of bytes.
+     * 
+     * @return {@code true} if the amount of the event is a number of bytes; {@code false} if not.
+     */
+    boolean isAmountInBytes() {
+        return amountInBytes;
+    }
+}
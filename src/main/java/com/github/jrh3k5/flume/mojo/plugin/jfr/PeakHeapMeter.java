@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.jfr;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * A meter of the peak use of the heap over a phase of packaging. The heap in use is sampled periodically on a daemon thread while the meter runs, and the greatest sample is reported; unlike
+ * resetting the peak use recorded by the JVM's memory pools, this leaves the peaks seen by anything else in the JVM - such as other plugins of the same build - untouched. As with any sampling,
+ * a peak shorter than the sampling interval may be missed, and the use of the heap includes anything running concurrently with the phase.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class PeakHeapMeter implements Runnable {
+    /**
+     * The time, in milliseconds, between samples of the heap in use.
+     */
+    private static final long SAMPLE_INTERVAL = 10;
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final Thread sampler = new Thread(this, "flume-plugin-heap-meter");
+    private volatile boolean running = true;
+    private volatile long peakHeap;
+
+    /**
+     * Start metering the peak use of the heap.
+     * 
+     * @return A {@link PeakHeapMeter} metering the use of the heap from now until it is {@link #stop() stopped}.
+     */
+    public static PeakHeapMeter start() {
+        final PeakHeapMeter meter = new PeakHeapMeter();
+        meter.sample();
+        meter.sampler.setDaemon(true);
+        meter.sampler.start();
+        return meter;
+    }
+
+    /**
+     * Create a meter.
+     * 
+     * @see #start()
+     */
+    private PeakHeapMeter() {
+    }
+
+    /**
+     * Stop metering the use of the heap, taking one last sample.
+     */
+    public void stop() {
+        running = false;
+        sampler.interrupt();
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sample();
+    }
+
+    /**
+     * Get the peak use of the heap since this meter was started.
+     * 
+     * @return The greatest use, in bytes, of the heap sampled since this meter was started.
+     */
+    public long getPeakHeap() {
+        return peakHeap;
+    }
+
+    /**
+     * Sample the heap in use until this meter is stopped.
+     */
+    public void run() {
+        while (running) {
+            sample();
+            try {
+                Thread.sleep(SAMPLE_INTERVAL);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sample the heap in use, recording it if it exceeds the peak sampled so far.
+     */
+    private synchronized void sample() {
+        final long used = memoryBean.getHeapMemoryUsage().getUsed();
+        if (used > peakHeap) {
+            peakHeap = used;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Assume;
+
+/**
+ * Asserts budgets on the heap allocated by operations on hot paths, so that a regression - such as compiling a pattern or formatting a string on every call - fails the build. Allocation is
+ * counted through the HotSpot extension of {@link ThreadMXBean}; on JVMs that do not provide it, tests using this class are skipped.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public final class AllocationBudget {
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 5;
+
+    /**
+     * Assert that an operation stays within an allocation budget. The operation is run several times before it is measured, so that it has been compiled, and the smallest of several
+     * measurements is taken, so that one-off allocations - such as the loading of classes - do not count against it.
+     * 
+     * @param description
+     *            A description of the operation, used in the failure message.
+     * @param budgetBytes
+     *            The number of bytes that each call may allocate.
+     * @param calls
+     *            The number of calls made by each run of the given operation.
+     * @param operation
+     *            A {@link Runnable} that makes the given number of calls.
+     */
+    public static void assertWithin(String description, long budgetBytes, int calls, Runnable operation) {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported());
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            operation.run();
+        }
+        final long threadId = Thread.currentThread().getId();
+        long fewestBytes = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            final long before = allocationBean.getThreadAllocatedBytes(threadId);
+            operation.run();
+            fewestBytes = Math.min(fewestBytes, allocationBean.getThreadAllocatedBytes(threadId) - before);
+        }
+
+        final long bytesPerCall = fewestBytes / calls;
+        if (bytesPerCall > budgetBytes) {
+            throw new AssertionError(String.format("%s allocated %d bytes per call, exceeding its budget of %d bytes.", description, bytesPerCall, budgetBytes));
+        }
+    }
+
+    /**
+     * This class is only used through its static methods.
+     */
+    private AllocationBudget() {
+    }
+}
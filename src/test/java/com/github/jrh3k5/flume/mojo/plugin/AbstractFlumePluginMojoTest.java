@@ -18,36 +18,68 @@
 package com.github.jrh3k5.flume.mojo.plugin;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipFile;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
 import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactNotFoundException;
 import org.apache.maven.artifact.resolver.ArtifactResolver;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
 import org.apache.maven.shared.dependency.graph.DependencyGraphBuilder;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.powermock.reflect.Whitebox;
 
 import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+import com.github.jrh3k5.flume.mojo.plugin.io.ChecksumManifest;
 
 /**
  * Unit tests for {@link AbstractFlumePluginMojo}.
  * <p />
- * At this time, there are no unit tests for the {@link AbstractFlumePluginMojo#buildFlumePluginArchive(File, MavenProject)} because the integration tests cover it and the complexity of the method and
- * mocking its objects outweigh the benefit of unit testing it.
+ * The contents of the archives built by {@link AbstractFlumePluginMojo#buildFlumePluginArchive(File, MavenProject)} are covered by the integration tests, as the complexity of the method and mocking
+ * its objects outweigh the benefit of unit testing them; the unit tests only exercise behavior, such as concurrent execution, that the integration tests cannot.
  * 
  * @author Joshua Hyde
  */
@@ -80,24 +112,14 @@ public class AbstractFlumePluginMojoTest extends AbstractUnitTest {
      */
     @Before
     public void setUp() throws Exception {
-        mojo = new ConcreteMojo(getTestName());
-        Whitebox.setInternalState(mojo, "artifactRepository", artifactRepository);
-        Whitebox.setInternalState(mojo, "artifactResolver", artifactResolver);
-        setAttach(mojo, true);
-        Whitebox.setInternalState(mojo, "classifierSuffix", classifier);
-        Whitebox.setInternalState(mojo, "dependencyGraphBuilder", dependencyGraphBuilder);
-
         outputDirectory = new File(getTestDirectory(), "target");
         FileUtils.forceMkdir(outputDirectory);
-        Whitebox.setInternalState(mojo, "outputDirectory", outputDirectory);
 
         pluginsStagingDirectory = new File(outputDirectory, "flume-plugins");
         FileUtils.forceMkdir(pluginsStagingDirectory);
-        Whitebox.setInternalState(mojo, "pluginsStagingDirectory", pluginsStagingDirectory);
 
-        Whitebox.setInternalState(mojo, "project", project);
-        Whitebox.setInternalState(mojo, "projectHelper", projectHelper);
-        Whitebox.setInternalState(mojo, "remoteArtifactRepositories", Collections.singletonList(remoteArtifactRepository));
+        mojo = new ConcreteMojo(getTestName());
+        configureMojo(mojo, outputDirectory);
     }
 
     /**
@@ -164,6 +186,556 @@ public class AbstractFlumePluginMojoTest extends AbstractUnitTest {
         assertThat(mojo.getRemoteArtifactRepositories()).isEqualTo(Collections.<ArtifactRepository> singletonList(remoteArtifactRepository));
     }
 
+    /**
+     * Concurrent executions building plugins of the same name should not share a staging directory and should each package only their own files.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBuildFlumePluginArchiveConcurrentExecutions() throws Exception {
+        when(project.getArtifactId()).thenReturn("test-project");
+        when(project.getVersion()).thenReturn("1.0");
+        final DependencyNode rootNode = mock(DependencyNode.class);
+        when(rootNode.getChildren()).thenReturn(Collections.<DependencyNode> emptyList());
+        when(dependencyGraphBuilder.buildDependencyGraph(any(MavenProject.class), any(ArtifactFilter.class))).thenReturn(rootNode);
+
+        final int executionCount = 4;
+        final List<ConcreteMojo> mojos = new ArrayList<ConcreteMojo>(executionCount);
+        final List<File> pluginLibraries = new ArrayList<File>(executionCount);
+        for (int i = 0; i < executionCount; i++) {
+            final ConcreteMojo executionMojo = new ConcreteMojo(getTestName());
+            final File executionOutputDirectory = new File(outputDirectory, "execution-" + i);
+            configureMojo(executionMojo, executionOutputDirectory);
+            Whitebox.setInternalState(executionMojo, "executionId", "execution-" + i);
+            mojos.add(executionMojo);
+
+            final File pluginLibrary = new File(executionOutputDirectory, "library-" + i + ".jar");
+            FileUtils.write(pluginLibrary, "library-" + i);
+            pluginLibraries.add(pluginLibrary);
+        }
+
+        final CyclicBarrier startBarrier = new CyclicBarrier(executionCount);
+        final ExecutorService executor = Executors.newFixedThreadPool(executionCount);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>(executionCount);
+            for (int i = 0; i < executionCount; i++) {
+                final ConcreteMojo executionMojo = mojos.get(i);
+                final File pluginLibrary = pluginLibraries.get(i);
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        startBarrier.await();
+                        executionMojo.buildFlumePluginArchive(pluginLibrary, project);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < executionCount; i++) {
+            final File stagingDirectory = new File(mojos.get(i).getPluginStagingDirectory(), getTestName());
+            assertThat(mojos.get(i).getPluginStagingDirectory().getName()).isEqualTo(String.format("%s-execution-%d-staging", getTestName(), i));
+            assertThat(new File(stagingDirectory, "lib").list()).containsOnly(pluginLibraries.get(i).getName());
+        }
+    }
+
+    /**
+     * Rebuilding a plugin into the same staging directory with a different set of dependencies should remove the dependencies that are no longer part of the plugin.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBuildFlumePluginArchiveRebuild() throws Exception {
+        when(project.getArtifactId()).thenReturn("test-project");
+        when(project.getVersion()).thenReturn("1.0");
+        final File localDirectory = new File(getTestDirectory(), "local");
+        FileUtils.deleteDirectory(localDirectory);
+        stubRepositories(localDirectory, new File(getTestDirectory(), "remote"), new AtomicInteger());
+
+        final Artifact removedArtifact = createArtifact("removed");
+        final Artifact keptArtifact = createArtifact("kept");
+        final Artifact addedArtifact = createArtifact("added");
+        for (Artifact artifact : Arrays.asList(removedArtifact, keptArtifact, addedArtifact)) {
+            FileUtils.write(new File(localDirectory, pathOf(artifact)), artifact.getArtifactId());
+        }
+        final File pluginLibrary = new File(getTestDirectory(), "library.jar");
+        FileUtils.write(pluginLibrary, "library");
+
+        mojo.buildFlumePluginArchive(pluginLibrary, Arrays.asList(createNode(removedArtifact), createNode(keptArtifact)), null);
+        mojo.buildFlumePluginArchive(pluginLibrary, Arrays.asList(createNode(keptArtifact), createNode(addedArtifact)), null);
+
+        final File stagingDirectory = new File(mojo.getPluginStagingDirectory(), getTestName());
+        assertThat(new File(stagingDirectory, "libext").list()).containsOnly("kept-1.0.jar", "added-1.0.jar");
+        final InputStream manifestIn = new FileInputStream(new File(stagingDirectory, ChecksumManifest.FILENAME));
+        try {
+            final ChecksumManifest manifest = ChecksumManifest.read(manifestIn);
+            assertThat(manifest.getEntries()).hasSize(3);
+            assertThat(manifest.getEntry("libext/removed-1.0.jar")).isNull();
+            assertThat(manifest.getEntry("libext/kept-1.0.jar").getSha256()).isEqualTo(ChecksumManifest.toHex(ChecksumManifest.newDigest("SHA-256").digest("kept".getBytes("UTF-8"))));
+        } finally {
+            IOUtils.closeQuietly(manifestIn);
+        }
+    }
+
+    /**
+     * If configured to do so, the dependency graph of the plugin should be exported alongside the archive, including the artifacts that were not packaged.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBuildFlumePluginArchiveExportDependencyGraph() throws Exception {
+        when(project.getArtifactId()).thenReturn("test-project");
+        when(project.getVersion()).thenReturn("1.0");
+        final File localDirectory = new File(getTestDirectory(), "local");
+        FileUtils.deleteDirectory(localDirectory);
+        stubRepositories(localDirectory, new File(getTestDirectory(), "remote"), new AtomicInteger());
+
+        final Artifact packagedArtifact = createArtifact("packaged");
+        final Artifact excludedArtifact = createArtifact("excluded");
+        FileUtils.write(new File(localDirectory, pathOf(packagedArtifact)), packagedArtifact.getArtifactId());
+        final File pluginLibrary = new File(getTestDirectory(), "library.jar");
+        FileUtils.write(pluginLibrary, "library");
+        final Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId(excludedArtifact.getGroupId());
+        exclusion.setArtifactId(excludedArtifact.getArtifactId());
+        Whitebox.setInternalState(mojo, "exclusions", Collections.singletonList(exclusion));
+        Whitebox.setInternalState(mojo, "exportDependencyGraph", true);
+
+        mojo.buildFlumePluginArchive(pluginLibrary, Arrays.asList(createNode(packagedArtifact), createNode(excludedArtifact)), null);
+
+        final String archiveName = String.format("test-project-1.0-%s-%s.tar.gz", getTestName(), classifier);
+        final String json = FileUtils.readFileToString(new File(outputDirectory, archiveName + ".graph.json"));
+        assertThat(json).contains("\"path\": \"libext/packaged-1.0.jar\"").contains("\"decision\": \"excluded\"");
+        final String dot = FileUtils.readFileToString(new File(outputDirectory, archiveName + ".graph.dot"));
+        assertThat(dot).startsWith("digraph").contains("\"" + excludedArtifact.getId() + " (excluded)\"");
+    }
+
+    /**
+     * If the plugin archive exceeds the maximum archive size, the build should fail and a size report should be written.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBuildFlumePluginArchiveOverBudget() throws Exception {
+        when(project.getArtifactId()).thenReturn("test-project");
+        when(project.getVersion()).thenReturn("1.0");
+        final File pluginLibrary = new File(getTestDirectory(), "library.jar");
+        FileUtils.write(pluginLibrary, "library");
+        Whitebox.setInternalState(mojo, "maximumArchiveSize", Long.valueOf(1));
+
+        try {
+            mojo.buildFlumePluginArchive(pluginLibrary, Collections.<DependencyNode> emptyList(), null);
+            fail("An archive larger than the maximum archive size should have failed the build.");
+        } catch (MojoFailureException e) {
+            assertThat(e.getMessage()).contains("exceeds the maximum archive size");
+        }
+        final File sizeReport = new File(outputDirectory, String.format("test-project-1.0-%s-%s.tar.gz.size.txt", getTestName(), classifier));
+        assertThat(FileUtils.readFileToString(sizeReport)).contains("lib/library.jar");
+        verify(projectHelper, never()).attachArtifact(any(MavenProject.class), any(String.class), any(String.class), any(File.class));
+    }
+
+    /**
+     * If configured to build a ZIP, the mojo should write and attach a ZIP, with its checksums, in place of a GZIP'ed TAR.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBuildFlumePluginArchiveZip() throws Exception {
+        when(project.getArtifactId()).thenReturn("test-project");
+        when(project.getVersion()).thenReturn("1.0");
+        final File pluginLibrary = new File(getTestDirectory(), "library.jar");
+        FileUtils.write(pluginLibrary, "library");
+        Whitebox.setInternalState(mojo, "archiveFormat", "zip");
+
+        mojo.buildFlumePluginArchive(pluginLibrary, Collections.<DependencyNode> emptyList(), null);
+
+        final String pluginClassifier = String.format("%s-%s", getTestName(), classifier);
+        final File zipFile = new File(outputDirectory, String.format("test-project-1.0-%s.zip", pluginClassifier));
+        assertThat(new File(outputDirectory, zipFile.getName().replace(".zip", ".tar.gz"))).doesNotExist();
+        final ZipFile zip = new ZipFile(zipFile);
+        try {
+            assertThat(zip.getEntry(getTestName() + "/lib/library.jar")).isNotNull();
+        } finally {
+            zip.close();
+        }
+        verify(projectHelper).attachArtifact(project, "zip", pluginClassifier, zipFile);
+        verify(projectHelper).attachArtifact(project, "zip.sha256", pluginClassifier, new File(outputDirectory, zipFile.getName() + ".sha256"));
+        verify(projectHelper).attachArtifact(project, "zip.sha512", pluginClassifier, new File(outputDirectory, zipFile.getName() + ".sha512"));
+    }
+
+    /**
+     * If configured to build an exploded plugin, the mojo should write the plugin directly into the exploded directory, without its staging state, and neither archive nor attach anything.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBuildFlumePluginArchiveExploded() throws Exception {
+        when(project.getArtifactId()).thenReturn("test-project");
+        when(project.getVersion()).thenReturn("1.0");
+        final File pluginLibrary = new File(getTestDirectory(), "library.jar");
+        FileUtils.write(pluginLibrary, "library");
+        Whitebox.setInternalState(mojo, "archiveFormat", "exploded");
+
+        mojo.buildFlumePluginArchive(pluginLibrary, Collections.<DependencyNode> emptyList(), null);
+
+        final File explodedDirectory = new File(outputDirectory, "plugins.d");
+        assertThat(explodedDirectory.list()).containsOnly(getTestName());
+        final File pluginDirectory = new File(explodedDirectory, getTestName());
+        assertThat(pluginDirectory.list()).containsOnly("lib", ChecksumManifest.FILENAME);
+        assertThat(FileUtils.readFileToString(new File(pluginDirectory, "lib/library.jar"))).isEqualTo("library");
+        assertThat(FileUtils.listFiles(outputDirectory, new String[] { "gz", "zip" }, false)).isEmpty();
+        verify(projectHelper, never()).attachArtifact(any(MavenProject.class), any(String.class), any(String.class), any(File.class));
+
+        // A rebuild should leave the plugin in place
+        mojo.buildFlumePluginArchive(pluginLibrary, Collections.<DependencyNode> emptyList(), null);
+        assertThat(FileUtils.readFileToString(new File(pluginDirectory, "lib/library.jar"))).isEqualTo("library");
+    }
+
+    /**
+     * An unsupported archive format should fail the build before anything is staged.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBuildFlumePluginArchiveUnsupportedFormat() throws Exception {
+        Whitebox.setInternalState(mojo, "archiveFormat", "rar");
+        try {
+            mojo.buildFlumePluginArchive(new File(getTestDirectory(), "library.jar"), Collections.<DependencyNode> emptyList(), null);
+            fail("An unsupported archive format should have failed the build.");
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage()).contains("Unsupported archive format rar");
+        }
+    }
+
+    /**
+     * A build whose resolution inputs match those recorded in the resolution lockfile should package the recorded artifacts without building the dependency graph, unless the file of a
+     * recorded artifact has changed since it was recorded.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBuildFlumePluginArchiveResolutionLockfile() throws Exception {
+        when(project.getArtifactId()).thenReturn("test-project");
+        when(project.getVersion()).thenReturn("1.0");
+        final File localDirectory = new File(getTestDirectory(), "local");
+        FileUtils.deleteDirectory(localDirectory);
+        stubRepositories(localDirectory, new File(getTestDirectory(), "remote"), new AtomicInteger());
+        final File lockfile = new File(getTestDirectory(), "flume-plugin.lock");
+        FileUtils.deleteQuietly(lockfile);
+        Whitebox.setInternalState(mojo, "resolutionLockfile", lockfile);
+
+        final Artifact lockedArtifact = createArtifact("locked");
+        final File lockedFile = new File(localDirectory, pathOf(lockedArtifact));
+        FileUtils.write(lockedFile, lockedArtifact.getArtifactId());
+        final File pluginLibrary = new File(getTestDirectory(), "library.jar");
+        FileUtils.write(pluginLibrary, "library");
+        final DependencyNode lockedNode = createNode(lockedArtifact);
+        final DependencyNode rootNode = mock(DependencyNode.class);
+        when(rootNode.getChildren()).thenReturn(Collections.singletonList(lockedNode));
+        when(dependencyGraphBuilder.buildDependencyGraph(any(MavenProject.class), any(ArtifactFilter.class))).thenReturn(rootNode);
+
+        mojo.buildFlumePluginArchive(pluginLibrary, project);
+        assertThat(lockfile).exists();
+        assertThat(FileUtils.readFileToString(lockfile)).contains(ChecksumManifest.toHex(ChecksumManifest.newDigest("SHA-1").digest("locked".getBytes("UTF-8"))));
+
+        // The recorded artifact should be staged without the dependency graph being built again
+        FileUtils.deleteDirectory(pluginsStagingDirectory);
+        mojo.buildFlumePluginArchive(pluginLibrary, project);
+        verify(dependencyGraphBuilder, times(1)).buildDependencyGraph(any(MavenProject.class), any(ArtifactFilter.class));
+        assertThat(new File(new File(mojo.getPluginStagingDirectory(), getTestName()), "libext").list()).containsOnly("locked-1.0.jar");
+
+        // A recorded file that has changed should cause the dependency graph to be built again
+        FileUtils.write(lockedFile, "changed");
+        mojo.buildFlumePluginArchive(pluginLibrary, project);
+        verify(dependencyGraphBuilder, times(2)).buildDependencyGraph(any(MavenProject.class), any(ArtifactFilter.class));
+        assertThat(FileUtils.readFileToString(lockfile)).contains(ChecksumManifest.toHex(ChecksumManifest.newDigest("SHA-1").digest("changed".getBytes("UTF-8"))));
+
+        // A change to the exclusions should change the key of the resolution, making the lockfile stale
+        final Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId("com.github.jrh3k5");
+        exclusion.setArtifactId("other");
+        Whitebox.setInternalState(mojo, "exclusions", Collections.singletonList(exclusion));
+        mojo.buildFlumePluginArchive(pluginLibrary, project);
+        verify(dependencyGraphBuilder, times(3)).buildDependencyGraph(any(MavenProject.class), any(ArtifactFilter.class));
+    }
+
+    /**
+     * The dependency graph of the given project, rather than that of the project executing the mojo, should be read.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testResolveDependencies() throws Exception {
+        final MavenProject otherProject = mock(MavenProject.class);
+        final ArtifactFilter artifactFilter = mock(ArtifactFilter.class);
+        final DependencyNode child = mock(DependencyNode.class);
+        final DependencyNode rootNode = mock(DependencyNode.class);
+        when(rootNode.getChildren()).thenReturn(Collections.singletonList(child));
+        when(dependencyGraphBuilder.buildDependencyGraph(otherProject, artifactFilter)).thenReturn(rootNode);
+
+        assertThat(mojo.resolveDependencies(otherProject, artifactFilter)).containsOnly(child);
+        verify(dependencyGraphBuilder, never()).buildDependencyGraph(eq(project), any(ArtifactFilter.class));
+    }
+
+    /**
+     * Transitive exclusions should be applied to a copy of the project as Maven exclusions on each of its dependencies, so that Maven prunes them during resolution; exclusions that are not
+     * transitive should not be.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testResolveDependenciesTransitiveExclusions() throws Exception {
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId("com.github.jrh3k5");
+        dependency.setArtifactId("dependency");
+        dependency.setVersion("1.0");
+        final Model model = new Model();
+        model.addDependency(dependency);
+        final MavenProject otherProject = mock(MavenProject.class);
+        when(otherProject.getModel()).thenReturn(model);
+        // As with Maven 3, the model of the project is copied along with the project
+        final MavenProject copiedProject = new MavenProject(model.clone());
+        when(otherProject.clone()).thenReturn(copiedProject);
+        setTransitiveExclusions();
+
+        assertThat(resolveDependencies(otherProject)).isSameAs(copiedProject);
+        @SuppressWarnings("unchecked")
+        final List<Dependency> copiedDependencies = copiedProject.getDependencies();
+        final List<org.apache.maven.model.Exclusion> modelExclusions = copiedDependencies.get(0).getExclusions();
+        assertThat(modelExclusions).hasSize(1);
+        assertThat(modelExclusions.get(0).getGroupId()).isEqualTo("com.github.jrh3k5");
+        assertThat(modelExclusions.get(0).getArtifactId()).isEqualTo("transitive");
+        // The project itself should be left untouched
+        assertThat(dependency.getExclusions()).isEmpty();
+    }
+
+    /**
+     * If a copy of the project would share its model with the project, the transitive exclusions should not be applied during resolution, rather than modify the project.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testResolveDependenciesTransitiveExclusionsSharedModel() throws Exception {
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId("com.github.jrh3k5");
+        dependency.setArtifactId("dependency");
+        dependency.setVersion("1.0");
+        final Model model = new Model();
+        model.addDependency(dependency);
+        final MavenProject otherProject = mock(MavenProject.class);
+        when(otherProject.getModel()).thenReturn(model);
+        final MavenProject copiedProject = new MavenProject(model);
+        when(otherProject.clone()).thenReturn(copiedProject);
+        setTransitiveExclusions();
+
+        assertThat(resolveDependencies(otherProject)).isSameAs(otherProject);
+        assertThat(dependency.getExclusions()).isEmpty();
+    }
+
+    /**
+     * Artifacts missing from the local repository should be downloaded, in parallel, from the remote repository; artifacts already in the local repository should not be downloaded.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testResolveArtifacts() throws Exception {
+        final File localDirectory = new File(getTestDirectory(), "local");
+        final File remoteDirectory = new File(getTestDirectory(), "remote");
+        FileUtils.deleteDirectory(localDirectory);
+        final int resolutionThreads = 2;
+        Whitebox.setInternalState(mojo, "resolutionThreads", resolutionThreads);
+
+        final Artifact localArtifact = createArtifact("local");
+        FileUtils.write(new File(localDirectory, pathOf(localArtifact)), "local");
+        final List<Artifact> artifacts = new ArrayList<Artifact>();
+        artifacts.add(localArtifact);
+        for (int i = 0; i < 6; i++) {
+            final Artifact remoteArtifact = createArtifact("remote" + i);
+            FileUtils.write(new File(remoteDirectory, pathOf(remoteArtifact)), remoteArtifact.getArtifactId());
+            artifacts.add(remoteArtifact);
+        }
+
+        final AtomicInteger maxConcurrentDownloads = new AtomicInteger();
+        stubRepositories(localDirectory, remoteDirectory, maxConcurrentDownloads);
+
+        final List<Artifact> resolved = mojo.resolveArtifacts(artifacts);
+        assertThat(resolved).hasSize(artifacts.size());
+        for (Artifact artifact : resolved) {
+            assertThat(FileUtils.readFileToString(artifact.getFile())).isEqualTo(artifact.getArtifactId());
+        }
+        assertThat(maxConcurrentDownloads.get()).isGreaterThan(0).isLessThanOrEqualTo(resolutionThreads);
+        resolve(verify(artifactResolver, never()), eq(localArtifact), anyListOf(ArtifactRepository.class), any(ArtifactRepository.class));
+    }
+
+    /**
+     * If an artifact cannot be found in the local or remote repository, then resolution should fail, naming the missing artifact.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testResolveArtifactsNotFound() throws Exception {
+        final File localDirectory = new File(getTestDirectory(), "local");
+        final File remoteDirectory = new File(getTestDirectory(), "remote");
+        FileUtils.deleteDirectory(localDirectory);
+        final Artifact remoteArtifact = createArtifact("remote");
+        FileUtils.write(new File(remoteDirectory, pathOf(remoteArtifact)), remoteArtifact.getArtifactId());
+        final Artifact missingArtifact = createArtifact("missing");
+        stubRepositories(localDirectory, remoteDirectory, new AtomicInteger());
+
+        try {
+            mojo.resolveArtifacts(Arrays.asList(remoteArtifact, missingArtifact));
+            fail("Resolution of a missing artifact should have failed.");
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage()).contains(AbstractFlumePluginMojo.formatIdentifier(missingArtifact)).excludes(AbstractFlumePluginMojo.formatIdentifier(remoteArtifact));
+            assertThat(e.getCause()).isInstanceOf(ArtifactNotFoundException.class);
+        }
+    }
+
+    /**
+     * Create an artifact.
+     * 
+     * @param artifactId
+     *            The artifact ID of the artifact.
+     * @return An {@link Artifact} with the given artifact ID.
+     */
+    private Artifact createArtifact(String artifactId) {
+        return new DefaultArtifact("com.github.jrh3k5", artifactId, "1.0", Artifact.SCOPE_COMPILE, "jar", null, new DefaultArtifactHandler("jar"));
+    }
+
+    /**
+     * Create a dependency node with no children.
+     * 
+     * @param artifact
+     *            The {@link Artifact} to be represented by the node.
+     * @return A {@link DependencyNode} representing the given artifact.
+     */
+    private DependencyNode createNode(Artifact artifact) {
+        final DependencyNode node = mock(DependencyNode.class);
+        when(node.getArtifact()).thenReturn(artifact);
+        when(node.getChildren()).thenReturn(Collections.<DependencyNode> emptyList());
+        return node;
+    }
+
+    /**
+     * Get the path of an artifact within a repository.
+     * 
+     * @param artifact
+     *            The {@link Artifact} whose path is to be determined.
+     * @return The path of the given artifact, relative to the root of a repository.
+     */
+    private String pathOf(Artifact artifact) {
+        return String.format("%s/%s/%s/%s-%s.jar", artifact.getGroupId().replace('.', '/'), artifact.getArtifactId(), artifact.getVersion(), artifact.getArtifactId(), artifact.getVersion());
+    }
+
+    /**
+     * Stub the local repository and artifact resolver to use directories on the filesystem as the local and remote repositories.
+     * 
+     * @param localDirectory
+     *            A {@link File} representing the directory to act as the local repository.
+     * @param remoteDirectory
+     *            A {@link File} representing the directory to act as the remote repository.
+     * @param maxConcurrentDownloads
+     *            An {@link AtomicInteger} that will be updated with the maximum number of downloads that occurred concurrently.
+     * @throws Exception
+     *             If any errors occur during the stubbing.
+     */
+    private void stubRepositories(final File localDirectory, final File remoteDirectory, final AtomicInteger maxConcurrentDownloads) throws Exception {
+        when(artifactRepository.find(any(Artifact.class))).thenAnswer(new Answer<Artifact>() {
+            public Artifact answer(InvocationOnMock invocation) throws Throwable {
+                final Artifact artifact = (Artifact) invocation.getArguments()[0];
+                artifact.setFile(new File(localDirectory, pathOf(artifact)));
+                return artifact;
+            }
+        });
+
+        final AtomicInteger concurrentDownloads = new AtomicInteger();
+        resolve(doAnswer(new Answer<Void>() {
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                final Artifact artifact = (Artifact) invocation.getArguments()[0];
+                final int downloads = concurrentDownloads.incrementAndGet();
+                try {
+                    synchronized (maxConcurrentDownloads) {
+                        maxConcurrentDownloads.set(Math.max(downloads, maxConcurrentDownloads.get()));
+                    }
+                    final File remoteFile = new File(remoteDirectory, pathOf(artifact));
+                    if (!remoteFile.isFile()) {
+                        throw new ArtifactNotFoundException("Artifact not found in remote repository.", artifact);
+                    }
+                    Thread.sleep(50);
+                    FileUtils.copyFile(remoteFile, artifact.getFile());
+                    return null;
+                } finally {
+                    concurrentDownloads.decrementAndGet();
+                }
+            }
+        }).when(artifactResolver), any(Artifact.class), eq(Collections.singletonList(remoteArtifactRepository)), eq(artifactRepository));
+    }
+
+    /**
+     * Invoke the resolution method of an artifact resolver that the mojo uses, so that it can be stubbed or verified.
+     * 
+     * @param resolver
+     *            The {@link ArtifactResolver} - as returned by {@code when()} or {@code verify()} - whose method is to be invoked.
+     * @param artifact
+     *            The {@link Artifact} to be resolved.
+     * @param remoteRepositories
+     *            A {@link List} of the remote {@link ArtifactRepository} objects from which the artifact is to be resolved.
+     * @param localRepository
+     *            The local {@link ArtifactRepository} into which the artifact is to be resolved.
+     * @throws Exception
+     *             If any errors occur during the invocation.
+     */
+    // The mojo resolves artifacts through the deprecated method for the reasons given on AbstractFlumePluginMojo.downloadArtifact(), so it is the method that must be stubbed
+    @SuppressWarnings("deprecation")
+    private void resolve(ArtifactResolver resolver, Artifact artifact, List<ArtifactRepository> remoteRepositories, ArtifactRepository localRepository) throws Exception {
+        resolver.resolve(artifact, remoteRepositories, localRepository);
+    }
+
+    /**
+     * Configure a mojo to use the mocks of this test.
+     * 
+     * @param mojo
+     *            The {@link AbstractFlumePluginMojo} to be configured.
+     * @param outputDirectory
+     *            A {@link File} representing the directory to which the mojo is to write its output.
+     * @throws Exception
+     *             If any errors occur during the configuration.
+     */
+    private void configureMojo(AbstractFlumePluginMojo mojo, File outputDirectory) throws Exception {
+        mojo.setLog(mock(Log.class));
+        Whitebox.setInternalState(mojo, "artifactRepository", artifactRepository);
+        Whitebox.setInternalState(mojo, "artifactResolver", artifactResolver);
+        Whitebox.setInternalState(mojo, "archiveFormat", "tar.gz");
+        setAttach(mojo, true);
+        Whitebox.setInternalState(mojo, "classifierSuffix", classifier);
+        Whitebox.setInternalState(mojo, "dependencyGraphBuilder", dependencyGraphBuilder);
+        Whitebox.setInternalState(mojo, "explodedDirectory", new File(outputDirectory, "plugins.d"));
+        Whitebox.setInternalState(mojo, "generateChecksums", true);
+        Whitebox.setInternalState(mojo, "outputDirectory", outputDirectory);
+        Whitebox.setInternalState(mojo, "pluginsStagingDirectory", new File(outputDirectory, "flume-plugins"));
+        Whitebox.setInternalState(mojo, "project", project);
+        Whitebox.setInternalState(mojo, "projectHelper", projectHelper);
+        Whitebox.setInternalState(mojo, "remoteArtifactRepositories", Collections.singletonList(remoteArtifactRepository));
+        Whitebox.setInternalState(mojo, "resolutionThreads", 4);
+    }
+
     /**
      * Set whether or not the created artifact should be attached.
      * 
@@ -195,7 +767,7 @@ public class AbstractFlumePluginMojoTest extends AbstractUnitTest {
         }
 
         @Override
-        public void execute() throws MojoExecutionException, MojoFailureException {
+        protected void buildPlugin() throws MojoExecutionException, MojoFailureException {
         }
 
         @Override
@@ -204,4 +776,43 @@ public class AbstractFlumePluginMojoTest extends AbstractUnitTest {
         }
 
     }
+
+    /**
+     * Resolve the dependencies of a project.
+     * 
+     * @param mavenProject
+     *            The {@link MavenProject} whose dependencies are to be resolved.
+     * @return The {@link MavenProject} whose dependency graph was built.
+     * @throws Exception
+     *             If any errors occur during the resolution.
+     */
+    private MavenProject resolveDependencies(MavenProject mavenProject) throws Exception {
+        final List<MavenProject> resolvedProjects = new ArrayList<MavenProject>();
+        final DependencyNode rootNode = mock(DependencyNode.class);
+        when(rootNode.getChildren()).thenReturn(Collections.<DependencyNode> emptyList());
+        when(dependencyGraphBuilder.buildDependencyGraph(any(MavenProject.class), any(ArtifactFilter.class))).thenAnswer(new Answer<DependencyNode>() {
+            public DependencyNode answer(InvocationOnMock invocation) throws Throwable {
+                resolvedProjects.add((MavenProject) invocation.getArguments()[0]);
+                return rootNode;
+            }
+        });
+
+        mojo.resolveDependencies(mavenProject, null);
+        assertThat(resolvedProjects).hasSize(1);
+        return resolvedProjects.get(0);
+    }
+
+    /**
+     * Configure the mojo with one transitive exclusion, of {@code com.github.jrh3k5:transitive}, and one exclusion that is not transitive.
+     */
+    private void setTransitiveExclusions() {
+        final Exclusion transitiveExclusion = new Exclusion();
+        transitiveExclusion.setGroupId("com.github.jrh3k5");
+        transitiveExclusion.setArtifactId("transitive");
+        transitiveExclusion.setTransitive(true);
+        final Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId("com.github.jrh3k5");
+        exclusion.setArtifactId("not-transitive");
+        Whitebox.setInternalState(mojo, "exclusions", Arrays.asList(transitiveExclusion, exclusion));
+    }
 }
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.tree.DependencyTreeBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.powermock.reflect.Whitebox;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link BuildDependencyPluginMojo}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class BuildDependencyPluginMojoTest extends AbstractUnitTest {
+    private final BuildDependencyPluginMojo mojo = new BuildDependencyPluginMojo();
+    private final DependencyTreeBuilder dependencyTreeBuilder = mock(DependencyTreeBuilder.class);
+    private final Log log = mock(Log.class);
+    private final Model model = new Model();
+    private File localRepository;
+
+    /**
+     * Set up a project that declares the plugin, and a local repository holding the POM of the plugin, for each test.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        localRepository = new File(getTestDirectory(), "repository");
+        FileUtils.deleteDirectory(localRepository);
+
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId("com.github.jrh3k5");
+        dependency.setArtifactId("plugin");
+        dependency.setVersion("1.0");
+        model.addDependency(dependency);
+        final MavenProject project = mock(MavenProject.class);
+        when(project.getModel()).thenReturn(model);
+        when(project.getDependencies()).thenReturn(model.getDependencies());
+        // As with Maven 3, the model of the project is copied along with the project
+        when(project.clone()).thenReturn(new MavenProject(model.clone()));
+
+        final ArtifactRepository artifactRepository = mock(ArtifactRepository.class);
+        when(artifactRepository.getBasedir()).thenReturn(localRepository.getAbsolutePath());
+
+        mojo.setLog(log);
+        Whitebox.setInternalState(mojo, "project", project);
+        Whitebox.setInternalState(mojo, "artifactRepository", artifactRepository);
+        Whitebox.setInternalState(mojo, "dependencyTreeBuilder", dependencyTreeBuilder);
+    }
+
+    /**
+     * If every dependency declared within the subtree of the plugin is within it, the subtree should be packaged as resolved, without building the unmediated dependency tree.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetPackagedDependenciesComplete() throws Exception {
+        writePom("plugin", "shared");
+        writePom("shared");
+        final DependencyNode shared = createNode("shared");
+        final DependencyNode plugin = createNode("plugin", shared);
+
+        assertThat(getPackagedDependencies(plugin, Collections.singletonList(plugin), Collections.<Exclusion> emptyList())).containsExactly(shared);
+        verify(dependencyTreeBuilder, never()).buildDependencyTree(any(MavenProject.class), any(ArtifactRepository.class), any(ArtifactFilter.class));
+    }
+
+    /**
+     * A dependency omitted from the subtree of the plugin should be found elsewhere in the project's graph by building the unmediated dependency tree of the project, with the
+     * transitive exclusions applied; an excluded transitive dependency should be neither logged nor packaged.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGetPackagedDependenciesExcluded() throws Exception {
+        writePom("plugin", "shared", "excluded");
+        final DependencyNode shared = createNode("shared");
+        final DependencyNode sibling = createNode("sibling", shared);
+        final DependencyNode plugin = createNode("plugin");
+
+        final org.apache.maven.shared.dependency.tree.DependencyNode root = new org.apache.maven.shared.dependency.tree.DependencyNode(createArtifact("project"));
+        final org.apache.maven.shared.dependency.tree.DependencyNode siblingTree = new org.apache.maven.shared.dependency.tree.DependencyNode(sibling.getArtifact());
+        root.addChild(siblingTree);
+        siblingTree.addChild(new org.apache.maven.shared.dependency.tree.DependencyNode(shared.getArtifact()));
+        final org.apache.maven.shared.dependency.tree.DependencyNode pluginTree = new org.apache.maven.shared.dependency.tree.DependencyNode(plugin.getArtifact());
+        root.addChild(pluginTree);
+        pluginTree.addChild(new org.apache.maven.shared.dependency.tree.DependencyNode(createArtifact("shared"),
+                org.apache.maven.shared.dependency.tree.DependencyNode.OMITTED_FOR_DUPLICATE, shared.getArtifact()));
+        pluginTree.addChild(new org.apache.maven.shared.dependency.tree.DependencyNode(createArtifact("excluded"),
+                org.apache.maven.shared.dependency.tree.DependencyNode.OMITTED_FOR_CONFLICT, createArtifact("excluded")));
+        final ArgumentCaptor<MavenProject> treeProject = ArgumentCaptor.forClass(MavenProject.class);
+        when(dependencyTreeBuilder.buildDependencyTree(treeProject.capture(), any(ArtifactRepository.class), (ArtifactFilter) isNull())).thenReturn(root);
+
+        final Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId("com.github.jrh3k5");
+        exclusion.setArtifactId("excluded");
+        exclusion.setTransitive(true);
+        assertThat(getPackagedDependencies(plugin, Arrays.asList(sibling, plugin), Collections.singletonList(exclusion))).containsExactly(shared);
+
+        // The tree should have been built from a copy of the project to which the transitive exclusion was applied
+        @SuppressWarnings("unchecked")
+        final List<Dependency> treeDependencies = treeProject.getValue().getDependencies();
+        assertThat(treeDependencies.get(0).getExclusions()).hasSize(1);
+        assertThat(treeDependencies.get(0).getExclusions().get(0).getArtifactId()).isEqualTo("excluded");
+        verify(log).info(eq(String.format("Packaging %s, which %s depends upon but was resolved elsewhere in the project's dependency graph.", shared.getArtifact(), plugin.getArtifact())));
+        verify(log).info(anyString());
+        verify(log, never()).warn(anyString());
+    }
+
+    /**
+     * Create an artifact of version 1.0.
+     * 
+     * @param artifactId
+     *            The artifact ID of the artifact.
+     * @return An {@link Artifact}.
+     */
+    private Artifact createArtifact(String artifactId) {
+        return new DefaultArtifact("com.github.jrh3k5", artifactId, "1.0", Artifact.SCOPE_COMPILE, "jar", null, new DefaultArtifactHandler("jar"));
+    }
+
+    /**
+     * Create a resolved dependency node of version 1.0.
+     * 
+     * @param artifactId
+     *            The artifact ID of the node's artifact.
+     * @param children
+     *            The children of the node.
+     * @return A {@link DependencyNode} representing the artifact.
+     */
+    private DependencyNode createNode(String artifactId, DependencyNode... children) {
+        final Artifact artifact = createArtifact(artifactId);
+        final DependencyNode node = mock(DependencyNode.class);
+        when(node.getArtifact()).thenReturn(artifact);
+        when(node.getChildren()).thenReturn(children.length == 0 ? Collections.<DependencyNode> emptyList() : Arrays.asList(children));
+        return node;
+    }
+
+    /**
+     * Get the dependencies of the plugin that are to be packaged.
+     * 
+     * @param plugin
+     *            The {@link DependencyNode} of the plugin.
+     * @param projectDependencies
+     *            A {@link List} of {@link DependencyNode} objects representing the resolved dependencies of the project.
+     * @param exclusions
+     *            A {@link List} of the {@link Exclusion} objects with which the mojo is to be configured.
+     * @return A {@link List} of {@link DependencyNode} objects representing the dependencies to be packaged.
+     * @throws Exception
+     *             If any errors occur while getting the dependencies.
+     */
+    private List<DependencyNode> getPackagedDependencies(DependencyNode plugin, List<DependencyNode> projectDependencies, List<Exclusion> exclusions) throws Exception {
+        Whitebox.setInternalState(mojo, "exclusions", exclusions);
+        return Whitebox.<List<DependencyNode>> invokeMethod(mojo, "getPackagedDependencies", plugin, projectDependencies, new ExclusionArtifactFilter(exclusions));
+    }
+
+    /**
+     * Write a POM of version 1.0 into the local repository of this test.
+     * 
+     * @param artifactId
+     *            The artifact ID of the POM.
+     * @param dependencyArtifactIds
+     *            The artifact IDs of the dependencies declared by the POM.
+     * @throws Exception
+     *             If any errors occur while writing the POM.
+     */
+    private void writePom(String artifactId, String... dependencyArtifactIds) throws Exception {
+        final List<String> lines = new ArrayList<String>();
+        lines.add("<project><modelVersion>4.0.0</modelVersion><groupId>com.github.jrh3k5</groupId>");
+        lines.add(String.format("<artifactId>%s</artifactId><version>1.0</version><dependencies>", artifactId));
+        for (String dependencyArtifactId : dependencyArtifactIds) {
+            lines.add(String.format("<dependency><groupId>com.github.jrh3k5</groupId><artifactId>%s</artifactId><version>1.0</version></dependency>", dependencyArtifactId));
+        }
+        lines.add("</dependencies></project>");
+        FileUtils.writeLines(new File(localRepository, String.format("com/github/jrh3k5/%s/1.0/%s-1.0.pom", artifactId, artifactId)), "UTF-8", lines);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AllocationBudget;
+
+/**
+ * Unit tests for {@link ExclusionArtifactFilter}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ExclusionArtifactFilterTest {
+    /**
+     * Filtering an artifact against a list of exclusions should allocate next to nothing, no matter how many exclusions or artifacts there are.
+     */
+    @Test
+    public void testIncludeAllocation() {
+        final List<Exclusion> exclusions = new ArrayList<Exclusion>();
+        for (int i = 0; i < 20; i++) {
+            final Exclusion exclusion = new Exclusion();
+            exclusion.setGroupId("com.example.excluded" + i);
+            exclusion.setArtifactId("excluded-" + i);
+            exclusions.add(exclusion);
+        }
+        final ExclusionArtifactFilter filter = new ExclusionArtifactFilter(exclusions);
+
+        final List<Artifact> artifacts = new ArrayList<Artifact>();
+        for (int i = 0; i < 10000; i++) {
+            artifacts.add(new DefaultArtifact("com.example.excluded" + (i % 40), "excluded-" + (i % 40), "1.0", Artifact.SCOPE_COMPILE, "jar", null, new DefaultArtifactHandler("jar")));
+        }
+
+        final int[] included = new int[1];
+        AllocationBudget.assertWithin("ExclusionArtifactFilter.include()", 16, artifacts.size(), new Runnable() {
+            @Override
+            public void run() {
+                included[0] = 0;
+                for (Artifact artifact : artifacts) {
+                    if (filter.include(artifact)) {
+                        included[0]++;
+                    }
+                }
+            }
+        });
+        assertThat(included[0]).isEqualTo(artifacts.size() / 2);
+    }
+}
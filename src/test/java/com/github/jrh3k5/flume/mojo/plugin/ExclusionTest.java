@@ -96,4 +96,27 @@ public class ExclusionTest {
         when(artifact.getArtifactId()).thenReturn(artifactId);
         assertThat(exclusion.matches(artifact)).isFalse();
     }
+
+    /**
+     * A transitive exclusion should be converted into a Maven exclusion of the same artifact.
+     */
+    @Test
+    public void testToModelExclusion() {
+        exclusion.setTransitive(true);
+        final org.apache.maven.model.Exclusion modelExclusion = exclusion.toModelExclusion();
+        assertThat(modelExclusion.getGroupId()).isEqualTo(groupId);
+        assertThat(modelExclusion.getArtifactId()).isEqualTo(artifactId);
+    }
+
+    /**
+     * Exclusions that are not transitive, or that match on a classifier (which a Maven exclusion cannot), should not be converted.
+     */
+    @Test
+    public void testToModelExclusionNotApplicable() {
+        assertThat(exclusion.toModelExclusion()).isNull();
+
+        exclusion.setTransitive(true);
+        exclusion.setClassifier(UUID.randomUUID().toString());
+        assertThat(exclusion.toModelExclusion()).isNull();
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.codehaus.plexus.archiver.tar.TarArchiver;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+import com.github.jrh3k5.flume.mojo.plugin.PluginStartupHarness.StartupMeasurement;
+import com.github.jrh3k5.flume.mojo.plugin.io.ArchiveUtils;
+
+/**
+ * Benchmarks of the startup of a plugin, as measured by a {@link PluginStartupHarness}. These are not run as part of the normal build; run them against a built assembly with:
+ * 
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=PluginStartupBenchmark -Dbenchmark.plugin.archive=target/my-project-1.0-flume-plugin.tar.gz -Dbenchmark.plugin.entryPoints=com.example.MySink
+ * </pre>
+ * 
+ * If no assembly is given, a plugin of plexus-archiver and the rest of the test classpath is assembled and measured. Each plugin is loaded {@code benchmark.iterations} times (5, by
+ * default), each time by a new class loader, and the median of the measurements is reported.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class PluginStartupBenchmark extends AbstractUnitTest {
+    /**
+     * Measure the startup of every plugin within an assembly.
+     * 
+     * @throws Exception
+     *             If any errors occur during the benchmark.
+     */
+    @Test
+    public void benchmarkStartup() throws Exception {
+        final String archiveName = System.getProperty("benchmark.plugin.archive");
+        final File archive = archiveName == null ? assembleClasspathPlugin() : new File(archiveName);
+        final String entryPoints = System.getProperty("benchmark.plugin.entryPoints", archiveName == null ? TarArchiver.class.getName() : "");
+        final int iterations = Integer.getInteger("benchmark.iterations", 5);
+
+        final PluginStartupHarness harness = new PluginStartupHarness(getTestDirectory());
+        for (File pluginDirectory : harness.extract(archive)) {
+            final List<StartupMeasurement> measurements = new ArrayList<StartupMeasurement>(iterations);
+            for (int i = 0; i < iterations; i++) {
+                final StartupMeasurement measurement = harness.measure(pluginDirectory, entryPoints.length() == 0 ? Collections.<String> emptyList() : Arrays.asList(entryPoints
+                        .split(",")));
+                System.out.println(String.format("run %-3d %s", i + 1, measurement));
+                measurements.add(measurement);
+            }
+            Collections.sort(measurements, new Comparator<StartupMeasurement>() {
+                public int compare(StartupMeasurement o1, StartupMeasurement o2) {
+                    return Long.valueOf(o1.getElapsedNanos()).compareTo(Long.valueOf(o2.getElapsedNanos()));
+                }
+            });
+            final StartupMeasurement median = measurements.get(measurements.size() / 2);
+            System.out.println(String.format("median  %s", median));
+            for (String failure : median.getFailures()) {
+                System.out.println("    could not load " + failure);
+            }
+        }
+    }
+
+    /**
+     * Assemble a plugin whose {@code lib/} directory contains plexus-archiver and whose {@code libext/} directory contains every other JAR on the test classpath.
+     * 
+     * @return A {@link File} representing the assembled {@code .tar.gz} file.
+     * @throws Exception
+     *             If any errors occur while assembling the plugin.
+     */
+    private File assembleClasspathPlugin() throws Exception {
+        final File pluginDirectory = new File(getTestDirectory(), "classpath-plugin");
+        FileUtils.deleteDirectory(pluginDirectory);
+        final String pluginLibrary = new File(TarArchiver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+        // Surefire places the test classpath in a manifest-only JAR, so read it from where Surefire records it
+        final String classpath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        for (String entry : classpath.split(File.pathSeparator)) {
+            final File jar = new File(entry);
+            if (jar.isFile() && jar.getName().endsWith(".jar")) {
+                FileUtils.copyFileToDirectory(jar, new File(pluginDirectory, jar.getAbsolutePath().equals(pluginLibrary) ? "lib" : "libext"));
+            }
+        }
+
+        final ArchiveUtils archiveUtils = ArchiveUtils.getInstance(new ConsoleLogger(Logger.LEVEL_ERROR, getClass().getSimpleName()));
+        final File tarFile = new File(getTestDirectory(), "classpath-plugin.tar");
+        archiveUtils.tarDirectory(pluginDirectory, "classpath-plugin/", tarFile);
+        final File archive = new File(getTestDirectory(), "classpath-plugin.tar.gz");
+        archiveUtils.gzipFile(tarFile, archive);
+        return archive;
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.commons.io.FileUtils;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+
+import com.github.jrh3k5.flume.mojo.plugin.io.ArchiveUtils;
+
+/**
+ * A harness that measures how the layout of a plugin affects the startup of a Flume agent. A plugin assembly is extracted as it would be into a Flume {@code plugins.d} directory, and
+ * each plugin within it is loaded by an isolated {@link URLClassLoader} of the JARs in its {@code lib/} and {@code libext/} directories - in that order, as the Flume startup script
+ * places them on the classpath - whose parent is the extension class loader, so that nothing from the classpath of the harness is visible to the plugin. Every class in the {@code lib/}
+ * JARs is then loaded, and every configured entry point is loaded and initialized, as an agent would when it instantiates the components of the plugin.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class PluginStartupHarness {
+    private final ArchiveUtils archiveUtils = ArchiveUtils.getInstance(new ConsoleLogger(Logger.LEVEL_ERROR, getClass().getSimpleName()));
+    private final File workDirectory;
+
+    /**
+     * Create a harness.
+     * 
+     * @param workDirectory
+     *            A {@link File} representing the directory into which assemblies are to be extracted.
+     */
+    public PluginStartupHarness(File workDirectory) {
+        this.workDirectory = workDirectory;
+    }
+
+    /**
+     * Extract a plugin assembly into a {@code plugins.d} directory.
+     * 
+     * @param archive
+     *            A {@link File} representing the {@code .tar.gz} or {@code .zip} assembly to be extracted.
+     * @return A {@link List} of {@link File} objects representing the directories of the plugins within the assembly.
+     * @throws IOException
+     *             If any errors occur during the extraction.
+     */
+    public List<File> extract(File archive) throws IOException {
+        final File pluginsDirectory = new File(workDirectory, "plugins.d");
+        FileUtils.deleteDirectory(pluginsDirectory);
+        if (archive.getName().endsWith(".zip")) {
+            archiveUtils.unzipFile(archive, pluginsDirectory);
+        } else {
+            final File tarFile = new File(workDirectory, "plugin.tar");
+            archiveUtils.gunzipFile(archive, tarFile);
+            archiveUtils.untarFile(tarFile, pluginsDirectory);
+            FileUtils.forceDelete(tarFile);
+        }
+
+        final List<File> pluginDirectories = new ArrayList<File>();
+        for (File child : pluginsDirectory.listFiles()) {
+            if (new File(child, "lib").isDirectory() || new File(child, "libext").isDirectory()) {
+                pluginDirectories.add(child);
+            }
+        }
+        return pluginDirectories;
+    }
+
+    /**
+     * Load a plugin, measuring its startup.
+     * 
+     * @param pluginDirectory
+     *            A {@link File} representing the directory of the plugin within a {@code plugins.d} directory.
+     * @param entryPoints
+     *            The names of the classes - such as sources and sinks - to be loaded and initialized as an agent would when instantiating them.
+     * @return A {@link StartupMeasurement} of the load of the plugin.
+     * @throws IOException
+     *             If any errors occur while reading the plugin.
+     */
+    public StartupMeasurement measure(File pluginDirectory, Collection<String> entryPoints) throws IOException {
+        final List<File> libraries = listJars(new File(pluginDirectory, "lib"));
+        final List<File> jars = new ArrayList<File>(libraries);
+        jars.addAll(listJars(new File(pluginDirectory, "libext")));
+        final URL[] urls = new URL[jars.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = jars.get(i).toURI().toURL();
+        }
+        final List<String> classNames = new ArrayList<String>();
+        for (File library : libraries) {
+            classNames.addAll(listClasses(library));
+        }
+
+        System.gc();
+        final long metaspaceBefore = getMetaspaceUsed();
+        final long startTime = System.nanoTime();
+        final URLClassLoader classLoader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+        int loaded = 0;
+        final List<String> failures = new ArrayList<String>();
+        final Set<String> codeSources = new HashSet<String>();
+        for (String className : classNames) {
+            loaded += load(classLoader, className, false, failures, codeSources);
+        }
+        for (String entryPoint : entryPoints) {
+            loaded += load(classLoader, entryPoint, true, failures, codeSources);
+        }
+        final long elapsedNanos = System.nanoTime() - startTime;
+        final long metaspaceUsed = getMetaspaceUsed() - metaspaceBefore;
+        final int jarsOpened = getJarsOpened(classLoader, codeSources.size());
+        closeQuietly(classLoader);
+        return new StartupMeasurement(pluginDirectory.getName(), elapsedNanos, loaded, failures, jars.size(), jarsOpened, metaspaceUsed);
+    }
+
+    /**
+     * Get the number of JARs opened by a class loader. The JARs on the path of a {@link URLClassLoader} are opened in order as each is first searched, so a plugin whose classes are
+     * found in its first JARs opens fewer of them. This is read from the internals of the JDK where they are accessible; elsewhere, the number of JARs from which classes were loaded is
+     * used instead.
+     * 
+     * @param classLoader
+     *            The {@link URLClassLoader} whose opened JARs are to be counted.
+     * @param fallback
+     *            The number of JARs to be returned if the opened JARs cannot be counted.
+     * @return The number of JARs opened by the class loader.
+     */
+    private int getJarsOpened(URLClassLoader classLoader, int fallback) {
+        try {
+            final Field ucpField = URLClassLoader.class.getDeclaredField("ucp");
+            ucpField.setAccessible(true);
+            final Object ucp = ucpField.get(classLoader);
+            final Field loadersField = ucp.getClass().getDeclaredField("loaders");
+            loadersField.setAccessible(true);
+            return ((Collection<?>) loadersField.get(ucp)).size();
+        } catch (Exception e) {
+            return fallback;
+        } catch (LinkageError e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Get the number of bytes currently used by the class metadata of the JVM.
+     * 
+     * @return The number of bytes used by the Metaspace (or, before Java 8, the permanent generation) of the JVM.
+     */
+    private long getMetaspaceUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().contains("Metaspace") || pool.getName().contains("Perm Gen")) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Load a class.
+     * 
+     * @param classLoader
+     *            The {@link ClassLoader} by which the class is to be loaded.
+     * @param className
+     *            The name of the class to be loaded.
+     * @param initialize
+     *            {@code true} if the class is to be initialized.
+     * @param failures
+     *            A {@link List} to which a description of the failure to load the class is to be added.
+     * @param codeSources
+     *            A {@link Set} to which the location from which the class is loaded is to be added.
+     * @return 1 if the class was loaded; 0 if it was not.
+     */
+    private int load(ClassLoader classLoader, String className, boolean initialize, List<String> failures, Set<String> codeSources) {
+        try {
+            final Class<?> loadedClass = Class.forName(className, initialize, classLoader);
+            final CodeSource codeSource = loadedClass.getProtectionDomain().getCodeSource();
+            if (codeSource != null) {
+                codeSources.add(codeSource.getLocation().toString());
+            }
+            return 1;
+        } catch (ClassNotFoundException e) {
+            failures.add(className + ": " + e);
+        } catch (LinkageError e) {
+            failures.add(className + ": " + e);
+        }
+        return 0;
+    }
+
+    /**
+     * List the JARs in a directory.
+     * 
+     * @param directory
+     *            A {@link File} representing the directory whose JARs are to be listed.
+     * @return A {@link List} of {@link File} objects representing the JARs in the directory, sorted by name; empty if the directory does not exist.
+     */
+    private List<File> listJars(File directory) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return new ArrayList<File>();
+        }
+        Arrays.sort(files);
+        final List<File> jars = new ArrayList<File>();
+        for (File file : files) {
+            if (file.isFile() && file.getName().endsWith(".jar")) {
+                jars.add(file);
+            }
+        }
+        return jars;
+    }
+
+    /**
+     * List the classes in a JAR.
+     * 
+     * @param jar
+     *            A {@link File} representing the JAR whose classes are to be listed.
+     * @return A {@link List} of the names of the top-level and nested classes in the JAR.
+     * @throws IOException
+     *             If any errors occur while reading the JAR.
+     */
+    private List<String> listClasses(File jar) throws IOException {
+        final List<String> classNames = new ArrayList<String>();
+        final JarFile jarFile = new JarFile(jar);
+        try {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("package-info.class")) {
+                    classNames.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        } finally {
+            jarFile.close();
+        }
+        return classNames;
+    }
+
+    /**
+     * Close a class loader, where the running JVM supports it, so that the JARs it opened are released.
+     * 
+     * @param classLoader
+     *            The {@link URLClassLoader} to be closed.
+     */
+    private void closeQuietly(URLClassLoader classLoader) {
+        try {
+            URLClassLoader.class.getMethod("close").invoke(classLoader);
+        } catch (Exception e) {
+            // Before Java 7, the JARs are released when the class loader is collected
+        }
+    }
+
+    /**
+     * A measurement of the load of a plugin.
+     * 
+     * @author Joshua Hyde
+     * @since 1.2
+     */
+
+    public static class StartupMeasurement {
+        private final String pluginName;
+        private final long elapsedNanos;
+        private final int classesLoaded;
+        private final List<String> failures;
+        private final int jarCount;
+        private final int jarsOpened;
+        private final long metaspaceUsed;
+
+        /**
+         * Create a measurement.
+         * 
+         * @param pluginName
+         *            The name of the plugin.
+         * @param elapsedNanos
+         *            The time, in nanoseconds, taken to create the class loader of the plugin and load its classes.
+         * @param classesLoaded
+         *            The number of classes loaded.
+         * @param failures
+         *            A {@link List} of descriptions of the classes that could not be loaded.
+         * @param jarCount
+         *            The number of JARs in the plugin.
+         * @param jarsOpened
+         *            The number of JARs opened to load the classes.
+         * @param metaspaceUsed
+         *            The number of bytes of class metadata used by the loaded classes.
+         */
+        StartupMeasurement(String pluginName, long elapsedNanos, int classesLoaded, List<String> failures, int jarCount, int jarsOpened, long metaspaceUsed) {
+            this.pluginName = pluginName;
+            this.elapsedNanos = elapsedNanos;
+            this.classesLoaded = classesLoaded;
+            this.failures = failures;
+            this.jarCount = jarCount;
+            this.jarsOpened = jarsOpened;
+            this.metaspaceUsed = metaspaceUsed;
+        }
+
+        /**
+         * Get the number of classes loaded.
+         * 
+         * @return The number of classes loaded.
+         */
+        public int getClassesLoaded() {
+            return classesLoaded;
+        }
+
+        /**
+         * Get the time taken to load the plugin.
+         * 
+         * @return The time, in nanoseconds, taken to create the class loader of the plugin and load its classes.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Get the classes that could not be loaded.
+         * 
+         * @return A {@link List} of descriptions of the classes that could not be loaded, such as those that refer to classes missing from the plugin.
+         */
+        public List<String> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Get the number of JARs in the plugin.
+         * 
+         * @return The number of JARs in the {@code lib/} and {@code libext/} directories of the plugin.
+         */
+        public int getJarCount() {
+            return jarCount;
+        }
+
+        /**
+         * Get the number of JARs opened to load the plugin.
+         * 
+         * @return The number of JARs opened to load the classes of the plugin.
+         */
+        public int getJarsOpened() {
+            return jarsOpened;
+        }
+
+        /**
+         * Get the class metadata used by the plugin.
+         * 
+         * @return The number of bytes of class metadata used by the loaded classes; this is affected by any other activity in the JVM, so it is only an estimate.
+         */
+        public long getMetaspaceUsed() {
+            return metaspaceUsed;
+        }
+
+        /**
+         * Get the name of the plugin.
+         * 
+         * @return The name of the plugin.
+         */
+        public String getPluginName() {
+            return pluginName;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %8.1f ms %6d classes %4d failures %4d/%d JARs opened %8.1f KB metaspace", pluginName, elapsedNanos / 1000000.0, classesLoaded, failures.size(),
+                    jarsOpened, jarCount, metaspaceUsed / 1024.0);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+import com.github.jrh3k5.flume.mojo.plugin.io.ArchiveUtils;
+import com.github.jrh3k5.flume.mojo.plugin.io.DirectorySynchronizer;
+
+/**
+ * Unit tests for {@link WatchProjectPluginMojo}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class WatchProjectPluginMojoTest extends AbstractUnitTest {
+    private final ArchiveUtils archiveUtils = ArchiveUtils.getInstance(new ConsoleLogger(Logger.LEVEL_ERROR, getClass().getSimpleName()));
+    private final WatchProjectPluginMojo mojo = new WatchProjectPluginMojo();
+    private File classesDirectory;
+    private File pluginLibrary;
+    private File dependency;
+    private File pluginDirectory;
+    private File stagedLibrary;
+    private File stateFile;
+
+    /**
+     * Set up the watched files and the staged plugin for each test.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        final File targetDirectory = new File(getTestDirectory(), "target");
+        FileUtils.deleteDirectory(targetDirectory);
+        classesDirectory = new File(targetDirectory, "classes");
+        FileUtils.write(new File(classesDirectory, "com/example/Original.class"), "original");
+        pluginLibrary = new File(targetDirectory, "library.jar");
+        archiveUtils.jarDirectory(classesDirectory, pluginLibrary);
+
+        dependency = new File(targetDirectory, "dependency.jar");
+        FileUtils.write(dependency, "dependency");
+
+        final File explodedDirectory = new File(targetDirectory, "plugins.d");
+        pluginDirectory = new File(explodedDirectory, "test-plugin");
+        stagedLibrary = new File(pluginDirectory, "lib/library.jar");
+
+        mojo.setLog(mock(Log.class));
+        Whitebox.setInternalState(mojo, "pluginName", "test-plugin");
+        Whitebox.setInternalState(mojo, "pluginLibrary", pluginLibrary);
+        Whitebox.setInternalState(mojo, "classesDirectory", classesDirectory);
+        Whitebox.setInternalState(mojo, "pollInterval", 10L);
+        Whitebox.setInternalState(mojo, "quietPeriod", 50L);
+        Whitebox.setInternalState(mojo, "explodedDirectory", explodedDirectory);
+        Whitebox.setInternalState(mojo, "pluginsStagingDirectory", new File(targetDirectory, "flume-plugins"));
+        stateFile = mojo.getExplodedStateFile();
+        FileUtils.deleteQuietly(stateFile);
+
+        final DirectorySynchronizer synchronizer = DirectorySynchronizer.open(archiveUtils, pluginDirectory, stateFile, false);
+        synchronizer.sync(pluginLibrary, "lib/library.jar");
+        synchronizer.sync(dependency, "libext/dependency.jar");
+        synchronizer.writeState();
+    }
+
+    /**
+     * A change to the compiled classes should re-stage the primary library of the plugin out of the classes, leaving the primary library itself untouched, and keep the staging state.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWatchClassesChanged() throws Exception {
+        final long libraryLength = pluginLibrary.length();
+        final Thread watcher = startWatching();
+        try {
+            FileUtils.write(new File(classesDirectory, "com/example/Added.class"), "added");
+            awaitEntry("com/example/Added.class");
+        } finally {
+            stopWatching(watcher);
+        }
+        assertThat(pluginLibrary.length()).isEqualTo(libraryLength);
+        assertThat(stateFile).exists();
+    }
+
+    /**
+     * A build following a re-staging should stage the primary library afresh and still remove the dependencies that are no longer packaged.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWatchThenRebuild() throws Exception {
+        final Thread watcher = startWatching();
+        try {
+            FileUtils.write(new File(classesDirectory, "com/example/Added.class"), "added");
+            awaitEntry("com/example/Added.class");
+        } finally {
+            stopWatching(watcher);
+        }
+
+        // Rebuild the plugin without its dependency
+        final DirectorySynchronizer synchronizer = DirectorySynchronizer.open(archiveUtils, pluginDirectory, stateFile, false);
+        synchronizer.sync(pluginLibrary, "lib/library.jar");
+        assertThat(synchronizer.removeStale()).containsOnly("libext/dependency.jar");
+        synchronizer.writeState();
+
+        assertThat(synchronizer.getCopiedCount()).isEqualTo(1);
+        assertThat(FileUtils.readFileToByteArray(stagedLibrary)).isEqualTo(FileUtils.readFileToByteArray(pluginLibrary));
+        assertThat(new File(pluginDirectory, "libext/dependency.jar")).doesNotExist();
+    }
+
+    /**
+     * A change to the primary library should re-stage it into the plugin.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWatchLibraryChanged() throws Exception {
+        final Thread watcher = startWatching();
+        try {
+            final File rebuiltClasses = new File(getTestDirectory(), "rebuilt");
+            FileUtils.write(new File(rebuiltClasses, "com/example/Rebuilt.class"), "rebuilt");
+            archiveUtils.jarDirectory(rebuiltClasses, pluginLibrary);
+            awaitEntry("com/example/Rebuilt.class");
+        } finally {
+            stopWatching(watcher);
+        }
+        assertThat(FileUtils.readFileToByteArray(stagedLibrary)).isEqualTo(FileUtils.readFileToByteArray(pluginLibrary));
+    }
+
+    /**
+     * Start watching in a separate thread, waiting until the watched files have been first observed.
+     * 
+     * @return The {@link Thread} in which the mojo is watching.
+     * @throws Exception
+     *             If any errors occur while starting the watch.
+     */
+    private Thread startWatching() throws Exception {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final Thread watcher = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    mojo.watch(archiveUtils, stagedLibrary);
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        watcher.start();
+        // Give the watch time to take its first look at the watched files
+        Thread.sleep(250);
+        assertThat(failure.get()).isNull();
+        return watcher;
+    }
+
+    /**
+     * Stop watching.
+     * 
+     * @param watcher
+     *            The {@link Thread} in which the mojo is watching.
+     * @throws Exception
+     *             If any errors occur while stopping the watch.
+     */
+    private void stopWatching(Thread watcher) throws Exception {
+        watcher.interrupt();
+        watcher.join(5000);
+        assertThat(watcher.isAlive()).isFalse();
+    }
+
+    /**
+     * Wait for the staged library to contain an entry.
+     * 
+     * @param entryName
+     *            The name of the entry for which to wait.
+     * @throws Exception
+     *             If any errors occur while waiting, or if the entry does not appear within ten seconds.
+     */
+    private void awaitEntry(String entryName) throws Exception {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            final ZipFile zipFile = new ZipFile(stagedLibrary);
+            try {
+                if (zipFile.getEntry(entryName) != null) {
+                    return;
+                }
+            } finally {
+                zipFile.close();
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError(String.format("%s was not re-staged with %s.", stagedLibrary, entryName));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.analysis;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link DuplicateClassAnalyzer} and the {@link DuplicateClassReport} it produces.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class DuplicateClassAnalyzerTest extends AbstractUnitTest {
+    private final Map<String, File> jarFiles = new LinkedHashMap<String, File>();
+
+    /**
+     * Write out the JARs of a plugin - one of which repackages a subset of the classes of another - and of a sibling plugin for each test.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        final File directory = new File(getTestDirectory(), "plugins.d");
+        FileUtils.deleteDirectory(directory);
+        FileUtils.forceMkdir(directory);
+        jarFiles.put("plugin/lib/plugin.jar", writeJar(new File(directory, "plugin.jar"), "com/example/plugin/Source.class"));
+        jarFiles.put("plugin/libext/full.jar", writeJar(new File(directory, "full.jar"), "com/example/Library.class", "com/example/Library$Inner.class", "com/example/Other.class"));
+        jarFiles.put("plugin/libext/shaded.jar", writeJar(new File(directory, "shaded.jar"), "com/example/Library.class", "com/example/Library$Inner.class",
+                "META-INF/versions/9/com/example/Shaded.class"));
+        jarFiles.put("plugin/libext/resources.jar", writeJar(new File(directory, "resources.jar"), "resource.properties"));
+        jarFiles.put("sibling/libext/other.jar", writeJar(new File(directory, "other.jar"), "com/example/Other.class", "com/example/sibling/Sink.class"));
+        jarFiles.put("sibling/libext/copy.jar", writeJar(new File(directory, "copy.jar"), "com/example/sibling/Sink.class"));
+    }
+
+    /**
+     * Every class found in more than one JAR should be reported with the JARs containing it, and a report of the duplicates of one plugin should leave out those found only among its
+     * siblings.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testAnalyze() throws Exception {
+        final DuplicateClassReport report = new DuplicateClassAnalyzer(2).analyze(jarFiles);
+        assertThat(new ArrayList<String>(report.getDuplicates().keySet())).containsExactly("com.example.Library", "com.example.Library$Inner", "com.example.Other", "com.example.sibling.Sink");
+        assertThat(report.getDuplicates().get("com.example.Library")).containsExactly("plugin/libext/full.jar", "plugin/libext/shaded.jar");
+        assertThat(report.getDuplicates().get("com.example.Other")).containsExactly("plugin/libext/full.jar", "sibling/libext/other.jar");
+
+        final DuplicateClassReport pluginReport = report.involving(Arrays.asList("plugin/lib/plugin.jar", "plugin/libext/full.jar", "plugin/libext/shaded.jar",
+                "plugin/libext/resources.jar"));
+        assertThat(new ArrayList<String>(pluginReport.getDuplicates().keySet())).containsExactly("com.example.Library", "com.example.Library$Inner", "com.example.Other");
+        final List<String> lines = pluginReport.format(1);
+        assertThat(lines).containsExactly("Found 3 class(es) packaged in more than one JAR", "  2 class(es) in each of [plugin/libext/full.jar, plugin/libext/shaded.jar]",
+                "    com.example.Library", "    ... and 1 more", "  1 class(es) in each of [plugin/libext/full.jar, sibling/libext/other.jar]", "    com.example.Other");
+    }
+
+    /**
+     * A JAR whose classes are all within another JAR should be found redundant, but the JAR containing them - and a JAR without any classes - should not, and the duplicates that remain
+     * once it is removed should be those of the other JARs alone.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testFindRedundantJars() throws Exception {
+        final DuplicateClassReport report = new DuplicateClassAnalyzer(1).analyze(jarFiles);
+        final List<String> redundantJars = report.findRedundantJars(Arrays.asList("plugin/libext/full.jar", "plugin/libext/shaded.jar", "plugin/libext/resources.jar"));
+        assertThat(redundantJars).containsExactly("plugin/libext/shaded.jar");
+
+        final DuplicateClassReport remaining = report.without(redundantJars).involving(Collections.singletonList("plugin/libext/full.jar"));
+        assertThat(new ArrayList<String>(remaining.getDuplicates().keySet())).containsExactly("com.example.Other");
+    }
+
+    /**
+     * Write a JAR of empty entries.
+     * 
+     * @param jarFile
+     *            A {@link File} representing the location to which the JAR is to be written.
+     * @param entryNames
+     *            The names of the entries of the JAR.
+     * @return The given {@link File}.
+     * @throws Exception
+     *             If any errors occur while writing the JAR.
+     */
+    private File writeJar(File jarFile, String... entryNames) throws Exception {
+        final ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(jarFile));
+        try {
+            for (String entryName : entryNames) {
+                zipOut.putNextEntry(new ZipEntry(entryName));
+                zipOut.closeEntry();
+            }
+        } finally {
+            IOUtils.closeQuietly(zipOut);
+        }
+        return jarFile;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.analysis;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+import com.github.jrh3k5.flume.mojo.internal.AllocationBudget;
+import com.github.jrh3k5.flume.mojo.plugin.Exclusion;
+import com.github.jrh3k5.flume.mojo.plugin.ExclusionArtifactFilter;
+
+/**
+ * Unit tests for {@link PackagedGraph}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class PackagedGraphTest extends AbstractUnitTest {
+    /**
+     * Each artifact should be recorded with the decision made about it, and nothing beneath a rejected or already-included artifact should be visited.
+     */
+    @Test
+    public void testFilter() {
+        final DependencyNode excludedChild = createNode("excluded-child", Artifact.SCOPE_COMPILE);
+        final DependencyNode excluded = createNode("excluded", Artifact.SCOPE_COMPILE, excludedChild);
+        final DependencyNode providedChild = createNode("provided-child", Artifact.SCOPE_COMPILE);
+        final DependencyNode provided = createNode("provided", Artifact.SCOPE_PROVIDED, providedChild);
+        final DependencyNode sharedChild = createNode("shared-child", Artifact.SCOPE_COMPILE);
+        final DependencyNode shared = createNode("shared", Artifact.SCOPE_COMPILE, sharedChild);
+        final DependencyNode parent = createNode("parent", Artifact.SCOPE_COMPILE, shared, excluded);
+        final DependencyNode sibling = createNode("sibling", Artifact.SCOPE_COMPILE, shared, provided);
+
+        final Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId("com.github.jrh3k5");
+        exclusion.setArtifactId("excluded");
+        final PackagedGraph graph = PackagedGraph.filter(Arrays.asList(parent, sibling), new ScopeArtifactFilter(Artifact.SCOPE_RUNTIME), new ExclusionArtifactFilter(
+                Collections.singletonList(exclusion)));
+
+        assertThat(new ArrayList<Artifact>(graph.getIncludedArtifacts())).containsExactly(parent.getArtifact(), shared.getArtifact(), sharedChild.getArtifact(), sibling.getArtifact());
+
+        final List<PackagedGraph.Node> roots = graph.getRoots();
+        assertThat(roots).hasSize(2);
+        final PackagedGraph.Node parentNode = roots.get(0);
+        assertThat(parentNode.getDecision()).isEqualTo(PackagedGraph.Decision.INCLUDED);
+        assertThat(parentNode.getChildren()).hasSize(2);
+        assertThat(parentNode.getChildren().get(0).getChildren()).hasSize(1);
+        final PackagedGraph.Node excludedNode = parentNode.getChildren().get(1);
+        assertThat(excludedNode.getDecision()).isEqualTo(PackagedGraph.Decision.EXCLUDED);
+        assertThat(excludedNode.getChildren()).isEmpty();
+
+        final PackagedGraph.Node siblingNode = roots.get(1);
+        final PackagedGraph.Node duplicateNode = siblingNode.getChildren().get(0);
+        assertThat(duplicateNode.getDecision()).isEqualTo(PackagedGraph.Decision.DUPLICATE);
+        assertThat(duplicateNode.getChildren()).isEmpty();
+        final PackagedGraph.Node providedNode = siblingNode.getChildren().get(1);
+        assertThat(providedNode.getDecision()).isEqualTo(PackagedGraph.Decision.SCOPE);
+        assertThat(providedNode.getChildren()).isEmpty();
+    }
+
+    /**
+     * Without a scope filter, the scopes of the artifacts should not be considered.
+     */
+    @Test
+    public void testFilterWithoutScopeFilter() {
+        final DependencyNode provided = createNode("provided", Artifact.SCOPE_PROVIDED);
+        final PackagedGraph graph = PackagedGraph.filter(Collections.singletonList(provided), null, new ExclusionArtifactFilter(Collections.<Exclusion> emptyList()));
+        assertThat(graph.getIncludedArtifacts()).containsOnly(provided.getArtifact());
+        assertThat(graph.getRoots().get(0).getDecision()).isEqualTo(PackagedGraph.Decision.INCLUDED);
+    }
+
+    /**
+     * Included artifacts whose versions were selected from version ranges should be recorded as such.
+     */
+    @Test
+    public void testFilterRanged() {
+        final DefaultDependencyNode ranged = new DefaultDependencyNode(null, new DefaultArtifact("com.github.jrh3k5", "ranged", "1.5", Artifact.SCOPE_COMPILE, "jar", null,
+                new DefaultArtifactHandler("jar")), null, null, "[1.0,2.0)");
+        ranged.setChildren(Collections.<DependencyNode> emptyList());
+        final DependencyNode fixed = createNode("fixed", Artifact.SCOPE_COMPILE);
+        final PackagedGraph graph = PackagedGraph.filter(Arrays.<DependencyNode> asList(ranged, fixed), null, new ExclusionArtifactFilter(Collections.<Exclusion> emptyList()));
+        assertThat(graph.getRangedArtifacts()).containsExactly(ranged.getArtifact());
+        assertThat(PackagedGraph.flat(graph.getIncludedArtifacts()).getRangedArtifacts()).isEmpty();
+    }
+
+    /**
+     * Filtering a large graph - in which many artifacts are reached through more than one path, and some are excluded - should allocate no more for each node than the node of the
+     * filtered graph and the bookkeeping of its artifact.
+     */
+    @Test
+    public void testFilterAllocation() {
+        final List<DependencyNode> roots = new ArrayList<DependencyNode>();
+        for (int i = 0; i < 100; i++) {
+            final DefaultDependencyNode root = createSyntheticNode(null, "root-" + i, Artifact.SCOPE_COMPILE);
+            final List<DependencyNode> children = new ArrayList<DependencyNode>();
+            for (int j = 0; j < 10; j++) {
+                final DefaultDependencyNode child = createSyntheticNode(root, "child-" + ((i * 10 + j) % 500), j == 9 ? Artifact.SCOPE_TEST : Artifact.SCOPE_COMPILE);
+                final List<DependencyNode> grandchildren = new ArrayList<DependencyNode>();
+                for (int k = 0; k < 10; k++) {
+                    grandchildren.add(createSyntheticNode(child, "grandchild-" + ((i * 100 + j * 10 + k) % 2000), Artifact.SCOPE_RUNTIME));
+                }
+                child.setChildren(grandchildren);
+                children.add(child);
+            }
+            root.setChildren(children);
+            roots.add(root);
+        }
+
+        final List<Exclusion> exclusions = new ArrayList<Exclusion>();
+        for (int i = 0; i < 2000; i += 100) {
+            final Exclusion exclusion = new Exclusion();
+            exclusion.setGroupId("com.github.jrh3k5");
+            exclusion.setArtifactId("grandchild-" + i);
+            exclusions.add(exclusion);
+        }
+        final ScopeArtifactFilter scopeFilter = new ScopeArtifactFilter(Artifact.SCOPE_RUNTIME);
+        final ExclusionArtifactFilter exclusionFilter = new ExclusionArtifactFilter(exclusions);
+
+        final PackagedGraph graph = PackagedGraph.filter(roots, scopeFilter, exclusionFilter);
+        assertThat(graph.getIncludedArtifacts()).hasSize(2330);
+        final int nodeCount = countNodes(graph.getRoots());
+        AllocationBudget.assertWithin("PackagedGraph.filter()", 1536, nodeCount, new Runnable() {
+            @Override
+            public void run() {
+                PackagedGraph.filter(roots, scopeFilter, exclusionFilter);
+            }
+        });
+    }
+
+    /**
+     * Count the nodes in a filtered graph.
+     * 
+     * @param nodes
+     *            A {@link List} of the {@link PackagedGraph.Node} objects to be counted, along with their descendants.
+     * @return The number of nodes in the given list and beneath them.
+     */
+    private int countNodes(List<PackagedGraph.Node> nodes) {
+        int count = nodes.size();
+        for (PackagedGraph.Node node : nodes) {
+            count += countNodes(node.getChildren());
+        }
+        return count;
+    }
+
+    /**
+     * Create a dependency node that, unlike a mock, allocates nothing when it is traversed.
+     * 
+     * @param parent
+     *            The parent of the node; {@code null} if it is a root.
+     * @param artifactId
+     *            The artifact ID of the node's artifact.
+     * @param scope
+     *            The scope of the node's artifact.
+     * @return A {@link DefaultDependencyNode} representing the artifact, without children.
+     */
+    private DefaultDependencyNode createSyntheticNode(DependencyNode parent, String artifactId, String scope) {
+        final Artifact artifact = new DefaultArtifact("com.github.jrh3k5", artifactId, "1.0", scope, "jar", null, new DefaultArtifactHandler("jar"));
+        final DefaultDependencyNode node = new DefaultDependencyNode(parent, artifact, null, null, null);
+        node.setChildren(Collections.<DependencyNode> emptyList());
+        return node;
+    }
+
+    /**
+     * Create a dependency node.
+     * 
+     * @param artifactId
+     *            The artifact ID of the node's artifact.
+     * @param scope
+     *            The scope of the node's artifact.
+     * @param children
+     *            The children of the node.
+     * @return A {@link DependencyNode} representing the artifact.
+     */
+    private DependencyNode createNode(String artifactId, String scope, DependencyNode... children) {
+        final Artifact artifact = new DefaultArtifact("com.github.jrh3k5", artifactId, "1.0", scope, "jar", null, new DefaultArtifactHandler("jar"));
+        final DependencyNode node = mock(DependencyNode.class);
+        when(node.getArtifact()).thenReturn(artifact);
+        when(node.getChildren()).thenReturn(children.length == 0 ? Collections.<DependencyNode> emptyList() : Arrays.asList(children));
+        return node;
+    }
+}
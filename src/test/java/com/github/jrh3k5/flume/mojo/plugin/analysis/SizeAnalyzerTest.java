@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.analysis;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+import com.github.jrh3k5.flume.mojo.plugin.Exclusion;
+import com.github.jrh3k5.flume.mojo.plugin.ExclusionArtifactFilter;
+
+/**
+ * Unit tests for {@link SizeAnalyzer}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class SizeAnalyzerTest extends AbstractUnitTest {
+    private final Map<String, File> artifactFiles = new HashMap<String, File>();
+    private File pluginLibrary;
+
+    /**
+     * Write out the plugin library for each test.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        pluginLibrary = new File(getTestDirectory(), "plugin.jar");
+        FileUtils.writeByteArrayToFile(pluginLibrary, new byte[1024]);
+    }
+
+    /**
+     * Each dependency should be attributed its own size, the path through which it was pulled in, and the size of its subtree; an artifact reached through more than one path should only be
+     * counted once.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testAnalyze() throws Exception {
+        final byte[] compressible = new byte[64 * 1024];
+        final byte[] incompressible = new byte[64 * 1024];
+        new Random(getTestName().hashCode()).nextBytes(incompressible);
+
+        final DependencyNode shared = createNode("shared", incompressible);
+        final DependencyNode child = createNode("child", compressible, shared);
+        final DependencyNode parent = createNode("parent", compressible, child);
+        final DependencyNode sibling = createNode("sibling", compressible, shared);
+
+        final SizeReport report = new SizeAnalyzer().analyze(pluginLibrary, PackagedGraph.filter(Arrays.asList(parent, sibling), null, new ExclusionArtifactFilter(
+                Collections.<Exclusion> emptyList())), artifactFiles);
+        assertThat(report.getPluginLibrary().getName()).isEqualTo("lib/plugin.jar");
+        assertThat(report.getPluginLibrary().getSize()).isEqualTo(1024);
+
+        final List<SizeReport.Entry> dependencies = report.getDependencies();
+        assertThat(dependencies).hasSize(4);
+        final SizeReport.Entry parentEntry = dependencies.get(0);
+        final SizeReport.Entry sharedEntry = dependencies.get(2);
+        final SizeReport.Entry siblingEntry = dependencies.get(3);
+
+        assertThat(sharedEntry.getName()).isEqualTo(shared.getArtifact().getId());
+        assertThat(sharedEntry.getPath()).containsExactly(parent.getArtifact().getId(), child.getArtifact().getId());
+        assertThat(sharedEntry.getSize()).isEqualTo(incompressible.length);
+        // Random bytes do not compress, while a run of zeroes compresses to next to nothing
+        assertThat(sharedEntry.getCompressedSize()).isGreaterThan(incompressible.length * 9 / 10);
+        assertThat(parentEntry.getCompressedSize()).isLessThan(compressible.length / 10);
+
+        assertThat(parentEntry.getPath()).isEmpty();
+        assertThat(parentEntry.getSubtreeCount()).isEqualTo(3);
+        assertThat(parentEntry.getSubtreeSize()).isEqualTo(2 * compressible.length + incompressible.length);
+        assertThat(siblingEntry.getSubtreeCount()).isEqualTo(1);
+
+        assertThat(report.getTotalSize()).isEqualTo(1024 + 3 * compressible.length + incompressible.length);
+        assertThat(report.format(1L).get(0)).contains("4 dependencies");
+    }
+
+    /**
+     * Test the formatting of sizes.
+     */
+    @Test
+    public void testFormatSize() {
+        assertThat(SizeReport.formatSize(512)).isEqualTo("512 B");
+        assertThat(SizeReport.formatSize(1536)).isEqualTo(String.format("%.1f KiB", 1.5));
+        assertThat(SizeReport.formatSize(3L * 1024 * 1024)).isEqualTo(String.format("%.1f MiB", 3.0));
+    }
+
+    /**
+     * Create a dependency node whose artifact is backed by a file.
+     * 
+     * @param artifactId
+     *            The artifact ID of the node's artifact.
+     * @param contents
+     *            The contents of the artifact's file.
+     * @param children
+     *            The children of the node.
+     * @return A {@link DependencyNode} representing the artifact.
+     * @throws Exception
+     *             If any errors occur while creating the node.
+     */
+    private DependencyNode createNode(String artifactId, byte[] contents, DependencyNode... children) throws Exception {
+        final Artifact artifact = new DefaultArtifact("com.github.jrh3k5", artifactId, "1.0", Artifact.SCOPE_COMPILE, "jar", null, new DefaultArtifactHandler("jar"));
+        final File file = new File(getTestDirectory(), artifactId + ".jar");
+        FileUtils.writeByteArrayToFile(file, contents);
+        artifactFiles.put(artifact.getId(), file);
+
+        final DependencyNode node = mock(DependencyNode.class);
+        when(node.getArtifact()).thenReturn(artifact);
+        when(node.getChildren()).thenReturn(children.length == 0 ? Collections.<DependencyNode> emptyList() : Arrays.asList(children));
+        return node;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.artifact;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AllocationBudget;
+import com.github.jrh3k5.flume.mojo.plugin.FlumePluginDependency;
+
+/**
+ * Unit tests for {@link FlumePluginDependencyArtifactFilter}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class FlumePluginDependencyArtifactFilterTest {
+    private FlumePluginDependencyArtifactFilter filter;
+
+    /**
+     * Set up the filter for each test.
+     */
+    @Before
+    public void setUp() {
+        final FlumePluginDependency dependency = new FlumePluginDependency();
+        dependency.setGroupId("com.example");
+        dependency.setArtifactId("flume-source");
+        filter = new FlumePluginDependencyArtifactFilter(dependency);
+    }
+
+    /**
+     * Only an artifact with exactly the coordinates of the dependency should be included; the coordinates of an artifact are not treated as patterns.
+     */
+    @Test
+    public void testInclude() {
+        assertThat(filter.include(createArtifact("com.example", "flume-source"))).isTrue();
+        assertThat(filter.include(createArtifact("com.example", "flume-sink"))).isFalse();
+        assertThat(filter.include(createArtifact("org.example", "flume-source"))).isFalse();
+        assertThat(filter.include(createArtifact("com.exampl.", "flume.source"))).isFalse();
+    }
+
+    /**
+     * Filtering an artifact should allocate next to nothing.
+     */
+    @Test
+    public void testIncludeAllocation() {
+        final List<Artifact> artifacts = new ArrayList<Artifact>();
+        for (int i = 0; i < 10000; i++) {
+            artifacts.add(createArtifact("com.example", i % 2 == 0 ? "flume-source" : "flume-source-" + i));
+        }
+
+        final int[] included = new int[1];
+        AllocationBudget.assertWithin("FlumePluginDependencyArtifactFilter.include()", 16, artifacts.size(), new Runnable() {
+            @Override
+            public void run() {
+                included[0] = 0;
+                for (Artifact artifact : artifacts) {
+                    if (filter.include(artifact)) {
+                        included[0]++;
+                    }
+                }
+            }
+        });
+        assertThat(included[0]).isEqualTo(artifacts.size() / 2);
+    }
+
+    /**
+     * Create an artifact.
+     * 
+     * @param groupId
+     *            The group ID of the artifact.
+     * @param artifactId
+     *            The artifact ID of the artifact.
+     * @return An {@link Artifact} with the given coordinates.
+     */
+    private Artifact createArtifact(String groupId, String artifactId) {
+        return new DefaultArtifact(groupId, artifactId, "1.0", Artifact.SCOPE_COMPILE, "jar", null, new DefaultArtifactHandler("jar"));
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.artifact;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+import com.github.jrh3k5.flume.mojo.plugin.Exclusion;
+import com.github.jrh3k5.flume.mojo.plugin.ExclusionArtifactFilter;
+
+/**
+ * Unit tests for {@link MediatedDependencyFinder}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class MediatedDependencyFinderTest extends AbstractUnitTest {
+    /**
+     * A dependency needed by the plugin but mediated to another branch of the project's graph should be found there, along with its own dependencies, and anything it needs that was
+     * mediated elsewhere should be found, too.
+     */
+    @Test
+    public void testFind() {
+        final DependencyNode sharedChild = createNode("shared-child", "1.0");
+        final DependencyNode shared = createNode("shared", "1.0", sharedChild);
+        final DependencyNode other = createNode("other", "1.0");
+        final DependencyNode sibling = createNode("sibling", "1.0", shared, other);
+        final DependencyNode middle = createNode("middle", "1.0");
+        final DependencyNode plugin = createNode("plugin", "1.0", middle);
+
+        final org.apache.maven.shared.dependency.tree.DependencyNode root = createTreeNode("project", "1.0");
+        final org.apache.maven.shared.dependency.tree.DependencyNode siblingTree = addIncluded(root, sibling);
+        final org.apache.maven.shared.dependency.tree.DependencyNode sharedTree = addIncluded(siblingTree, shared);
+        addIncluded(sharedTree, sharedChild);
+        addOmitted(sharedTree, "other", "2.0", other);
+        addOmitted(sharedTree, "middle", "2.0", middle);
+        addIncluded(siblingTree, other);
+        final org.apache.maven.shared.dependency.tree.DependencyNode middleTree = addIncluded(addIncluded(root, plugin), middle);
+        addOmitted(middleTree, "shared", "2.0", shared);
+
+        final MediatedDependencyFinder.Result result = new MediatedDependencyFinder(Arrays.asList(sibling, plugin), createExclusionFilter()).find(plugin, root);
+        assertThat(result.getMediated()).containsExactly(shared, other);
+        assertThat(result.getMissing()).isEmpty();
+    }
+
+    /**
+     * Mediated dependencies that were configured to be excluded should not be looked for.
+     */
+    @Test
+    public void testFindExcluded() {
+        final DependencyNode shared = createNode("shared", "1.0");
+        final DependencyNode sibling = createNode("sibling", "1.0", shared);
+        final DependencyNode plugin = createNode("plugin", "1.0");
+
+        final org.apache.maven.shared.dependency.tree.DependencyNode root = createTreeNode("project", "1.0");
+        addIncluded(addIncluded(root, sibling), shared);
+        addOmitted(addIncluded(root, plugin), "shared", "2.0", shared);
+
+        final MediatedDependencyFinder.Result result = new MediatedDependencyFinder(Arrays.asList(sibling, plugin), createExclusionFilter("shared")).find(plugin, root);
+        assertThat(result.getMediated()).isEmpty();
+        assertThat(result.getMissing()).isEmpty();
+    }
+
+    /**
+     * A mediated dependency that is absent from the resolved graph should be reported as missing.
+     */
+    @Test
+    public void testFindMissing() {
+        final DependencyNode plugin = createNode("plugin", "1.0");
+
+        final org.apache.maven.shared.dependency.tree.DependencyNode root = createTreeNode("project", "1.0");
+        final org.apache.maven.shared.dependency.tree.DependencyNode sharedTree = createTreeNode("shared", "1.0");
+        root.addChild(sharedTree);
+        final org.apache.maven.shared.dependency.tree.DependencyNode omitted = new org.apache.maven.shared.dependency.tree.DependencyNode(createArtifact("shared", "2.0"),
+                org.apache.maven.shared.dependency.tree.DependencyNode.OMITTED_FOR_CONFLICT, sharedTree.getArtifact());
+        addIncluded(root, plugin).addChild(omitted);
+
+        final MediatedDependencyFinder.Result result = new MediatedDependencyFinder(Collections.singletonList(plugin), createExclusionFilter()).find(plugin, root);
+        assertThat(result.getMediated()).isEmpty();
+        assertThat(result.getMissing()).containsExactly(omitted.getArtifact());
+    }
+
+    /**
+     * Add an included node to the unmediated tree.
+     * 
+     * @param parent
+     *            The node to which the included node is to be added.
+     * @param resolved
+     *            The resolved {@link DependencyNode} whose artifact is included.
+     * @return The added node.
+     */
+    private org.apache.maven.shared.dependency.tree.DependencyNode addIncluded(org.apache.maven.shared.dependency.tree.DependencyNode parent, DependencyNode resolved) {
+        final org.apache.maven.shared.dependency.tree.DependencyNode child = new org.apache.maven.shared.dependency.tree.DependencyNode(resolved.getArtifact());
+        parent.addChild(child);
+        return child;
+    }
+
+    /**
+     * Add a node omitted for conflict to the unmediated tree.
+     * 
+     * @param parent
+     *            The node to which the omitted node is to be added.
+     * @param artifactId
+     *            The artifact ID of the omitted artifact.
+     * @param version
+     *            The version of the omitted artifact.
+     * @param winner
+     *            The resolved {@link DependencyNode} whose artifact was chosen over the omitted artifact.
+     * @return The added node.
+     */
+    private org.apache.maven.shared.dependency.tree.DependencyNode addOmitted(org.apache.maven.shared.dependency.tree.DependencyNode parent, String artifactId, String version,
+            DependencyNode winner) {
+        final org.apache.maven.shared.dependency.tree.DependencyNode child = new org.apache.maven.shared.dependency.tree.DependencyNode(createArtifact(artifactId, version),
+                org.apache.maven.shared.dependency.tree.DependencyNode.OMITTED_FOR_CONFLICT, winner.getArtifact());
+        parent.addChild(child);
+        return child;
+    }
+
+    /**
+     * Create an artifact.
+     * 
+     * @param artifactId
+     *            The artifact ID of the artifact.
+     * @param version
+     *            The version of the artifact.
+     * @return An {@link Artifact}.
+     */
+    private Artifact createArtifact(String artifactId, String version) {
+        return new DefaultArtifact("com.github.jrh3k5", artifactId, version, Artifact.SCOPE_COMPILE, "jar", null, new DefaultArtifactHandler("jar"));
+    }
+
+    /**
+     * Create a filter excluding artifacts.
+     * 
+     * @param artifactIds
+     *            The artifact IDs of the artifacts to be excluded.
+     * @return An {@link ExclusionArtifactFilter}.
+     */
+    private ExclusionArtifactFilter createExclusionFilter(String... artifactIds) {
+        final Exclusion[] exclusions = new Exclusion[artifactIds.length];
+        for (int i = 0; i < artifactIds.length; i++) {
+            exclusions[i] = new Exclusion();
+            exclusions[i].setGroupId("com.github.jrh3k5");
+            exclusions[i].setArtifactId(artifactIds[i]);
+        }
+        return new ExclusionArtifactFilter(Arrays.asList(exclusions));
+    }
+
+    /**
+     * Create a resolved dependency node.
+     * 
+     * @param artifactId
+     *            The artifact ID of the node's artifact.
+     * @param version
+     *            The version of the node's artifact.
+     * @param children
+     *            The children of the node.
+     * @return A {@link DependencyNode} representing the artifact.
+     */
+    private DependencyNode createNode(String artifactId, String version, DependencyNode... children) {
+        final Artifact artifact = createArtifact(artifactId, version);
+        final DependencyNode node = mock(DependencyNode.class);
+        when(node.getArtifact()).thenReturn(artifact);
+        when(node.getChildren()).thenReturn(children.length == 0 ? Collections.<DependencyNode> emptyList() : Arrays.asList(children));
+        return node;
+    }
+
+    /**
+     * Create a node of the unmediated tree.
+     * 
+     * @param artifactId
+     *            The artifact ID of the node's artifact.
+     * @param version
+     *            The version of the node's artifact.
+     * @return A {@link org.apache.maven.shared.dependency.tree.DependencyNode} representing the included artifact.
+     */
+    private org.apache.maven.shared.dependency.tree.DependencyNode createTreeNode(String artifactId, String version) {
+        return new org.apache.maven.shared.dependency.tree.DependencyNode(createArtifact(artifactId, version));
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.artifact;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+import com.github.jrh3k5.flume.mojo.plugin.Exclusion;
+import com.github.jrh3k5.flume.mojo.plugin.ExclusionArtifactFilter;
+
+/**
+ * Unit tests for {@link OmittedDependencyDetector}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class OmittedDependencyDetectorTest extends AbstractUnitTest {
+    private File localRepository;
+
+    /**
+     * Create an empty local repository for each test.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        localRepository = new File(getTestDirectory(), "repository");
+        FileUtils.deleteDirectory(localRepository);
+    }
+
+    /**
+     * A subtree containing every transitive dependency declared within it - even beneath another branch of the subtree, or by a parent POM - should have no omissions; dependencies that
+     * are not transitive should be disregarded.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testHasOmissionsNone() throws Exception {
+        writePom("parent", null, "<dependency><groupId>${project.groupId}</groupId><artifactId>shared</artifactId></dependency>");
+        writePom("middle", "parent");
+        writePom("shared", null);
+        writePom("plugin", null, "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>middle</artifactId></dependency>",
+                "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>shared</artifactId></dependency>",
+                "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>tested</artifactId><scope>test</scope></dependency>",
+                "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>optional</artifactId><optional>true</optional></dependency>");
+
+        final DependencyNode plugin = createNode("plugin", createNode("middle", createNode("shared")));
+        assertThat(createDetector().hasOmissions(plugin, Collections.<org.apache.maven.model.Exclusion> emptyList())).isFalse();
+    }
+
+    /**
+     * A declared dependency absent from the subtree should be detected as an omission.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testHasOmissions() throws Exception {
+        writePom("middle", null, "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>shared</artifactId></dependency>");
+        writePom("plugin", null, "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>middle</artifactId></dependency>");
+
+        final DependencyNode plugin = createNode("plugin", createNode("middle"));
+        assertThat(createDetector().hasOmissions(plugin, Collections.<org.apache.maven.model.Exclusion> emptyList())).isTrue();
+    }
+
+    /**
+     * A declared dependency absent from the subtree that is excluded - by configuration, by the project's declaration of the dependency or by a POM within the subtree - should not be
+     * detected as an omission.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testHasOmissionsExcluded() throws Exception {
+        writePom("middle", null, "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>configured</artifactId></dependency>",
+                "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>declared</artifactId></dependency>",
+                "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>nested</artifactId></dependency>");
+        writePom("plugin", null, "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>middle</artifactId>"
+                + "<exclusions><exclusion><groupId>com.github.jrh3k5</groupId><artifactId>nested</artifactId></exclusion></exclusions></dependency>");
+
+        final Exclusion configured = new Exclusion();
+        configured.setGroupId("com.github.jrh3k5");
+        configured.setArtifactId("configured");
+        final org.apache.maven.model.Exclusion declared = new org.apache.maven.model.Exclusion();
+        declared.setGroupId("com.github.jrh3k5");
+        declared.setArtifactId("declared");
+
+        final DependencyNode plugin = createNode("plugin", createNode("middle"));
+        final OmittedDependencyDetector detector = new OmittedDependencyDetector(localRepository, new ExclusionArtifactFilter(Collections.singletonList(configured)));
+        assertThat(detector.hasOmissions(plugin, Collections.singletonList(declared))).isFalse();
+    }
+
+    /**
+     * An artifact whose POM is not in the local repository should be treated as having omissions, as its dependencies cannot be compared.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testHasOmissionsUnreadable() throws Exception {
+        writePom("plugin", null, "<dependency><groupId>com.github.jrh3k5</groupId><artifactId>middle</artifactId></dependency>");
+
+        final DependencyNode plugin = createNode("plugin", createNode("middle"));
+        assertThat(createDetector().hasOmissions(plugin, Collections.<org.apache.maven.model.Exclusion> emptyList())).isTrue();
+    }
+
+    /**
+     * Create a detector reading from the local repository of this test that excludes nothing.
+     * 
+     * @return An {@link OmittedDependencyDetector}.
+     */
+    private OmittedDependencyDetector createDetector() {
+        return new OmittedDependencyDetector(localRepository, new ExclusionArtifactFilter(Collections.<Exclusion> emptyList()));
+    }
+
+    /**
+     * Create a resolved dependency node of version 1.0.
+     * 
+     * @param artifactId
+     *            The artifact ID of the node's artifact.
+     * @param children
+     *            The children of the node.
+     * @return A {@link DependencyNode} representing the artifact.
+     */
+    private DependencyNode createNode(String artifactId, DependencyNode... children) {
+        final Artifact artifact = new DefaultArtifact("com.github.jrh3k5", artifactId, "1.0", Artifact.SCOPE_COMPILE, "jar", null, new DefaultArtifactHandler("jar"));
+        final DependencyNode node = mock(DependencyNode.class);
+        when(node.getArtifact()).thenReturn(artifact);
+        when(node.getChildren()).thenReturn(children.length == 0 ? Collections.<DependencyNode> emptyList() : Arrays.asList(children));
+        return node;
+    }
+
+    /**
+     * Write a POM of version 1.0 into the local repository of this test.
+     * 
+     * @param artifactId
+     *            The artifact ID of the POM.
+     * @param parentArtifactId
+     *            The artifact ID of the parent of the POM; {@code null} if it has none.
+     * @param dependencies
+     *            The {@code <dependency>} elements of the POM.
+     * @throws Exception
+     *             If any errors occur while writing the POM.
+     */
+    private void writePom(String artifactId, String parentArtifactId, String... dependencies) throws Exception {
+        final StringBuilder pom = new StringBuilder("<project><modelVersion>4.0.0</modelVersion>");
+        if (parentArtifactId != null) {
+            pom.append("<parent><groupId>com.github.jrh3k5</groupId><artifactId>").append(parentArtifactId).append("</artifactId><version>1.0</version></parent>");
+        }
+        pom.append("<groupId>com.github.jrh3k5</groupId><artifactId>").append(artifactId).append("</artifactId><version>1.0</version><dependencies>");
+        for (String dependency : dependencies) {
+            pom.append(dependency);
+        }
+        pom.append("</dependencies></project>");
+        FileUtils.writeStringToFile(new File(localRepository, String.format("com/github/jrh3k5/%s/1.0/%s-1.0.pom", artifactId, artifactId)), pom.toString(), "UTF-8");
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.artifact;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link ResolutionLockfile}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ResolutionLockfileTest extends AbstractUnitTest {
+    /**
+     * A written lockfile should be able to be read back, with the coordinates of each artifact intact.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWriteAndRead() throws Exception {
+        final ResolutionLockfile lockfile = new ResolutionLockfile(ResolutionLockfile.computeKey(Arrays.asList("dependencies", "a:b:jar:1.0")));
+        lockfile.setLibrary(createArtifact("library", null, "library"));
+        lockfile.addArtifact(createArtifact("dependency", null, "dependency"));
+        lockfile.addArtifact(createArtifact("classified", "tests", "classified"));
+
+        final File lockfileFile = new File(getTestDirectory(), "flume-plugin.lock");
+        lockfile.write(lockfileFile);
+
+        final InputStream lockfileIn = new FileInputStream(lockfileFile);
+        ResolutionLockfile read;
+        try {
+            read = ResolutionLockfile.read(lockfileIn);
+        } finally {
+            IOUtils.closeQuietly(lockfileIn);
+        }
+        assertThat(read.getKey()).isEqualTo(lockfile.getKey());
+        assertThat(read.matches(lockfile)).isTrue();
+        assertThat(read.getLibrary().getId()).isEqualTo(lockfile.getLibrary().getId());
+        assertThat(read.getArtifacts()).hasSize(2);
+        final Artifact classified = read.getArtifacts().get(1);
+        assertThat(classified.getClassifier()).isEqualTo("tests");
+        assertThat(classified.getArtifactHandler().getExtension()).isEqualTo("jar");
+        assertThat(read.getArtifacts().get(0).getClassifier()).isNull();
+    }
+
+    /**
+     * Lockfiles should only match if their keys and the checksums of their artifacts match.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testMatches() throws Exception {
+        final String key = ResolutionLockfile.computeKey(Arrays.asList("a", "b"));
+        assertThat(ResolutionLockfile.computeKey(Arrays.asList("ab"))).isNotEqualTo(key);
+
+        final ResolutionLockfile lockfile = new ResolutionLockfile(key);
+        lockfile.addArtifact(createArtifact("dependency", null, "original"));
+        final ResolutionLockfile same = new ResolutionLockfile(key);
+        same.addArtifact(createArtifact("dependency", null, "original"));
+        assertThat(lockfile.matches(same)).isTrue();
+
+        final ResolutionLockfile changed = new ResolutionLockfile(key);
+        changed.addArtifact(createArtifact("dependency", null, "changed"));
+        assertThat(lockfile.matches(changed)).isFalse();
+
+        final ResolutionLockfile otherKey = new ResolutionLockfile(ResolutionLockfile.computeKey(Arrays.asList("c")));
+        otherKey.addArtifact(createArtifact("dependency", null, "original"));
+        assertThat(lockfile.matches(otherKey)).isFalse();
+    }
+
+    /**
+     * Resolving a read lockfile should only read a file modified since the lockfile was written, and should reject a file whose size or checksum differs from what was recorded.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testResolve() throws Exception {
+        final ResolutionLockfile lockfile = new ResolutionLockfile(ResolutionLockfile.computeKey(Arrays.asList("a")));
+        final Artifact dependency = createArtifact("dependency", null, "original");
+        lockfile.addArtifact(dependency);
+        final File lockfileFile = new File(getTestDirectory(), "flume-plugin.lock");
+        lockfile.write(lockfileFile);
+        final InputStream lockfileIn = new FileInputStream(lockfileFile);
+        ResolutionLockfile read;
+        try {
+            read = ResolutionLockfile.read(lockfileIn);
+        } finally {
+            IOUtils.closeQuietly(lockfileIn);
+        }
+        final long writtenAt = dependency.getFile().lastModified();
+
+        final ResolutionLockfile resolved = read.resolve(Arrays.asList(dependency), null, writtenAt);
+        assertThat(resolved).isNotNull();
+        assertThat(resolved.getArtifacts().get(0).getFile()).isEqualTo(dependency.getFile());
+
+        // A file of the same size, but different contents, is only caught if it was modified after the lockfile was written
+        FileUtils.write(dependency.getFile(), "modified");
+        assertThat(dependency.getFile().setLastModified(writtenAt)).isTrue();
+        assertThat(read.resolve(Arrays.asList(dependency), null, writtenAt)).isNotNull();
+        assertThat(dependency.getFile().setLastModified(writtenAt + 2000)).isTrue();
+        assertThat(read.resolve(Arrays.asList(dependency), null, writtenAt)).isNull();
+
+        // A file of a different size is caught regardless of when it was modified
+        FileUtils.write(dependency.getFile(), "longer than the original");
+        assertThat(dependency.getFile().setLastModified(writtenAt)).isTrue();
+        assertThat(read.resolve(Arrays.asList(dependency), null, writtenAt)).isNull();
+    }
+
+    /**
+     * Create a resolved artifact.
+     * 
+     * @param artifactId
+     *            The artifact ID of the artifact.
+     * @param classifier
+     *            The classifier of the artifact; may be {@code null}.
+     * @param contents
+     *            The contents of the file of the artifact.
+     * @return An {@link Artifact} whose file contains the given contents.
+     * @throws Exception
+     *             If any errors occur while writing the file of the artifact.
+     */
+    private Artifact createArtifact(String artifactId, String classifier, String contents) throws Exception {
+        final Artifact artifact = new DefaultArtifact("com.github.jrh3k5", artifactId, "1.0", Artifact.SCOPE_COMPILE, "jar", classifier, new DefaultArtifactHandler("jar"));
+        final File file = new File(getTestDirectory(), String.format("%s-%s.jar", artifactId, contents));
+        FileUtils.write(file, contents);
+        artifact.setFile(file);
+        return artifact;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.cds;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link ClassListGenerator}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ClassListGeneratorTest extends AbstractUnitTest {
+    private final Logger logger = new ConsoleLogger(Logger.LEVEL_ERROR, getClass().getSimpleName());
+    private File pluginDirectory;
+
+    /**
+     * Stage a plugin whose library contains a class that cannot be loaded for each test.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        pluginDirectory = new File(getTestDirectory(), "plugin");
+        FileUtils.deleteDirectory(pluginDirectory);
+        final File libraryFile = new File(pluginDirectory, "lib/library.jar");
+        FileUtils.forceMkdir(libraryFile.getParentFile());
+        final ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(libraryFile));
+        try {
+            zipOut.putNextEntry(new ZipEntry("com/example/Corrupt.class"));
+            zipOut.write("not a class".getBytes("UTF-8"));
+            zipOut.closeEntry();
+        } finally {
+            IOUtils.closeQuietly(zipOut);
+        }
+    }
+
+    /**
+     * The class list should record the classes loaded by the forked JVM, skipping the classes that cannot be loaded and leaving out the classes used to record the list.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGenerate() throws Exception {
+        final File classListFile = new File(pluginDirectory, ClassListGenerator.FILENAME);
+        final int classCount = new ClassListGenerator(new File(System.getProperty("java.home"), "bin/java"), logger).generate(pluginDirectory, classListFile);
+        assertThat(classCount).isGreaterThan(0);
+
+        final List<String> classList = FileUtils.readLines(classListFile, "UTF-8");
+        assertThat(classList).contains("java/lang/Object");
+        for (String listedClass : classList) {
+            assertThat(listedClass).doesNotContain(ClassListLoader.class.getSimpleName());
+        }
+    }
+
+    /**
+     * A JVM that cannot be forked should fail the generation.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test(expected = IOException.class)
+    public void testGenerateMissingJava() throws Exception {
+        new ClassListGenerator(new File(getTestDirectory(), "no-such-java"), logger).generate(pluginDirectory, new File(pluginDirectory, ClassListGenerator.FILENAME));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link AdaptiveGzipOutputStream}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class AdaptiveGzipOutputStreamTest extends AbstractUnitTest {
+    /**
+     * Random bytes should be stored, while repetitive text should be compressed at the best level.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testChooseLevel() throws Exception {
+        final AdaptiveGzipOutputStream zipOut = new AdaptiveGzipOutputStream(new ByteArrayOutputStream(), new ArchiveBufferPool(1, 1024));
+        try {
+            assertThat(zipOut.chooseLevel(randomBytes(AdaptiveGzipOutputStream.REGION_SIZE), 0, AdaptiveGzipOutputStream.REGION_SIZE)).isEqualTo(Deflater.NO_COMPRESSION);
+            assertThat(zipOut.chooseLevel(textBytes(AdaptiveGzipOutputStream.REGION_SIZE), 0, AdaptiveGzipOutputStream.REGION_SIZE)).isEqualTo(Deflater.BEST_COMPRESSION);
+        } finally {
+            zipOut.close();
+        }
+    }
+
+    /**
+     * Data that mixes incompressible and compressible regions should be GZIP'ed into a single member that reads back intact and is no larger than the same data GZIP'ed at the default
+     * level.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWrite() throws Exception {
+        final ByteArrayOutputStream source = new ByteArrayOutputStream();
+        for (int i = 0; i < 8; i++) {
+            source.write(i % 2 == 0 ? randomBytes(3 * AdaptiveGzipOutputStream.REGION_SIZE) : textBytes(AdaptiveGzipOutputStream.REGION_SIZE + 100));
+        }
+        // A write too small to be sampled should be compressed at the level of the region before it
+        source.write(textBytes(10));
+        final byte[] sourceBytes = source.toByteArray();
+
+        final ByteArrayOutputStream adaptive = new ByteArrayOutputStream();
+        final AdaptiveGzipOutputStream adaptiveOut = new AdaptiveGzipOutputStream(adaptive, new ArchiveBufferPool(1, 8192));
+        try {
+            adaptiveOut.write(sourceBytes, 0, sourceBytes.length - 10);
+            adaptiveOut.write(sourceBytes, sourceBytes.length - 10, 10);
+        } finally {
+            adaptiveOut.close();
+        }
+        final ByteArrayOutputStream standard = new ByteArrayOutputStream();
+        final GZIPOutputStream standardOut = new GZIPOutputStream(standard, 8192);
+        try {
+            standardOut.write(sourceBytes);
+        } finally {
+            standardOut.close();
+        }
+        assertThat(adaptive.size()).isLessThanOrEqualTo(standard.size());
+
+        final GZIPInputStream zipIn = new GZIPInputStream(new ByteArrayInputStream(adaptive.toByteArray()));
+        try {
+            assertThat(IOUtils.toByteArray(zipIn)).isEqualTo(sourceBytes);
+        } finally {
+            zipIn.close();
+        }
+    }
+
+    /**
+     * A failure to write the end of the GZIP stream should fail the close, rather than leave a truncated stream behind, and should still close the underlying stream.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCloseFailure() throws Exception {
+        final boolean[] failing = new boolean[1];
+        final boolean[] closed = new boolean[1];
+        final OutputStream failingOut = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                if (failing[0]) {
+                    throw new IOException("No space left on device");
+                }
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        final AdaptiveGzipOutputStream zipOut = new AdaptiveGzipOutputStream(failingOut, new ArchiveBufferPool(1, 1024));
+        zipOut.write(textBytes(100));
+        failing[0] = true;
+        try {
+            zipOut.close();
+            throw new AssertionError("The close should have failed.");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).isEqualTo("No space left on device");
+        }
+        assertThat(closed[0]).isTrue();
+    }
+
+    /**
+     * Create random, and so incompressible, bytes.
+     * 
+     * @param length
+     *            The number of bytes to be created.
+     * @return The created bytes.
+     */
+    private byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Create repetitive text, resembling a configuration file.
+     * 
+     * @param length
+     *            The number of bytes to be created.
+     * @return The created bytes.
+     */
+    private byte[] textBytes(int length) {
+        final byte[] line = "agent.sources.source.type = com.example.ExampleSource\n".getBytes();
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = line[i % line.length];
+        }
+        return bytes;
+    }
+}
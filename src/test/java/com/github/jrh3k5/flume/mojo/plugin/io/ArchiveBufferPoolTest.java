@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link ArchiveBufferPool}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ArchiveBufferPoolTest extends AbstractUnitTest {
+    /**
+     * Released objects should be handed out again, cleared or reset, rather than new ones created.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testReuse() throws Exception {
+        final ArchiveBufferPool pool = new ArchiveBufferPool(2, 16);
+        final ByteBuffer directBuffer = pool.acquireDirectBuffer();
+        assertThat(directBuffer.isDirect()).isTrue();
+        assertThat(directBuffer.capacity()).isEqualTo(16);
+        directBuffer.put((byte) 1);
+        pool.release(directBuffer);
+        final ByteBuffer reusedBuffer = pool.acquireDirectBuffer();
+        assertThat(reusedBuffer).isSameAs(directBuffer);
+        assertThat(reusedBuffer.position()).isZero();
+
+        final byte[] array = pool.acquireArray();
+        assertThat(array).hasSize(16);
+        pool.release(array);
+        assertThat(pool.acquireArray()).isSameAs(array);
+
+        final Deflater deflater = pool.acquireDeflater(Deflater.BEST_SPEED);
+        deflater.setInput(new byte[] { 1, 2, 3 });
+        deflater.finish();
+        deflater.deflate(new byte[16]);
+        pool.release(deflater);
+        final Deflater reusedDeflater = pool.acquireDeflater(Deflater.BEST_COMPRESSION);
+        assertThat(reusedDeflater).isSameAs(deflater);
+        assertThat(reusedDeflater.finished()).isFalse();
+        assertThat(reusedDeflater.getBytesRead()).isZero();
+
+        final Inflater inflater = pool.acquireInflater();
+        pool.release(inflater);
+        assertThat(pool.acquireInflater()).isSameAs(inflater);
+
+        assertThat(pool.getCreatedCount()).isEqualTo(4);
+    }
+
+    /**
+     * Objects released into a full pool should be dropped, with the native memory of those that hold it released immediately.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testReleaseFull() throws Exception {
+        final ArchiveBufferPool pool = new ArchiveBufferPool(1, 16);
+        final Deflater first = pool.acquireDeflater(Deflater.BEST_SPEED);
+        final Deflater second = pool.acquireDeflater(Deflater.BEST_SPEED);
+        pool.release(first);
+        pool.release(second);
+        assertThat(pool.acquireDeflater(Deflater.BEST_SPEED)).isSameAs(first);
+        assertThat(pool.acquireDeflater(Deflater.BEST_SPEED)).isNotSameAs(second);
+        assertThat(pool.getCreatedCount()).isEqualTo(3);
+
+        try {
+            second.setInput(new byte[1]);
+            second.deflate(new byte[16]);
+            throw new AssertionError("An ended deflater should not be usable.");
+        } catch (NullPointerException e) {
+            // The deflater was ended when the full pool rejected it
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Throughput benchmarks for the byte-moving operations of {@link ArchiveUtils}, compared against the plain stream copies they replaced. These are not run as part of the normal build; run them with:
+ * 
+ * <pre>
+ * mvn test -Pbenchmark -Dbenchmark.size.mb=512
+ * </pre>
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ArchiveUtilsBenchmark extends AbstractUnitTest {
+    private static final int MEGABYTE = 1024 * 1024;
+    private final ArchiveUtils archiveUtils = ArchiveUtils.getInstance(new ConsoleLogger(Logger.LEVEL_ERROR, getClass().getSimpleName()));
+    private File sourceFile;
+
+    /**
+     * Write out the data to be moved around by the benchmarks. The data is a mix of random (incompressible) blocks and repetitive (compressible) blocks, roughly resembling a directory of
+     * JARs and configuration files.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        final int sizeInMegabytes = Integer.getInteger("benchmark.size.mb", 256);
+        sourceFile = new File(getTestDirectory(), "source.dat");
+        final Random random = new Random(sizeInMegabytes);
+        final byte[] block = new byte[MEGABYTE];
+        final OutputStream out = new FileOutputStream(sourceFile);
+        try {
+            for (int i = 0; i < sizeInMegabytes; i++) {
+                if (i % 4 == 0) {
+                    for (int j = 0; j < block.length; j++) {
+                        block[j] = (byte) ('a' + (j % 26));
+                    }
+                } else {
+                    random.nextBytes(block);
+                }
+                out.write(block);
+            }
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * Compare the throughput of copying a file into a staging directory.
+     * 
+     * @throws Exception
+     *             If any errors occur during the benchmark.
+     */
+    @Test
+    public void benchmarkCopy() throws Exception {
+        final File destination = new File(getTestDirectory(), "copied.dat");
+        long start = System.nanoTime();
+        final InputStream in = new FileInputStream(sourceFile);
+        final OutputStream out = new FileOutputStream(destination);
+        try {
+            IOUtils.copy(in, out);
+        } finally {
+            IOUtils.closeQuietly(out);
+            IOUtils.closeQuietly(in);
+        }
+        report("copy (IOUtils.copy)", start);
+
+        start = System.nanoTime();
+        FileUtils.copyFile(sourceFile, destination);
+        report("copy (FileUtils.copyFile)", start);
+
+        start = System.nanoTime();
+        archiveUtils.copyFile(sourceFile, destination);
+        report("copy (ArchiveUtils.copyFile, transferTo)", start);
+
+        start = System.nanoTime();
+        archiveUtils.copyFile(sourceFile, destination, ChecksumManifest.newDigest("SHA-256"));
+        report("copy (ArchiveUtils.copyFile, direct buffer + SHA-256)", start);
+    }
+
+    /**
+     * Compare the throughput of GZIP'ing and un-GZIP'ing a file.
+     * 
+     * @throws Exception
+     *             If any errors occur during the benchmark.
+     */
+    @Test
+    public void benchmarkGzip() throws Exception {
+        final File gzipFile = new File(getTestDirectory(), "source.dat.gz");
+        long start = System.nanoTime();
+        InputStream in = new FileInputStream(sourceFile);
+        OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipFile));
+        try {
+            IOUtils.copy(in, out);
+        } finally {
+            IOUtils.closeQuietly(out);
+            IOUtils.closeQuietly(in);
+        }
+        report("gzip (IOUtils.copy)", start);
+        reportSize("gzip (IOUtils.copy)", gzipFile);
+
+        start = System.nanoTime();
+        in = new FileInputStream(sourceFile);
+        out = new GZIPOutputStream(new FileOutputStream(gzipFile)) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        };
+        try {
+            IOUtils.copy(in, out);
+        } finally {
+            IOUtils.closeQuietly(out);
+            IOUtils.closeQuietly(in);
+        }
+        report("gzip (IOUtils.copy, best compression)", start);
+        reportSize("gzip (IOUtils.copy, best compression)", gzipFile);
+
+        start = System.nanoTime();
+        archiveUtils.gzipFile(sourceFile, gzipFile);
+        report("gzip (ArchiveUtils.gzipFile, adaptive)", start);
+        reportSize("gzip (ArchiveUtils.gzipFile, adaptive)", gzipFile);
+
+        final File gunzipped = new File(getTestDirectory(), "gunzipped.dat");
+        start = System.nanoTime();
+        in = new GZIPInputStream(new FileInputStream(gzipFile));
+        out = new FileOutputStream(gunzipped);
+        try {
+            IOUtils.copy(in, out);
+        } finally {
+            IOUtils.closeQuietly(out);
+            IOUtils.closeQuietly(in);
+        }
+        report("gunzip (IOUtils.copy)", start);
+
+        start = System.nanoTime();
+        archiveUtils.gunzipFile(gzipFile, gunzipped);
+        report("gunzip (ArchiveUtils.gunzipFile)", start);
+    }
+
+    /**
+     * Measure the heap allocated by each of many small archive operations, which is dominated by their buffers, {@link Deflater} and {@link java.util.zip.Inflater} objects unless those
+     * are taken from the shared {@link ArchiveBufferPool}.
+     * 
+     * @throws Exception
+     *             If any errors occur during the benchmark.
+     */
+    @Test
+    public void benchmarkAllocation() throws Exception {
+        final File smallFile = new File(getTestDirectory(), "small.dat");
+        final InputStream in = new FileInputStream(sourceFile);
+        try {
+            FileUtils.copyInputStreamToFile(new BoundedInputStream(in, 64 * 1024), smallFile);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        final File gzipFile = new File(getTestDirectory(), "small.dat.gz");
+        final File gunzipped = new File(getTestDirectory(), "small-gunzipped.dat");
+        final File copied = new File(getTestDirectory(), "small-copied.dat");
+        final int iterations = 200;
+        final int createdBefore = ArchiveUtils.BUFFER_POOL.getCreatedCount();
+        final long allocatedBefore = getAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            archiveUtils.gzipFile(smallFile, gzipFile);
+            archiveUtils.gunzipFile(gzipFile, gunzipped);
+            archiveUtils.copyFile(smallFile, copied, ChecksumManifest.newDigest("SHA-256"));
+        }
+        final long allocatedPerIteration = (getAllocatedBytes() - allocatedBefore) / iterations;
+        System.out.println(String.format("%-56s %8d KB/iteration %4d pooled object(s) created", "gzip + gunzip + digested copy of 64 KB", allocatedPerIteration / 1024,
+                ArchiveUtils.BUFFER_POOL.getCreatedCount() - createdBefore));
+    }
+
+    /**
+     * Get the number of bytes allocated on the heap by the current thread.
+     * 
+     * @return The number of bytes allocated by the current thread, as reported by the HotSpot extension of {@link java.lang.management.ThreadMXBean}.
+     */
+    private long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Report the size of the output of an operation over the source file.
+     * 
+     * @param operation
+     *            A description of the operation that was performed.
+     * @param outputFile
+     *            A {@link File} representing the output of the operation.
+     */
+    private void reportSize(String operation, File outputFile) {
+        System.out.println(String.format("%-56s %8.1f MB %8.1f%%", operation, (double) outputFile.length() / MEGABYTE, 100.0 * outputFile.length() / sourceFile.length()));
+    }
+
+    /**
+     * Report the throughput of an operation over the source file.
+     * 
+     * @param operation
+     *            A description of the operation that was performed.
+     * @param startNanos
+     *            The {@link System#nanoTime()} at which the operation started.
+     */
+    private void report(String operation, long startNanos) {
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        final double megabytes = (double) sourceFile.length() / MEGABYTE;
+        System.out.println(String.format("%-56s %8.1f ms %8.1f MB/s", operation, elapsedNanos / 1000000.0, megabytes / (elapsedNanos / 1000000000.0)));
+    }
+}
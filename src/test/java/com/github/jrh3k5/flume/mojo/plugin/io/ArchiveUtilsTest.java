@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.StringUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link ArchiveUtils}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ArchiveUtilsTest extends AbstractUnitTest {
+    private final ArchiveUtils archiveUtils = ArchiveUtils.getInstance(new ConsoleLogger(Logger.LEVEL_ERROR, getClass().getSimpleName()));
+    private File sourceFile;
+    private byte[] sourceBytes;
+
+    /**
+     * Write out a source file of random data for each test.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        sourceBytes = new byte[256 * 1024];
+        new Random(getTestName().hashCode()).nextBytes(sourceBytes);
+        sourceFile = new File(getTestDirectory(), "source.dat");
+        FileUtils.writeByteArrayToFile(sourceFile, sourceBytes);
+    }
+
+    /**
+     * Copying a file without any digests should copy the file contents and its modification time.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCopyFile() throws Exception {
+        assertThat(sourceFile.setLastModified(1000L)).isTrue();
+        final File destination = new File(getTestDirectory(), "nested/destination.dat");
+        assertThat(archiveUtils.copyFile(sourceFile, destination)).isEqualTo(sourceBytes.length);
+        assertThat(FileUtils.readFileToByteArray(destination)).isEqualTo(sourceBytes);
+        assertThat(destination.lastModified()).isEqualTo(sourceFile.lastModified());
+    }
+
+    /**
+     * Copying a file should compute the digest of its contents as it is copied.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCopyFileDigest() throws Exception {
+        final File destination = new File(getTestDirectory(), "nested/destination.dat");
+        final MessageDigest digest = ChecksumManifest.newDigest("SHA-256");
+        assertThat(archiveUtils.copyFile(sourceFile, destination, digest)).isEqualTo(sourceBytes.length);
+        assertThat(FileUtils.readFileToByteArray(destination)).isEqualTo(sourceBytes);
+        assertThat(digest.digest()).isEqualTo(ChecksumManifest.newDigest("SHA-256").digest(sourceBytes));
+    }
+
+    /**
+     * Linking a file should place a file with the contents of its source and compute the digest of those contents.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testLinkFile() throws Exception {
+        final File destination = new File(getTestDirectory(), "nested/linked.dat");
+        FileUtils.deleteQuietly(destination);
+        final MessageDigest digest = ChecksumManifest.newDigest("SHA-256");
+        archiveUtils.linkFile(sourceFile, destination, digest);
+        assertThat(FileUtils.readFileToByteArray(destination)).isEqualTo(sourceBytes);
+        assertThat(digest.digest()).isEqualTo(ChecksumManifest.newDigest("SHA-256").digest(sourceBytes));
+    }
+
+    /**
+     * Linking a file to a location that already exists should fail, as it may be a link whose target would be overwritten.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testLinkFileExists() throws Exception {
+        final File destination = new File(getTestDirectory(), "existing.dat");
+        FileUtils.write(destination, "existing");
+        archiveUtils.linkFile(sourceFile, destination);
+    }
+
+    /**
+     * GZIP'ing a file should compute the digests of the compressed output as it is written.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testGzipFileDigest() throws Exception {
+        final File gzipFile = new File(getTestDirectory(), "source.dat.gz");
+        final MessageDigest sha256 = ChecksumManifest.newDigest("SHA-256");
+        final MessageDigest sha512 = ChecksumManifest.newDigest("SHA-512");
+        archiveUtils.gzipFile(sourceFile, gzipFile, sha256, sha512);
+
+        final byte[] compressed = FileUtils.readFileToByteArray(gzipFile);
+        assertThat(sha256.digest()).isEqualTo(ChecksumManifest.newDigest("SHA-256").digest(compressed));
+        assertThat(sha512.digest()).isEqualTo(ChecksumManifest.newDigest("SHA-512").digest(compressed));
+
+        final File gunzipped = new File(getTestDirectory(), "gunzipped.dat");
+        archiveUtils.gunzipFile(gzipFile, gunzipped);
+        assertThat(FileUtils.readFileToByteArray(gunzipped)).isEqualTo(sourceBytes);
+    }
+
+    /**
+     * Block-GZIP'ing a TAR file should produce a GZIP file that extracts, as a whole, to the original directory, and from which each file - including one whose name is too long for
+     * its TAR header - can be extracted alone through the index.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testBlockGzipTarFile() throws Exception {
+        final File directory = new File(getTestDirectory(), "plugin");
+        FileUtils.deleteDirectory(directory);
+        final byte[] text = new byte[64 * 1024];
+        Arrays.fill(text, (byte) 'a');
+        final String longPath = "conf/" + StringUtils.repeat("nested/", 20) + "flume.conf";
+        FileUtils.writeByteArrayToFile(new File(directory, "lib/library.jar"), sourceBytes);
+        FileUtils.writeByteArrayToFile(new File(directory, longPath), text);
+
+        final File tarFile = new File(getTestDirectory(), "plugin.tar");
+        archiveUtils.tarDirectory(directory, "plugin/", tarFile);
+        final File gzipFile = new File(getTestDirectory(), "plugin.tar.gz");
+        final MessageDigest sha256 = ChecksumManifest.newDigest("SHA-256");
+        final GzipBlockIndex index = archiveUtils.blockGzipTarFile(tarFile, gzipFile, sha256);
+        assertThat(sha256.digest()).isEqualTo(ChecksumManifest.newDigest("SHA-256").digest(FileUtils.readFileToByteArray(gzipFile)));
+
+        final File gunzipped = new File(getTestDirectory(), "gunzipped.tar");
+        archiveUtils.gunzipFile(gzipFile, gunzipped);
+        assertThat(FileUtils.readFileToByteArray(gunzipped)).isEqualTo(FileUtils.readFileToByteArray(tarFile));
+
+        final File indexFile = new File(getTestDirectory(), "plugin.tar.gz.index");
+        index.write(indexFile);
+        final InputStream indexIn = new FileInputStream(indexFile);
+        final GzipBlockIndex readIndex;
+        try {
+            readIndex = GzipBlockIndex.read(indexIn);
+        } finally {
+            indexIn.close();
+        }
+        assertThat(readIndex.getEntries()).hasSize(2);
+
+        final GzipBlockIndex.Entry jarEntry = readIndex.getEntry("plugin/lib/library.jar");
+        assertThat(jarEntry.getSize()).isEqualTo(sourceBytes.length);
+        final File extractedJar = new File(getTestDirectory(), "extracted/library.jar");
+        archiveUtils.extractEntry(gzipFile, jarEntry, extractedJar);
+        assertThat(FileUtils.readFileToByteArray(extractedJar)).isEqualTo(sourceBytes);
+
+        final GzipBlockIndex.Entry confEntry = readIndex.getEntry("plugin/" + longPath);
+        assertThat(confEntry.getLength()).isLessThan(text.length / 10);
+        final File extractedConf = new File(getTestDirectory(), "extracted/flume.conf");
+        archiveUtils.extractEntry(gzipFile, confEntry, extractedConf);
+        assertThat(FileUtils.readFileToByteArray(extractedConf)).isEqualTo(text);
+    }
+
+    /**
+     * ZIP'ing a directory should store files that are already compressed as they are, compress all other files, and compute the digests of the ZIP file, which should then extract to
+     * the original directory.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testZipDirectory() throws Exception {
+        final File directory = new File(getTestDirectory(), "plugin");
+        FileUtils.deleteDirectory(directory);
+        final File jarFile = new File(directory, "lib/library.jar");
+        FileUtils.forceMkdir(jarFile.getParentFile());
+        final JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile));
+        try {
+            jar.putNextEntry(new ZipEntry("source.dat"));
+            jar.write(sourceBytes);
+        } finally {
+            jar.close();
+        }
+        final byte[] text = new byte[64 * 1024];
+        Arrays.fill(text, (byte) 'a');
+        FileUtils.writeByteArrayToFile(new File(directory, "conf/flume.conf"), text);
+
+        final File zipFile = new File(getTestDirectory(), "plugin.zip");
+        final MessageDigest sha256 = ChecksumManifest.newDigest("SHA-256");
+        archiveUtils.zipDirectory(directory, "plugin/", zipFile, sha256);
+        assertThat(sha256.digest()).isEqualTo(ChecksumManifest.newDigest("SHA-256").digest(FileUtils.readFileToByteArray(zipFile)));
+
+        final ZipFile zip = new ZipFile(zipFile);
+        try {
+            final ZipEntry jarEntry = zip.getEntry("plugin/lib/library.jar");
+            assertThat(jarEntry.getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(jarEntry.getSize()).isEqualTo(jarFile.length());
+            final ZipEntry confEntry = zip.getEntry("plugin/conf/flume.conf");
+            assertThat(confEntry.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+            assertThat(confEntry.getCompressedSize()).isLessThan(text.length / 10);
+            final InputStream confStream = zip.getInputStream(confEntry);
+            try {
+                assertThat(IOUtils.toByteArray(confStream)).isEqualTo(text);
+            } finally {
+                confStream.close();
+            }
+        } finally {
+            zip.close();
+        }
+
+        final File extracted = new File(getTestDirectory(), "extracted");
+        FileUtils.deleteDirectory(extracted);
+        archiveUtils.unzipFile(zipFile, extracted);
+        assertThat(FileUtils.readFileToByteArray(new File(extracted, "plugin/lib/library.jar"))).isEqualTo(FileUtils.readFileToByteArray(jarFile));
+        assertThat(FileUtils.readFileToByteArray(new File(extracted, "plugin/conf/flume.conf"))).isEqualTo(text);
+    }
+}
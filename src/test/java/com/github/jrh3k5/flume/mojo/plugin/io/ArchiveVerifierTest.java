@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+import com.github.jrh3k5.flume.mojo.plugin.cds.ClassListGenerator;
+
+/**
+ * Unit tests for {@link ArchiveVerifier}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ArchiveVerifierTest extends AbstractUnitTest {
+    private final ArchiveUtils archiveUtils = ArchiveUtils.getInstance(new ConsoleLogger(Logger.LEVEL_ERROR, getClass().getSimpleName()));
+    private final ArchiveVerifier verifier = new ArchiveVerifier(2);
+    private File pluginDirectory;
+    private File tarFile;
+    private File gzipFile;
+
+    /**
+     * Stage a plugin of a primary library and its dependencies - one of which has a name long enough to require a GNU long name in the TAR file - for each test.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        pluginDirectory = new File(getTestDirectory(), "test-plugin");
+        FileUtils.deleteDirectory(pluginDirectory);
+        tarFile = new File(getTestDirectory(), "test-plugin.tar");
+        gzipFile = new File(getTestDirectory(), "test-plugin.tar.gz");
+        FileUtils.deleteQuietly(new File(gzipFile.getPath() + ".sha256"));
+
+        FileUtils.writeByteArrayToFile(new File(pluginDirectory, "lib/test-plugin.jar"), createJar(10));
+        FileUtils.writeByteArrayToFile(new File(pluginDirectory, "libext/dependency.jar"), createJar(100));
+        final char[] longName = new char[120];
+        Arrays.fill(longName, 'a');
+        FileUtils.writeByteArrayToFile(new File(pluginDirectory, "libext/" + new String(longName) + ".jar"), createJar(5));
+    }
+
+    /**
+     * An intact assembly should pass verification.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerify() throws Exception {
+        writeManifest();
+        writeAssembly();
+        assertThat(verifier.verify(gzipFile)).isEmpty();
+    }
+
+    /**
+     * An intact assembly whose plugin has no manifest should pass verification, but with a warning that its libraries were not compared against those packaged into it.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerifyWithoutManifest() throws Exception {
+        writeAssembly();
+        final List<String> warnings = new ArrayList<String>();
+        assertThat(verifier.verify(gzipFile, warnings)).isEmpty();
+        assertThat(warnings).containsOnly("The plugin test-plugin contains no plugin.manifest, so its libraries were not compared against those packaged into it.");
+    }
+
+    /**
+     * An assembly that has been truncated should fail verification.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerifyTruncated() throws Exception {
+        writeManifest();
+        writeAssembly();
+        final byte[] assembly = FileUtils.readFileToByteArray(gzipFile);
+        FileUtils.writeByteArrayToFile(gzipFile, Arrays.copyOf(assembly, assembly.length / 2));
+
+        final List<String> problems = verifier.verify(gzipFile);
+        assertThat(problems).hasSize(1);
+        assertThat(problems.get(0)).startsWith("The assembly could not be read");
+    }
+
+    /**
+     * An assembly whose bytes do not match those recorded in the {@code .sha256} file alongside it should fail verification.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerifySidecarMismatch() throws Exception {
+        writeManifest();
+        writeAssembly();
+        final File sidecar = new File(gzipFile.getPath() + ".sha256");
+        ChecksumManifest.writeSidecar(gzipFile, new byte[32], sidecar);
+
+        final List<String> problems = verifier.verify(gzipFile);
+        assertThat(problems).hasSize(1);
+        assertThat(problems.get(0)).contains(sidecar.getName());
+    }
+
+    /**
+     * An assembly with a corrupt TAR header should fail verification.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerifyCorruptHeader() throws Exception {
+        writeManifest();
+        archiveUtils.tarDirectory(pluginDirectory, "test-plugin/", tarFile);
+        final byte[] tar = FileUtils.readFileToByteArray(tarFile);
+        tar[0] ^= 0x01;
+        FileUtils.writeByteArrayToFile(tarFile, tar);
+        archiveUtils.gzipFile(tarFile, gzipFile);
+
+        assertThat(verifier.verify(gzipFile)).containsOnly("The TAR header at offset 0 is corrupt.");
+    }
+
+    /**
+     * A library that is not a valid JAR should fail verification even when there is no manifest against which to compare it.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerifyCorruptLibrary() throws Exception {
+        final File dependency = new File(pluginDirectory, "libext/dependency.jar");
+        final byte[] jar = FileUtils.readFileToByteArray(dependency);
+        FileUtils.writeByteArrayToFile(dependency, Arrays.copyOf(jar, jar.length - 30));
+        writeAssembly();
+
+        final List<String> problems = verifier.verify(gzipFile);
+        assertThat(problems).hasSize(1);
+        assertThat(problems.get(0)).startsWith("The library test-plugin/libext/dependency.jar is corrupt");
+    }
+
+    /**
+     * Libraries that differ from those recorded in the manifest of the assembly should fail verification.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerifyManifestMismatch() throws Exception {
+        writeManifest();
+        FileUtils.writeByteArrayToFile(new File(pluginDirectory, "libext/dependency.jar"), createJar(101));
+        FileUtils.writeByteArrayToFile(new File(pluginDirectory, "libext/unlisted.jar"), createJar(1));
+        FileUtils.forceDelete(new File(pluginDirectory, "lib/test-plugin.jar"));
+        FileUtils.writeByteArrayToFile(new File(pluginDirectory, "lib/other-plugin.jar"), createJar(1));
+        writeAssembly();
+
+        final List<String> problems = verifier.verify(gzipFile);
+        assertThat(problems).hasSize(4);
+        assertThat(problems).contains("The library test-plugin/lib/test-plugin.jar is listed in test-plugin/plugin.manifest but is missing from the assembly.",
+                "The library test-plugin/libext/unlisted.jar is not listed in test-plugin/plugin.manifest.",
+                "The library test-plugin/lib/other-plugin.jar is not listed in test-plugin/plugin.manifest.");
+    }
+
+    /**
+     * The class list of a plugin should be accepted, and verified against the manifest like a library.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerifyClassList() throws Exception {
+        final File classListFile = new File(pluginDirectory, ClassListGenerator.FILENAME);
+        FileUtils.writeStringToFile(classListFile, "com/github/jrh3k5/Plugin\n", "UTF-8");
+        writeManifest();
+        writeAssembly();
+        assertThat(verifier.verify(gzipFile)).isEmpty();
+
+        FileUtils.writeStringToFile(classListFile, "com/github/jrh3k5/Plugon\n", "UTF-8");
+        writeAssembly();
+        assertThat(verifier.verify(gzipFile)).containsOnly(
+                "The SHA-256 checksum of the file test-plugin/plugin.classlist does not match the checksum recorded in test-plugin/plugin.manifest.");
+    }
+
+    /**
+     * Each plugin of a bundle should be verified against its own manifest, and a plugin without a library in lib/ should fail verification.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerifyBundle() throws Exception {
+        writeManifest();
+        final File bundleDirectory = new File(getTestDirectory(), "bundle");
+        FileUtils.deleteDirectory(bundleDirectory);
+        FileUtils.copyDirectory(pluginDirectory, new File(bundleDirectory, "first-plugin"));
+        FileUtils.writeByteArrayToFile(new File(pluginDirectory, "libext/dependency.jar"), createJar(101));
+        FileUtils.copyDirectory(pluginDirectory, new File(bundleDirectory, "second-plugin"));
+        FileUtils.writeByteArrayToFile(new File(bundleDirectory, "empty-plugin/libext/dependency.jar"), createJar(1));
+
+        archiveUtils.tarDirectory(bundleDirectory, tarFile);
+        archiveUtils.gzipFile(tarFile, gzipFile);
+        final List<String> problems = verifier.verify(gzipFile);
+        assertThat(problems).hasSize(2);
+        assertThat(problems.remove("The plugin empty-plugin contains no library in lib/.")).isTrue();
+        assertThat(problems.get(0)).startsWith("The library second-plugin/libext/dependency.jar is ").endsWith(" but second-plugin/plugin.manifest records "
+                + new File(bundleDirectory, "first-plugin/libext/dependency.jar").length() + " bytes.");
+    }
+
+    /**
+     * An intact ZIP assembly should pass verification, and one with a damaged library should not.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerifyZip() throws Exception {
+        writeManifest();
+        final File zipFile = new File(getTestDirectory(), "test-plugin.zip");
+        archiveUtils.zipDirectory(pluginDirectory, "test-plugin/", zipFile);
+        assertThat(verifier.verify(zipFile)).isEmpty();
+
+        // The libraries are stored uncompressed, so flipping a byte of the last one damages it without damaging the ZIP itself
+        final byte[] zip = FileUtils.readFileToByteArray(zipFile);
+        final int directoryOffset = (zip[zip.length - 6] & 0xFF) | (zip[zip.length - 5] & 0xFF) << 8 | (zip[zip.length - 4] & 0xFF) << 16 | (zip[zip.length - 3] & 0xFF) << 24;
+        zip[directoryOffset - 1] ^= 0x01;
+        FileUtils.writeByteArrayToFile(zipFile, zip);
+        final List<String> problems = verifier.verify(zipFile);
+        assertThat(problems).hasSize(1);
+        assertThat(problems.get(0)).startsWith("The assembly could not be read");
+    }
+
+    /**
+     * A ZIP assembly written as a stream, whose entries do not record their sizes ahead of their data, should pass verification, with each entry of unknown size reserving - and then
+     * releasing - its share of the bytes that may be held in memory.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testVerifyStreamedZip() throws Exception {
+        writeManifest();
+        final File zipFile = new File(getTestDirectory(), "test-plugin-streamed.zip");
+        final ZipOutputStream zipStream = new ZipOutputStream(new FileOutputStream(zipFile));
+        try {
+            for (File file : FileUtils.listFiles(pluginDirectory, null, true)) {
+                final String path = pluginDirectory.toURI().relativize(file.toURI()).getPath();
+                zipStream.putNextEntry(new ZipEntry("test-plugin/" + path));
+                FileUtils.copyFile(file, zipStream);
+                zipStream.closeEntry();
+            }
+        } finally {
+            zipStream.close();
+        }
+        assertThat(new ArchiveVerifier(1).verify(zipFile)).isEmpty();
+    }
+
+    /**
+     * Checking the ZIP structure of a JAR should find a JAR missing its central directory or whose central directory is damaged.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCheckZip() throws Exception {
+        final byte[] jar = createJar(20);
+        assertThat(ArchiveVerifier.checkZip(jar)).isNull();
+        assertThat(ArchiveVerifier.checkZip(Arrays.copyOf(jar, jar.length / 2))).contains("no ZIP central directory");
+
+        // Damage the signature of the first entry of the central directory, which is located by the last 22 bytes of the JAR
+        final byte[] damaged = jar.clone();
+        final int directoryOffset = (damaged[jar.length - 6] & 0xFF) | (damaged[jar.length - 5] & 0xFF) << 8 | (damaged[jar.length - 4] & 0xFF) << 16 | (damaged[jar.length - 3] & 0xFF) << 24;
+        damaged[directoryOffset] = 0;
+        assertThat(ArchiveVerifier.checkZip(damaged)).isEqualTo("entry 1 of 21 of the ZIP central directory is corrupt");
+    }
+
+    /**
+     * Create a JAR.
+     * 
+     * @param entryCount
+     *            The number of entries, beyond its manifest, to be written into the JAR.
+     * @return The contents of the JAR.
+     * @throws Exception
+     *             If any errors occur while creating the JAR.
+     */
+    private byte[] createJar(int entryCount) throws Exception {
+        final Random random = new Random(entryCount);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final JarOutputStream jar = new JarOutputStream(bytes, new Manifest());
+        try {
+            for (int i = 0; i < entryCount; i++) {
+                jar.putNextEntry(new ZipEntry(String.format("com/example/Class%d.class", i)));
+                final byte[] data = new byte[random.nextInt(4096)];
+                random.nextBytes(data);
+                jar.write(data);
+                jar.closeEntry();
+            }
+        } finally {
+            jar.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Write a manifest of the libraries - and class list, if any - currently in the plugin into the plugin.
+     * 
+     * @throws Exception
+     *             If any errors occur while writing the manifest.
+     */
+    private void writeManifest() throws Exception {
+        final ChecksumManifest manifest = new ChecksumManifest();
+        for (String directory : new String[] { "lib", "libext" }) {
+            for (File library : new File(pluginDirectory, directory).listFiles()) {
+                final MessageDigest digest = ChecksumManifest.newDigest("SHA-256");
+                manifest.add(directory + "/" + library.getName(), library.length(), ChecksumManifest.toHex(digest.digest(FileUtils.readFileToByteArray(library))));
+            }
+        }
+        final File classListFile = new File(pluginDirectory, ClassListGenerator.FILENAME);
+        if (classListFile.isFile()) {
+            manifest.add(ClassListGenerator.FILENAME, classListFile.length(), ChecksumManifest.computeSha256(classListFile));
+        }
+        manifest.write(new File(pluginDirectory, ChecksumManifest.FILENAME));
+    }
+
+    /**
+     * Assemble the plugin, writing a {@code .sha256} file alongside it.
+     * 
+     * @throws Exception
+     *             If any errors occur while assembling the plugin.
+     */
+    private void writeAssembly() throws Exception {
+        archiveUtils.tarDirectory(pluginDirectory, "test-plugin/", tarFile);
+        final MessageDigest sha256 = ChecksumManifest.newDigest("SHA-256");
+        archiveUtils.gzipFile(tarFile, gzipFile, sha256);
+        ChecksumManifest.writeSidecar(gzipFile, sha256.digest(), new File(gzipFile.getPath() + ".sha256"));
+    }
+}
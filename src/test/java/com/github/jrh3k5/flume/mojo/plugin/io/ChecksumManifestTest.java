@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link ChecksumManifest}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class ChecksumManifestTest extends AbstractUnitTest {
+    /**
+     * A written manifest should be able to be read back.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWriteAndRead() throws Exception {
+        final ChecksumManifest manifest = new ChecksumManifest();
+        manifest.add("lib/plugin.jar", 1024, "abc123");
+        manifest.add("libext/dependency with spaces.jar", 2048, "def456");
+        manifest.add("libext/removed.jar", 1, "000000");
+        assertThat(manifest.remove("libext/removed.jar")).isTrue();
+
+        final File manifestFile = new File(getTestDirectory(), ChecksumManifest.FILENAME);
+        manifest.write(manifestFile);
+
+        final InputStream manifestIn = new FileInputStream(manifestFile);
+        ChecksumManifest read;
+        try {
+            read = ChecksumManifest.read(manifestIn);
+        } finally {
+            IOUtils.closeQuietly(manifestIn);
+        }
+        assertThat(read.getEntries()).hasSize(2);
+        assertThat(read.getEntry("libext/removed.jar")).isNull();
+
+        final ChecksumManifest.Entry entry = read.getEntry("libext/dependency with spaces.jar");
+        assertThat(entry.getSize()).isEqualTo(2048);
+        assertThat(entry.getSha256()).isEqualTo("def456");
+    }
+
+    /**
+     * A sidecar file should follow the format of {@code sha256sum}.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testWriteSidecar() throws Exception {
+        final File sidecar = new File(getTestDirectory(), "archive.tar.gz.sha256");
+        ChecksumManifest.writeSidecar(new File("archive.tar.gz"), new byte[] { 0x0F, (byte) 0xA0 }, sidecar);
+        assertThat(FileUtils.readFileToString(sidecar, "UTF-8")).isEqualTo("0fa0  archive.tar.gz\n");
+    }
+}
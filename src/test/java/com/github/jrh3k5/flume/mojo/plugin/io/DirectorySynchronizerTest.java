@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link DirectorySynchronizer}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class DirectorySynchronizerTest extends AbstractUnitTest {
+    private final ArchiveUtils archiveUtils = ArchiveUtils.getInstance(new ConsoleLogger(Logger.LEVEL_ERROR, getClass().getSimpleName()));
+    private File sourceDirectory;
+    private File directory;
+    private File stateFile;
+
+    /**
+     * Set up the source and synchronized directories for each test.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        sourceDirectory = new File(getTestDirectory(), "source");
+        directory = new File(getTestDirectory(), "synchronized");
+        stateFile = new File(getTestDirectory(), "synchronized.state");
+        FileUtils.deleteDirectory(sourceDirectory);
+        FileUtils.deleteDirectory(directory);
+        FileUtils.deleteQuietly(stateFile);
+    }
+
+    /**
+     * A file whose source is unchanged since the last synchronization should not be copied again, and its recorded checksum should be reused.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSyncUnchanged() throws Exception {
+        final File source = writeSource("unchanged.jar", "unchanged");
+        final DirectorySynchronizer first = DirectorySynchronizer.open(archiveUtils, directory, stateFile, true);
+        final String sha256 = first.sync(source, "lib/unchanged.jar").getSha256();
+        first.writeState();
+        assertThat(first.getCopiedCount()).isEqualTo(1);
+        assertThat(sha256).isEqualTo(ChecksumManifest.toHex(ChecksumManifest.newDigest("SHA-256").digest("unchanged".getBytes("UTF-8"))));
+
+        final DirectorySynchronizer second = DirectorySynchronizer.open(archiveUtils, directory, stateFile, true);
+        assertThat(second.sync(source, "lib/unchanged.jar").getSha256()).isEqualTo(sha256);
+        assertThat(second.getCopiedCount()).isZero();
+        assertThat(second.getUnchangedCount()).isEqualTo(1);
+    }
+
+    /**
+     * A file whose source has changed since the last synchronization should be copied again.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSyncChanged() throws Exception {
+        final File source = writeSource("changed.jar", "before");
+        final DirectorySynchronizer first = DirectorySynchronizer.open(archiveUtils, directory, stateFile, true);
+        first.sync(source, "lib/changed.jar");
+        first.writeState();
+
+        FileUtils.write(source, "after, and longer");
+        final DirectorySynchronizer second = DirectorySynchronizer.open(archiveUtils, directory, stateFile, true);
+        second.sync(source, "lib/changed.jar");
+        assertThat(second.getCopiedCount()).isEqualTo(1);
+        assertThat(FileUtils.readFileToString(new File(directory, "lib/changed.jar"))).isEqualTo("after, and longer");
+    }
+
+    /**
+     * If the state of the previous synchronization was not written, such as when a build fails, every file should be copied again.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSyncWithoutState() throws Exception {
+        final File source = writeSource("unchanged.jar", "unchanged");
+        final DirectorySynchronizer first = DirectorySynchronizer.open(archiveUtils, directory, stateFile, true);
+        first.sync(source, "lib/unchanged.jar");
+        first.writeState();
+
+        final DirectorySynchronizer failed = DirectorySynchronizer.open(archiveUtils, directory, stateFile, true);
+        failed.sync(source, "lib/unchanged.jar");
+        failed.sync(writeSource("partial.jar", "partial"), "libext/partial.jar");
+
+        final DirectorySynchronizer second = DirectorySynchronizer.open(archiveUtils, directory, stateFile, true);
+        second.sync(source, "lib/unchanged.jar");
+        assertThat(second.getCopiedCount()).isEqualTo(1);
+        // A file placed by the failed synchronization is still known to have been placed by a synchronization
+        assertThat(second.removeStale()).containsOnly("libext/partial.jar");
+    }
+
+    /**
+     * A file whose source has the same size and modification time as when it was last copied should be trusted to be unchanged and keep its recorded checksum, so that the source is not
+     * read to compute it again.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSyncTrustsRecordedChecksum() throws Exception {
+        final File source = writeSource("rewritten.jar", "before");
+        final DirectorySynchronizer first = DirectorySynchronizer.open(archiveUtils, directory, stateFile, true);
+        final String sha256 = first.sync(source, "lib/rewritten.jar").getSha256();
+        first.writeState();
+
+        final long modified = source.lastModified();
+        FileUtils.write(source, "after!");
+        assertThat(source.setLastModified(modified)).isTrue();
+        final DirectorySynchronizer second = DirectorySynchronizer.open(archiveUtils, directory, stateFile, true);
+        assertThat(second.sync(source, "lib/rewritten.jar").getSha256()).isEqualTo(sha256);
+        assertThat(second.getCopiedCount()).isZero();
+    }
+
+    /**
+     * Files placed by the previous synchronization but not synchronized since the synchronizer was opened should be removed, and files not placed by a synchronization should be left alone.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testRemoveStale() throws Exception {
+        final File kept = writeSource("kept.jar", "kept");
+        final DirectorySynchronizer first = DirectorySynchronizer.open(archiveUtils, directory, stateFile, false);
+        first.sync(kept, "libext/kept.jar");
+        first.sync(writeSource("removed.jar", "removed"), "libext/removed.jar");
+        first.writeState();
+        FileUtils.write(new File(directory, "untracked.txt"), "untracked");
+
+        final DirectorySynchronizer second = DirectorySynchronizer.open(archiveUtils, directory, stateFile, false);
+        assertThat(second.sync(kept, "libext/kept.jar").getSha256()).isNull();
+        assertThat(second.removeStale()).containsOnly("libext/removed.jar");
+        assertThat(new File(directory, "libext").list()).containsOnly("kept.jar");
+        assertThat(FileUtils.readFileToString(new File(directory, "untracked.txt"))).isEqualTo("untracked");
+    }
+
+    /**
+     * A synchronizer linking its files should replace, rather than write through, a file that is linked to a previous source, so that the previous source is left untouched.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testSyncLinked() throws Exception {
+        final File original = writeSource("original.jar", "original");
+        final DirectorySynchronizer first = DirectorySynchronizer.open(archiveUtils, directory, stateFile, true, true);
+        final String sha256 = first.sync(original, "libext/library.jar").getSha256();
+        first.writeState();
+        assertThat(sha256).isEqualTo(ChecksumManifest.toHex(ChecksumManifest.newDigest("SHA-256").digest("original".getBytes("UTF-8"))));
+        assertThat(FileUtils.readFileToString(new File(directory, "libext/library.jar"))).isEqualTo("original");
+
+        final DirectorySynchronizer second = DirectorySynchronizer.open(archiveUtils, directory, stateFile, false, true);
+        final DirectorySynchronizer.Entry entry = second.sync(writeSource("replacement.jar", "replacement"), "libext/library.jar");
+        assertThat(entry.getSize()).isEqualTo("replacement".length());
+        assertThat(second.getCopiedCount()).isEqualTo(1);
+        assertThat(FileUtils.readFileToString(new File(directory, "libext/library.jar"))).isEqualTo("replacement");
+        assertThat(FileUtils.readFileToString(original)).isEqualTo("original");
+    }
+
+    /**
+     * Write a source file.
+     * 
+     * @param filename
+     *            The name of the file to be written.
+     * @param contents
+     *            The contents of the file.
+     * @return A {@link File} representing the written file.
+     * @throws Exception
+     *             If any errors occur while writing the file.
+     */
+    private File writeSource(String filename, String contents) throws Exception {
+        final File source = new File(sourceDirectory, filename);
+        FileUtils.write(source, contents);
+        return source;
+    }
+}
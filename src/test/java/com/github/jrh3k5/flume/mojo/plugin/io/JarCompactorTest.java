@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link JarCompactor}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class JarCompactorTest extends AbstractUnitTest {
+    private File cacheDirectory;
+    private File jarFile;
+
+    /**
+     * Write out a JAR carrying runtime classes alongside entries of no use at runtime for each test.
+     * 
+     * @throws Exception
+     *             If any errors occur during the setup.
+     */
+    @Before
+    public void setUp() throws Exception {
+        cacheDirectory = new File(getTestDirectory(), "cache");
+        FileUtils.deleteDirectory(cacheDirectory);
+
+        jarFile = new File(getTestDirectory(), "library.jar");
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        final JarOutputStream jarOut = new JarOutputStream(new FileOutputStream(jarFile), manifest);
+        try {
+            jarOut.setLevel(Deflater.NO_COMPRESSION);
+            writeEntry(jarOut, "META-INF/LIBRARY.SF", "signature");
+            writeEntry(jarOut, "META-INF/maven/com.example/library/pom.xml", "<project />");
+            writeEntry(jarOut, "com/example/Library.class", "library");
+            writeEntry(jarOut, "com/example/Library.java", "public class Library {}");
+        } finally {
+            IOUtils.closeQuietly(jarOut);
+        }
+    }
+
+    /**
+     * Compaction should remove the excluded entries, keeping the manifest first, and recompress the remaining entries.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCompact() throws Exception {
+        final JarCompactor compactor = new JarCompactor(cacheDirectory, JarCompactor.DEFAULT_EXCLUDES, Deflater.BEST_COMPRESSION);
+        final File compacted = compactor.compact(jarFile);
+        assertThat(compacted.getParentFile()).isEqualTo(cacheDirectory);
+        assertThat(compacted.length()).isLessThan(jarFile.length());
+        assertThat(compactor.getCompactedCount()).isEqualTo(1);
+        assertThat(compactor.getSavedBytes()).isEqualTo(jarFile.length() - compacted.length());
+
+        final JarFile compactedJar = new JarFile(compacted);
+        try {
+            assertThat(compactedJar.getManifest()).isNotNull();
+            final List<String> entryNames = new ArrayList<String>();
+            final Enumeration<JarEntry> entries = compactedJar.entries();
+            while (entries.hasMoreElements()) {
+                entryNames.add(entries.nextElement().getName());
+            }
+            assertThat(entryNames).containsExactly(JarFile.MANIFEST_NAME, "com/example/Library.class");
+            assertThat(IOUtils.toString(compactedJar.getInputStream(compactedJar.getEntry("com/example/Library.class")))).isEqualTo("library");
+        } finally {
+            compactedJar.close();
+        }
+        assertThat(FileUtils.listFiles(cacheDirectory, null, false)).containsOnly(compacted);
+    }
+
+    /**
+     * A JAR already compacted with the same configuration should be found in the cache, while a change to the configuration should compact it again.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCompactCached() throws Exception {
+        final File compacted = new JarCompactor(cacheDirectory, JarCompactor.DEFAULT_EXCLUDES, Deflater.DEFAULT_COMPRESSION).compact(jarFile);
+        final long compactedModified = compacted.lastModified();
+
+        final JarCompactor cachedCompactor = new JarCompactor(cacheDirectory, JarCompactor.DEFAULT_EXCLUDES, Deflater.DEFAULT_COMPRESSION);
+        assertThat(cachedCompactor.compact(jarFile)).isEqualTo(compacted);
+        assertThat(cachedCompactor.getCachedCount()).isEqualTo(1);
+        assertThat(cachedCompactor.getCompactedCount()).isZero();
+        assertThat(cachedCompactor.getSavedBytes()).isEqualTo(jarFile.length() - compacted.length());
+        assertThat(compacted.lastModified()).isEqualTo(compactedModified);
+
+        final JarCompactor reconfiguredCompactor = new JarCompactor(cacheDirectory, Collections.singletonList("**/*.java"), Deflater.DEFAULT_COMPRESSION);
+        assertThat(reconfiguredCompactor.compact(jarFile)).isNotEqualTo(compacted);
+        assertThat(reconfiguredCompactor.getCompactedCount()).isEqualTo(1);
+    }
+
+    /**
+     * Write an entry into a JAR.
+     * 
+     * @param jarOut
+     *            The {@link JarOutputStream} to which the entry is to be written.
+     * @param name
+     *            The name of the entry.
+     * @param contents
+     *            The contents of the entry.
+     * @throws Exception
+     *             If any errors occur while writing the entry.
+     */
+    private void writeEntry(JarOutputStream jarOut, String name, String contents) throws Exception {
+        jarOut.putNextEntry(new ZipEntry(name));
+        jarOut.write(contents.getBytes("UTF-8"));
+        jarOut.closeEntry();
+    }
+}
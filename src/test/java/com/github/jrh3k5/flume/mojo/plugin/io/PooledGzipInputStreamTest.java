@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.io;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link PooledGzipInputStream}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class PooledGzipInputStreamTest extends AbstractUnitTest {
+    /**
+     * A series of GZIP members, with and without optional header fields, should be read as a single stream, with the inflater and buffer returned to the pool when the stream is closed.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testReadMembers() throws Exception {
+        final byte[] first = new byte[100 * 1024];
+        new Random(first.length).nextBytes(first);
+        final byte[] second = "second member".getBytes("UTF-8");
+
+        final ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        final GZIPOutputStream firstOut = new GZIPOutputStream(gzipped);
+        firstOut.write(first);
+        firstOut.finish();
+        // A member naming its file, with a header checksum, as written by gzip -N
+        gzipped.write(new byte[] { 0x1f, (byte) 0x8b, 8, 8 | 2, 0, 0, 0, 0, 0, 3 });
+        gzipped.write("second.txt\0".getBytes("UTF-8"));
+        final CRC32 headerCrc = new CRC32();
+        headerCrc.update(gzipped.toByteArray(), gzipped.size() - 21, 21);
+        gzipped.write((int) headerCrc.getValue() & 0xFF);
+        gzipped.write(((int) headerCrc.getValue() >> 8) & 0xFF);
+        final ByteArrayOutputStream secondMember = new ByteArrayOutputStream();
+        final GZIPOutputStream secondOut = new GZIPOutputStream(secondMember);
+        secondOut.write(second);
+        secondOut.close();
+        // The JDK writes a header without optional fields, which is replaced by the one above
+        gzipped.write(secondMember.toByteArray(), 10, secondMember.size() - 10);
+
+        final ArchiveBufferPool pool = new ArchiveBufferPool(1, 4096);
+        final PooledGzipInputStream zipIn = new PooledGzipInputStream(new ByteArrayInputStream(gzipped.toByteArray()), pool);
+        final ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+        try {
+            IOUtils.copy(zipIn, unzipped);
+        } finally {
+            zipIn.close();
+        }
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(first);
+        expected.write(second);
+        assertThat(unzipped.toByteArray()).isEqualTo(expected.toByteArray());
+
+        pool.acquireInflater();
+        pool.acquireArray();
+        assertThat(pool.getCreatedCount()).isEqualTo(2);
+    }
+
+    /**
+     * A member whose data does not match its trailer should fail the read.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test(expected = ZipException.class)
+    public void testReadCorruptTrailer() throws Exception {
+        final ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        final GZIPOutputStream gzipOut = new GZIPOutputStream(gzipped);
+        gzipOut.write("corrupt".getBytes("UTF-8"));
+        gzipOut.close();
+        final byte[] bytes = gzipped.toByteArray();
+        bytes[bytes.length - 8] ^= 0xFF;
+
+        final PooledGzipInputStream zipIn = new PooledGzipInputStream(new ByteArrayInputStream(bytes), new ArchiveBufferPool(1, 4096));
+        try {
+            IOUtils.toByteArray(zipIn);
+        } finally {
+            zipIn.close();
+        }
+    }
+}
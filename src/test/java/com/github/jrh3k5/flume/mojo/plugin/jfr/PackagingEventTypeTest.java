@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.jfr;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assume.assumeNoException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link PackagingEventType}. The plugin is built for JVMs that predate the Flight Recorder API, so recordings are made reflectively; these tests are skipped on a JVM without
+ * it.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class PackagingEventTypeTest extends AbstractUnitTest {
+    /**
+     * While no recording is running, beginning an event should return an event that does nothing.
+     */
+    @Test
+    public void testBeginWithoutRecording() {
+        assertThat(PackagingEventType.COPY_FILE.begin()).isSameAs(PackagingEvent.NONE);
+    }
+
+    /**
+     * While a recording of an event type is running, committed events should appear in the recording.
+     * 
+     * @throws Exception
+     *             If any errors occur during the test run.
+     */
+    @Test
+    public void testCommit() throws Exception {
+        final Class<?> recordingClass = getFlightRecorderClass("jdk.jfr.Recording");
+        final Class<?> pathClass = getFlightRecorderClass("java.nio.file.Path");
+        final Object recording = recordingClass.newInstance();
+        recordingClass.getMethod("enable", String.class).invoke(recording, PackagingEventType.COPY_FILE.getName());
+        recordingClass.getMethod("disable", String.class).invoke(recording, PackagingEventType.TAR_ENTRY.getName());
+        recordingClass.getMethod("start").invoke(recording);
+        try {
+            final PackagingEvent event = PackagingEventType.COPY_FILE.begin();
+            assertThat(event).isNotSameAs(PackagingEvent.NONE);
+            event.commit("libext/test.jar", 1234);
+            // Disabled in the recording
+            assertThat(PackagingEventType.TAR_ENTRY.begin()).isSameAs(PackagingEvent.NONE);
+        } finally {
+            recordingClass.getMethod("stop").invoke(recording);
+        }
+
+        final Object recordingPath = File.class.getMethod("toPath").invoke(new File(getTestDirectory(), "recording.jfr"));
+        try {
+            recordingClass.getMethod("dump", pathClass).invoke(recording, recordingPath);
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+        }
+        assertThat(PackagingEventType.COPY_FILE.begin()).isSameAs(PackagingEvent.NONE);
+
+        final List<String> recorded = new ArrayList<String>();
+        for (Object recordedEvent : (List<?>) getFlightRecorderClass("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", pathClass).invoke(null, recordingPath)) {
+            final Class<?> recordedEventClass = getFlightRecorderClass("jdk.jfr.consumer.RecordedEvent");
+            final Object eventType = recordedEventClass.getMethod("getEventType").invoke(recordedEvent);
+            if (PackagingEventType.COPY_FILE.getName().equals(eventType.getClass().getMethod("getName").invoke(eventType))) {
+                recorded.add(recordedEventClass.getMethod("getString", String.class).invoke(recordedEvent, "path") + "="
+                        + recordedEventClass.getMethod("getLong", String.class).invoke(recordedEvent, "bytes"));
+            }
+        }
+        assertThat(recorded).containsOnly("libext/test.jar=1234");
+    }
+
+    /**
+     * Load a class of the Flight Recorder API, skipping the test if the running JVM does not support it.
+     * 
+     * @param className
+     *            The name of the class to be loaded.
+     * @return The loaded {@link Class}.
+     */
+    private Class<?> getFlightRecorderClass(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            assumeNoException(e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jrh3k5.flume.mojo.plugin.jfr;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.jrh3k5.flume.mojo.internal.AbstractUnitTest;
+
+/**
+ * Unit tests for {@link PeakHeapMeter}.
+ * 
+ * @author Joshua Hyde
+ * @since 1.2
+ */
+
+public class PeakHeapMeterTest extends AbstractUnitTest {
+    /**
+     * Memory held while the meter runs should be counted in its peak, and metering should leave the peak use recorded by each of the JVM's heap memory pools untouched.
+     */
+    @Test
+    public void testGetPeakHeap() {
+        final Map<String, Long> poolPeaks = new HashMap<String, Long>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                poolPeaks.put(pool.getName(), Long.valueOf(pool.getPeakUsage().getUsed()));
+            }
+        }
+
+        final PeakHeapMeter meter = PeakHeapMeter.start();
+        final byte[] held = new byte[8 * 1024 * 1024];
+        meter.stop();
+        assertThat(meter.getPeakHeap()).isGreaterThanOrEqualTo(held.length);
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            final Long previousPeak = poolPeaks.get(pool.getName());
+            if (previousPeak != null && pool.isValid()) {
+                assertThat(pool.getPeakUsage().getUsed()).as("Peak use of " + pool.getName()).isGreaterThanOrEqualTo(previousPeak.longValue());
+            }
+        }
+    }
+}